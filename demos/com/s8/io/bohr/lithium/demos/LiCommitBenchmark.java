@@ -0,0 +1,119 @@
+package com.s8.io.bohr.lithium.demos;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import com.s8.io.bohr.lithium.branches.LiBranch;
+import com.s8.io.bohr.lithium.branches.LiOutbound;
+import com.s8.io.bohr.lithium.codebase.LiCodebase;
+import com.s8.io.bohr.lithium.demos.repo2.MyBuilding;
+import com.s8.io.bohr.lithium.demos.repo2.MyFloor;
+import com.s8.io.bohr.lithium.storage.LiBufferOutflow;
+
+
+/**
+ * <p>
+ * Compares a regular commit followed by <code>LiOutbound.pushFrame</code>
+ * (deltas built, then serialized) against a streaming commit
+ * (<code>LiBranch.commit(LiOutbound, ByteOutflow, String)</code>: values written
+ * straight to the wire, and to the serialized history record), on the same
+ * update workload: latency and bytes allocated per commit (history retained in
+ * both cases).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiCommitBenchmark {
+
+	private final static int N_FLOORS = 2000;
+
+	private final static int N_COMMITS = 200;
+
+	private final static int ROUNDS = 5;
+
+
+	public static void main(String[] args) throws Exception {
+
+		LiCodebase codebase = LiCodebase.from(MyBuilding.class);
+
+		LiBranch regular = new LiBranch("regular", codebase);
+		MyBuilding regularBuilding = create();
+		regular.expose(0, regularBuilding);
+		regular.commit();
+		LiOutbound regularOutbound = new LiOutbound(codebase);
+		LiBufferOutflow regularOutflow = new LiBufferOutflow(1 << 20);
+		regularOutbound.pushFrame(regularOutflow, regular.pullDeltas(0));
+
+		LiBranch streamed = new LiBranch("streamed", codebase);
+		MyBuilding streamedBuilding = create();
+		streamed.expose(0, streamedBuilding);
+		LiOutbound streamedOutbound = new LiOutbound(codebase);
+		LiBufferOutflow streamedOutflow = new LiBufferOutflow(1 << 20);
+		streamed.commit(streamedOutbound, streamedOutflow, null);
+
+		for(int round = 0; round < ROUNDS; round++) {
+			System.out.println("round "+round);
+
+			/* workload alone (field updates), for reference */
+			System.gc();
+			long t = System.nanoTime(), a = getAllocatedBytes();
+			for(int i = 0; i < N_COMMITS; i++) { variate(regularBuilding); }
+			print("updates only", t, a, 0);
+
+			System.gc();
+			t = System.nanoTime();
+			a = getAllocatedBytes();
+			long length = 0;
+			for(int i = 0; i < N_COMMITS; i++) {
+				variate(regularBuilding);
+				regular.commit();
+				regularOutflow.clear();
+				regularOutbound.pushFrame(regularOutflow, regular.pullDeltas(regular.getVersion() - 1));
+				length += regularOutflow.getLength();
+			}
+			print("commit + pushFrame", t, a, length);
+
+			System.gc();
+			t = System.nanoTime();
+			a = getAllocatedBytes();
+			length = 0;
+			for(int i = 0; i < N_COMMITS; i++) {
+				variate(streamedBuilding);
+				streamedOutflow.clear();
+				streamed.commit(streamedOutbound, streamedOutflow, null);
+				length += streamedOutflow.getLength();
+			}
+			print("streamed commit", t, a, length);
+		}
+	}
+
+
+	private static MyBuilding create() throws Exception {
+		MyBuilding building = new MyBuilding();
+		building.upperGroundFloors = new ArrayList<>(N_FLOORS);
+		for(int i = 0; i < N_FLOORS; i++) { building.upperGroundFloors.add(MyFloor.create()); }
+		building.nFloors = N_FLOORS;
+		building.reportFieldUpdates("n-floors", "upper-floors");
+		return building;
+	}
+
+
+	private static void variate(MyBuilding building) throws Exception {
+		for(MyFloor floor : building.upperGroundFloors) { floor.baseInit(); }
+	}
+
+
+	private static long getAllocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+	}
+
+
+	private static void print(String name, long t0, long a0, long length) {
+		double us = (double) (System.nanoTime() - t0) / N_COMMITS / 1e3;
+		double kb = (double) (getAllocatedBytes() - a0) / N_COMMITS / 1024;
+		System.out.println(String.format("\t%-20s %8.1f us/commit %8.1f kB allocated/commit (%d bytes)", name, us, kb, length / N_COMMITS));
+	}
+
+}
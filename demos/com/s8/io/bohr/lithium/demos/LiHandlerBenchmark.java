@@ -0,0 +1,164 @@
+package com.s8.io.bohr.lithium.demos;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import com.s8.io.bohr.lithium.codebase.LiCodebase;
+import com.s8.io.bohr.lithium.demos.repo2.MyBuilding;
+import com.s8.io.bohr.lithium.demos.repo2.MyEmptyFloor;
+import com.s8.io.bohr.lithium.handlers.FieldLiHandler;
+import com.s8.io.bohr.lithium.handlers.LiHandler;
+import com.s8.io.bohr.lithium.handlers.MethodHandleLiHandler;
+import com.s8.io.bohr.lithium.handlers.MethodLiHandler;
+import com.s8.io.bohr.lithium.type.LiType;
+
+
+/**
+ * <p>
+ * Compares reflective handlers and instance creation
+ * (<code>Constructor.newInstance</code>) against the default ones:
+ * </p>
+ * <ul>
+ * <li>getter / setter: <code>MethodLiHandler</code> against
+ * <code>MethodHandleLiHandler</code>, calling generated accessors with exact
+ * signatures,</li>
+ * <li>fields: reflective <code>FieldLiHandler</code> against the hidden class
+ * generated by <code>FieldLiHandler.init</code>, on a single field, then on
+ * eight fields through the same call site (as field composers / parsers do),</li>
+ * <li>instance creation: <code>Constructor.newInstance</code> against the
+ * generated instance supplier of <code>LiType</code>.</li>
+ * </ul>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiHandlerBenchmark {
+
+	private final static int N = 10_000_000;
+
+	private final static int ROUNDS = 5;
+
+
+	public static class Probe {
+
+		private double value;
+
+		public double getValue() { return value; }
+
+		public void setValue(double value) { this.value = value; }
+
+		public double a, b, c, d, e, f, g, h;
+	}
+
+
+	public static void main(String[] args) throws Exception {
+
+		Method getValue = Probe.class.getMethod("getValue");
+		Method setValue = Probe.class.getMethod("setValue", double.class);
+
+		LiHandler reflectiveMethod = new MethodLiHandler();
+		reflectiveMethod.attachGetMethod(getValue);
+		reflectiveMethod.attachSetMethod(setValue);
+		LiHandler handleMethod = new MethodHandleLiHandler();
+		handleMethod.attachGetMethod(getValue);
+		handleMethod.attachSetMethod(setValue);
+
+		String[] names = new String[] { "a", "b", "c", "d", "e", "f", "g", "h" };
+		int nFields = names.length;
+		LiHandler[] reflectiveFields = new LiHandler[nFields], generatedFields = new LiHandler[nFields];
+		for(int k = 0; k < nFields; k++) {
+			Field field = Probe.class.getField(names[k]);
+			reflectiveFields[k] = new FieldLiHandler();
+			reflectiveFields[k].attachField(field);
+			generatedFields[k] = FieldLiHandler.init(field);
+		}
+		System.out.println("generated field handler: "+generatedFields[0].getClass().getName());
+
+		LiCodebase codebase = LiCodebase.from(MyBuilding.class);
+		LiType type = codebase.getTypeByRuntimeName(MyEmptyFloor.class.getName());
+		Constructor<?> constructor = MyEmptyFloor.class.getConstructor();
+
+		Probe probe = new Probe();
+		Object[] sink = new Object[1024];
+
+		for(int round = 0; round < ROUNDS; round++) {
+			System.out.println("round "+round);
+
+			long t = System.nanoTime();
+			double sum = 0;
+			for(int i = 0; i < N; i++) {
+				reflectiveMethod.setDouble(probe, i);
+				sum += reflectiveMethod.getDouble(probe);
+			}
+			print("reflective getter/setter", t, sum);
+
+			t = System.nanoTime();
+			sum = 0;
+			for(int i = 0; i < N; i++) {
+				handleMethod.setDouble(probe, i);
+				sum += handleMethod.getDouble(probe);
+			}
+			print("handle getter/setter", t, sum);
+
+			LiHandler reflectiveField = reflectiveFields[0], generatedField = generatedFields[0];
+			t = System.nanoTime();
+			sum = 0;
+			for(int i = 0; i < N; i++) {
+				reflectiveField.setDouble(probe, i);
+				sum += reflectiveField.getDouble(probe);
+			}
+			print("reflective field", t, sum);
+
+			t = System.nanoTime();
+			sum = 0;
+			for(int i = 0; i < N; i++) {
+				generatedField.setDouble(probe, i);
+				sum += generatedField.getDouble(probe);
+			}
+			print("generated field", t, sum);
+
+			t = System.nanoTime();
+			sum = 0;
+			for(int i = 0; i < N; i++) {
+				LiHandler handler = reflectiveFields[i & 7];
+				handler.setDouble(probe, i);
+				sum += handler.getDouble(probe);
+			}
+			print("reflective field (x8)", t, sum);
+
+			t = System.nanoTime();
+			sum = 0;
+			for(int i = 0; i < N; i++) {
+				LiHandler handler = generatedFields[i & 7];
+				handler.setDouble(probe, i);
+				sum += handler.getDouble(probe);
+			}
+			print("generated field (x8)", t, sum);
+
+			t = System.nanoTime();
+			long total = 0;
+			for(int i = 0; i < N; i++) {
+				sink[i & 1023] = constructor.newInstance(new Object[]{});
+				total++;
+			}
+			print("Constructor.newInstance", t, total);
+
+			t = System.nanoTime();
+			total = 0;
+			for(int i = 0; i < N; i++) {
+				sink[i & 1023] = type.createNewInstance();
+				total++;
+			}
+			print("LiType.createNewInstance", t, total);
+		}
+	}
+
+
+	private static void print(String name, long t0, double check) {
+		double ns = (double) (System.nanoTime() - t0) / N;
+		System.out.println(String.format("\t%-28s %6.2f ns/op (%s)", name, ns, check));
+	}
+
+}
@@ -0,0 +1,151 @@
+package com.s8.io.bohr.lithium.demos;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.s8.io.bohr.lithium.branches.LiBranch;
+import com.s8.io.bohr.lithium.codebase.LiCodebase;
+import com.s8.io.bohr.lithium.demos.repo2.MyBuilding;
+import com.s8.io.bohr.lithium.demos.repo2.MyFloor;
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.storage.LiDurabilityPolicy;
+import com.s8.io.bohr.lithium.storage.LiJournal;
+
+
+/**
+ * <p>
+ * Recovery of a <code>LiJournal</code> after simulated crashes: torn tail (last
+ * record partially written), torn roll (new segment holding a partial magic),
+ * segment rolled but never written. After each crash, the journal is
+ * reopened, appended to, and reopened again: the recovered branch must match
+ * the last complete record each time.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiJournalRecovery {
+
+
+	public static void main(String[] args) throws Exception {
+
+		LiCodebase codebase = LiCodebase.from(MyBuilding.class);
+		Path directory = Files.createTempDirectory("lithium-journal");
+
+		LiBranch branch = new LiBranch("master", codebase);
+		MyBuilding building = MyBuilding.create();
+		branch.expose(0, building);
+		LiJournal journal = LiJournal.open(directory, branch, LiDurabilityPolicy.SYNC);
+		journal.setSegmentSize(1 << 12);
+		for(int i = 0; i < 8; i++) {
+			if(i > 0) { building.variate(); }
+			branch.commit();
+			journal.append();
+		}
+		long complete = branch.getVersion();
+		building.variate();
+		branch.commit();
+		journal.append();
+		journal.close();
+		System.out.println("journal written: version "+branch.getVersion()+", "+listSegments(directory).size()+" segment(s)");
+
+
+		/* torn tail: last record partially written */
+		Path last = lastSegment(directory);
+		try(FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) { channel.truncate(channel.size() - 7); }
+		long version = reopen(codebase, directory, complete, "torn tail");
+
+
+		/* torn roll: crash right after creating a new segment (partial magic) */
+		Files.write(nextSegment(directory), new byte[] { 'L', 'i' });
+		version = reopen(codebase, directory, version, "torn roll");
+
+
+		/* segment rolled, but crash before its first record */
+		Files.write(nextSegment(directory), new byte[] { 'L', 'i', 'J', 0x01 });
+		Files.write(nextSegment(directory), new byte[0]);
+		reopen(codebase, directory, version, "empty segments");
+
+		System.out.println("segments left: "+listSegments(directory).size());
+	}
+
+
+
+	/**
+	 * Reopen journal, check recovered state, append one more commit, then reopen again.
+	 *
+	 * @return the version appended
+	 * @throws Exception
+	 */
+	private static long reopen(LiCodebase codebase, Path directory, long expected, String name) throws Exception {
+		LiBranch branch = new LiBranch("master", codebase);
+		LiJournal journal = LiJournal.open(directory, branch, LiDurabilityPolicy.SYNC);
+		check(journal.getRecoveredVersion() == expected, name+": recovered version "+journal.getRecoveredVersion()+" instead of "+expected);
+
+		MyBuilding building = (MyBuilding) branch.getExposed(0);
+		building.variate();
+		branch.commit();
+		long version = journal.append();
+		journal.close();
+
+		LiBranch reopened = new LiBranch("master", codebase);
+		journal = LiJournal.open(directory, reopened, LiDurabilityPolicy.SYNC);
+		check(journal.getRecoveredVersion() == version, name+": version "+version+" not recovered after reopening");
+		check(isSame(building, (MyBuilding) reopened.getExposed(0)), name+": recovered state differs");
+		journal.close();
+
+		System.out.println(name+": recovered version "+expected+", then "+version);
+		return version;
+	}
+
+
+	private static boolean isSame(MyBuilding a, MyBuilding b) {
+		if(a.nFloors != b.nFloors || a.upperGroundFloors.size() != b.upperGroundFloors.size()) { return false; }
+		if(!isSame(a.lowerGroundFloor, b.lowerGroundFloor) || !isSame(a.groundFloor, b.groundFloor)) { return false; }
+		int n = a.upperGroundFloors.size();
+		for(int i = 0; i < n; i++) {
+			if(!isSame(a.upperGroundFloors.get(i), b.upperGroundFloors.get(i))) { return false; }
+		}
+		return true;
+	}
+
+
+	private static boolean isSame(MyFloor a, MyFloor b) {
+		return a.getClass() == b.getClass() && a.x0 == b.x0 && a.x1 == b.x1 && a.y0 == b.y0;
+	}
+
+
+	private static void check(boolean condition, String message) throws LiIOException {
+		if(!condition) { throw new LiIOException(message); }
+	}
+
+
+	private static List<Path> listSegments(Path directory) throws Exception {
+		try(Stream<Path> paths = Files.list(directory)) {
+			return paths.filter(path -> path.toString().endsWith(LiJournal.SEGMENT_EXTENSION))
+					.sorted(Comparator.comparing(Path::toString))
+					.collect(Collectors.toList());
+		}
+	}
+
+
+	private static Path lastSegment(Path directory) throws Exception {
+		List<Path> segments = listSegments(directory);
+		return segments.get(segments.size() - 1);
+	}
+
+
+	private static Path nextSegment(Path directory) throws Exception {
+		String name = lastSegment(directory).getFileName().toString();
+		long index = Long.parseLong(name.substring(0, name.length() - LiJournal.SEGMENT_EXTENSION.length()));
+		return directory.resolve(String.format("%020d", index + 1) + LiJournal.SEGMENT_EXTENSION);
+	}
+
+}
@@ -3,6 +3,7 @@
 import com.s8.io.bohr.atom.annotations.S8Field;
 import com.s8.io.bohr.atom.annotations.S8ObjectType;
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.object.LiFieldOrdinal;
 import com.s8.io.bohr.lithium.object.LiObject;
 
 
@@ -22,6 +23,16 @@ import com.s8.io.bohr.lithium.object.LiObject;
 })
 public abstract class MyFloor extends LiObject {
 
+	public @LiFieldOrdinal(name = "ceiling-height") static final int CEILING_HEIGHT = 0;
+
+	public @LiFieldOrdinal(name = "x0") static final int X0 = 1;
+
+	public @LiFieldOrdinal(name = "x1") static final int X1 = 2;
+
+	public @LiFieldOrdinal(name = "y0") static final int Y0 = 3;
+
+	public @LiFieldOrdinal(name = "y1") static final int Y1 = 4;
+
 
 	public @S8Field(name = "x0") double x0;
 
@@ -57,7 +68,7 @@ public abstract class MyFloor extends LiObject {
 		y1 = y0 + Math.random()*100;
 		ceilingHeight = Math.random();
 		
-		reportFieldUpdates("x0", "x1", "y0", "y1", "ceiling-height");
+		reportFieldUpdates(X0, X1, Y0, Y1, CEILING_HEIGHT);
 	}
 	
 
@@ -37,7 +37,7 @@ public class DebugModule {
 		
 		writer.write("<shell:>\n");
 		
-		graph.vertices.forEach((index, vertex) -> {
+		graph.vertices.forEach(vertex -> {
 			try {
 				LiType type = vertex.type;
 				LiObject object = vertex.getObject();
@@ -2,15 +2,20 @@ package com.s8.io.bohr.lithium.branches;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import com.s8.io.bohr.atom.S8BuildException;
 import com.s8.io.bohr.atom.S8Exception;
 import com.s8.io.bohr.lithium.codebase.LiCodebase;
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.exceptions.LiResyncException;
 import com.s8.io.bohr.lithium.object.LiObject;
-import com.s8.io.bytes.base64.Base64Generator;
+import com.s8.io.bohr.lithium.storage.LiBufferOutflow;
+import com.s8.io.bytes.alpha.ByteInflow;
+import com.s8.io.bytes.alpha.ByteOutflow;
 
 
 /**
@@ -41,13 +46,70 @@ public class LiBranch implements LiGraphDeltaConsumer {
 	long timestamp;
 
 
-	private final Base64Generator idxGen;
-
 	private final DebugModule debugModule;
 
 	private final LiGraph graph;
 
-	private final ArrayList<LiGraphDelta> deltas;
+	/**
+	 * <p>
+	 * Delta history (oldest first, possibly starting with a checkpoint). Slots below
+	 * <code>historyLength</code> are never overwritten: appending writes beyond it
+	 * (or in a new array when full) and compaction always allocates a new array, so
+	 * views handed out by <code>pullDeltas</code> remain valid without copying.
+	 * </p>
+	 */
+	private LiGraphDelta[] history;
+
+	private int historyLength;
+
+
+	/**
+	 * True if history does not start from a blank graph (state loaded without
+	 * history, see <code>LiSnapshotFile</code>), until next checkpoint.
+	 */
+	private boolean hasHistoryGap;
+
+
+	/**
+	 * Session of serialized history entries (see <code>LiRecordedDelta</code>),
+	 * created on first use
+	 */
+	private LiRecordSession recordSession;
+
+	/**
+	 * Reused across streamed commits
+	 */
+	private LiBufferOutflow recordBuffer;
+
+
+	/**
+	 * Records frames applied directly (<code>null</code> unless retention enabled)
+	 */
+	private LiJumpRecorder jumpRecorder;
+
+
+	/**
+	 * Applied after each commit (if any)
+	 */
+	private LiRetentionPolicy retentionPolicy;
+
+
+	/**
+	 * Versioned states, for snapshot reads (<code>null</code> unless enabled)
+	 */
+	private volatile LiVersionStore versionStore;
+
+
+	/**
+	 * Pool for applying large incoming deltas (<code>null</code> for sequential apply)
+	 */
+	private ForkJoinPool applyPool;
+
+
+	/**
+	 * Pool for publishing large commits (<code>null</code> for sequential publish)
+	 */
+	private ForkJoinPool commitPool;
 
 
 
@@ -66,9 +128,8 @@ public class LiBranch implements LiGraphDeltaConsumer {
 
 		graph = new LiGraph(this);
 		debugModule = new DebugModule(graph);
-		idxGen = new Base64Generator(id);
 
-		deltas = new ArrayList<>();
+		history = new LiGraphDelta[16];
 	}
 
 
@@ -84,48 +145,320 @@ public class LiBranch implements LiGraphDeltaConsumer {
 	@Override
 	public void pushDelta(LiGraphDelta delta) throws LiIOException {
 
+		/* operate delta immediatley */
+		if(applyPool != null) { delta.operate(graph, applyPool); } else { delta.operate(graph); }
+
 		/* save delta */
-		this.deltas.add(delta);
+		appendDelta(delta);
+
+		if(versionStore != null) {
+			try {
+				/* versioned states are recorded from object deltas */
+				if(delta instanceof LiRecordedDelta) { delta = ((LiRecordedDelta) delta).materialize(); }
+				versionStore.record(delta);
+			}
+			catch(LiIOException e) { throw e; }
+			catch(IOException e) {
+				throw new LiIOException("Failed to record version "+delta.targetVersion, e);
+			}
+		}
+	}
 
-		/* operate delta immediatley */
-		delta.operate(graph);
+
+	private void appendDelta(LiGraphDelta delta) {
+		if(historyLength == history.length) {
+			history = Arrays.copyOf(history, historyLength << 1);
+		}
+		history[historyLength++] = delta;
+	}
+
+
+	private static List<LiGraphDelta> view(LiGraphDelta[] history, int from, int to) {
+		return Collections.unmodifiableList(Arrays.asList(history).subList(from, to));
 	}
 
 
 	/**
 	 * 
-	 * @param copy
+	 * @return a (read-only) view on the whole retained history
 	 */
 	public List<LiGraphDelta> pullDeltas() {
-		List<LiGraphDelta> copy = new ArrayList<>();
-		deltas.forEach(delta -> copy.add(delta));
-		return copy;
+		return view(history, 0, historyLength);
 	}
 
 
 	/**
+	 * <p>
+	 * Deltas to be applied by a replica currently at version <code>sinceVersion</code>,
+	 * as a (read-only) view on the history. <code>sinceVersion = 0</code> stands for
+	 * a blank replica, and is served from checkpoint, if any.
+	 * </p>
+	 * <p>
+	 * Read-only: history is never modified by this call. If history does not
+	 * start from a blank graph (state loaded from a snapshot file), a blank
+	 * replica can only be served once a checkpoint has been taken (see
+	 * <code>checkpoint()</code>).
+	 * </p>
 	 * 
-	 * @return
+	 * @param sinceVersion
+	 * @return the deltas with <code>targetVersion</code> above <code>sinceVersion</code>
+	 * @throws LiResyncException if the requested deltas have been compacted away
+	 * (or have never been retained), or if <code>sinceVersion</code> is ahead of 
+	 * this branch.
+	 */
+	public List<LiGraphDelta> pullDeltas(long sinceVersion) throws LiResyncException {
+		LiGraphDelta[] history = this.history;
+		int length = historyLength;
+
+		if(hasHistoryGap && (length == 0 || sinceVersion == 0)) {
+			long availableVersion = length > 0 ? history[0].targetVersion - 1 : graph.version;
+			if(sinceVersion != availableVersion) {
+				throw new LiResyncException(sinceVersion, availableVersion, 
+						"Version "+sinceVersion+" has not been retained (oldest available: "+availableVersion+")");
+			}
+			return view(history, 0, 0);
+		}
+
+		if(length == 0 || sinceVersion == 0) { return view(history, 0, length); }
+
+		long headVersion = history[length - 1].targetVersion;
+		if(sinceVersion > headVersion) {
+			throw new LiResyncException(sinceVersion, headVersion, 
+					"Replica is ahead of branch: "+sinceVersion+" > "+headVersion);
+		}
+
+		LiGraphDelta first = history[0];
+		long availableVersion = first.isCheckpoint() ? first.targetVersion : first.targetVersion - 1;
+		if(sinceVersion < availableVersion) {
+			throw new LiResyncException(sinceVersion, availableVersion, 
+					"Version "+sinceVersion+" has been compacted away (oldest available: "+availableVersion+")");
+		}
+
+		/* binary search of the first delta beyond sinceVersion (versions are strictly increasing) */
+		int low = 0, high = length;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(history[mid].targetVersion <= sinceVersion) { low = mid + 1; } else { high = mid; }
+		}
+		return view(history, low, length);
+	}
+
+
+	/**
+	 * Replace the whole history by a checkpoint of the live graph (at current
+	 * version), so that blank replicas can be served again (e.g. after loading a
+	 * snapshot file). To be called by the writer thread, right after a commit.
+	 * 
+	 * @throws IOException if graph has unpublished changes
+	 */
+	public void checkpoint() throws IOException {
+		if(graph.hasUnpublishedChanges()) {
+			throw new LiIOException("Graph has unpublished changes: commit before checkpointing branch: "+id);
+		}
+		if(graph.version == 0) { return; }
+
+		LiGraphDelta checkpoint = graph.snapshot();
+		if(historyLength > 0) {
+			LiGraphDelta last = history[historyLength - 1];
+			if(last.hasTimestamp()) { checkpoint.setTimestamp(last.getTimestamp()); }
+		}
+
+		/* never modify current array in place (might be viewed) */
+		LiGraphDelta[] compacted = new LiGraphDelta[16];
+		compacted[0] = checkpoint;
+		history = compacted;
+		historyLength = 1;
+		hasHistoryGap = false;
+	}
+
+
+	/**
+	 * 
+	 * @param pool the pool used to apply large pushed deltas (see 
+	 * <code>LiGraphDelta.operate(LiGraph, ForkJoinPool)</code>), or <code>null</code>
+	 * for sequential apply.
 	 */
-	public String createNewIndex() {
-		return idxGen.generate(++highestIndex);
+	public void setApplyPool(ForkJoinPool pool) {
+		this.applyPool = pool;
 	}
 
 
+	/**
+	 * 
+	 * @param pool the pool used to publish vertices on commit (see 
+	 * <code>LiGraph.produceDiff(ForkJoinPool)</code>), or <code>null</code> for 
+	 * sequential publish. Resulting deltas are identical.
+	 */
+	public void setCommitPool(ForkJoinPool pool) {
+		this.commitPool = pool;
+	}
 
 
+	/**
+	 * 
+	 * @return the version of the graph
+	 */
+	public long getVersion() {
+		return graph.version;
+	}
+
+
+	/**
+	 * 
+	 * @param policy the retention policy to be applied after each commit, or 
+	 * <code>null</code> to keep the whole history.
+	 */
+	public void setRetentionPolicy(LiRetentionPolicy policy) {
+		this.retentionPolicy = policy;
+	}
+
+
+	/**
+	 * 
+	 * @param isRetaining if true, each jump applied by <code>applyFrame</code>
+	 * is retained in history (encoded again, in the record session, from the
+	 * applied objects). Otherwise (default), history restarts after each applied
+	 * frame.
+	 */
+	public void setRetainingAppliedFrames(boolean isRetaining) {
+		jumpRecorder = isRetaining ? new LiJumpRecorder(getRecordSession(), recordBuffer, this::appendDelta) : null;
+	}
+
+
+	/**
+	 * <p>
+	 * Start recording versioned states, so that readers can pin a version (see
+	 * <code>pin()</code>) while the writer keeps committing. Field values are
+	 * then copied at each commit (or received delta), for changed fields only.
+	 * </p>
+	 * <p>
+	 * To be called by the writer thread, with no unpublished changes.
+	 * </p>
+	 * 
+	 * @throws IOException
+	 */
+	public void enableSnapshots() throws IOException {
+		if(versionStore == null) {
+			graph.materializeAll();
+			versionStore = new LiVersionStore(graph);
+		}
+	}
+
+
+	/**
+	 * Thread-safe.
+	 * 
+	 * @return a read-only snapshot of the last committed version (to be closed after use)
+	 * @throws LiIOException if snapshots have not been enabled
+	 */
+	public LiSnapshot pin() throws LiIOException {
+		LiVersionStore store = versionStore;
+		if(store == null) { throw new LiIOException("Snapshots are not enabled on branch: "+id); }
+		return store.pin();
+	}
+
+
+	/**
+	 * Collapse the history up to <code>version</code> into a single checkpoint
+	 * delta (CREATE/EXPOSE only). Deltas after <code>version</code> are retained as
+	 * is.
+	 * 
+	 * @param version
+	 * @throws IOException
+	 */
+	public void compact(long version) throws IOException {
+		if(version > graph.version) {
+			throw new LiIOException("Cannot compact beyond current version: "+version+" > "+graph.version);
+		}
+
+		/* find last delta to be collapsed */
+		int n = historyLength, cut = -1;
+		while(cut + 1 < n && history[cut + 1].targetVersion <= version) { cut++; }
+
+		/* nothing to collapse */
+		if(cut < 0 || (cut == 0 && history[0].isCheckpoint())) { return; }
+
+		LiGraphDelta last = history[cut];
+		if(last.targetVersion != version) {
+			throw new LiIOException("No delta in history targets version: "+version);
+		}
+
+		LiGraphDelta checkpoint;
+		if(version == graph.version && !graph.hasUnpublishedChanges()) {
+			/* compact from live graph */
+			checkpoint = graph.snapshot();
+		}
+		else {
+			if(hasHistoryGap) {
+				throw new LiIOException("Cannot replay history not starting from a blank graph (version "+version+")");
+			}
+			/* replay collapsed part of history on a scratch branch */
+			LiBranch scratch = new LiBranch(id, codebase);
+			for(int i = 0; i <= cut; i++) { history[i].operate(scratch.graph); }
+			checkpoint = scratch.graph.snapshot();
+		}
+		if(last.hasTimestamp()) { checkpoint.setTimestamp(last.getTimestamp()); }
+
+		/* never modify current array in place (might be viewed) */
+		int retained = n - cut;
+		LiGraphDelta[] compacted = new LiGraphDelta[Math.max(16, Integer.highestOneBit(retained) << 1)];
+		compacted[0] = checkpoint;
+		System.arraycopy(history, cut + 1, compacted, 1, retained - 1);
+		history = compacted;
+		historyLength = retained;
+		hasHistoryGap = false;
+	}
+
+
+	/**
+	 * 
+	 * @param policy
+	 * @throws IOException
+	 */
+	public void compact(LiRetentionPolicy policy) throws IOException {
+		long version = policy.getCompactionVersion(pullDeltas());
+
+		/* history not starting from a blank graph: only the live graph can be checkpointed */
+		if(version > 0 && (!hasHistoryGap || version == graph.version)) { compact(version); }
+	}
+
+
+
+	/**
+	 * 
+	 * @return a newly allocated vertex index (see <code>LiIndexCodec</code> for <code>String</code> form)
+	 */
+	public long createNewIndex() {
+		return ++highestIndex;
+	}
+
+
+
+
+
+
+	/**
+	 * Materialize all vertices of a lazy-opened branch (see 
+	 * <code>LiSnapshotFile.open</code>), then release its snapshot file. No-op 
+	 * otherwise.
+	 * 
+	 * @throws LiIOException
+	 */
+	public void materializeAll() throws LiIOException {
+		graph.materializeAll();
+	}
 
 
 	/**
 	 * 
 	 * @return
+	 * @throws LiIOException
 	 */
-	public LiObject[] getCurrentExposure() {
-		LiVertex[] vertices = graph.exposure;
-		int n = vertices.length;
+	public LiObject[] getCurrentExposure() throws LiIOException {
+		int n = LiGraph.EXPOSURE_RANGE;
 		LiObject[] objects = new LiObject[n];
 		for(int i = 0; i<n; i++) {
-			LiVertex vertex = vertices[i];
+			LiVertex vertex = graph.getExposed(i);
 			objects[i] = (vertex != null) ? vertex.object : null; 
 		}
 		return objects;
@@ -136,9 +469,10 @@ public class LiBranch implements LiGraphDeltaConsumer {
 	 * 
 	 * @param slot
 	 * @return
+	 * @throws LiIOException
 	 */
-	public LiObject getExposed(int slot) {
-		LiVertex vertex = graph.exposure[slot];
+	public LiObject getExposed(int slot) throws LiIOException {
+		LiVertex vertex = graph.getExposed(slot);
 		return vertex != null ? vertex.object : null;
 	}
 	
@@ -169,6 +503,30 @@ public class LiBranch implements LiGraphDeltaConsumer {
 	
 
 
+	/**
+	 * Remove all vertices no longer reachable from exposure. Removal is published 
+	 * with next commit.
+	 * 
+	 * @return the number of removed vertices
+	 * @throws LiIOException
+	 */
+	public int collect() throws LiIOException {
+		return graph.collector.collect();
+	}
+
+
+	/**
+	 * Incremental version of <code>collect()</code>, to be interleaved with commits.
+	 * 
+	 * @param budget max number of vertices / table slots processed by this call
+	 * @return true if a collection cycle has been completed by this call
+	 * @throws LiIOException
+	 */
+	public boolean collect(int budget) throws LiIOException {
+		return graph.collector.step(budget);
+	}
+
+
 	/**
 	 * 
 	 * @param writer
@@ -186,9 +544,149 @@ public class LiBranch implements LiGraphDeltaConsumer {
 	 * @throws IOException
 	 */
 	public void commit() throws S8BuildException, S8Exception, IOException {
-		deltas.add(graph.produceDiff());
+		commit(null);
 	}
 
 
+	/**
+	 * 
+	 * @param comment (optional)
+	 * @throws S8BuildException
+	 * @throws S8Exception
+	 * @throws IOException
+	 */
+	public void commit(String comment) throws S8BuildException, S8Exception, IOException {
+		LiGraphDelta delta = commitPool != null ? graph.produceDiff(commitPool) : graph.produceDiff();
+		delta.setTimestamp(System.currentTimeMillis());
+		if(comment != null) { delta.setComment(comment); }
+		appendDelta(delta);
+
+		if(versionStore != null) { versionStore.record(delta); }
+
+		if(retentionPolicy != null) { compact(retentionPolicy); }
+	}
+
+
+
+
+
+	/**
+	 * <p>
+	 * Streaming commit: unpublished changes are written straight to
+	 * <code>outflow</code> as a frame (identical to the one
+	 * <code>outbound.pushFrame</code> would produce for the delta of a regular
+	 * commit), through the composers of <code>outbound</code>. No delta is built:
+	 * the jump is retained in history in serialized form (see 
+	 * <code>LiRecordedDelta</code>), written along with the frame, so that
+	 * <code>pullDeltas</code> (and a journal) keep serving this version.
+	 * </p>
+	 * <p>
+	 * Not available with snapshots enabled (versioned states are recorded from
+	 * deltas).
+	 * </p>
+	 * 
+	 * @param outbound
+	 * @param outflow
+	 * @param comment (optional)
+	 * @throws S8BuildException
+	 * @throws S8Exception
+	 * @throws IOException
+	 */
+	public void commit(LiOutbound outbound, ByteOutflow outflow, String comment) throws S8BuildException, S8Exception, IOException {
+		if(versionStore != null) {
+			throw new LiIOException("Streaming commit is not available with snapshots enabled, on branch: "+id);
+		}
+
+		LiGraphDelta header = new LiGraphDelta(graph.version + 1, 0);
+		header.setTimestamp(System.currentTimeMillis());
+		if(comment != null) { header.setComment(comment); }
+
+		LiRecordSession session = getRecordSession();
+		LiBufferOutflow record = recordBuffer;
+		record.clear();
+		outbound.pushFrame(outflow, graph, session, record, header);
+		appendDelta(new LiRecordedDelta(header, session, record.toByteArray()));
+
+		if(retentionPolicy != null) { compact(retentionPolicy); }
+	}
+
+
+	private LiRecordSession getRecordSession() {
+		if(recordSession == null) {
+			recordSession = new LiRecordSession(codebase);
+			recordBuffer = new LiBufferOutflow();
+		}
+		return recordSession;
+	}
+
+
+	/**
+	 * <p>
+	 * Direct-apply version of <code>inbound.pullFrame(inflow, this)</code>, for
+	 * replicas that only apply frames: values are set straight into objects as
+	 * they are parsed (see <code>LiInbound.applyFrame</code>), without building
+	 * deltas. History is not retained by default (pulling from a version 
+	 * prior to the applied frame then requires a resync). If enabled (see
+	 * <code>setRetainingAppliedFrames</code>), each applied jump is retained as a
+	 * serialized entry (see <code>LiRecordedDelta</code>), with its timestamp and
+	 * comment, as with <code>commit(LiOutbound, ByteOutflow, String)</code>.
+	 * </p>
+	 * <p>
+	 * Not available with snapshots enabled (versioned states are recorded from
+	 * deltas).
+	 * </p>
+	 * 
+	 * @param inbound
+	 * @param inflow
+	 * @throws IOException
+	 */
+	public void applyFrame(LiInbound inbound, ByteInflow inflow) throws IOException {
+		checkDirectApply();
+
+		if(jumpRecorder != null) {
+			inbound.applyFrame(inflow, graph, jumpRecorder);
+			if(retentionPolicy != null) { compact(retentionPolicy); }
+		}
+		else {
+			long version = graph.version;
+			inbound.applyFrame(inflow, graph);
+			if(graph.version != version && (historyLength > 0 || !hasHistoryGap)) { restartHistory(); }
+		}
+	}
+
+
+	/**
+	 * Take ownership of received state: vertices received so far (pulled or 
+	 * applied frames, journal replay, snapshot file) are considered published, 
+	 * so that local changes made to them from now on are committed as updates.
+	 * To be called by the writer thread, before any local change.
+	 * 
+	 * @throws LiIOException
+	 */
+	public void adoptReceived() throws LiIOException {
+		graph.markReceived();
+	}
+
+
+	/**
+	 * 
+	 * @throws LiIOException if versions cannot be applied without deltas
+	 */
+	void checkDirectApply() throws LiIOException {
+		if(versionStore != null) {
+			throw new LiIOException("Direct apply is not available with snapshots enabled, on branch: "+id);
+		}
+	}
+
+
+	/**
+	 * History restarts after current version (state reached without history)
+	 */
+	void restartHistory() {
+		/* never modify current array in place (might be viewed) */
+		history = new LiGraphDelta[16];
+		historyLength = 0;
+		hasHistoryGap = true;
+	}
 
 }
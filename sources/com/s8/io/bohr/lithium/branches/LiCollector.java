@@ -0,0 +1,300 @@
+package com.s8.io.bohr.lithium.branches;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.object.LiObject;
+import com.s8.io.bohr.lithium.type.GraphCrawler;
+import com.s8.io.bohr.lithium.type.LiType;
+
+
+/**
+ * <h1>Mark-and-sweep collection of unreachable vertices</h1>
+ * <p>
+ * Roots are the exposure slots of the graph. Traversal relies on
+ * <code>LiType.sweep</code>. Vertices not reached are removed from the graph
+ * and their removal is published with the next diff (as
+ * <code>RemoveLiObjectDelta</code>), so that replicas release them as well.
+ * </p>
+ * <p>
+ * On a lazy-opened graph (see <code>LiSnapshotFile.open</code>), collection
+ * does not materialize anything: records not materialized yet are considered
+ * live, and vertices materialized from the file are roots as long as some
+ * records are left.
+ * </p>
+ * <p>
+ * Collection can be run at once (<code>collect()</code>) or incrementally
+ * (<code>step(budget)</code>), the budget being the number of vertices scanned
+ * (marking) or table slots visited (sweeping) per step. While a cycle is in
+ * progress (marking or sweeping), vertices created, exposed or reported as
+ * changed are shaded (i.e. marked and pushed back for scanning), so that a
+ * vertex re-referenced after having been scanned is still reached. During
+ * sweeping, shaded vertices are scanned before the sweep resumes, so a vertex
+ * dropped then re-attached while the sweep is in progress is kept (along with
+ * whatever it reaches) as long as the sweep has not yet visited its slot.
+ * </p>
+ * <p>
+ * A vertex already swept is detached (<code>S8_vertex</code> cleared) and its
+ * removal published: if re-attached afterwards, its object is resolved as a new
+ * vertex (new index, full state published). Fields of surviving vertices found
+ * referencing such an object while sweeping are published again (see
+ * <code>rescan</code>), so that replicas never keep a reference to a removed
+ * vertex.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiCollector {
+
+
+	private enum Phase {
+		IDLE, MARKING, SWEEPING;
+	}
+
+
+	private final LiGraph graph;
+
+
+	private Phase phase = Phase.IDLE;
+
+
+	/**
+	 * Current mark: a vertex is marked for this cycle iff its mark is equal to epoch.
+	 */
+	int epoch = 0;
+
+
+	/**
+	 * Gray vertices (marked, but not yet scanned)
+	 */
+	private final ArrayDeque<LiVertex> grays = new ArrayDeque<>();
+
+
+	/**
+	 * Objects not yet bound to a vertex (created since last commit), traversed on the fly
+	 */
+	private final ArrayDeque<LiObject> unboundGrays = new ArrayDeque<>();
+
+	private final Set<LiObject> unboundMarks = Collections.newSetFromMap(new IdentityHashMap<>());
+
+
+	/**
+	 * Next slot of the vertex table to be swept
+	 */
+	private int sweepCursor;
+
+
+	/**
+	 * Number of vertices removed during the current (or last) cycle
+	 */
+	private int nRemoved;
+
+
+	/**
+	 * Set by crawler when reaching an object not bound to a vertex
+	 */
+	private boolean hasReachedUnbound;
+
+
+	private final GraphCrawler crawler = new GraphCrawler() {
+
+		@Override
+		public void accept(LiObject object) {
+			LiVertex vertex = object.S8_vertex;
+			if(vertex != null) {
+				if(vertex.mark != epoch) {
+					vertex.mark = epoch;
+					vertex.isShaded = true;
+					grays.push(vertex);
+				}
+			}
+			else {
+				hasReachedUnbound = true;
+				if(unboundMarks.add(object)) { unboundGrays.push(object); }
+			}
+		}
+	};
+
+
+
+	public LiCollector(LiGraph graph) {
+		super();
+		this.graph = graph;
+	}
+
+
+
+	/**
+	 *
+	 * @return true if a collection cycle is in progress
+	 */
+	public boolean isCollecting() {
+		return phase != Phase.IDLE;
+	}
+
+
+	/**
+	 * Run a full collection cycle (after completing the current one, if any).
+	 *
+	 * @return the number of vertices removed by the full cycle
+	 * @throws LiIOException
+	 */
+	public int collect() throws LiIOException {
+		while(isCollecting()) { step(Integer.MAX_VALUE); }
+		while(!step(Integer.MAX_VALUE));
+		return nRemoved;
+	}
+
+
+	/**
+	 * Perform a bounded amount of collection work.
+	 *
+	 * @param budget the maximum number of vertices scanned / slots swept by this step
+	 * @return true if this step has completed a cycle
+	 * @throws LiIOException
+	 */
+	public boolean step(int budget) throws LiIOException {
+		if(budget <= 0) { throw new LiIOException("Collection budget must be strictly positive"); }
+
+		switch(phase) {
+
+		case IDLE:
+			start();
+			return false;
+
+		case MARKING:
+			if(mark(budget)) {
+				unboundMarks.clear();
+				sweepCursor = 0;
+				phase = Phase.SWEEPING;
+			}
+			return false;
+
+		case SWEEPING:
+			/* vertices shaded since last step must be scanned before sweeping resumes */
+			if(!grays.isEmpty() || !unboundGrays.isEmpty()) {
+				if(mark(budget)) { unboundMarks.clear(); }
+				return false;
+			}
+			sweepCursor = graph.vertices.removeIf(sweepCursor, budget, this::collectIfUnmarked);
+			if(sweepCursor < 0) {
+				phase = Phase.IDLE;
+				return true;
+			}
+			return false;
+
+		default: throw new LiIOException("Unsupported phase: "+phase);
+		}
+	}
+
+
+
+	private void start() throws LiIOException {
+
+		epoch++;
+		nRemoved = 0;
+
+		/* exposure not materialized yet is not in graph.exposure */
+		LiVertex[] exposure = graph.exposure;
+		int n = exposure.length;
+		for(int slot = 0; slot < n; slot++) {
+			if(exposure[slot] != null) { crawler.accept(exposure[slot].object); }
+		}
+
+		/* lazy-opened graph: records not materialized yet are live, and so is 
+		 * whatever they might reference, i.e. any vertex materialized from file */
+		LiSnapshotFile.LazySource source = graph.lazySource;
+		if(source != null) { source.forEachMaterialized(vertex -> crawler.accept(vertex.object)); }
+
+		phase = Phase.MARKING;
+	}
+
+
+
+	/**
+	 *
+	 * @param budget
+	 * @return true if marking is complete
+	 * @throws LiIOException
+	 */
+	private boolean mark(int budget) throws LiIOException {
+		int count = 0;
+		while(count < budget) {
+			LiVertex vertex;
+			LiObject object;
+			if((vertex = grays.poll()) != null) {
+				if(phase == Phase.SWEEPING && vertex.isPublished()) { rescan(vertex); }
+				else { vertex.type.sweep(vertex.object, crawler); }
+				vertex.isShaded = false;
+			}
+			else if((object = unboundGrays.poll()) != null) {
+				LiType type = graph.getCodebase().getType(object);
+				if(type == null) {
+					throw new LiIOException("Type "+object.getClass().getName()+" is unknown from this branch codebase.");
+				}
+				type.sweep(object, crawler);
+			}
+			else {
+				return true;
+			}
+			count++;
+		}
+		return false;
+	}
+
+
+
+	/**
+	 * Scan of a published vertex while sweeping: fields reaching an object not 
+	 * bound to a vertex (possibly swept by this cycle, with its removal already 
+	 * published) are flagged for publication, so that replicas resolve the object 
+	 * under its new vertex.
+	 * 
+	 * @param vertex
+	 * @throws LiIOException
+	 */
+	private void rescan(LiVertex vertex) throws LiIOException {
+		LiType type = vertex.type;
+		int nFields = type.getNumberOfFields();
+		for(int ordinal = 0; ordinal < nFields; ordinal++) {
+			hasReachedUnbound = false;
+			type.getField(ordinal).sweep(vertex.object, crawler);
+			if(hasReachedUnbound) { vertex.invalidate(ordinal); }
+		}
+	}
+
+
+
+	private boolean collectIfUnmarked(LiVertex vertex) {
+		if(vertex.mark != epoch) {
+			graph.onCollected(vertex);
+			nRemoved++;
+			return true;
+		}
+		else {
+			return false;
+		}
+	}
+
+
+
+	/**
+	 * Write barrier: vertex state has changed (or vertex has been created / exposed)
+	 * while a cycle is in progress, so (re-)scan it.
+	 *
+	 * @param vertex
+	 */
+	void shade(LiVertex vertex) {
+		if(phase != Phase.IDLE && !vertex.isShaded) {
+			vertex.mark = epoch;
+			vertex.isShaded = true;
+			grays.push(vertex);
+		}
+	}
+
+}
@@ -1,21 +1,25 @@
 package com.s8.io.bohr.lithium.branches;
 
 import java.io.IOException;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 
+import com.s8.io.bohr.atom.BOHR_Keywords;
 import com.s8.io.bohr.atom.S8BuildException;
 import com.s8.io.bohr.atom.S8Exception;
 import com.s8.io.bohr.lithium.codebase.LiCodebase;
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
 import com.s8.io.bohr.lithium.object.ExposeLiObjectDelta;
 import com.s8.io.bohr.lithium.object.LiObject;
+import com.s8.io.bohr.lithium.object.LiObjectDelta;
+import com.s8.io.bohr.lithium.object.RemoveLiObjectDelta;
+import com.s8.io.bohr.lithium.storage.LiBufferOutflow;
 import com.s8.io.bohr.lithium.type.BuildScope;
+import com.s8.io.bohr.lithium.type.GraphCrawler;
 import com.s8.io.bohr.lithium.type.ResolveScope;
+import com.s8.io.bytes.alpha.ByteOutflow;
 
 public class LiGraph {
 
@@ -32,7 +36,7 @@ public class LiGraph {
 	/**
 	 * The interior mapping
 	 */
-	public final Map<String, LiVertex> vertices;
+	public final LiVertexTable vertices;
 
 
 	final LiVertex[] exposure;
@@ -40,10 +44,45 @@ public class LiGraph {
 
 	private boolean hasUnpublishedChanges = false;
 
-	private final Deque<LiVertex> unpublishedVertices = new LinkedList<LiVertex>();
+	/**
+	 * Unpublished vertices, as an intrusive FIFO list (threaded through 
+	 * <code>LiVertex.nextUnpublished</code>): no allocation, no duplicates.
+	 */
+	private LiVertex unpublishedHead, unpublishedTail;
+
+	private int nUnpublishedVertices;
+
+
+	/**
+	 * Unpublished exposure slots, as a bitmask
+	 */
+	private int unpublishedSlotExposure;
+
+
+	/**
+	 * Vertices collected since last diff, to be advertised as removed
+	 */
+	private final List<LiVertex> unpublishedRemovals = new ArrayList<>();
+
+
+	/**
+	 * Published vertices of tracked types (see <code>LiType.setTracked</code>)
+	 */
+	private final List<LiVertex> trackedVertices = new ArrayList<>();
+
+
+	/**
+	 * 
+	 */
+	final LiCollector collector;
 
 
-	private final Set<Integer> unpublishedSlotExposure = new HashSet<>();
+	/**
+	 * Source of the vertices not materialized yet, for a lazy-opened graph (see 
+	 * <code>LiSnapshotFile.open</code>). <code>null</code> otherwise, or once 
+	 * all vertices have been materialized.
+	 */
+	LiSnapshotFile.LazySource lazySource;
 
 
 
@@ -67,7 +106,9 @@ public class LiGraph {
 		// exposure
 		exposure = new LiVertex[EXPOSURE_RANGE];
 
-		vertices = new HashMap<String, LiVertex>();
+		vertices = new LiVertexTable();
+
+		collector = new LiCollector(this);
 	}
 
 
@@ -80,20 +121,107 @@ public class LiGraph {
 	}
 
 
-	public LiVertex getVertex(String id) {
-		return vertices.get(id);
+	/**
+	 * 
+	 * @param id
+	 * @return the vertex (materialized if graph is lazy-opened), <code>null</code> if none
+	 * @throws LiIOException
+	 */
+	public LiVertex getVertex(String id) throws LiIOException {
+		LiVertex vertex = vertices.get(id);
+		if(vertex == null && lazySource != null) { vertex = lazySource.fault(id); }
+		return vertex;
 	}
 
 
-	public void removeVertex(String id) {
-		vertices.remove(id);
+	/**
+	 * 
+	 * @param index
+	 * @return the vertex (materialized if graph is lazy-opened), <code>null</code> if none
+	 * @throws LiIOException
+	 */
+	public LiVertex getVertex(long index) throws LiIOException {
+		LiVertex vertex = vertices.get(index);
+		if(vertex == null && lazySource != null) { vertex = lazySource.fault(LiIndexCodec.encode(index)); }
+		return vertex;
+	}
+
+
+	/**
+	 * 
+	 * @param slot
+	 * @return the vertex exposed in <code>slot</code> (materialized if graph is lazy-opened)
+	 * @throws LiIOException
+	 */
+	LiVertex getExposed(int slot) throws LiIOException {
+		if(lazySource != null) { lazySource.faultExposure(slot); }
+		return exposure[slot];
+	}
+
+
+	/**
+	 * Materialize all vertices (no-op unless graph is lazy-opened)
+	 * 
+	 * @throws LiIOException
+	 */
+	void materializeAll() throws LiIOException {
+		if(lazySource != null) { lazySource.materializeAll(); }
+	}
+
+
+	/**
+	 * Remove vertex (as instructed by a remote delta)
+	 * @param id
+	 */
+	public void removeVertex(String id) throws LiIOException {
+		LiVertex vertex = vertices.remove(id);
+		if(vertex != null) { vertex.detach(); }
+		else if(lazySource != null) { lazySource.discard(id); }
+	}
+
+
+	/**
+	 * Remove vertex (as instructed by a remote delta)
+	 * @param index
+	 */
+	public void removeVertex(long index) throws LiIOException {
+		LiVertex vertex = vertices.remove(index);
+		if(vertex != null) { vertex.detach(); }
+		else if(lazySource != null) { lazySource.discard(LiIndexCodec.encode(index)); }
+	}
+
+
+	/**
+	 * 
+	 * @return the collector of unreachable vertices of this graph
+	 */
+	public LiCollector getCollector() {
+		return collector;
+	}
+
+
+	/**
+	 * Called by collector on vertex removed from table
+	 * @param vertex
+	 */
+	void onCollected(LiVertex vertex) {
+		boolean isPublished = vertex.isPublished();
+		vertex.detach();
+
+		/* no need to advertise vertices never published */
+		if(isPublished) {
+			unpublishedRemovals.add(vertex);
+			hasUnpublishedChanges = true;
+		}
 	}
 
 
 	public void expose(int slot, LiObject object) throws LiIOException {
+		if(lazySource != null) { lazySource.discardExposure(slot); }
 		if(object != null) {
 			LiVertex vertex = resolveVertex(object);
-			exposure[slot] = vertex;	
+			exposure[slot] = vertex;
+			collector.shade(vertex);
 		}
 		else {
 			exposure[slot] = null;
@@ -102,8 +230,15 @@ public class LiGraph {
 	}
 
 
-	public LiObject retrieveObject(String index) {
-		return vertices.get(index).object;
+	public LiObject retrieveObject(String index) throws LiIOException {
+		LiVertex vertex = getVertex(index);
+		return vertex != null ? vertex.object : null;
+	}
+
+
+	public LiObject retrieveObject(long index) throws LiIOException {
+		LiVertex vertex = getVertex(index);
+		return vertex != null ? vertex.object : null;
 	}
 
 
@@ -112,8 +247,9 @@ public class LiGraph {
 	public BuildScope createBuildScope() {
 		return new BuildScope() {
 			@Override
-			public LiObject retrieveObject(String index) {
-				return vertices.get(index).object;
+			public LiObject retrieveObject(String index) throws LiIOException {
+				LiVertex vertex = getVertex(index);
+				return vertex != null ? vertex.object : null;
 			}
 		};
 	}
@@ -125,7 +261,7 @@ public class LiGraph {
 		@Override
 		public String resolveId(LiObject object) throws LiIOException {
 			if(object != null) {
-				return append(null, object).id;
+				return append(null, object).getId();
 			}
 			else {
 				return null;
@@ -148,18 +284,21 @@ public class LiGraph {
 		if(object == null) { throw new LiIOException("Cannot append null obejct"); }
 
 		/* retrieve object vertex */
-		LiVertex vertex = (LiVertex) object.S8_vertex;
+		LiVertex vertex = object.S8_vertex;
 
 		if(vertex == null) {
 
 			/* if index is null, assigned a newly generated one */
 			boolean isCreating;
 			if(isCreating = (id == null)){
-				id = branch.createNewIndex();
+				vertex = new LiVertex(this, branch.createNewIndex(), object);
 			}
+			else {
+				vertex = new LiVertex(this, id, object);
 
-			/* create vertex */
-			vertex = new LiVertex(this, id, object);
+				/* keep index generation clear of received indices */
+				if(vertex.index > branch.highestIndex) { branch.highestIndex = vertex.index; }
+			}
 
 			/* assign newly created vertex */
 			object.S8_vertex = vertex;
@@ -167,8 +306,11 @@ public class LiGraph {
 			/* newly created vertex, so report activity */
 			if(isCreating) { reportCreate(vertex); }
 
+			/* allocated during marking, so must be scanned */
+			collector.shade(vertex);
+
 			/* register vertex */
-			vertices.put(id, vertex);
+			vertices.put(vertex);
 		}
 
 		return vertex;
@@ -179,20 +321,50 @@ public class LiGraph {
 
 
 	public void reportExpose(int slot) {
-		unpublishedSlotExposure.add(slot);
+		unpublishedSlotExposure |= 1 << slot;
 		hasUnpublishedChanges = true;
 	}
 
 
 	public void reportCreate(LiVertex vertex) {
-		unpublishedVertices.add(vertex);
+		enqueueUnpublished(vertex);
 		hasUnpublishedChanges = true;
 	}
 
 
 	public void reportUpdate(LiVertex vertex) {
 		hasUnpublishedChanges = true;
-		unpublishedVertices.add(vertex);
+		enqueueUnpublished(vertex);
+	}
+
+
+	/**
+	 * Append to unpublished list (if not already in it)
+	 * @param vertex
+	 */
+	private void enqueueUnpublished(LiVertex vertex) {
+		if(vertex.isQueued) { return; }
+		vertex.isQueued = true;
+		if(unpublishedTail != null) { unpublishedTail.nextUnpublished = vertex; } else { unpublishedHead = vertex; }
+		unpublishedTail = vertex;
+		nUnpublishedVertices++;
+	}
+
+
+	/**
+	 * 
+	 * @return head of unpublished list (removed from list), <code>null</code> if empty
+	 */
+	private LiVertex pollUnpublished() {
+		LiVertex vertex = unpublishedHead;
+		if(vertex != null) {
+			unpublishedHead = vertex.nextUnpublished;
+			if(unpublishedHead == null) { unpublishedTail = null; }
+			vertex.nextUnpublished = null;
+			vertex.isQueued = false;
+			nUnpublishedVertices--;
+		}
+		return vertex;
 	}
 
 
@@ -202,6 +374,33 @@ public class LiGraph {
 	}
 
 
+	void track(LiVertex vertex) {
+		trackedVertices.add(vertex);
+	}
+
+
+	/**
+	 * Compare tracked vertices against their shadows (dropping detached ones)
+	 * @throws LiIOException
+	 */
+	private void detectChanges() throws LiIOException {
+		List<LiVertex> tracked = trackedVertices;
+		int n = tracked.size(), i = 0;
+		while(i < n) {
+			LiVertex vertex = tracked.get(i);
+			if(vertex.isDetached()) {
+				/* swap-remove */
+				tracked.set(i, tracked.get(--n));
+				tracked.remove(n);
+			}
+			else {
+				vertex.detectChanges();
+				i++;
+			}
+		}
+	}
+
+
 	/**
 	 * 
 	 * @param outflow
@@ -211,38 +410,267 @@ public class LiGraph {
 	 */
 	public LiGraphDelta produceDiff() throws S8BuildException, S8Exception, IOException {
 
+		if(!trackedVertices.isEmpty()) { detectChanges(); }
+
 		if(!hasUnpublishedChanges) {
 			// TODO
 		}
 
-		LiGraphDelta branchDelta = new LiGraphDelta(version+1);
+		LiGraphDelta branchDelta = new LiGraphDelta(version+1, nUnpublishedVertices + Integer.bitCount(unpublishedSlotExposure) + unpublishedRemovals.size());
+		version++;
+
+
+		LiVertex.Sink sink = new LiVertex.DeltaSink(branchDelta.objectDeltas);
+		LiVertex vertex;
+		while((vertex = pollUnpublished()) != null) {
+			vertex.publish(sink, resolveScope, true);
+		}
+
+		publishExposureAndRemovals(branchDelta);
+
+		return branchDelta;
+	}
+
+
+	/**
+	 * <p>
+	 * Parallel version of <code>produceDiff()</code>, with identical result:
+	 * </p>
+	 * <ol>
+	 * <li>Sequentially: unpublished vertices are bound (see
+	 * <code>LiVertex.bind</code>), so that newly referenced objects get the same
+	 * indices as with sequential publishing.</li>
+	 * <li>Concurrently: vertices are published by chunks (graph is only read).</li>
+	 * <li>Object deltas of chunks are concatenated in order.</li>
+	 * </ol>
+	 * 
+	 * @param pool
+	 * @return
+	 * @throws S8BuildException
+	 * @throws S8Exception
+	 * @throws IOException
+	 */
+	public LiGraphDelta produceDiff(ForkJoinPool pool) throws S8BuildException, S8Exception, IOException {
+		int parallelism = pool.getParallelism();
+		if(parallelism < 2) { return produceDiff(); }
+
+		if(!trackedVertices.isEmpty()) { detectChanges(); }
+
+		LiGraphDelta branchDelta = new LiGraphDelta(version+1, nUnpublishedVertices + Integer.bitCount(unpublishedSlotExposure) + unpublishedRemovals.size());
+		version++;
+
+		/* <binding> */
+		List<LiVertex> publishables = new ArrayList<>(nUnpublishedVertices);
+		LiIOException[] failure = new LiIOException[1];
+		GraphCrawler binder = object -> {
+			try {
+				if(object.S8_vertex == null) { append(null, object); }
+			}
+			catch (LiIOException e) {
+				if(failure[0] == null) { failure[0] = e; }
+			}
+		};
+		LiVertex vertex;
+		while((vertex = pollUnpublished()) != null) {
+			vertex.bind(binder);
+			if(failure[0] != null) { throw failure[0]; }
+			publishables.add(vertex);
+		}
+		/* </binding> */
+
+		int n = publishables.size();
+		if(n < LiGraphDelta.PARALLEL_THRESHOLD) {
+			LiVertex.Sink sink = new LiVertex.DeltaSink(branchDelta.objectDeltas);
+			for(LiVertex publishable : publishables) {
+				publishable.publish(sink, boundScope, false);
+			}
+		}
+		else {
+			int chunkSize = Math.max(n / (4 * parallelism) + 1, 256);
+			int nChunks = (n + chunkSize - 1) / chunkSize;
+			List<List<LiObjectDelta>> chunks = new ArrayList<>(nChunks);
+			List<Callable<Void>> tasks = new ArrayList<>(nChunks);
+			for(int c = 0; c < nChunks; c++) {
+				int from = c * chunkSize, to = Math.min(n, from + chunkSize);
+				List<LiObjectDelta> chunk = new ArrayList<>(to - from);
+				chunks.add(chunk);
+				tasks.add(() -> {
+					LiVertex.Sink sink = new LiVertex.DeltaSink(chunk);
+					for(int i = from; i < to; i++) { publishables.get(i).publish(sink, boundScope, false); }
+					return null;
+				});
+			}
+			LiGraphDelta.invokeAll(pool, tasks);
+			for(List<LiObjectDelta> chunk : chunks) { branchDelta.objectDeltas.addAll(chunk); }
+		}
+
+		publishExposureAndRemovals(branchDelta);
+
+		return branchDelta;
+	}
+
+
+	/**
+	 * <p>
+	 * Streaming version of <code>produceDiff()</code>: publishes unpublished
+	 * changes as a jump written straight to <code>outflow</code> (through the
+	 * composers of <code>outbound</code>), without building any delta. Output is
+	 * identical to serializing the delta that <code>produceDiff()</code> would
+	 * have returned (with same header).
+	 * </p>
+	 * <p>
+	 * The same jump is also written to <code>recordOutflow</code>, in the record
+	 * session of the branch (see <code>LiRecordedDelta</code>), if any.
+	 * </p>
+	 * 
+	 * @param outbound
+	 * @param outflow
+	 * @param record record session (<code>null</code> for no record)
+	 * @param recordOutflow
+	 * @param header jump header (version, timestamp, comment), object deltas are ignored
+	 * @throws S8BuildException
+	 * @throws S8Exception
+	 * @throws IOException
+	 */
+	void streamDiff(LiOutbound outbound, ByteOutflow outflow, LiRecordSession record, LiBufferOutflow recordOutflow, 
+			LiGraphDelta header) throws S8BuildException, S8Exception, IOException {
+
+		if(!trackedVertices.isEmpty()) { detectChanges(); }
+
+		if(header.targetVersion != version + 1) {
+			throw new LiIOException("Mismatch in versions");
+		}
 		version++;
 
+		header.serializeHeader(outflow);
+		if(record != null) { header.serializeHeader(recordOutflow); }
 
+		LiVertex.StreamSink wireSink = new LiVertex.StreamSink(outbound, outflow);
+		LiVertex.Sink sink = record != null ? 
+				new LiVertex.TeeSink(wireSink, new LiVertex.RecordSink(record, recordOutflow), recordOutflow) : wireSink;
 		LiVertex vertex;
-		while((vertex = unpublishedVertices.poll()) != null) {
-			vertex.publish(branchDelta.objectDeltas, resolveScope);
+		while((vertex = pollUnpublished()) != null) {
+			vertex.publish(sink, resolveScope, true);
 		}
 
+		/* few, so built as usual */
+		LiGraphDelta tail = new LiGraphDelta(version, Integer.bitCount(unpublishedSlotExposure) + unpublishedRemovals.size());
+		publishExposureAndRemovals(tail);
+		for(LiObjectDelta objectDelta : tail.objectDeltas) { objectDelta.serialize(outbound, outflow); }
+		outflow.putUInt8(BOHR_Keywords.CLOSE_JUMP);
+
+		if(record != null) {
+			for(LiObjectDelta objectDelta : tail.objectDeltas) { objectDelta.serialize(record.outbound, recordOutflow); }
+			recordOutflow.putUInt8(BOHR_Keywords.CLOSE_JUMP);
+		}
+	}
+
+
+	/**
+	 * Read-only resolution, for vertices already bound
+	 */
+	final ResolveScope boundScope = new ResolveScope() {
+
+		@Override
+		public String resolveId(LiObject object) throws LiIOException {
+			if(object != null) {
+				LiVertex vertex = object.S8_vertex;
+				if(vertex == null) { throw new LiIOException("Object has not been bound before publishing"); }
+				return vertex.getId();
+			}
+			else {
+				return null;
+			}
+		}
+	};
+
+
+	private void publishExposureAndRemovals(LiGraphDelta branchDelta) {
 
 		// expose if necessary
-		if(!unpublishedSlotExposure.isEmpty()) {
-			unpublishedSlotExposure.forEach(slot -> {
+		int slots = unpublishedSlotExposure;
+		while(slots != 0) {
+			int slot = Integer.numberOfTrailingZeros(slots);
+			slots &= slots - 1;
 				
-				LiVertex exposedVertex = exposure[slot];
+			LiVertex exposedVertex = exposure[slot];
+
+			branchDelta.appendObjectDelta(
+					new ExposeLiObjectDelta(exposedVertex != null ? exposedVertex.getId() : null, slot));		
+		}
+		unpublishedSlotExposure = 0;
 
-				branchDelta.appendObjectDelta(
-						new ExposeLiObjectDelta(exposedVertex != null ? exposedVertex.id : null, slot));		
 
-			});
+		// advertise collected vertices
+		if(!unpublishedRemovals.isEmpty()) {
+			List<LiVertex> removals = unpublishedRemovals;
+			int n = removals.size();
+			for(int i = 0; i < n; i++) {
+				branchDelta.appendObjectDelta(new RemoveLiObjectDelta(removals.get(i).getId()));
+			}
+			removals.clear();
 		}
 
 
 
+		hasUnpublishedChanges = false;
+	}
+
+
+	/**
+	 * Mark all vertices (and exposure) received so far as published (see 
+	 * <code>LiVertex.markReceived</code>), once a loaded or recovered state is 
+	 * fully resolved.
+	 * 
+	 * @throws LiIOException if graph has local changes
+	 */
+	void markReceived() throws LiIOException {
+		if(nUnpublishedVertices > 0 || !unpublishedRemovals.isEmpty()) {
+			throw new LiIOException("Graph has unpublished local changes");
+		}
+
+		/* received exposure is already published */
+		unpublishedSlotExposure = 0;
 		hasUnpublishedChanges = false;
 
-		return branchDelta;
+		List<LiVertex> list = new ArrayList<>(vertices.size());
+		vertices.forEach(list::add);
+		for(LiVertex vertex : list) { vertex.markReceived(); }
+	}
+
+
+	/**
+	 * Full state of the graph at current version, as a single CREATE/EXPOSE-only 
+	 * delta. Unpublished changes (if any) are ignored and remain unpublished.
+	 * 
+	 * @return the checkpoint
+	 * @throws IOException
+	 */
+	LiGraphDelta snapshot() throws IOException {
+		materializeAll();
+
+		LiGraphDelta checkpoint = new LiGraphDelta(version);
+		checkpoint.setCheckpoint();
+
+		int nVertices = vertices.size();
+		List<LiVertex> list = new ArrayList<>(nVertices);
+		vertices.forEach(list::add);
+		for(LiVertex vertex : list) {
+			vertex.snapshot(checkpoint.objectDeltas, resolveScope);
+		}
+
+		/* resolving a reference should never append a vertex at this stage */
+		if(vertices.size() != nVertices) {
+			throw new LiIOException("Graph is referencing unpublished objects: commit before snapshotting");
+		}
+
+		for(int slot = 0; slot < EXPOSURE_RANGE; slot++) {
+			if(exposure[slot] != null) {
+				checkpoint.appendObjectDelta(new ExposeLiObjectDelta(exposure[slot].getId(), slot));
+			}
+		}
 
+		return checkpoint;
 	}
 
 
@@ -8,9 +8,20 @@ import static com.s8.io.bohr.atom.BOHR_Keywords.OPEN_JUMP;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.fields.LiFieldDelta;
+import com.s8.io.bohr.lithium.object.CreateLiObjectDelta;
+import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bohr.lithium.object.LiObjectDelta;
+import com.s8.io.bohr.lithium.object.UpdateLiObjectDelta;
+import com.s8.io.bohr.lithium.storage.LiLZOutflow;
+import com.s8.io.bohr.lithium.storage.LiRawOutflow;
 import com.s8.io.bohr.lithium.type.BuildScope;
 import com.s8.io.bytes.alpha.ByteOutflow;
 
@@ -27,6 +38,14 @@ public class LiGraphDelta {
 
 
 
+	/**
+	 * Below this number of object deltas, parallel apply falls back to sequential
+	 */
+	public final static int PARALLEL_THRESHOLD = 4096;
+
+	private final static int MIN_CHUNK_SIZE = 512;
+
+
 	/**
 	 * Mandatriy version
 	 */
@@ -55,10 +74,16 @@ public class LiGraphDelta {
 	private String comment;
 
 
+	/**
+	 * Full state of the graph at target version (as opposed to a change on previous version)
+	 */
+	private boolean isCheckpoint;
+
+
 	/**
 	 * 
 	 */
-	public final List<LiObjectDelta> objectDeltas = new ArrayList<>();
+	public final List<LiObjectDelta> objectDeltas;
 
 
 	/**
@@ -73,6 +98,19 @@ public class LiGraphDelta {
 	public LiGraphDelta(long version) {
 		super();
 		this.targetVersion = version;
+		this.objectDeltas = new ArrayList<>();
+	}
+
+
+	/**
+	 * 
+	 * @param version
+	 * @param capacity expected number of object deltas
+	 */
+	public LiGraphDelta(long version, int capacity) {
+		super();
+		this.targetVersion = version;
+		this.objectDeltas = new ArrayList<>(capacity);
 	}
 
 	
@@ -85,7 +123,41 @@ public class LiGraphDelta {
 	
 	public void setTimestamp(long timestamp) {
 		this.hasTimestamp = true;
-		this.setTimestamp(timestamp);
+		this.timestamp = timestamp;
+	}
+	
+	
+	public boolean hasComment() {
+		return hasComment;
+	}
+	
+	
+	public String getComment() {
+		return comment;
+	}
+	
+	
+	public boolean hasTimestamp() {
+		return hasTimestamp;
+	}
+	
+	
+	public long getTimestamp() {
+		return timestamp;
+	}
+	
+	
+	/**
+	 * Mark this delta as a checkpoint (only CREATE and EXPOSE object deltas, 
+	 * applicable to a blank graph)
+	 */
+	public void setCheckpoint() {
+		this.isCheckpoint = true;
+	}
+	
+	
+	public boolean isCheckpoint() {
+		return isCheckpoint;
 	}
 
 	/**
@@ -104,10 +176,7 @@ public class LiGraphDelta {
 	 * @throws NdIOException
 	 */
 	public void operate(LiGraph branch) throws LiIOException {
-		/* check version */
-		if(targetVersion != (branch.version + 1)) { 
-			throw new LiIOException("Mismatch in versions");
-		}
+		checkVersion(branch);
 		
 		BuildScope scope = branch.createBuildScope();
 		for(LiObjectDelta objectDelta : objectDeltas) { 
@@ -116,19 +185,232 @@ public class LiGraphDelta {
 		scope.process();
 		
 		/* increment version of graph */
-		branch.version++;
+		branch.version = targetVersion;
+	}
+
+
+	/**
+	 * <p>
+	 * Parallel version of <code>operate(LiGraph)</code>, with identical results.
+	 * Object deltas are split in contiguous chunks, and processed in two phases:
+	 * </p>
+	 * <ol>
+	 * <li>Concurrently (on <code>pool</code>): instantiation of created
+	 * objects and application of field deltas (of created objects and of
+	 * updated objects already in graph). Graph is only read in this phase.</li>
+	 * <li>Sequentially, in delta order: vertex registration of created objects,
+	 * all other object deltas, then resolution of bindings (chunk after chunk).</li>
+	 * </ol>
+	 * <p>
+	 * Falls back to sequential application for small deltas.
+	 * </p>
+	 * 
+	 * @param branch
+	 * @param pool
+	 * @throws LiIOException
+	 */
+	public void operate(LiGraph branch, ForkJoinPool pool) throws LiIOException {
+		int n = objectDeltas.size();
+		int parallelism = pool.getParallelism();
+		if(n < PARALLEL_THRESHOLD || parallelism < 2) {
+			operate(branch);
+			return;
+		}
+
+		checkVersion(branch);
+
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, n / (4 * parallelism) + 1);
+		int nChunks = (n + chunkSize - 1) / chunkSize;
+		LiObject[] created = new LiObject[n];
+		boolean[] isDone = new boolean[n];
+		BuildScope[] scopes = new BuildScope[nChunks];
+
+		/* lazy-opened graph: updated vertices are materialized beforehand, sequentially */
+		if(branch.lazySource != null) {
+			for(int i = 0; i < n; i++) {
+				LiObjectDelta objectDelta = objectDeltas.get(i);
+				if(objectDelta instanceof UpdateLiObjectDelta) { branch.getVertex(objectDelta.id); }
+			}
+		}
+
+		/* <phase 1> */
+		List<Callable<Void>> tasks = new ArrayList<>(nChunks);
+		for(int c = 0; c < nChunks; c++) {
+			int from = c * chunkSize, to = Math.min(n, from + chunkSize);
+			BuildScope scope = scopes[c] = branch.createBuildScope();
+			tasks.add(() -> {
+				for(int i = from; i < to; i++) {
+					LiObjectDelta objectDelta = objectDeltas.get(i);
+					if(objectDelta instanceof CreateLiObjectDelta) {
+						CreateLiObjectDelta createDelta = (CreateLiObjectDelta) objectDelta;
+						LiObject object = createDelta.type.createNewInstance();
+						for(LiFieldDelta delta : createDelta.deltas) { delta.operate(object, scope); }
+						created[i] = object;
+						isDone[i] = true;
+					}
+					else if(objectDelta instanceof UpdateLiObjectDelta) {
+						/* vertex created by this very delta: deferred to phase 2 */
+						LiVertex vertex = branch.getVertex(objectDelta.id);
+						if(vertex != null) {
+							for(LiFieldDelta delta : ((UpdateLiObjectDelta) objectDelta).deltas) { 
+								delta.operate(vertex.object, scope); 
+							}
+							isDone[i] = true;
+						}
+					}
+				}
+				return null;
+			});
+		}
+
+		invokeAll(pool, tasks);
+		/* </phase 1> */
+
+		/* <phase 2> */
+		for(int i = 0; i < n; i++) {
+			LiObjectDelta objectDelta = objectDeltas.get(i);
+			if(created[i] != null) {
+				branch.append(objectDelta.id, created[i]);
+			}
+			else if(!isDone[i]) {
+				objectDelta.operate(branch, scopes[i / chunkSize]);
+			}
+		}
+		for(BuildScope scope : scopes) { scope.process(); }
+		/* </phase 2> */
+
+		/* increment version of graph */
+		branch.version = targetVersion;
 	}
 
 
+	private void checkVersion(LiGraph branch) throws LiIOException {
+		checkVersion(branch, targetVersion, isCheckpoint);
+	}
+
+
+	static void checkVersion(LiGraph branch, long targetVersion, boolean isCheckpoint) throws LiIOException {
+		if(isCheckpoint) {
+			if(branch.version != 0 || branch.vertices.size() > 0) {
+				throw new LiIOException("Checkpoint can only be applied to a blank graph");
+			}
+		}
+		else if(targetVersion != (branch.version + 1)) { 
+			throw new LiIOException("Mismatch in versions");
+		}
+	}
+
 
 
 	public void serialize(LiOutbound outbound, ByteOutflow outflow) throws IOException {
 
+		serializeHeader(outflow);
+
+		// compose common database
+		//codebaseIO.compose(outflow, false);
+		for(LiObjectDelta objectDelta : objectDeltas) { 
+		
+			
+			objectDelta.serialize(outbound, outflow); 
+		}
+
+
+		outflow.putUInt8(CLOSE_JUMP);
+	}
+
+
+	/**
+	 * <p>
+	 * Parallel version of <code>serialize(LiOutbound, ByteOutflow)</code>, with
+	 * identical output. Order-dependent parts (type / field declarations,
+	 * session dictionary codes) are first claimed sequentially, in stream order,
+	 * then object deltas are encoded concurrently by partition (each in its own
+	 * <code>LiPartitionOutflow</code>), and partition bytes are finally copied
+	 * in order to <code>outflow</code>.
+	 * </p>
+	 * <p>
+	 * Bytes can only be copied to an outflow with the same encoding
+	 * (<code>LiRawOutflow</code>, e.g. <code>LiBufferOutflow</code>, or 
+	 * <code>LiLZOutflow</code> of compressed frames): falls back to sequential serialization otherwise, as well as for
+	 * small deltas.
+	 * </p>
+	 * 
+	 * @param outbound
+	 * @param outflow
+	 * @param pool
+	 * @throws IOException
+	 */
+	public void serialize(LiOutbound outbound, ByteOutflow outflow, ForkJoinPool pool) throws IOException {
+		int n = objectDeltas.size();
+		int parallelism = pool.getParallelism();
+		if(n < PARALLEL_THRESHOLD || parallelism < 2 || !(outflow instanceof LiRawOutflow)) {
+			serialize(outbound, outflow);
+			return;
+		}
+
+		serializeHeader(outflow);
+
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, n / (4 * parallelism) + 1);
+		int nChunks = (n + chunkSize - 1) / chunkSize;
+
+		/* declarations and dictionary codes, in stream order */
+		long[][] declarations = new long[n][];
+		for(int i = 0; i < n; i++) { 
+			LiObjectDelta objectDelta = objectDeltas.get(i);
+			declarations[i] = objectDelta.declare(outbound);
+			objectDelta.claim(outbound, i / chunkSize);
+		}
+
+		LiPartitionOutflow[] partitions = new LiPartitionOutflow[nChunks];
+		try {
+			List<Callable<Void>> tasks = new ArrayList<>(nChunks);
+			for(int c = 0; c < nChunks; c++) {
+				int from = c * chunkSize, to = Math.min(n, from + chunkSize);
+				LiPartitionOutflow partition = partitions[c] = new LiPartitionOutflow(c, to - from);
+				tasks.add(() -> {
+					int[] ends = partition.ends;
+					for(int i = from; i < to; i++) { 
+						objectDeltas.get(i).serialize(outbound, partition, declarations[i]);
+						ends[i - from] = partition.getLength();
+					}
+					return null;
+				});
+			}
+			invokeAll(pool, tasks);
+		}
+		finally {
+			outbound.releaseClaims();
+		}
+
+		LiRawOutflow rawOutflow = (LiRawOutflow) outflow;
+		for(LiPartitionOutflow partition : partitions) {
+			if(outflow instanceof LiLZOutflow) {
+				/* delta by delta, so that compressed blocks keep their size (values never span blocks) */
+				int start = 0;
+				for(int end : partition.ends) {
+					rawOutflow.putByteArray(partition.array(), start, end - start);
+					start = end;
+				}
+			}
+			else {
+				rawOutflow.putByteArray(partition.array(), 0, partition.getLength());
+			}
+		}
+
+		outflow.putUInt8(CLOSE_JUMP);
+	}
+
+
+	void serializeHeader(ByteOutflow outflow) throws IOException {
 		outflow.putUInt8(OPEN_JUMP);
 		
 		outflow.putUInt64(targetVersion);
 		
 		
+		if(isCheckpoint) {
+			outflow.putUInt8(LiKeywords.DEFINE_JUMP_CHECKPOINT);
+		}
+		
 		if(hasTimestamp) {
 			outflow.putUInt8(DEFINE_JUMP_TIMESTAMP);
 			outflow.putUInt64(timestamp);
@@ -138,17 +420,50 @@ public class LiGraphDelta {
 			outflow.putUInt8(DEFINE_JUMP_COMMENT);
 			outflow.putStringUTF8(comment);
 		}
+	}
 
-		// compose common database
-		//codebaseIO.compose(outflow, false);
-		for(LiObjectDelta objectDelta : objectDeltas) { 
-		
-			
-			objectDelta.serialize(outbound, outflow); 
-		}
 
+	/**
+	 * Run <code>tasks</code> on <code>pool</code> and wait for completion of all 
+	 * of them. Once a task has failed, tasks not yet started are skipped.
+	 * 
+	 * @param pool
+	 * @param tasks
+	 * @throws LiIOException (first failure, in task order)
+	 */
+	static void invokeAll(ForkJoinPool pool, List<Callable<Void>> tasks) throws LiIOException {
+		AtomicBoolean hasFailed = new AtomicBoolean();
+		List<Callable<Void>> guardedTasks = new ArrayList<>(tasks.size());
+		for(Callable<Void> task : tasks) {
+			guardedTasks.add(() -> {
+				if(hasFailed.get()) { return null; }
+				try {
+					return task.call();
+				}
+				catch(Throwable e) {
+					hasFailed.set(true);
+					throw e;
+				}
+			});
+		}
 
-		outflow.putUInt8(CLOSE_JUMP);
+		/* returns once all tasks are completed (so none is left running on failure) */
+		List<Future<Void>> futures = pool.invokeAll(guardedTasks);
+		for(Future<Void> future : futures) {
+			try {
+				future.get();
+			}
+			catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if(cause instanceof LiIOException) { throw (LiIOException) cause; }
+				if(cause instanceof Error) { throw (Error) cause; }
+				throw new LiIOException("Parallel task failed", (Exception) cause);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new LiIOException("Parallel task interrupted", e);
+			}
+		}
 	}
 
-}
\ No newline at end of file
+}
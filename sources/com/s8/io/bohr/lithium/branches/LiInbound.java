@@ -4,6 +4,8 @@ import static com.s8.io.bohr.atom.BOHR_Keywords.CLOSE_JUMP;
 import static com.s8.io.bohr.atom.BOHR_Keywords.CLOSE_SEQUENCE;
 import static com.s8.io.bohr.atom.BOHR_Keywords.CREATE_NODE;
 import static com.s8.io.bohr.atom.BOHR_Keywords.DECLARE_TYPE;
+import static com.s8.io.bohr.atom.BOHR_Keywords.DEFINE_JUMP_COMMENT;
+import static com.s8.io.bohr.atom.BOHR_Keywords.DEFINE_JUMP_TIMESTAMP;
 import static com.s8.io.bohr.atom.BOHR_Keywords.EXPOSE_NODE;
 import static com.s8.io.bohr.atom.BOHR_Keywords.FRAME_FOOTER;
 import static com.s8.io.bohr.atom.BOHR_Keywords.FRAME_HEADER;
@@ -11,9 +13,15 @@ import static com.s8.io.bohr.atom.BOHR_Keywords.OPEN_JUMP;
 import static com.s8.io.bohr.atom.BOHR_Keywords.OPEN_SEQUENCE;
 import static com.s8.io.bohr.atom.BOHR_Keywords.REMOVE_NODE;
 import static com.s8.io.bohr.atom.BOHR_Keywords.UPDATE_NODE;
+import static com.s8.io.bohr.lithium.branches.LiKeywords.COMPRESSED_SEQUENCE;
+import static com.s8.io.bohr.lithium.branches.LiKeywords.DEFINE_JUMP_CHECKPOINT;
+import static com.s8.io.bohr.lithium.branches.LiKeywords.NUMERIC_IDS;
+import static com.s8.io.bohr.lithium.branches.LiKeywords.TYPED_UPDATE_NODE;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,10 +29,15 @@ import java.util.Map;
 import com.s8.io.bohr.lithium.codebase.LiCodebase;
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
+import com.s8.io.bohr.lithium.fields.LiParserSession;
 import com.s8.io.bohr.lithium.object.CreateLiObjectDelta;
 import com.s8.io.bohr.lithium.object.ExposeLiObjectDelta;
+import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bohr.lithium.object.RemoveLiObjectDelta;
 import com.s8.io.bohr.lithium.object.UpdateLiObjectDelta;
+import com.s8.io.bohr.lithium.storage.LiBufferOutflow;
+import com.s8.io.bohr.lithium.storage.LiLZInflow;
+import com.s8.io.bohr.lithium.type.BuildScope;
 import com.s8.io.bohr.lithium.type.LiType;
 import com.s8.io.bohr.lithium.type.LiTypeParser;
 import com.s8.io.bytes.alpha.ByteInflow;
@@ -55,11 +68,46 @@ public class LiInbound {
 
 
 	/**
-	 * 
+	 * Type codes below this bound are indexed by array (codes being allocated
+	 * incrementally by <code>LiOutbound</code>)
+	 */
+	private final static int MAX_DENSE_TYPE_CODE = 1 << 16;
+
+
+	/**
+	 * Dense type codes (grown on declaration)
+	 */
+	private LiTypeParser[] typeParsersByCode = new LiTypeParser[16];
+
+	/**
+	 * Type codes above <code>MAX_DENSE_TYPE_CODE</code> (lazily created)
+	 */
+	private Map<Integer, LiTypeParser> sparseTypeParsersByCode;
+
+
+	/**
+	 * Type codes of the vertices created in this session, released on removal
+	 * (vertices created before are resolved through <code>graph</code>)
+	 */
+	private final LiTypeCodeTable typeCodesById = new LiTypeCodeTable();
+
+
+	/**
+	 * One parser per type and session (field declarations being per type)
+	 */
+	private final Map<LiType, LiTypeParser> typeParsersByType = new HashMap<>();
+
+
+	/**
+	 * Session state (string dictionary, ids decoding)
 	 */
-	private final Map<Long, LiTypeParser> typeParsersByCode = new HashMap<Long, LiTypeParser>();
+	private final LiParserSession session = new LiParserSession();
+
 
-	private final Map<String, LiTypeParser> typeParsersById = new HashMap<>();
+	/**
+	 * Resolves types of vertices created before this session (optional)
+	 */
+	private final LiGraph graph;
 
 
 	/**
@@ -69,8 +117,20 @@ public class LiInbound {
 	 * @param isVerbose
 	 */
 	public LiInbound(LiCodebase codebase) {
+		this(codebase, null);
+	}
+
+
+	/**
+	 * 
+	 * @param codebase
+	 * @param graph the graph receiving the frames: vertices created before this
+	 * session (e.g. in a previous journal segment) can then be updated.
+	 */
+	public LiInbound(LiCodebase codebase, LiGraph graph) {
 		super();
 		this.codebase = codebase;
+		this.graph = graph;
 	}
 
 
@@ -82,9 +142,62 @@ public class LiInbound {
 	public void pullFrame(ByteInflow inflow, LiGraphDeltaConsumer consumer) throws IOException {
 		// check opening
 		if(!inflow.matches(FRAME_HEADER)) { throw new IOException("DO NOT MATCH HEADER"); }
-		parseSequence(inflow, consumer);
+		int code = readIdsMode(inflow);
+		if(code == COMPRESSED_SEQUENCE) {
+			LiLZInflow sequenceInflow = new LiLZInflow(inflow, composeDictionary());
+			parseSequence(sequenceInflow, consumer);
+			sequenceInflow.finish();
+		}
+		else {
+			checkOpenSequence(code);
+			parseJumps(inflow, consumer);
+		}
 		if(!inflow.matches(FRAME_FOOTER)) { throw new IOException("DO NOT MATCH FOOTER"); }
 	}
+
+
+	/**
+	 * Dictionary of frame compression: declarations received so far, by type code
+	 * (see <code>LiOutbound.composeDictionary</code>)
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	byte[] composeDictionary() throws IOException {
+		LiBufferOutflow dictionary = new LiBufferOutflow();
+		LiTypeParser[] typeParsersByCode = this.typeParsersByCode;
+		for(int code = 0; code < typeParsersByCode.length; code++) {
+			if(typeParsersByCode[code] != null) { typeParsersByCode[code].composeDictionary(dictionary); }
+		}
+		if(sparseTypeParsersByCode != null) {
+			List<Integer> codes = new ArrayList<>(sparseTypeParsersByCode.keySet());
+			Collections.sort(codes);
+			for(Integer code : codes) { sparseTypeParsersByCode.get(code).composeDictionary(dictionary); }
+		}
+		return dictionary.toByteArray();
+	}
+
+
+	/**
+	 * Read ids mode of the frame (see <code>LiKeywords.NUMERIC_IDS</code>)
+	 * 
+	 * @param inflow (positioned right after frame header)
+	 * @return next code
+	 * @throws IOException
+	 */
+	private int readIdsMode(ByteInflow inflow) throws IOException {
+		int code = inflow.getUInt8();
+		boolean isNumeric = code == NUMERIC_IDS;
+		session.ids.setNumeric(isNumeric);
+		return isNumeric ? inflow.getUInt8() : code;
+	}
+
+
+	private static void checkOpenSequence(int code) throws IOException {
+		if(code != OPEN_SEQUENCE) {
+			throw new IOException("Sequence mist startwith an open sequecne tag");
+		}
+	}
 	
 	
 	/**
@@ -93,13 +206,13 @@ public class LiInbound {
 	 * @throws IOException
 	 */
 	public void parseSequence(ByteInflow inflow, LiGraphDeltaConsumer consumer) throws IOException {
+		checkOpenSequence(inflow.getUInt8());
+		parseJumps(inflow, consumer);
+	}
 
-		int code;
-
-		if((code = inflow.getUInt8()) != OPEN_SEQUENCE) {
-			throw new IOException("Sequence mist startwith an open sequecne tag");
-		}
 
+	private void parseJumps(ByteInflow inflow, LiGraphDeltaConsumer consumer) throws IOException {
+		int code;
 		while((code = inflow.getUInt8()) != CLOSE_SEQUENCE) {
 			switch(code) {
 
@@ -119,6 +232,263 @@ public class LiInbound {
 	
 
 
+	/**
+	 * <p>
+	 * Direct-apply version of <code>pullFrame(ByteInflow, LiGraphDeltaConsumer)</code>:
+	 * jumps are applied to <code>graph</code> as they are parsed, field values being
+	 * set straight into objects (see <code>LiTypeParser.parse(ByteInflow, LiObject, BuildScope)</code>),
+	 * so that no delta is built. Version is checked before the first node of each
+	 * jump, and bindings are resolved at the end of each jump, as with
+	 * <code>LiGraphDelta.operate</code>.
+	 * </p>
+	 * <p>
+	 * No history is retained (see <code>LiBranch.applyFrame</code> for a branch
+	 * recording applied jumps).
+	 * </p>
+	 * 
+	 * @param inflow
+	 * @param graph
+	 * @throws IOException
+	 */
+	public void applyFrame(ByteInflow inflow, LiGraph graph) throws IOException {
+		applyFrame(inflow, graph, null);
+	}
+
+
+	/**
+	 * 
+	 * @param inflow
+	 * @param graph
+	 * @param recorder (optional) records each applied jump (header, i.e. 
+	 * timestamp and comment, included)
+	 * @throws IOException
+	 */
+	void applyFrame(ByteInflow inflow, LiGraph graph, LiJumpRecorder recorder) throws IOException {
+		if(!inflow.matches(FRAME_HEADER)) { throw new IOException("DO NOT MATCH HEADER"); }
+
+		int code = readIdsMode(inflow);
+		if(code == COMPRESSED_SEQUENCE) {
+			LiLZInflow sequenceInflow = new LiLZInflow(inflow, composeDictionary());
+			checkOpenSequence(sequenceInflow.getUInt8());
+			applyJumps(sequenceInflow, graph, recorder);
+			sequenceInflow.finish();
+		}
+		else {
+			checkOpenSequence(code);
+			applyJumps(inflow, graph, recorder);
+		}
+
+		if(!inflow.matches(FRAME_FOOTER)) { throw new IOException("DO NOT MATCH FOOTER"); }
+	}
+
+
+	private void applyJumps(ByteInflow inflow, LiGraph graph, LiJumpRecorder recorder) throws IOException {
+		int code;
+		while((code = inflow.getUInt8()) != CLOSE_SEQUENCE) {
+			switch(code) {
+
+			case OPEN_JUMP: applyGraphDelta(inflow, inflow.getUInt64(), graph, recorder); break;
+
+			default : throw new IOException("Unsupported BOHR keyword code: "+Integer.toHexString(code));
+			}
+		}
+	}
+
+
+
+	/**
+	 * Read a single jump (outside of any frame, see <code>LiRecordedDelta</code>)
+	 * 
+	 * @param inflow (positioned on <code>OPEN_JUMP</code>)
+	 * @return the parsed delta
+	 * @throws IOException
+	 */
+	LiGraphDelta parseJump(ByteInflow inflow) throws IOException {
+		checkOpenJump(inflow.getUInt8());
+		LiGraphDelta graphDelta = new LiGraphDelta(inflow.getUInt64());
+		parseGraphDelta(inflow, graphDelta);
+		return graphDelta;
+	}
+
+
+	/**
+	 * Direct-apply version of <code>parseJump</code>
+	 * 
+	 * @param inflow (positioned on <code>OPEN_JUMP</code>)
+	 * @param graph
+	 * @throws IOException
+	 */
+	void applyJump(ByteInflow inflow, LiGraph graph) throws IOException {
+		checkOpenJump(inflow.getUInt8());
+		applyGraphDelta(inflow, inflow.getUInt64(), graph, null);
+	}
+
+
+	private static void checkOpenJump(int code) throws IOException {
+		if(code != OPEN_JUMP) {
+			throw new LiIOException("Expecting a jump, found: "+Integer.toHexString(code));
+		}
+	}
+
+
+
+	/**
+	 * 
+	 * @param inflow
+	 * @param version
+	 * @param graph
+	 * @param recorder (optional)
+	 * @throws IOException
+	 */
+	private void applyGraphDelta(ByteInflow inflow, long version, LiGraph graph, LiJumpRecorder recorder) throws IOException {
+		BuildScope scope = graph.createBuildScope();
+		boolean isChecked = false;
+
+		/* header only (no object deltas) */
+		LiGraphDelta header = new LiGraphDelta(version, 0);
+		if(recorder != null) { recorder.clear(); }
+
+		int code;
+		while((code = inflow.getUInt8()) != CLOSE_JUMP) {
+
+			/* header (timestamp, comment, checkpoint flag) always precedes nodes */
+			if(!isChecked && code != DEFINE_JUMP_TIMESTAMP && code != DEFINE_JUMP_COMMENT && code != DEFINE_JUMP_CHECKPOINT) {
+				LiGraphDelta.checkVersion(graph, version, header.isCheckpoint());
+				isChecked = true;
+			}
+
+			switch(code) {
+
+			case DEFINE_JUMP_TIMESTAMP: onTimestamp(inflow.getUInt64(), header); break;
+
+			case DEFINE_JUMP_COMMENT: onDefineComment(inflow.getStringUTF8(), header); break;
+
+			case DEFINE_JUMP_CHECKPOINT: header.setCheckpoint(); break;
+
+			case DECLARE_TYPE: onDeclareType(inflow); break;
+
+			case CREATE_NODE: {
+				if(recorder != null) {
+					int typeCode = checkTypeCode(inflow.getUInt7x());
+					LiTypeParser typeParser = getTypeParserByCode(typeCode);
+					LiObject object = applyCreateNode(inflow, graph, scope, typeCode, typeParser, 
+							recorder.openNode(typeParser.getType()));
+					recorder.onNode(object.S8_vertex, true);
+				}
+				else {
+					applyCreateNode(inflow, graph, scope);
+				}
+				break;
+			}
+
+			case UPDATE_NODE: {
+				String id = session.ids.parse(inflow);
+				LiVertex vertex = graph.getVertex(id);
+				if(vertex == null) {
+					throw new LiIOException("Failed to retrieve vertex for index: "+id);
+				}
+				applyUpdateNode(inflow, getTypeParserById(id, vertex), vertex, scope, recorder);
+				break;
+			}
+
+			case TYPED_UPDATE_NODE: {
+				LiTypeParser typeParser = getTypeParserByCode(checkTypeCode(inflow.getUInt7x()));
+				String id = session.ids.parse(inflow);
+				LiVertex vertex = graph.getVertex(id);
+				if(vertex == null) {
+					throw new LiIOException("Failed to retrieve vertex for index: "+id);
+				}
+				applyUpdateNode(inflow, typeParser, vertex, scope, recorder);
+				break;
+			}
+
+			case EXPOSE_NODE: {
+				String id = session.ids.parse(inflow);
+				int slot = inflow.getUInt8();
+				LiVertex vertex = graph.getVertex(id);
+				graph.expose(slot, vertex != null ? vertex.object : null);
+				if(recorder != null) { recorder.onExpose(id, slot); }
+				break;
+			}
+
+			case REMOVE_NODE: {
+				String id = session.ids.parse(inflow);
+				typeCodesById.remove(id);
+				graph.removeVertex(id);
+				if(recorder != null) { recorder.onRemove(id); }
+				break;
+			}
+
+			default : throw new IOException("Unsupported BOHR keyword code: "+Integer.toHexString(code));
+			}
+		}
+
+		if(!isChecked) { LiGraphDelta.checkVersion(graph, version, header.isCheckpoint()); }
+		scope.process();
+
+		/* increment version of graph */
+		graph.version = version;
+
+		if(recorder != null) { recorder.record(header, graph.boundScope); }
+	}
+
+
+	private static void applyUpdateNode(ByteInflow inflow, LiTypeParser typeParser, LiVertex vertex, 
+			BuildScope scope, LiJumpRecorder recorder) throws IOException {
+		if(recorder != null) {
+			typeParser.parse(inflow, vertex.object, scope, recorder.openNode(vertex.type));
+			recorder.onNode(vertex, false);
+		}
+		else {
+			typeParser.parse(inflow, vertex.object, scope);
+		}
+	}
+
+
+
+	/**
+	 * Direct-apply of a create node (<code>CREATE_NODE</code> keyword already read)
+	 * 
+	 * @param inflow
+	 * @param graph
+	 * @param scope
+	 * @return the created object (appended to graph)
+	 * @throws IOException
+	 */
+	LiObject applyCreateNode(ByteInflow inflow, LiGraph graph, BuildScope scope) throws IOException {
+		int typeCode = checkTypeCode(inflow.getUInt7x());
+		return applyCreateNode(inflow, graph, scope, typeCode, getTypeParserByCode(typeCode), null);
+	}
+
+
+	private LiObject applyCreateNode(ByteInflow inflow, LiGraph graph, BuildScope scope, 
+			int typeCode, LiTypeParser typeParser, long[] setFields) throws IOException {
+		String index = session.ids.parse(inflow);
+		typeCodesById.put(index, typeCode);
+
+		LiObject object = typeParser.getType().createNewInstance();
+		typeParser.parse(inflow, object, scope, setFields);
+		graph.append(index, object);
+		return object;
+	}
+
+
+	/**
+	 * Read a standalone declaration block (see <code>LiTypeComposer.publishDeclarations</code>)
+	 * 
+	 * @param inflow
+	 * @throws IOException
+	 */
+	void onDeclarations(ByteInflow inflow) throws IOException {
+		int code = inflow.getUInt8();
+		if(code != DECLARE_TYPE) {
+			throw new LiIOException("Expecting a type declaration, found: "+Integer.toHexString(code));
+		}
+		onDeclareType(inflow).parse(inflow, Collections.emptyList());
+	}
+
+
+
 	/**
 	 * 
 	 * @param code
@@ -126,13 +496,40 @@ public class LiInbound {
 	 * @throws LiIOException
 	 */
 	public LiTypeParser getTypeParserByCode(long code) throws LiIOException {
-		LiTypeParser typeParser = typeParsersByCode.get(code);
+		LiTypeParser typeParser = findTypeParserByCode(code);
 		if(typeParser == null) {
 			throw new LiIOException("Failed to find typeInflow for code: "+Long.toHexString(code));
 		}
 		return typeParser;
 	}	
 
+
+	private LiTypeParser findTypeParserByCode(long code) {
+		if(code >= 0 && code < typeParsersByCode.length) {
+			return typeParsersByCode[(int) code];
+		}
+		else if(sparseTypeParsersByCode != null && code <= Integer.MAX_VALUE) {
+			return sparseTypeParsersByCode.get((int) code);
+		}
+		else {
+			return null;
+		}
+	}
+
+
+	/**
+	 * 
+	 * @param code
+	 * @return <code>code</code>, as an <code>int</code>
+	 * @throws LiIOException
+	 */
+	private static int checkTypeCode(long code) throws LiIOException {
+		if(code < 0 || code > Integer.MAX_VALUE) {
+			throw new LiIOException("Type code out of range: "+Long.toHexString(code));
+		}
+		return (int) code;
+	}
+
 	
 	
 	
@@ -152,6 +549,15 @@ public class LiInbound {
 		while((code = inflow.getUInt8()) != CLOSE_JUMP) {
 			switch(code) {
 			
+			case DEFINE_JUMP_TIMESTAMP: onTimestamp(inflow.getUInt64(), delta);
+				break;
+				
+			case DEFINE_JUMP_COMMENT: onDefineComment(inflow.getStringUTF8(), delta);
+				break;
+				
+			case DEFINE_JUMP_CHECKPOINT: delta.setCheckpoint();
+				break;
+			
 			case DECLARE_TYPE: onDeclareType(inflow);
 				break;
 			
@@ -161,6 +567,9 @@ public class LiInbound {
 			case UPDATE_NODE: onUpdateNode(inflow, delta);
 				break;
 
+			case TYPED_UPDATE_NODE: onTypedUpdateNode(inflow, delta);
+				break;
+
 			case EXPOSE_NODE: onExposeNode(inflow, delta);
 				break;
 		
@@ -184,12 +593,13 @@ public class LiInbound {
 		String typeName = inflow.getStringUTF8();
 
 		/* retrieve code assigned to this newly declared type */
-		long typeCode = inflow.getUInt7x();
+		int typeCode = checkTypeCode(inflow.getUInt7x());
 
 		/* check that this type code has not already been assigned */
-		if(typeParsersByCode.containsKey(typeCode)) {
+		LiTypeParser previous = findTypeParserByCode(typeCode);
+		if(previous != null) {
 			throw new LiIOException("A type has already defined for code: "+typeCode+"->"+typeName
-					+". See "+typeParsersByCode.get(typeCode).print(typeCode));
+					+". See "+previous.print(typeCode));
 		}
 		
 		/* find corresponding type */
@@ -198,11 +608,20 @@ public class LiInbound {
 			throw new LiIOException("Failed to find type for name: "+typeName);
 		}
 
-		/* create typeInflow*/
-		LiTypeParser typeParser = new LiTypeParser(type);
+		/* create typeInflow (unless already used for updates in this session) */
+		LiTypeParser typeParser = typeParsersByType.computeIfAbsent(type, t -> new LiTypeParser(t, session));
 
 		/* store this typeInflow for later use */
-		typeParsersByCode.put(typeCode, typeParser);
+		if(typeCode < MAX_DENSE_TYPE_CODE) {
+			if(typeCode >= typeParsersByCode.length) {
+				typeParsersByCode = Arrays.copyOf(typeParsersByCode, Math.max(typeCode + 1, 2 * typeParsersByCode.length));
+			}
+			typeParsersByCode[typeCode] = typeParser;
+		}
+		else {
+			if(sparseTypeParsersByCode == null) { sparseTypeParsersByCode = new HashMap<>(); }
+			sparseTypeParsersByCode.put(typeCode, typeParser);
+		}
 		//typeInflowsByClass.put(type.getRuntimeName(), typeInflow);
 
 		return typeParser;
@@ -212,20 +631,20 @@ public class LiInbound {
 	public void onCreateNode(ByteInflow inflow, LiGraphDelta branchDelta) throws IOException {
 
 		/* type code */
-		long typeCode = inflow.getUInt7x();
+		int typeCode = checkTypeCode(inflow.getUInt7x());
 		
 		/* typeParser */
 		LiTypeParser typeParser = getTypeParserByCode(typeCode);
 		
 		/* index */
-		String index = inflow.getStringUTF8();
+		String index = session.ids.parse(inflow);
 		
 		/* retrieve type */
 		LiType type = typeParser.getType();
 
 	
-		/* store vertex in graph */
-		typeParsersById.put(index, typeParser);
+		/* record type of vertex */
+		typeCodesById.put(index, typeCode);
 
 		/* parse fields values */
 		List<LiFieldDelta> fieldDeltas = new ArrayList<>();
@@ -238,11 +657,11 @@ public class LiInbound {
 	
 	public void onUpdateNode(ByteInflow inflow, LiGraphDelta branchDelta) throws IOException {
 		
-		String id = inflow.getStringUTF8();
+		String id = session.ids.parse(inflow);
 		
 
 		/* retrieve parser from vertex */
-		LiTypeParser typeParser = typeParsersById.get(id);
+		LiTypeParser typeParser = getTypeParserById(id, graph != null ? graph.getVertex(id) : null);
 
 		LiType type = typeParser.getType();
 		
@@ -253,13 +672,51 @@ public class LiInbound {
 		branchDelta.appendObjectDelta(new UpdateLiObjectDelta(id, type, fieldDeltas));
 	}
 
+	/**
+	 * Self-typed update (see <code>LiKeywords.TYPED_UPDATE_NODE</code>)
+	 * 
+	 * @param inflow
+	 * @param branchDelta
+	 * @throws IOException
+	 */
+	public void onTypedUpdateNode(ByteInflow inflow, LiGraphDelta branchDelta) throws IOException {
+		LiTypeParser typeParser = getTypeParserByCode(checkTypeCode(inflow.getUInt7x()));
+		String id = session.ids.parse(inflow);
+		List<LiFieldDelta> fieldDeltas = new ArrayList<>();
+		typeParser.parse(inflow, fieldDeltas);
+		branchDelta.appendObjectDelta(new UpdateLiObjectDelta(id, typeParser.getType(), fieldDeltas));
+	}
+
+
+	/**
+	 * 
+	 * @param id
+	 * @param vertex the vertex in target graph (if any)
+	 * @return the parser of vertex <code>id</code>
+	 * @throws LiIOException
+	 */
+	private LiTypeParser getTypeParserById(String id, LiVertex vertex) throws LiIOException {
+		int typeCode = typeCodesById.get(id);
+		if(typeCode != LiTypeCodeTable.NONE) {
+			return getTypeParserByCode(typeCode);
+		}
+		else if(vertex != null) {
+			/* created before this session (not recorded: type held by vertex) */
+			return typeParsersByType.computeIfAbsent(vertex.type, t -> new LiTypeParser(t, session));
+		}
+		else {
+			throw new LiIOException("Failed to retrieve type for vertex: "+id);
+		}
+	}
+
+
 	/**
 	 * 
 	 * @param inflow
 	 * @throws IOException
 	 */
 	public void onExposeNode(ByteInflow inflow, LiGraphDelta branchDelta) throws IOException {
-		String id = inflow.getStringUTF8();
+		String id = session.ids.parse(inflow);
 		int slot = inflow.getUInt8();
 		branchDelta.appendObjectDelta(new ExposeLiObjectDelta(id, slot));
 	}
@@ -270,7 +727,8 @@ public class LiInbound {
 	
 	public void onRemoveNode(ByteInflow inflow, LiGraphDelta branchDelta) throws IOException {
 		
-		String id = inflow.getStringUTF8();
+		String id = session.ids.parse(inflow);
+		typeCodesById.remove(id);
 		branchDelta.appendObjectDelta(new RemoveLiObjectDelta(id));
 	}
 
@@ -0,0 +1,99 @@
+package com.s8.io.bohr.lithium.branches;
+
+
+/**
+ * <p>
+ * Conversion between the numeric vertex index (as allocated by
+ * <code>LiBranch.createNewIndex()</code>) and its <code>String</code> form, as
+ * found in deltas and frames.
+ * </p>
+ * <p>
+ * String form is <code>'#'</code> followed by the base64 digits (most
+ * significant first) of the index. Any other string is considered as a
+ * <b>foreign</b> identifier (generated by another peer) and is not decoded.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiIndexCodec {
+
+
+	/**
+	 * Marker of a numeric index (not part of the base64 alphabet)
+	 */
+	public final static char PREFIX = '#';
+
+
+	/**
+	 * Returned by <code>decode</code> when id is not a numeric index
+	 */
+	public final static long FOREIGN = -1;
+
+
+	private final static char[] DIGITS =
+			"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+
+	private final static byte[] VALUES = new byte[128];
+
+	static {
+		for(int i = 0; i < 128; i++) { VALUES[i] = -1; }
+		for(int i = 0; i < 64; i++) { VALUES[DIGITS[i]] = (byte) i; }
+	}
+
+
+	/**
+	 * 64 bits -> at most 11 base64 digits
+	 */
+	private final static int MAX_DIGITS = 11;
+
+
+
+	/**
+	 *
+	 * @param index (strictly positive)
+	 * @return
+	 */
+	public static String encode(long index) {
+		char[] buffer = new char[MAX_DIGITS + 1];
+		int offset = MAX_DIGITS + 1;
+		do {
+			buffer[--offset] = DIGITS[(int) (index & 0x3f)];
+			index >>>= 6;
+		}
+		while(index != 0);
+		buffer[--offset] = PREFIX;
+		return new String(buffer, offset, MAX_DIGITS + 1 - offset);
+	}
+
+
+	/**
+	 *
+	 * @param id
+	 * @return the numeric index, or <code>FOREIGN</code> if <code>id</code> is not
+	 * in canonical numeric form.
+	 */
+	public static long decode(String id) {
+		int length = id.length();
+		if(length < 2 || length > MAX_DIGITS + 1 || id.charAt(0) != PREFIX) { return FOREIGN; }
+
+		/* leading zero digits are not canonical */
+		if(length > 2 && id.charAt(1) == DIGITS[0]) { return FOREIGN; }
+
+		long index = 0;
+		for(int i = 1; i < length; i++) {
+			char c = id.charAt(i);
+			int value;
+			if(c >= 128 || (value = VALUES[c]) < 0) { return FOREIGN; }
+			index = (index << 6) | value;
+		}
+
+		/* top digit of 11 can only hold 4 bits */
+		if(length == MAX_DIGITS + 1 && VALUES[id.charAt(1)] > 0xf) { return FOREIGN; }
+
+		return index > 0 ? index : FOREIGN;
+	}
+
+}
@@ -0,0 +1,197 @@
+package com.s8.io.bohr.lithium.branches;
+
+
+/**
+ * <p>
+ * Common base of tables keyed by numeric vertex index (see
+ * <code>LiIndexCodec</code>): open addressing on primitive <code>long</code>
+ * keys, Fibonacci hashing, linear probing and backward shift deletion (no
+ * tombstones). Values are held by subclasses in a parallel array of type
+ * <code>A</code> (primitive or not), moved along with keys.
+ * </p>
+ * <p>
+ * Table grows beyond a 0.75 load factor and shrinks (see <code>shrink()</code>)
+ * below 0.25, never under its initial capacity.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ * @param <A> type of the array of values
+ */
+abstract class LiIndexTable<A> {
+
+
+	/**
+	 * Fibonacci hashing multiplier
+	 */
+	private final static long PHI = 0x9E3779B97F4A7C15L;
+
+	final static int INITIAL_CAPACITY = 64;
+
+
+	/**
+	 * 0 denotes an empty slot (indices are strictly positive)
+	 */
+	long[] keys;
+
+	A values;
+
+	private int shift;
+
+	/**
+	 * Number of keys
+	 */
+	int size;
+
+	private int threshold;
+
+
+
+	/**
+	 *
+	 * @param capacity
+	 * @return a blank array of values
+	 */
+	abstract A createValues(int capacity);
+
+
+	/**
+	 * <code>target[to] = source[from]</code>
+	 */
+	abstract void moveValue(A source, int from, A target, int to);
+
+
+	/**
+	 * Release value of a slot emptied (if referencing anything)
+	 */
+	abstract void clearValue(A values, int slot);
+
+
+
+	/**
+	 * To be called by subclass constructor
+	 * @param capacity (power of 2)
+	 */
+	void allocate(int capacity) {
+		keys = new long[capacity];
+		values = createValues(capacity);
+		shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		threshold = (capacity >> 1) + (capacity >> 2); // 0.75 load factor
+	}
+
+
+	private int slot(long index) {
+		return (int) ((index * PHI) >>> shift);
+	}
+
+
+	/**
+	 *
+	 * @param index
+	 * @return the slot of <code>index</code>, or -1 if none
+	 */
+	int find(long index) {
+		long[] keys = this.keys;
+		int mask = keys.length - 1;
+		int i = slot(index);
+		long key;
+		while((key = keys[i]) != 0) {
+			if(key == index) { return i; }
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+
+	/**
+	 *
+	 * @param index
+	 * @return the slot of <code>index</code> if any, otherwise the empty slot
+	 * where it is to be inserted (see <code>insert</code>)
+	 */
+	int probe(long index) {
+		long[] keys = this.keys;
+		int mask = keys.length - 1;
+		int i = slot(index);
+		long key;
+		while((key = keys[i]) != 0 && key != index) { i = (i + 1) & mask; }
+		return i;
+	}
+
+
+	/**
+	 * Insert key in empty slot returned by <code>probe</code>, value being
+	 * already set (table might be rehashed).
+	 *
+	 * @param slot
+	 * @param index
+	 */
+	void insert(int slot, long index) {
+		keys[slot] = index;
+		if(++size > threshold) { rehash(keys.length << 1); }
+	}
+
+
+	/**
+	 * Delete entry of <code>slot</code>, pulling up the following entries of
+	 * the cluster (backward shift). Table is not shrunk (so that slots can be
+	 * scanned across deletions), see <code>shrink()</code>.
+	 *
+	 * @param slot
+	 */
+	void delete(int slot) {
+		long[] keys = this.keys;
+		A values = this.values;
+		int mask = keys.length - 1;
+		int hole = slot;
+		int j = (slot + 1) & mask;
+		long key;
+		while((key = keys[j]) != 0) {
+			int home = slot(key);
+			if(((j - home) & mask) >= ((j - hole) & mask)) {
+				keys[hole] = key;
+				moveValue(values, j, values, hole);
+				hole = j;
+			}
+			j = (j + 1) & mask;
+		}
+		keys[hole] = 0;
+		clearValue(values, hole);
+		size--;
+	}
+
+
+	/**
+	 * Halve capacity (repeatedly) while less than a quarter of it is used
+	 */
+	void shrink() {
+		int capacity = keys.length;
+		if(capacity > INITIAL_CAPACITY && size < (capacity >> 2)) {
+			while(capacity > INITIAL_CAPACITY && size < (capacity >> 2)) { capacity >>= 1; }
+			rehash(capacity);
+		}
+	}
+
+
+	private void rehash(int capacity) {
+		long[] previousKeys = keys;
+		A previousValues = values;
+		allocate(capacity);
+
+		long[] keys = this.keys;
+		A values = this.values;
+		int mask = capacity - 1;
+		int n = previousKeys.length;
+		long key;
+		for(int k = 0; k < n; k++) {
+			if((key = previousKeys[k]) != 0) {
+				int i = slot(key);
+				while(keys[i] != 0) { i = (i + 1) & mask; }
+				keys[i] = key;
+				moveValue(previousValues, k, values, i);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,189 @@
+package com.s8.io.bohr.lithium.branches;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import com.s8.io.bohr.atom.BOHR_Keywords;
+import com.s8.io.bohr.lithium.object.ExposeLiObjectDelta;
+import com.s8.io.bohr.lithium.object.LiObjectDelta;
+import com.s8.io.bohr.lithium.object.RemoveLiObjectDelta;
+import com.s8.io.bohr.lithium.storage.LiBufferOutflow;
+import com.s8.io.bohr.lithium.type.LiType;
+import com.s8.io.bohr.lithium.type.ResolveScope;
+
+
+/**
+ * <p>
+ * Records the jumps applied directly (see <code>LiInbound.applyFrame</code>) as
+ * history entries (see <code>LiRecordedDelta</code>), so that a replica applying
+ * frames retains history as one pulling deltas does.
+ * </p>
+ * <p>
+ * Nodes are collected as they are applied (vertex and flags of the fields
+ * set, packed in buffers reused across jumps), then written in the record
+ * session once the jump is resolved, values being read from the objects (no
+ * delta built). Exposures and removals are kept in jump order.
+ * </p>
+ * <p>
+ * Retention is opt-in (see <code>LiBranch.setRetainingAppliedFrames</code>),
+ * since records are encoded again from the applied objects.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+class LiJumpRecorder {
+
+
+	private final LiRecordSession session;
+
+	private final LiBufferOutflow outflow;
+
+	private final Consumer<LiRecordedDelta> consumer;
+
+	/**
+	 * Applied items, in jump order: vertex (node) or object delta (exposure, removal)
+	 */
+	private Object[] items = new Object[64];
+
+	/**
+	 * For nodes: offset of field flags in <code>words</code>, shifted left by
+	 * one, lowest bit set if creating
+	 */
+	private int[] offsets = new int[64];
+
+	private int nItems;
+
+	/**
+	 * Field flags of all nodes of the current jump
+	 */
+	private long[] words = new long[64];
+
+	private int nWords;
+
+	/**
+	 * Flags of the node being parsed (see <code>openNode</code>)
+	 */
+	private long[] flags = new long[1];
+
+	private int nFlagWords;
+
+
+	/**
+	 *
+	 * @param session
+	 * @param outflow record buffer (reused)
+	 * @param consumer receives the entry of each applied jump
+	 */
+	LiJumpRecorder(LiRecordSession session, LiBufferOutflow outflow, Consumer<LiRecordedDelta> consumer) {
+		super();
+		this.session = session;
+		this.outflow = outflow;
+		this.consumer = consumer;
+	}
+
+
+	/**
+	 * 
+	 * @param type
+	 * @return blank flags for the fields of <code>type</code>, to be set by the 
+	 * parser then passed on by <code>onNode</code> (reused for next node)
+	 */
+	long[] openNode(LiType type) {
+		int n = nFlagWords = (type.getNumberOfFields() + 63) >>> 6;
+		if(flags.length < n) { flags = new long[n]; }
+		else { Arrays.fill(flags, 0, n, 0L); }
+		return flags;
+	}
+
+
+	/**
+	 *
+	 * @param vertex
+	 * @param isCreating
+	 */
+	void onNode(LiVertex vertex, boolean isCreating) {
+		int n = nFlagWords;
+		if(nWords + n > words.length) { words = Arrays.copyOf(words, Math.max(words.length << 1, nWords + n)); }
+		System.arraycopy(flags, 0, words, nWords, n);
+		add(vertex, (nWords << 1) | (isCreating ? 1 : 0));
+		nWords += n;
+	}
+
+
+	void onExpose(String id, int slot) {
+		add(new ExposeLiObjectDelta(id, slot), 0);
+	}
+
+
+	void onRemove(String id) {
+		add(new RemoveLiObjectDelta(id), 0);
+	}
+
+
+	private void add(Object item, int offset) {
+		if(nItems == items.length) {
+			items = Arrays.copyOf(items, nItems << 1);
+			offsets = Arrays.copyOf(offsets, nItems << 1);
+		}
+		items[nItems] = item;
+		offsets[nItems] = offset;
+		nItems++;
+	}
+
+
+	/**
+	 * Drop items collected (e.g. left by a jump failed to apply)
+	 */
+	void clear() {
+		Arrays.fill(items, 0, nItems, null);
+		nItems = 0;
+		nWords = 0;
+	}
+
+
+	/**
+	 * Write the record of the jump (once applied and resolved) and hand it to
+	 * the consumer.
+	 *
+	 * @param header version, timestamp, comment, checkpoint flag of the jump
+	 * @param scope read-only resolution of references (all bound)
+	 * @throws IOException
+	 */
+	void record(LiGraphDelta header, ResolveScope scope) throws IOException {
+		LiBufferOutflow outflow = this.outflow;
+		outflow.clear();
+		header.serializeHeader(outflow);
+
+		LiVertex.RecordSink sink = new LiVertex.RecordSink(session, outflow);
+		int n = nItems;
+		for(int i = 0; i < n; i++) {
+			Object item = items[i];
+			if(item instanceof LiObjectDelta) {
+				((LiObjectDelta) item).serialize(session.outbound, outflow);
+			}
+			else {
+				LiVertex vertex = (LiVertex) item;
+				LiType type = vertex.type;
+				int offset = offsets[i] >>> 1, end = offset + ((type.getNumberOfFields() + 63) >>> 6);
+				sink.open(type, vertex.getId(), (offsets[i] & 1) != 0);
+				for(int w = offset; w < end; w++) {
+					long word = words[w];
+					while(word != 0) {
+						int ordinal = ((w - offset) << 6) + Long.numberOfTrailingZeros(word);
+						word &= word - 1;
+						sink.append(type.getField(ordinal), vertex.object, scope);
+					}
+				}
+				sink.close();
+			}
+		}
+		outflow.putUInt8(BOHR_Keywords.CLOSE_JUMP);
+		clear();
+
+		consumer.accept(new LiRecordedDelta(header, session, outflow.toByteArray()));
+	}
+
+}
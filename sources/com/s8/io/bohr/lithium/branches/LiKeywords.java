@@ -0,0 +1,50 @@
+package com.s8.io.bohr.lithium.branches;
+
+
+/**
+ * <p>
+ * Lithium-specific keywords, complementing <code>BOHR_Keywords</code> within a
+ * jump. Codes are taken from the top of the byte range so as to stay clear of
+ * the BOHR codes.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiKeywords {
+
+
+	/**
+	 * Jump is a checkpoint: it holds the full state of the graph at its target
+	 * version (see <code>LiBranch.compact</code>), and is only applicable to a blank
+	 * graph.
+	 */
+	public final static int DEFINE_JUMP_CHECKPOINT = 0xf0;
+
+
+	/**
+	 * Replaces <code>OPEN_SEQUENCE</code> right after the frame header: the
+	 * sequence (from <code>OPEN_SEQUENCE</code> to <code>CLOSE_SEQUENCE</code>)
+	 * follows as a compressed stream (see <code>LiLZOutflow</code>), with a
+	 * dictionary made of the session declarations.
+	 */
+	public final static int COMPRESSED_SEQUENCE = 0xf1;
+
+
+	/**
+	 * Right after the frame header (before <code>COMPRESSED_SEQUENCE</code> /
+	 * <code>OPEN_SEQUENCE</code>): vertex ids of the frame are in numeric form
+	 * (see <code>LiIdComposer</code>). Frames without it carry string ids.
+	 */
+	public final static int NUMERIC_IDS = 0xf2;
+
+
+	/**
+	 * Self-typed version of <code>UPDATE_NODE</code> (type code, then id), so
+	 * that the node can be decoded with no graph at hand. Used by the serialized
+	 * history entries of a branch (see <code>LiRecordedDelta</code>).
+	 */
+	public final static int TYPED_UPDATE_NODE = 0xf3;
+
+}
@@ -1,14 +1,21 @@
 package com.s8.io.bohr.lithium.branches;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import com.s8.io.bohr.atom.BOHR_Keywords;
+import com.s8.io.bohr.atom.S8BuildException;
+import com.s8.io.bohr.atom.S8Exception;
 import com.s8.io.bohr.lithium.codebase.LiCodebase;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.fields.LiComposerSession;
+import com.s8.io.bohr.lithium.storage.LiBufferOutflow;
+import com.s8.io.bohr.lithium.storage.LiLZOutflow;
 import com.s8.io.bohr.lithium.type.LiType;
 import com.s8.io.bohr.lithium.type.LiTypeComposer;
 import com.s8.io.bytes.alpha.ByteOutflow;
@@ -33,6 +40,24 @@ public class LiOutbound {
 	private final Map<String, LiTypeComposer> composers = new HashMap<>();
 
 
+	/**
+	 * Frames are compressed (see <code>LiKeywords.COMPRESSED_SEQUENCE</code>)
+	 */
+	private boolean isCompressing = false;
+
+
+	/**
+	 * Vertex ids are sent in numeric form (see <code>LiKeywords.NUMERIC_IDS</code>)
+	 */
+	private boolean isNumericIds = false;
+
+
+	/**
+	 * Session state (string dictionary, ids encoding)
+	 */
+	private final LiComposerSession session = new LiComposerSession();
+
+
 	public LiOutbound(LiCodebase codebase) {
 		super();
 		this.codebase = codebase;
@@ -40,6 +65,80 @@ public class LiOutbound {
 
 
 
+	/**
+	 * Compress subsequent frames (a compressed frame is flagged as such, so that
+	 * receiving end needs no configuration). Compression is LZ-based, in pure
+	 * Java, with a dictionary primed with the type and field declarations 
+	 * published so far in this session (see <code>LiLZOutflow</code>).
+	 * 
+	 * @param isCompressing
+	 */
+	public void setCompressing(boolean isCompressing) {
+		this.isCompressing = isCompressing;
+	}
+
+
+	/**
+	 * Enable / disable session string dictionary (enabled by default). When
+	 * disabled, <code>"dict"</code> flows send all values as literals, so that
+	 * subsequent nodes can be decoded independently of each other.
+	 * 
+	 * @param isEnabled
+	 */
+	public void setDictionaryEnabled(boolean isEnabled) {
+		session.dictionary.setEnabled(isEnabled);
+	}
+
+
+	/**
+	 * 
+	 * @param composer (of this outbound)
+	 * @return true if fields of <code>composer</code> type are encoded as in a 
+	 * record session (see <code>LiRecordSession</code>): no inline declaration, 
+	 * ids in string form, no dictionary in use. Encoded fields of a record can 
+	 * then be copied as they are.
+	 */
+	boolean isEncodingAsRecord(LiTypeComposer composer) {
+		return !session.ids.isNumeric() && composer.isFullyDeclared() && 
+				!(composer.isUsingDictionary() && session.dictionary.isEnabled());
+	}
+
+
+	/**
+	 * Release dictionary codes claimed for the concurrent encoding of a delta
+	 * (see <code>LiGraphDelta.serialize(LiOutbound, ByteOutflow, ForkJoinPool)</code>)
+	 */
+	void releaseClaims() {
+		session.dictionary.releaseClaims();
+	}
+
+
+	/**
+	 * Send vertex ids (nodes and references) in numeric form in subsequent
+	 * frames: ids allocated by branches (see <code>LiIndexCodec</code>) take a
+	 * <code>UInt7x</code>, instead of a string. Flagged in frame header, so that
+	 * receiving end needs no configuration. Off by default, for peers only
+	 * reading string ids.
+	 * 
+	 * @param isNumericIds
+	 */
+	public void setNumericIds(boolean isNumericIds) {
+		this.isNumericIds = isNumericIds;
+	}
+
+
+	/**
+	 * Compose a vertex id, as per ids mode of current frame
+	 * 
+	 * @param outflow
+	 * @param id
+	 * @throws IOException
+	 */
+	public void composeId(ByteOutflow outflow, String id) throws IOException {
+		session.ids.compose(outflow, id);
+	}
+
+
 	/**
 	 * 
 	 * @param type
@@ -58,10 +157,14 @@ public class LiOutbound {
 	 * @throws LiIOException
 	 */
 	public LiTypeComposer getComposer(String runtimeTypeName) throws LiIOException {
-		LiTypeComposer composer = composers.computeIfAbsent(runtimeTypeName, name -> {
+		/* hit first: no lambda allocated per call */
+		LiTypeComposer composer = composers.get(runtimeTypeName);
+		if(composer != null) { return composer; }
+
+		composer = composers.computeIfAbsent(runtimeTypeName, name -> {
 			LiType nType = codebase.getTypeByRuntimeName(name);
 			try {
-				return new LiTypeComposer(nType, ++typeCode);
+				return new LiTypeComposer(nType, ++typeCode, session);
 			} 
 			catch (LiBuildException e) {
 				e.printStackTrace();
@@ -76,6 +179,55 @@ public class LiOutbound {
 
 
 
+	/**
+	 * Dictionary of frame compression: declarations published so far, by type code
+	 * (see <code>LiInbound.composeDictionary</code>)
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	byte[] composeDictionary() throws IOException {
+		List<LiTypeComposer> declared = new ArrayList<>(composers.size());
+		for(LiTypeComposer composer : composers.values()) {
+			if(composer.isDeclared()) { declared.add(composer); }
+		}
+		declared.sort((a, b) -> Long.compare(a.typeCode, b.typeCode));
+		LiBufferOutflow dictionary = new LiBufferOutflow();
+		for(LiTypeComposer composer : declared) { composer.composeDictionary(dictionary); }
+		return dictionary.toByteArray();
+	}
+
+
+	/**
+	 * Start frame sequence (right after frame header)
+	 * 
+	 * @param outflow
+	 * @return the outflow of the sequence
+	 * @throws IOException
+	 */
+	private ByteOutflow openSequence(ByteOutflow outflow) throws IOException {
+		session.ids.setNumeric(isNumericIds);
+		if(isNumericIds) { outflow.putUInt8(LiKeywords.NUMERIC_IDS); }
+		if(isCompressing) {
+			/* dictionary computed before any declaration of this frame is claimed */
+			byte[] dictionary = composeDictionary();
+			outflow.putUInt8(LiKeywords.COMPRESSED_SEQUENCE);
+			return new LiLZOutflow(outflow, dictionary);
+		}
+		return outflow;
+	}
+
+
+	/**
+	 * 
+	 * @param sequenceOutflow (see <code>openSequence</code>)
+	 * @throws IOException
+	 */
+	private void closeSequence(ByteOutflow sequenceOutflow) throws IOException {
+		if(sequenceOutflow instanceof LiLZOutflow) { ((LiLZOutflow) sequenceOutflow).finish(); }
+	}
+
+
 	/**
 	 * 
 	 * @param outflow
@@ -92,6 +244,28 @@ public class LiOutbound {
 	
 	
 
+	/**
+	 * Parallel version of <code>pushFrame(ByteOutflow, List)</code>, with identical 
+	 * output (see <code>LiGraphDelta.serialize(LiOutbound, ByteOutflow, ForkJoinPool)</code>).
+	 * 
+	 * @param outflow
+	 * @param deltas
+	 * @param pool
+	 * @throws IOException
+	 */
+	public void pushFrame(ByteOutflow outflow, List<LiGraphDelta> deltas, ForkJoinPool pool) throws IOException {
+		outflow.putByteArray(BOHR_Keywords.FRAME_HEADER);
+		ByteOutflow sequenceOutflow = openSequence(outflow);
+		sequenceOutflow.putUInt8(BOHR_Keywords.OPEN_SEQUENCE);
+		for(LiGraphDelta delta : deltas){
+			delta.serialize(this, sequenceOutflow, pool);
+		}
+		sequenceOutflow.putUInt8(BOHR_Keywords.CLOSE_SEQUENCE);
+		closeSequence(sequenceOutflow);
+		outflow.putByteArray(BOHR_Keywords.FRAME_FOOTER);
+	}
+
+
 	/**
 	 * 
 	 * @param outflow
@@ -99,7 +273,34 @@ public class LiOutbound {
 	 */
 	public void pushFrame(ByteOutflow outflow, List<LiGraphDelta> deltas) throws IOException {
 		outflow.putByteArray(BOHR_Keywords.FRAME_HEADER);
-		composeSequence(outflow, deltas);
+		ByteOutflow sequenceOutflow = openSequence(outflow);
+		composeSequence(sequenceOutflow, deltas);
+		closeSequence(sequenceOutflow);
+		outflow.putByteArray(BOHR_Keywords.FRAME_FOOTER);
+	}
+
+
+
+	/**
+	 * Frame of a streamed commit (see <code>LiGraph.streamDiff</code>)
+	 * 
+	 * @param outflow
+	 * @param graph
+	 * @param record record session of the branch (<code>null</code> for no record)
+	 * @param recordOutflow receives the jump, as recorded in history
+	 * @param header
+	 * @throws S8BuildException
+	 * @throws S8Exception
+	 * @throws IOException
+	 */
+	void pushFrame(ByteOutflow outflow, LiGraph graph, LiRecordSession record, LiBufferOutflow recordOutflow, 
+			LiGraphDelta header) throws S8BuildException, S8Exception, IOException {
+		outflow.putByteArray(BOHR_Keywords.FRAME_HEADER);
+		ByteOutflow sequenceOutflow = openSequence(outflow);
+		sequenceOutflow.putUInt8(BOHR_Keywords.OPEN_SEQUENCE);
+		graph.streamDiff(this, sequenceOutflow, record, recordOutflow, header);
+		sequenceOutflow.putUInt8(BOHR_Keywords.CLOSE_SEQUENCE);
+		closeSequence(sequenceOutflow);
 		outflow.putByteArray(BOHR_Keywords.FRAME_FOOTER);
 	}
 
@@ -0,0 +1,67 @@
+package com.s8.io.bohr.lithium.branches;
+
+import java.util.BitSet;
+
+import com.s8.io.bohr.lithium.storage.LiBufferOutflow;
+
+
+/**
+ * <p>
+ * Buffer of one partition of a delta encoded concurrently (see
+ * <code>LiGraphDelta.serialize(LiOutbound, ByteOutflow, ForkJoinPool)</code>).
+ * Order-dependent parts (declarations, session dictionary codes) are claimed
+ * beforehand in stream order, so that partitions can be encoded independently,
+ * then copied in order to the frame.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiPartitionOutflow extends LiBufferOutflow {
+
+
+	/**
+	 * Index of the partition (in stream order)
+	 */
+	public final int index;
+
+
+	/**
+	 * Dictionary codes whose definition has been written by this partition
+	 */
+	private final BitSet definitions = new BitSet();
+
+
+	/**
+	 * End offsets of encoded object deltas
+	 */
+	int[] ends;
+
+
+
+	/**
+	 *
+	 * @param index
+	 * @param nDeltas number of object deltas encoded by this partition
+	 */
+	LiPartitionOutflow(int index, int nDeltas) {
+		super(nDeltas << 6);
+		this.index = index;
+		this.ends = new int[nDeltas];
+	}
+
+
+	/**
+	 * Claim definition of dictionary code (only the first claim succeeds).
+	 *
+	 * @param code
+	 * @return true if definition is to be written
+	 */
+	public boolean define(int code) {
+		if(definitions.get(code)) { return false; }
+		definitions.set(code);
+		return true;
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.s8.io.bohr.lithium.branches;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.s8.io.bohr.lithium.codebase.LiCodebase;
+import com.s8.io.bohr.lithium.storage.LiBufferInflow;
+import com.s8.io.bohr.lithium.storage.LiBufferOutflow;
+import com.s8.io.bohr.lithium.type.LiType;
+import com.s8.io.bohr.lithium.type.LiTypeComposer;
+
+
+/**
+ * <p>
+ * Encoding session of the serialized history entries of a branch (see
+ * <code>LiRecordedDelta</code>). As with snapshot files, records can be decoded
+ * independently of each other: string dictionary is disabled, ids are in
+ * string form, updates are self-typed (see <code>LiKeywords.TYPED_UPDATE_NODE</code>)
+ * and type / field declarations are published upfront, in a separate block
+ * (grown as new types get recorded), instead of inline.
+ * </p>
+ * <p>
+ * Records are written by the writer thread of the branch. Declarations block
+ * is replaced (never modified) on growth, so that records can be decoded by
+ * any thread.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+class LiRecordSession {
+
+
+	private final LiCodebase codebase;
+
+	final LiOutbound outbound;
+
+	/**
+	 * Standalone declaration blocks (see <code>LiTypeComposer.publishDeclarations</code>)
+	 */
+	private volatile byte[] declarations = new byte[0];
+
+
+	LiRecordSession(LiCodebase codebase) {
+		super();
+		this.codebase = codebase;
+		outbound = new LiOutbound(codebase);
+		outbound.setDictionaryEnabled(false);
+	}
+
+
+	/**
+	 *
+	 * @param type
+	 * @return the composer of <code>type</code>, declared upfront
+	 * @throws IOException
+	 */
+	LiTypeComposer getComposer(LiType type) throws IOException {
+		LiTypeComposer composer = outbound.getComposer(type.getRuntimeName());
+		if(!composer.isDeclared()) {
+			LiBufferOutflow block = new LiBufferOutflow();
+			composer.publishDeclarations(block);
+			byte[] previous = declarations;
+			byte[] grown = Arrays.copyOf(previous, previous.length + block.getLength());
+			block.asByteBuffer().get(grown, previous.length, block.getLength());
+			declarations = grown;
+		}
+		return composer;
+	}
+
+
+	/**
+	 *
+	 * @param graph the graph records are applied to (if any)
+	 * @return an inbound reading records of this session
+	 * @throws IOException
+	 */
+	LiInbound createInbound(LiGraph graph) throws IOException {
+		LiInbound inbound = new LiInbound(codebase, graph);
+		LiBufferInflow inflow = new LiBufferInflow(ByteBuffer.wrap(declarations));
+		while(inflow.getBuffer().hasRemaining()) { inbound.onDeclarations(inflow); }
+		return inbound;
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.s8.io.bohr.lithium.branches;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.storage.LiBufferInflow;
+import com.s8.io.bytes.alpha.ByteOutflow;
+
+
+/**
+ * <p>
+ * History entry of a version committed or applied without building deltas (see
+ * <code>LiBranch.commit(LiOutbound, ByteOutflow, String)</code> and
+ * <code>LiBranch.applyFrame</code>): the jump is kept serialized (in the record
+ * session of the branch, see <code>LiRecordSession</code>), so that
+ * <code>objectDeltas</code> is empty. Header (version, timestamp, comment) is
+ * available as for any delta.
+ * </p>
+ * <p>
+ * Operating applies the record straight to the graph (see
+ * <code>LiInbound.applyFrame</code>). Serializing (e.g. for a replica or a
+ * journal) decodes the record first (see <code>materialize()</code>).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiRecordedDelta extends LiGraphDelta {
+
+
+	private final LiRecordSession session;
+
+	/**
+	 * From <code>OPEN_JUMP</code> to <code>CLOSE_JUMP</code>
+	 */
+	private final byte[] record;
+
+
+	LiRecordedDelta(LiGraphDelta header, LiRecordSession session, byte[] record) {
+		super(header.targetVersion, 0);
+		if(header.hasTimestamp()) { setTimestamp(header.getTimestamp()); }
+		if(header.hasComment()) { setComment(header.getComment()); }
+		if(header.isCheckpoint()) { setCheckpoint(); }
+		this.session = session;
+		this.record = record;
+	}
+
+
+	/**
+	 *
+	 * @return the length of the serialized jump (in bytes)
+	 */
+	public int getRecordLength() {
+		return record.length;
+	}
+
+
+	/**
+	 *
+	 * @return the decoded delta (same version, timestamp and comment)
+	 * @throws IOException
+	 */
+	public LiGraphDelta materialize() throws IOException {
+		return session.createInbound(null).parseJump(new LiBufferInflow(ByteBuffer.wrap(record)));
+	}
+
+
+	@Override
+	public void operate(LiGraph branch) throws LiIOException {
+		try {
+			session.createInbound(branch).applyJump(new LiBufferInflow(ByteBuffer.wrap(record)), branch);
+		}
+		catch(LiIOException e) { throw e; }
+		catch(IOException e) {
+			throw new LiIOException("Failed to apply recorded version "+targetVersion, e);
+		}
+	}
+
+
+	/**
+	 * Sequential (record is applied as it is decoded)
+	 */
+	@Override
+	public void operate(LiGraph branch, ForkJoinPool pool) throws LiIOException {
+		operate(branch);
+	}
+
+
+	@Override
+	public void serialize(LiOutbound outbound, ByteOutflow outflow) throws IOException {
+		materialize().serialize(outbound, outflow);
+	}
+
+
+	@Override
+	public void serialize(LiOutbound outbound, ByteOutflow outflow, ForkJoinPool pool) throws IOException {
+		materialize().serialize(outbound, outflow, pool);
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.s8.io.bohr.lithium.branches;
+
+import java.util.List;
+
+
+/**
+ * <p>
+ * Decides how much of the delta history of a <code>LiBranch</code> is retained.
+ * Anything older is collapsed into a checkpoint (see
+ * <code>LiBranch.compact(long)</code>).
+ * </p>
+ * <p>
+ * Policies below only trigger once the retained history has grown twice as
+ * large as required, so that compaction cost is amortized over many commits.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+@FunctionalInterface
+public interface LiRetentionPolicy {
+
+
+	/**
+	 * 
+	 * @param deltas the current history (oldest first, possibly starting with a checkpoint)
+	 * @return the version up to which history should be compacted, or -1 if no
+	 * compaction is required
+	 */
+	public long getCompactionVersion(List<LiGraphDelta> deltas);
+
+
+
+	/**
+	 * Keep (at least) the last <code>n</code> deltas
+	 * @param n
+	 * @return
+	 */
+	public static LiRetentionPolicy keepLast(int n) {
+		if(n < 0) { throw new IllegalArgumentException("Cannot retain a negative number of deltas"); }
+		return deltas -> {
+			int size = deltas.size();
+			if(size > 2 * n + 1) {
+				return deltas.get(size - 1 - n).targetVersion;
+			}
+			else {
+				return -1;
+			}
+		};
+	}
+
+
+
+	/**
+	 * Keep (at least) the deltas committed during the last <code>duration</code>
+	 * milliseconds. Deltas without timestamp are never considered as outdated.
+	 * 
+	 * @param duration (in milliseconds)
+	 * @return
+	 */
+	public static LiRetentionPolicy keepFor(long duration) {
+		if(duration < 0) { throw new IllegalArgumentException("Cannot retain for a negative duration"); }
+		return deltas -> {
+			int size = deltas.size();
+			if(size < 2) { return -1; }
+
+			long now = System.currentTimeMillis();
+
+			/* oldest delta (after checkpoint) not yet outdated enough */
+			LiGraphDelta oldest = deltas.get(deltas.get(0).isCheckpoint() ? 1 : 0);
+			if(!oldest.hasTimestamp() || now - oldest.getTimestamp() <= 2 * duration) { return -1; }
+
+			/* latest outdated delta */
+			long version = -1;
+			for(LiGraphDelta delta : deltas) {
+				if(delta.hasTimestamp() && now - delta.getTimestamp() > duration) {
+					version = delta.targetVersion;
+				}
+				else {
+					break;
+				}
+			}
+			return version;
+		};
+	}
+
+}
@@ -0,0 +1,169 @@
+package com.s8.io.bohr.lithium.branches;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.fields.LiFieldDelta;
+import com.s8.io.bohr.lithium.object.LiObject;
+import com.s8.io.bohr.lithium.type.BuildScope;
+
+
+/**
+ * <p>
+ * Read-only view of a graph at a pinned version (see
+ * <code>LiBranch.pin()</code>), unaffected by subsequent commits.
+ * </p>
+ * <p>
+ * Objects are materialized on demand as fresh instances (not bound to any
+ * graph), built from the states recorded by <code>LiVersionStore</code>.
+ * References are followed lazily, and each object is materialized at most once
+ * per snapshot (so that the object graph is preserved). Objects of a snapshot
+ * must not be modified.
+ * </p>
+ * <p>
+ * A snapshot is meant to be used by a single reader thread. Close it once
+ * done, to release the pinned version.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiSnapshot implements AutoCloseable {
+
+
+	private final LiVersionStore store;
+
+
+	/**
+	 * Pinned version
+	 */
+	public final long version;
+
+
+	private final Map<String, LiObject> objects = new HashMap<>();
+
+
+	/**
+	 * Objects instantiated, but not yet populated
+	 */
+	private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+
+
+	private static class Pending {
+
+		final LiObject object;
+
+		final LiVersionStore.State state;
+
+		Pending(LiObject object, LiVersionStore.State state) {
+			super();
+			this.object = object;
+			this.state = state;
+		}
+	}
+
+
+	private final BuildScope scope = new BuildScope() {
+
+		@Override
+		public LiObject retrieveObject(String id) {
+			return instantiate(id);
+		}
+	};
+
+
+	private boolean isClosed = false;
+
+
+
+	LiSnapshot(LiVersionStore store, long version) {
+		super();
+		this.store = store;
+		this.version = version;
+	}
+
+
+
+	/**
+	 *
+	 * @return the pinned version
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+
+
+	/**
+	 *
+	 * @param slot
+	 * @return the object exposed in <code>slot</code> at pinned version
+	 * @throws LiIOException
+	 */
+	public LiObject getExposed(int slot) throws LiIOException {
+		String id = store.getExposure(version)[slot];
+		return id != null ? getObject(id) : null;
+	}
+
+
+
+	/**
+	 *
+	 * @param id
+	 * @return the object of vertex <code>id</code> at pinned version,
+	 * <code>null</code> if not defined at this version
+	 * @throws LiIOException
+	 */
+	public LiObject getObject(String id) throws LiIOException {
+		if(isClosed) { throw new LiIOException("Snapshot has been closed"); }
+
+		LiObject object = instantiate(id);
+
+		/* populate (following references breadth-first) */
+		while(!pending.isEmpty()) {
+			Pending entry;
+			while((entry = pending.poll()) != null) {
+				for(LiFieldDelta delta : entry.state.fields) {
+					if(delta != null) { delta.operate(entry.object, scope); }
+				}
+			}
+			scope.process();
+		}
+		return object;
+	}
+
+
+
+	private LiObject instantiate(String id) {
+		if(objects.containsKey(id)) { return objects.get(id); }
+
+		LiVersionStore.State state = store.getState(id, version);
+		LiObject object = null;
+		if(state != null) {
+			try {
+				object = state.type.createNewInstance();
+			}
+			catch (LiIOException e) {
+				throw new IllegalStateException(e);
+			}
+			pending.add(new Pending(object, state));
+		}
+		objects.put(id, object);
+		return object;
+	}
+
+
+
+	@Override
+	public void close() {
+		if(!isClosed) {
+			isClosed = true;
+			objects.clear();
+			store.release(version);
+		}
+	}
+
+}
@@ -0,0 +1,683 @@
+package com.s8.io.bohr.lithium.branches;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.s8.io.bohr.atom.BOHR_Keywords;
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.object.LiObject;
+import com.s8.io.bohr.lithium.object.LiObjectDelta;
+import com.s8.io.bohr.lithium.storage.LiBufferInflow;
+import com.s8.io.bohr.lithium.storage.LiBufferOutflow;
+import com.s8.io.bohr.lithium.storage.LiMappedFile;
+import com.s8.io.bohr.lithium.type.BuildScope;
+import com.s8.io.bohr.lithium.type.LiType;
+
+
+/**
+ * <p>
+ * Snapshot file of a branch state, designed to be memory-mapped and loaded
+ * without going through frame parsing.
+ * </p>
+ * <p>
+ * Layout:
+ * </p>
+ * <ul>
+ * <li>Header (fixed size): magic, version, vertex count, highest index, and
+ * offsets of the sections below.</li>
+ * <li>Declarations: types and fields used, declared upfront (see
+ * <code>LiTypeComposer.publishDeclarations</code>).</li>
+ * <li>Records: one per vertex, sorted by id, as an <code>int32</code> length
+ * followed by a <code>CREATE_NODE</code> ... <code>CLOSE_NODE</code> block
+ * carrying no declaration, so any record can be decoded on its own.</li>
+ * <li>Exposure: slots and exposed ids.</li>
+ * <li>Index: <code>int64</code> record offsets, in record (i.e. id) order.</li>
+ * </ul>
+ * <p>
+ * A snapshot file is either loaded at once (<code>load</code>) or opened
+ * lazily (<code>open</code>): vertices are then only materialized when first
+ * reached (exposure, lookup by id, reference from a materialized vertex), by
+ * binary search of the index.
+ * </p>
+ * <p>
+ * Loaded versions are not retained in history (a blank replica is served once
+ * a checkpoint has been taken, see <code>LiBranch.checkpoint</code>).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiSnapshotFile {
+
+
+	public final static byte[] MAGIC = new byte[] { 'L', 'i', 'S', 1 };
+
+
+	/**
+	 * magic (4), reserved (4), version (8), vertex count (8), highest index (8),
+	 * index offset (8), exposure offset (8), records offset (8)
+	 */
+	public final static int HEADER_LENGTH = 56;
+
+
+	/**
+	 * Records are flushed to file by batches of (at least) this size
+	 */
+	private final static int FLUSH_THRESHOLD = 1 << 20;
+
+
+	/**
+	 * Suffix of the temporary file written before replacing snapshot (see <code>write</code>)
+	 */
+	private final static String TMP_SUFFIX = ".tmp";
+
+
+
+	/**
+	 * Write current state of branch to <code>path</code> (file is replaced).
+	 * To be called by the writer thread, with no unpublished changes.
+	 * <p>
+	 * File is written (and forced) as a sibling temporary file, then atomically
+	 * moved to <code>path</code> (and the directory forced): a crash while 
+	 * writing never leaves a truncated or partial snapshot in place of the 
+	 * previous one.
+	 * </p>
+	 *
+	 * @param path
+	 * @param branch
+	 * @throws IOException
+	 */
+	public static void write(Path path, LiBranch branch) throws IOException {
+		LiGraph graph = branch.getGraph();
+		if(graph.hasUnpublishedChanges()) {
+			throw new LiIOException("Graph has unpublished changes: commit before writing snapshot of branch: "+branch.id);
+		}
+		graph.materializeAll();
+
+		/* sort vertices by id, collect types */
+		List<LiVertex> vertices = new ArrayList<>(graph.vertices.size());
+		graph.vertices.forEach(vertices::add);
+		vertices.sort((a, b) -> a.getId().compareTo(b.getId()));
+		Set<LiType> types = new LinkedHashSet<>();
+		for(LiVertex vertex : vertices) { types.add(vertex.type); }
+
+		LiOutbound outbound = new LiOutbound(graph.getCodebase());
+		/* records are decoded lazily, in any order */
+		outbound.setDictionaryEnabled(false);
+		LiBufferOutflow outflow = new LiBufferOutflow(FLUSH_THRESHOLD + (FLUSH_THRESHOLD >>> 2));
+
+		Path tmp = path.resolveSibling(path.getFileName() + TMP_SUFFIX);
+		boolean isWritten = false;
+		try(FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+			/* header is written last */
+			long position = HEADER_LENGTH;
+			channel.position(position);
+
+			/* declarations */
+			outflow.putUInt7x(types.size());
+			for(LiType type : types) {
+				outbound.getComposer(type.getRuntimeName()).publishDeclarations(outflow);
+			}
+
+			/* records */
+			long recordsOffset = position + outflow.getLength();
+			long[] offsets = new long[vertices.size()];
+			List<LiObjectDelta> deltas = new ArrayList<>(1);
+			LiBufferOutflow record = new LiBufferOutflow();
+			int n = vertices.size();
+			for(int i = 0; i < n; i++) {
+				deltas.clear();
+				record.clear();
+				vertices.get(i).snapshot(deltas, graph.resolveScope);
+				deltas.get(0).serialize(outbound, record);
+
+				offsets[i] = position + outflow.getLength();
+				outflow.putInt32(record.getLength());
+				outflow.putByteArray(record.toByteArray());
+
+				if(outflow.getLength() >= FLUSH_THRESHOLD) { position += flush(channel, outflow); }
+			}
+
+			/* exposure */
+			long exposureOffset = position + outflow.getLength();
+			int nExposed = 0;
+			for(int slot = 0; slot < LiGraph.EXPOSURE_RANGE; slot++) {
+				if(graph.exposure[slot] != null) { nExposed++; }
+			}
+			outflow.putUInt8(nExposed);
+			for(int slot = 0; slot < LiGraph.EXPOSURE_RANGE; slot++) {
+				LiVertex vertex = graph.exposure[slot];
+				if(vertex != null) {
+					outflow.putUInt8(slot);
+					outflow.putStringUTF8(vertex.getId());
+				}
+			}
+
+			/* index */
+			long indexOffset = position + outflow.getLength();
+			for(int i = 0; i < n; i++) { outflow.putInt64(offsets[i]); }
+			flush(channel, outflow);
+
+			/* header */
+			outflow.putByteArray(MAGIC);
+			outflow.putInt32(0);
+			outflow.putInt64(graph.version);
+			outflow.putInt64(n);
+			outflow.putInt64(branch.highestIndex);
+			outflow.putInt64(indexOffset);
+			outflow.putInt64(exposureOffset);
+			outflow.putInt64(recordsOffset);
+			channel.position(0);
+			flush(channel, outflow);
+
+			channel.force(true);
+			isWritten = true;
+		}
+		finally {
+			if(!isWritten) { Files.deleteIfExists(tmp); }
+		}
+
+		Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+		/* rename is durable once the directory entry is */
+		forceDirectory(path.toAbsolutePath().getParent());
+	}
+
+
+	/**
+	 * Force directory entries to storage, where supported by the platform
+	 *
+	 * @param directory
+	 */
+	private static void forceDirectory(Path directory) {
+		try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		}
+		catch(IOException e) {
+			/* directories cannot be opened on some platforms (e.g. Windows) */
+		}
+	}
+
+
+	private static int flush(FileChannel channel, LiBufferOutflow outflow) throws IOException {
+		ByteBuffer buffer = outflow.asByteBuffer();
+		int length = buffer.remaining();
+		while(buffer.hasRemaining()) { channel.write(buffer); }
+		outflow.clear();
+		return length;
+	}
+
+
+
+	/**
+	 * Load snapshot file into a blank branch (no vertex, version 0, snapshots
+	 * not enabled).
+	 *
+	 * @param path
+	 * @param branch
+	 * @throws IOException
+	 */
+	public static void load(Path path, LiBranch branch) throws IOException {
+		try(LiMappedFile file = new LiMappedFile(path)) {
+			load(file, branch);
+		}
+	}
+
+
+	/**
+	 *
+	 * @param file
+	 * @param branch
+	 * @throws IOException
+	 */
+	public static void load(LiMappedFile file, LiBranch branch) throws IOException {
+		LiGraph graph = branch.getGraph();
+		Header header = readHeader(file);
+		LiInbound inbound = prepare(file, header, branch);
+
+		/* records */
+		BuildScope scope = graph.createBuildScope();
+		long offset = header.recordsOffset;
+		for(long i = 0; i < header.vertexCount; i++) {
+			int length = file.getInt(offset);
+			LiBufferInflow inflow = new LiBufferInflow(file.slice(offset + 4, length));
+			if(inflow.getUInt8() != BOHR_Keywords.CREATE_NODE) {
+				throw new LiIOException("Malformed snapshot record at "+offset);
+			}
+			inbound.applyCreateNode(inflow, graph, scope);
+			offset += 4 + length;
+		}
+		if(offset != header.exposureOffset) {
+			throw new LiIOException("Snapshot records end at "+offset+", expected: "+header.exposureOffset);
+		}
+		scope.process();
+
+		/* exposure */
+		String[] exposedIds = readExposure(file, header);
+		for(int slot = 0; slot < LiGraph.EXPOSURE_RANGE; slot++) {
+			if(exposedIds[slot] != null) {
+				LiVertex vertex = graph.getVertex(exposedIds[slot]);
+				if(vertex == null) { throw new LiIOException("Cannot expose "+exposedIds[slot]+" in slot "+slot); }
+				graph.exposure[slot] = vertex;
+			}
+		}
+
+		branch.adoptReceived();
+		graph.version = header.version;
+		branch.restartHistory();
+	}
+
+
+	/**
+	 * <p>
+	 * Open snapshot file lazily into a blank branch (no vertex, version 0,
+	 * snapshots not enabled): only declarations and exposure are read, vertices
+	 * are materialized (i.e. decoded, appended to graph and resolved) when first
+	 * reached through <code>LiBranch.getExposed</code>,
+	 * <code>LiGraph.getVertex</code> or <code>BuildScope.retrieveObject</code>.
+	 * </p>
+	 * <p>
+	 * Since fields hold plain object references, materializing a vertex
+	 * materializes all vertices it (transitively) references: memory and
+	 * latency scale with the subgraph reachable from touched vertices.
+	 * Collecting, checkpointing or enabling snapshots materialize the branch
+	 * (entirely for the latter two).
+	 * </p>
+	 * <p>
+	 * The branch takes ownership of the file, which is closed once all
+	 * vertices have been materialized (see <code>LiBranch.materializeAll</code>).
+	 * </p>
+	 *
+	 * @param path
+	 * @param branch
+	 * @throws IOException
+	 */
+	public static void open(Path path, LiBranch branch) throws IOException {
+		LiMappedFile file = new LiMappedFile(path);
+		try {
+			open(file, branch);
+		}
+		catch(IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+
+	/**
+	 *
+	 * @param file
+	 * @param branch
+	 * @throws IOException
+	 */
+	public static void open(LiMappedFile file, LiBranch branch) throws IOException {
+		LiGraph graph = branch.getGraph();
+		Header header = readHeader(file);
+		if(header.vertexCount > Integer.MAX_VALUE) {
+			throw new LiIOException("Too many vertices for lazy opening: "+header.vertexCount);
+		}
+		LiInbound inbound = prepare(file, header, branch);
+		String[] exposedIds = readExposure(file, header);
+
+		/* keep index generation clear of vertices not materialized yet */
+		if(header.highestIndex > branch.highestIndex) { branch.highestIndex = header.highestIndex; }
+		graph.version = header.version;
+		branch.restartHistory();
+
+		LazySource source = new LazySource(file, header, graph, inbound, exposedIds);
+		graph.lazySource = source;
+		source.checkCompletion();
+	}
+
+
+
+	/**
+	 * Check target branch, read declarations
+	 */
+	private static LiInbound prepare(LiMappedFile file, Header header, LiBranch branch) throws IOException {
+		LiGraph graph = branch.getGraph();
+		if(graph.version != 0 || graph.vertices.size() > 0 || graph.lazySource != null) {
+			throw new LiIOException("Snapshot file can only be loaded into a blank branch: "+branch.id);
+		}
+		branch.checkDirectApply();
+
+		LiInbound inbound = new LiInbound(branch.codebase, graph);
+		LiBufferInflow inflow = new LiBufferInflow(file.slice(HEADER_LENGTH, (int) (header.recordsOffset - HEADER_LENGTH)));
+		long nTypes = inflow.getUInt7x();
+		for(long i = 0; i < nTypes; i++) { inbound.onDeclarations(inflow); }
+		return inbound;
+	}
+
+
+	/**
+	 * @return exposed ids, by slot
+	 */
+	private static String[] readExposure(LiMappedFile file, Header header) throws IOException {
+		String[] exposedIds = new String[LiGraph.EXPOSURE_RANGE];
+		LiBufferInflow inflow = new LiBufferInflow(file.slice(header.exposureOffset, (int) (header.indexOffset - header.exposureOffset)));
+		int nExposed = inflow.getUInt8();
+		for(int i = 0; i < nExposed; i++) {
+			int slot = inflow.getUInt8();
+			String id = inflow.getStringUTF8();
+			if(slot >= LiGraph.EXPOSURE_RANGE || id == null) {
+				throw new LiIOException("Cannot expose "+id+" in slot "+slot);
+			}
+			exposedIds[slot] = id;
+		}
+		return exposedIds;
+	}
+
+
+
+	/**
+	 * Fixed-size header of a snapshot file
+	 */
+	static class Header {
+
+		long version;
+
+		long vertexCount;
+
+		long highestIndex;
+
+		long indexOffset;
+
+		long exposureOffset;
+
+		long recordsOffset;
+
+	}
+
+
+	/**
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	static Header readHeader(LiMappedFile file) throws IOException {
+		if(file.getSize() < HEADER_LENGTH) {
+			throw new LiIOException("Not a snapshot file (too short)");
+		}
+		LiBufferInflow inflow = new LiBufferInflow(file.slice(0, HEADER_LENGTH));
+		if(!inflow.matches(MAGIC)) {
+			throw new LiIOException("Not a snapshot file (magic does not match)");
+		}
+		inflow.getInt32();
+		Header header = new Header();
+		header.version = inflow.getInt64();
+		header.vertexCount = inflow.getInt64();
+		header.highestIndex = inflow.getInt64();
+		header.indexOffset = inflow.getInt64();
+		header.exposureOffset = inflow.getInt64();
+		header.recordsOffset = inflow.getInt64();
+		if(header.recordsOffset < HEADER_LENGTH || header.exposureOffset < header.recordsOffset
+				|| header.indexOffset < header.exposureOffset
+				|| header.indexOffset + 8 * header.vertexCount != file.getSize()) {
+			throw new LiIOException("Corrupted snapshot file header");
+		}
+		return header;
+	}
+
+
+
+	/**
+	 * <p>
+	 * Vertices of a lazy-opened graph not materialized yet. Records are looked
+	 * up by binary search of the index (ids being read from records), and are
+	 * materialized at most once: a removed vertex is never materialized again.
+	 * </p>
+	 * <p>
+	 * Referenced vertices are materialized as bindings get resolved, through a
+	 * queue of pending build scopes (rather than recursively), so that object
+	 * returned by <code>fault</code> is fully resolved.
+	 * </p>
+	 */
+	static class LazySource {
+
+		private final LiMappedFile file;
+
+		private final Header header;
+
+		private final LiGraph graph;
+
+		private final LiInbound inbound;
+
+		private final int nRecords;
+
+		/**
+		 * Exposed ids, by slot, cleared as exposure gets materialized or replaced
+		 */
+		private final String[] exposedIds;
+
+		/**
+		 * Records already materialized (or discarded)
+		 */
+		private final BitSet isMaterialized;
+
+		private int nMaterialized;
+
+		/**
+		 * Vertices materialized so far (possibly referenced by records not yet
+		 * materialized), pruned of removed vertices on iteration
+		 */
+		private final List<LiVertex> materializedVertices = new ArrayList<>();
+
+		/**
+		 * Vertices materialized, pending resolution
+		 */
+		private final Queue<LiVertex> pendingVertices = new ArrayDeque<>();
+
+		private final Queue<BuildScope> pendingScopes = new ArrayDeque<>();
+
+		private boolean isResolving;
+
+
+		LazySource(LiMappedFile file, Header header, LiGraph graph, LiInbound inbound, String[] exposedIds) {
+			super();
+			this.file = file;
+			this.header = header;
+			this.graph = graph;
+			this.inbound = inbound;
+			this.nRecords = (int) header.vertexCount;
+			this.exposedIds = exposedIds;
+			this.isMaterialized = new BitSet(nRecords);
+		}
+
+
+		/**
+		 * 
+		 * @param id
+		 * @return the materialized vertex, <code>null</code> if not in file (or removed)
+		 * @throws LiIOException
+		 */
+		LiVertex fault(String id) throws LiIOException {
+			int i = search(id);
+			if(i < 0 || isMaterialized.get(i)) { return null; }
+			LiVertex vertex = materialize(i);
+			resolve();
+			return vertex;
+		}
+
+
+		/**
+		 * 
+		 * @param slot
+		 * @throws LiIOException
+		 */
+		void faultExposure(int slot) throws LiIOException {
+			String id = exposedIds[slot];
+			if(id != null) {
+				exposedIds[slot] = null;
+				LiVertex vertex = graph.getVertex(id);
+				if(vertex == null) { throw new LiIOException("Cannot expose "+id+" in slot "+slot); }
+				graph.exposure[slot] = vertex;
+			}
+		}
+
+
+		/**
+		 * Exposure replaced before being materialized
+		 * @param slot
+		 */
+		void discardExposure(int slot) {
+			exposedIds[slot] = null;
+		}
+
+
+		/**
+		 * Vertex removed before being materialized
+		 * @param id
+		 * @throws LiIOException
+		 */
+		void discard(String id) throws LiIOException {
+			int i = search(id);
+			if(i >= 0 && !isMaterialized.get(i)) {
+				isMaterialized.set(i);
+				nMaterialized++;
+				checkCompletion();
+			}
+		}
+
+
+		/**
+		 * 
+		 * @throws LiIOException
+		 */
+		void materializeAll() throws LiIOException {
+			int i = 0;
+			while((i = isMaterialized.nextClearBit(i)) < nRecords) { materialize(i++); }
+			resolve();
+		}
+
+
+		private LiVertex materialize(int i) throws LiIOException {
+			isMaterialized.set(i);
+			nMaterialized++;
+			try {
+				LiBufferInflow inflow = openRecord(i);
+				BuildScope scope = graph.createBuildScope();
+				LiObject object = inbound.applyCreateNode(inflow, graph, scope);
+				LiVertex vertex = object.S8_vertex;
+				materializedVertices.add(vertex);
+				pendingVertices.add(vertex);
+				pendingScopes.add(scope);
+				return vertex;
+			}
+			catch(LiIOException e) { throw e; }
+			catch(IOException e) {
+				throw new LiIOException("Failed to materialize record #"+i, e);
+			}
+		}
+
+
+		/**
+		 * 
+		 * @param consumer receives each materialized vertex still in graph
+		 */
+		void forEachMaterialized(Consumer<LiVertex> consumer) {
+			List<LiVertex> vertices = materializedVertices;
+			vertices.removeIf(LiVertex::isDetached);
+			vertices.forEach(consumer);
+		}
+
+
+		/**
+		 * Resolve pending vertices (unless already resolving, further down the stack)
+		 * @throws LiIOException
+		 */
+		private void resolve() throws LiIOException {
+			if(isResolving) { return; }
+			isResolving = true;
+			try {
+				BuildScope scope;
+				while((scope = pendingScopes.poll()) != null) {
+					LiVertex vertex = pendingVertices.poll();
+
+					/* might materialize referenced vertices, appended to queues */
+					scope.process();
+					vertex.markReceived();
+				}
+			}
+			finally {
+				isResolving = false;
+				pendingScopes.clear();
+				pendingVertices.clear();
+			}
+			checkCompletion();
+		}
+
+
+		/**
+		 * Release file once all records have been materialized
+		 * @throws LiIOException
+		 */
+		void checkCompletion() throws LiIOException {
+			if(nMaterialized == nRecords && !isResolving) {
+				graph.lazySource = null;
+				for(int slot = 0; slot < LiGraph.EXPOSURE_RANGE; slot++) { faultExposure(slot); }
+				try {
+					file.close();
+				}
+				catch (IOException e) {
+					throw new LiIOException("Failed to close snapshot file", e);
+				}
+			}
+		}
+
+
+		/**
+		 * @return reader positioned after the <code>CREATE_NODE</code> keyword of record <code>i</code>
+		 */
+		private LiBufferInflow openRecord(int i) throws IOException {
+			long offset = file.getLong(header.indexOffset + 8L * i);
+			LiBufferInflow inflow = new LiBufferInflow(file.slice(offset + 4, file.getInt(offset)));
+			if(inflow.getUInt8() != BOHR_Keywords.CREATE_NODE) {
+				throw new LiIOException("Malformed snapshot record at "+offset);
+			}
+			return inflow;
+		}
+
+
+		/**
+		 * @return index of record of vertex <code>id</code>, -1 if none
+		 */
+		private int search(String id) throws LiIOException {
+			try {
+				int low = 0, high = nRecords - 1;
+				while(low <= high) {
+					int middle = (low + high) >>> 1;
+					LiBufferInflow inflow = openRecord(middle);
+					inflow.getUInt7x(); // type code
+					int comparison = inflow.getStringUTF8().compareTo(id);
+					if(comparison < 0) { low = middle + 1; }
+					else if(comparison > 0) { high = middle - 1; }
+					else { return middle; }
+				}
+				return -1;
+			}
+			catch(LiIOException e) { throw e; }
+			catch(IOException e) {
+				throw new LiIOException("Failed to search snapshot file for "+id, e);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.s8.io.bohr.lithium.branches;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * <p>
+ * Type codes of the vertices created within an inbound session (see
+ * <code>LiInbound</code>), keyed by the numeric vertex index.
+ * </p>
+ * <p>
+ * Same layout as <code>LiVertexTable</code> (see <code>LiIndexTable</code>)
+ * with <code>int</code> values: one <code>long</code> and one <code>int</code>
+ * per live vertex, entries being released on removal (and table shrunk once
+ * sparse). Vertices with foreign (non-numeric) identifiers are kept aside in a
+ * plain map.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiTypeCodeTable extends LiIndexTable<int[]> {
+
+
+	/**
+	 * Returned when no type code has been recorded
+	 */
+	public final static int NONE = -1;
+
+
+	/**
+	 * Type codes of vertices with foreign identifiers (lazily created)
+	 */
+	private Map<String, Integer> foreigns;
+
+
+
+	public LiTypeCodeTable() {
+		super();
+		allocate(INITIAL_CAPACITY);
+	}
+
+
+	@Override
+	int[] createValues(int capacity) {
+		return new int[capacity];
+	}
+
+
+	@Override
+	void moveValue(int[] source, int from, int[] target, int to) {
+		target[to] = source[from];
+	}
+
+
+	@Override
+	void clearValue(int[] values, int slot) {
+		/* nothing referenced */
+	}
+
+
+	/**
+	 *
+	 * @return the number of recorded vertices
+	 */
+	public int size() {
+		return size + (foreigns != null ? foreigns.size() : 0);
+	}
+
+
+	/**
+	 *
+	 * @param id
+	 * @return the type code of vertex <code>id</code>, or <code>NONE</code>
+	 */
+	public int get(String id) {
+		long index = LiIndexCodec.decode(id);
+		if(index != LiIndexCodec.FOREIGN) {
+			int i = find(index);
+			return i >= 0 ? values[i] : NONE;
+		}
+		else {
+			Integer code = foreigns != null ? foreigns.get(id) : null;
+			return code != null ? code : NONE;
+		}
+	}
+
+
+	/**
+	 *
+	 * @param id
+	 * @param code (non-negative)
+	 */
+	public void put(String id, int code) {
+		long index = LiIndexCodec.decode(id);
+		if(index == LiIndexCodec.FOREIGN) {
+			if(foreigns == null) { foreigns = new HashMap<>(); }
+			foreigns.put(id, code);
+			return;
+		}
+
+		int i = probe(index);
+		values[i] = code;
+		if(keys[i] == 0) { insert(i, index); }
+	}
+
+
+	/**
+	 *
+	 * @param id
+	 */
+	public void remove(String id) {
+		long index = LiIndexCodec.decode(id);
+		if(index == LiIndexCodec.FOREIGN) {
+			if(foreigns != null) { foreigns.remove(id); }
+			return;
+		}
+
+		int i = find(index);
+		if(i >= 0) {
+			delete(i);
+			shrink();
+		}
+	}
+
+}
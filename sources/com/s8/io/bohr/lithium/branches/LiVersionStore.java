@@ -0,0 +1,328 @@
+package com.s8.io.bohr.lithium.branches;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.fields.LiField;
+import com.s8.io.bohr.lithium.fields.LiFieldDelta;
+import com.s8.io.bohr.lithium.object.CreateLiObjectDelta;
+import com.s8.io.bohr.lithium.object.ExposeLiObjectDelta;
+import com.s8.io.bohr.lithium.object.LiObjectDelta;
+import com.s8.io.bohr.lithium.object.RemoveLiObjectDelta;
+import com.s8.io.bohr.lithium.object.UpdateLiObjectDelta;
+import com.s8.io.bohr.lithium.type.LiType;
+
+
+/**
+ * <h1>Multi-version store of a graph</h1>
+ * <p>
+ * Keeps, for each vertex, a chain of its states (newest first), each one
+ * tagged with the version that produced it. A state is an array of full-value
+ * field deltas (see <code>LiField.produceValue</code>), captured when the
+ * version is committed (or received): values are copied at that time, so
+ * states are immutable and can be read by any thread while the writer keeps
+ * mutating the graph.
+ * </p>
+ * <p>
+ * Readers pin a version (<code>pin()</code>) and read states through a
+ * <code>LiSnapshot</code>. States no longer visible from any pinned version
+ * (nor from the current one) are trimmed as new states are recorded.
+ * </p>
+ * <p>
+ * <code>record</code> must be called by the writer thread only. All other
+ * methods are thread-safe.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiVersionStore {
+
+
+	/**
+	 * State of a vertex, as of <code>version</code>
+	 */
+	static class State {
+
+		final long version;
+
+		final LiType type;
+
+		/**
+		 * Field values, by ordinal. <code>null</code> if vertex has been removed.
+		 */
+		final LiFieldDelta[] fields;
+
+		volatile State previous;
+
+		State(long version, LiType type, LiFieldDelta[] fields, State previous) {
+			super();
+			this.version = version;
+			this.type = type;
+			this.fields = fields;
+			this.previous = previous;
+		}
+	}
+
+
+	/**
+	 * Exposure, as of <code>version</code>
+	 */
+	static class Exposure {
+
+		final long version;
+
+		final String[] ids;
+
+		volatile Exposure previous;
+
+		Exposure(long version, String[] ids, Exposure previous) {
+			super();
+			this.version = version;
+			this.ids = ids;
+			this.previous = previous;
+		}
+	}
+
+
+	private final LiGraph graph;
+
+
+	/**
+	 * Heads of vertex state chains
+	 */
+	private final ConcurrentHashMap<String, State> states = new ConcurrentHashMap<>();
+
+
+	private volatile Exposure exposure;
+
+
+	/**
+	 * Last recorded version, i.e. the one pinned by new readers
+	 */
+	private volatile long version;
+
+
+	/**
+	 * Number of readers per pinned version (guarded by this)
+	 */
+	private final TreeMap<Long, Integer> pins = new TreeMap<>();
+
+
+	/**
+	 * Removed vertices, to be dropped once no longer visible (writer only)
+	 */
+	private final List<String> removedIds = new ArrayList<>();
+
+
+
+	/**
+	 * Capture current state of <code>graph</code> (which must not have
+	 * unpublished changes).
+	 *
+	 * @param graph
+	 * @throws IOException
+	 */
+	LiVersionStore(LiGraph graph) throws IOException {
+		super();
+		this.graph = graph;
+
+		if(graph.hasUnpublishedChanges()) {
+			throw new LiIOException("Graph has unpublished changes: commit before enabling snapshots");
+		}
+
+		long version = graph.version;
+		List<LiVertex> list = new ArrayList<>(graph.vertices.size());
+		graph.vertices.forEach(list::add);
+		for(LiVertex vertex : list) {
+			int nFields = vertex.type.getNumberOfFields();
+			LiFieldDelta[] fields = new LiFieldDelta[nFields];
+			for(int ordinal = 0; ordinal < nFields; ordinal++) {
+				fields[ordinal] = vertex.type.getField(ordinal).produceValue(vertex.object, graph.resolveScope);
+			}
+			states.put(vertex.getId(), new State(version, vertex.type, fields, null));
+		}
+
+		String[] ids = new String[LiGraph.EXPOSURE_RANGE];
+		for(int slot = 0; slot < LiGraph.EXPOSURE_RANGE; slot++) {
+			LiVertex vertex = graph.exposure[slot];
+			ids[slot] = vertex != null ? vertex.getId() : null;
+		}
+		this.exposure = new Exposure(version, ids, null);
+		this.version = version;
+	}
+
+
+
+	/**
+	 *
+	 * @return the latest version readable from this store
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+
+
+	/**
+	 * Pin latest version, so that it remains readable until released.
+	 *
+	 * @return a snapshot of the latest version (to be closed after use)
+	 */
+	public synchronized LiSnapshot pin() {
+		long version = this.version;
+		pins.merge(version, 1, Integer::sum);
+		return new LiSnapshot(this, version);
+	}
+
+
+	synchronized void release(long version) {
+		Integer count = pins.get(version);
+		if(count != null) {
+			if(count > 1) { pins.put(version, count - 1); } else { pins.remove(version); }
+		}
+	}
+
+
+	/**
+	 *
+	 * @return the oldest version still readable
+	 */
+	private synchronized long getHorizon() {
+		return pins.isEmpty() ? version : Math.min(pins.firstKey(), version);
+	}
+
+
+
+	/**
+	 * Record states resulting from <code>delta</code> (already applied to graph,
+	 * or produced by it). Writer thread only.
+	 *
+	 * @param delta
+	 * @throws IOException
+	 */
+	void record(LiGraphDelta delta) throws IOException {
+		long target = delta.targetVersion;
+		long horizon = getHorizon();
+
+		String[] exposedIds = null;
+		for(LiObjectDelta objectDelta : delta.objectDeltas) {
+			String id = objectDelta.id;
+
+			if(objectDelta instanceof CreateLiObjectDelta) {
+				CreateLiObjectDelta createDelta = (CreateLiObjectDelta) objectDelta;
+				LiFieldDelta[] fields = new LiFieldDelta[createDelta.type.getNumberOfFields()];
+				push(id, target, createDelta.type, capture(id, createDelta.deltas, fields), horizon);
+			}
+			else if(objectDelta instanceof UpdateLiObjectDelta) {
+				UpdateLiObjectDelta updateDelta = (UpdateLiObjectDelta) objectDelta;
+				State head = states.get(id);
+				if(head == null || head.fields == null) {
+					throw new LiIOException("No recorded state for updated vertex: "+id);
+				}
+				LiFieldDelta[] fields = Arrays.copyOf(head.fields, head.fields.length);
+				push(id, target, head.type, capture(id, updateDelta.deltas, fields), horizon);
+			}
+			else if(objectDelta instanceof RemoveLiObjectDelta) {
+				State head = states.get(id);
+				if(head != null) {
+					push(id, target, head.type, null, horizon);
+					removedIds.add(id);
+				}
+			}
+			else if(objectDelta instanceof ExposeLiObjectDelta) {
+				if(exposedIds == null) { exposedIds = exposure.ids.clone(); }
+				exposedIds[((ExposeLiObjectDelta) objectDelta).slot] = id;
+			}
+		}
+
+		if(exposedIds != null) {
+			Exposure head = new Exposure(target, exposedIds, exposure);
+			trim(head, horizon);
+			exposure = head;
+		}
+
+		/* drop removed vertices no longer visible */
+		Iterator<String> iterator = removedIds.iterator();
+		while(iterator.hasNext()) {
+			String id = iterator.next();
+			State head = states.get(id);
+			if(head == null || head.fields != null) { iterator.remove(); } // re-created
+			else if(head.version <= horizon) {
+				states.remove(id, head);
+				iterator.remove();
+			}
+		}
+
+		/* make version visible to new readers */
+		synchronized (this) { version = target; }
+	}
+
+
+	private LiFieldDelta[] capture(String id, List<LiFieldDelta> deltas, LiFieldDelta[] fields) throws IOException {
+		LiVertex vertex = graph.getVertex(id);
+		if(vertex == null) { throw new LiIOException("No vertex for recorded id: "+id); }
+		for(LiFieldDelta delta : deltas) {
+			LiField field = delta.getField();
+			fields[field.ordinal] = field.produceValue(vertex.object, graph.resolveScope);
+		}
+		return fields;
+	}
+
+
+	private void push(String id, long target, LiType type, LiFieldDelta[] fields, long horizon) {
+		State head = new State(target, type, fields, states.get(id));
+		trim(head, horizon);
+		states.put(id, head);
+	}
+
+
+	/**
+	 * Cut chain below its newest state visible from <code>horizon</code>
+	 */
+	private static void trim(State state, long horizon) {
+		while(state != null && state.version > horizon) { state = state.previous; }
+		if(state != null) { state.previous = null; }
+	}
+
+
+	private static void trim(Exposure exposure, long horizon) {
+		while(exposure != null && exposure.version > horizon) { exposure = exposure.previous; }
+		if(exposure != null) { exposure.previous = null; }
+	}
+
+
+
+	/**
+	 *
+	 * @param id
+	 * @param version
+	 * @return the state of vertex <code>id</code> as of <code>version</code>,
+	 * <code>null</code> if not defined (or removed) at this version
+	 */
+	State getState(String id, long version) {
+		State state = states.get(id);
+		while(state != null && state.version > version) { state = state.previous; }
+		return (state != null && state.fields != null) ? state : null;
+	}
+
+
+	/**
+	 *
+	 * @param version
+	 * @return exposed ids as of <code>version</code>
+	 */
+	String[] getExposure(long version) {
+		Exposure exposure = this.exposure;
+		while(exposure != null && exposure.version > version) { exposure = exposure.previous; }
+		return exposure != null ? exposure.ids : new String[LiGraph.EXPOSURE_RANGE];
+	}
+
+}
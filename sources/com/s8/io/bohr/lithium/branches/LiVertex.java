@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 
+import com.s8.io.bohr.atom.BOHR_Keywords;
 import com.s8.io.bohr.atom.S8BuildException;
 import com.s8.io.bohr.atom.S8Exception;
 import com.s8.io.bohr.atom.S8ShellStructureException;
@@ -15,9 +16,14 @@ import com.s8.io.bohr.lithium.object.CreateLiObjectDelta;
 import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bohr.lithium.object.LiObjectDelta;
 import com.s8.io.bohr.lithium.object.UpdateLiObjectDelta;
+import com.s8.io.bohr.lithium.storage.LiBufferOutflow;
+import com.s8.io.bohr.lithium.storage.LiRawOutflow;
 import com.s8.io.bohr.lithium.type.GraphCrawler;
+import com.s8.io.bohr.lithium.type.LiTypeCodec;
+import com.s8.io.bohr.lithium.type.LiTypeComposer;
 import com.s8.io.bohr.lithium.type.LiType;
 import com.s8.io.bohr.lithium.type.ResolveScope;
+import com.s8.io.bytes.alpha.ByteOutflow;
 import com.s8.io.bytes.alpha.MemoryFootprint;
 
 
@@ -47,10 +53,17 @@ public class LiVertex {
 	 * <h1>DO NOT USE THIS FIELD: SYSTEM ONLY</h1>
 	 * <p>
 	 * This index acts as an internal identifier and is automatically assigned at
-	 * commit time.
+	 * commit time. <code>LiIndexCodec.FOREIGN</code> if vertex has been created with
+	 * a foreign identifier.
 	 * </p>
 	 */
-	public final String id;
+	public final long index;
+
+
+	/**
+	 * Only defined for foreign identifiers (otherwise, id is computed on demand)
+	 */
+	private final String foreignId;
 
 
 	/**
@@ -69,12 +82,55 @@ public class LiVertex {
 	private boolean isCreateUnpublished = false;
 
 
+	/**
+	 * Set once removed from graph (collected or remotely removed)
+	 */
+	private boolean isDetached = false;
+
+
+	/**
+	 * Link of graph unpublished list
+	 */
+	LiVertex nextUnpublished;
+
+
+	/**
+	 * True if in graph unpublished list
+	 */
+	boolean isQueued;
+
+
+	/**
+	 * Collector mark (see <code>LiCollector</code>)
+	 */
+	int mark;
+
+
+	/**
+	 * True if pending scanning by collector
+	 */
+	boolean isShaded;
+
+
 	public final LiObject object;
 
 	/**
-	 * 
+	 * Unpublished field changes, as a bitset indexed by field ordinal
+	 */
+	final long[] unpublishedFields;
+
+
+	/**
+	 * Field shadows, as of last publish (only for tracked types, <code>null</code> otherwise)
+	 */
+	private final long[] shadows;
+
+
+	/**
+	 * Images of last published values, for fields diffed against them (see 
+	 * <code>LiField.isImaged</code>). Only for tracked types, <code>null</code> otherwise.
 	 */
-	public final boolean[] hasFieldUnpublishedChange;
+	private final Object[] images;
 
 
 	/**
@@ -83,10 +139,28 @@ public class LiVertex {
 	 * @param object
 	 * @throws IOException 
 	 */
+	public LiVertex(LiGraph graph, long index, LiObject object) throws LiIOException {
+		this(graph, index, null, object);
+	}
+
+
+	/**
+	 * 
+	 * @param graph
+	 * @param id
+	 * @param object
+	 * @throws LiIOException
+	 */
 	public LiVertex(LiGraph graph, String id, LiObject object) throws LiIOException {
+		this(graph, LiIndexCodec.decode(id), id, object);
+	}
+
+
+	private LiVertex(LiGraph graph, long index, String id, LiObject object) throws LiIOException {
 		super();
 		this.graph = graph;
-		this.id = id;
+		this.index = index;
+		this.foreignId = (index == LiIndexCodec.FOREIGN) ? id : null;
 
 		LiType type = graph.getCodebase().getType(object);
 		if(type == null) {
@@ -96,14 +170,24 @@ public class LiVertex {
 
 		this.object = object;
 
+		/* all fields are part of creation */
 		int nFields = type.getNumberOfFields();
-		this.hasFieldUnpublishedChange = new boolean[nFields];
-		for(int i = 0; i < nFields; i++) { hasFieldUnpublishedChange[i] = true; }
+		long[] unpublishedFields = new long[(nFields + 63) >>> 6];
+		int nFullWords = nFields >>> 6;
+		for(int w = 0; w < nFullWords; w++) { unpublishedFields[w] = -1L; }
+		if((nFields & 63) != 0) { unpublishedFields[nFullWords] = (1L << (nFields & 63)) - 1; }
+		this.unpublishedFields = unpublishedFields;
+
+		this.shadows = type.isTracked() ? new long[nFields] : null;
+		this.images = type.isTracked() ? new Object[nFields] : null;
 
 
 		isUnpublished = true;
 
 		isCreateUnpublished = true;
+
+		/* allocated black: only collected by next cycles */
+		mark = graph.collector.epoch;
 	}
 
 
@@ -113,6 +197,15 @@ public class LiVertex {
 	}
 
 
+	/**
+	 * 
+	 * @return the <code>String</code> identifier of this vertex, as used in deltas
+	 */
+	public String getId() {
+		return foreignId != null ? foreignId : LiIndexCodec.encode(index);
+	}
+
+
 
 	/**
 	 * 
@@ -150,8 +243,22 @@ public class LiVertex {
 		}
 
 
+		reportChange(field.ordinal);
+	}
+
+
+	/**
+	 * 
+	 * @param ordinal (see <code>LiType.getFieldOrdinal</code>)
+	 * @throws LiIOException
+	 */
+	public void reportChange(int ordinal) throws LiIOException {
+		if(ordinal < 0 || ordinal >= type.getNumberOfFields()) {
+			throw new LiIOException("No field with ordinal "+ordinal+" in this object type");
+		}
+
 		// update field
-		hasFieldUnpublishedChange[field.ordinal] = true;
+		unpublishedFields[ordinal >>> 6] |= 1L << ordinal;
 
 
 		// internal notification schema
@@ -159,6 +266,34 @@ public class LiVertex {
 			graph.reportCreate(this);
 			isUnpublished = true;
 		}
+
+		// collector write barrier
+		graph.collector.shade(this);
+	}
+
+
+	/**
+	 * Force publication of field, even if its shadow is left unchanged (e.g. it 
+	 * references an object whose vertex has been collected in the meantime).
+	 * 
+	 * @param ordinal
+	 * @throws LiIOException
+	 */
+	void invalidate(int ordinal) throws LiIOException {
+		LiField field = type.getField(ordinal);
+		if(shadows != null && field.isShadowed()) { shadows[ordinal] = ~field.computeShadow(object); }
+		reportChange(ordinal);
+	}
+
+
+	/**
+	 * 
+	 * @param ordinals
+	 * @throws LiIOException
+	 */
+	public void reportChanges(int... ordinals) throws LiIOException {
+		int n = ordinals.length;
+		for(int i = 0; i < n; i++) { reportChange(ordinals[i]); }
 	}
 	
 	
@@ -175,6 +310,344 @@ public class LiVertex {
 
 
 
+	/**
+	 * Receives the output of <code>publish</code>, vertex by vertex: either
+	 * collects object deltas (<code>DeltaSink</code>) or writes them straight to
+	 * the wire (<code>StreamSink</code>).
+	 */
+	interface Sink {
+
+		/**
+		 * 
+		 * @param vertex
+		 * @param isCreating
+		 * @param nChanges max number of field deltas to come
+		 * @throws IOException
+		 */
+		void open(LiVertex vertex, boolean isCreating, int nChanges) throws IOException;
+
+		void append(LiFieldDelta delta) throws IOException;
+
+		/**
+		 * Append current value of <code>field</code>, read from <code>object</code>
+		 * (equivalent to <code>append(field.produceDiff(object, scope))</code>).
+		 * 
+		 * @param field
+		 * @param object
+		 * @param scope
+		 * @throws IOException
+		 */
+		void append(LiField field, LiObject object, ResolveScope scope) throws IOException;
+
+		/**
+		 * Append values of flagged fields at once, through the generated codec of
+		 * the type (see <code>LiTypeCodec</code>), if supported.
+		 * 
+		 * @param object
+		 * @param fields flags (by ordinal)
+		 * @return false if not supported (fields are then to be appended one by one)
+		 * @throws IOException
+		 */
+		boolean appendAll(LiObject object, long fields) throws IOException;
+
+		void close() throws IOException;
+	}
+
+
+	/**
+	 * Collects object deltas in a list (reusable across vertices)
+	 */
+	static class DeltaSink implements Sink {
+
+		private final List<LiObjectDelta> objectDeltas;
+
+		private LiVertex vertex;
+
+		private boolean isCreating;
+
+		private int nChanges;
+
+		/* exact size, lazily allocated (tracked updates might turn out empty) */
+		private List<LiFieldDelta> fieldDeltas;
+
+		DeltaSink(List<LiObjectDelta> objectDeltas) {
+			super();
+			this.objectDeltas = objectDeltas;
+		}
+
+		@Override
+		public void open(LiVertex vertex, boolean isCreating, int nChanges) {
+			this.vertex = vertex;
+			this.isCreating = isCreating;
+			this.nChanges = nChanges;
+			fieldDeltas = null;
+		}
+
+		@Override
+		public void append(LiFieldDelta delta) {
+			if(fieldDeltas == null) { fieldDeltas = new ArrayList<>(nChanges); }
+			fieldDeltas.add(delta);
+		}
+
+		@Override
+		public void append(LiField field, LiObject object, ResolveScope scope) throws IOException {
+			append(field.produceDiff(object, scope));
+		}
+
+		@Override
+		public boolean appendAll(LiObject object, long fields) {
+			return false;
+		}
+
+		@Override
+		public void close() {
+			if(isCreating) {
+				objectDeltas.add(new CreateLiObjectDelta(vertex.getId(), vertex.type, 
+						fieldDeltas != null ? fieldDeltas : new ArrayList<>(0)));
+			}
+			else if(fieldDeltas != null) {
+				objectDeltas.add(new UpdateLiObjectDelta(vertex.getId(), vertex.type, fieldDeltas));
+			}
+			vertex = null;
+			fieldDeltas = null;
+		}
+	}
+
+
+	/**
+	 * <p>
+	 * Writes CREATE / UPDATE nodes straight to <code>outflow</code>, through the
+	 * composers of <code>outbound</code>: field values are written from the
+	 * object (see <code>LiFieldComposer.composeValue(LiObject, ResolveScope, ByteOutflow)</code>),
+	 * so no object delta (and, for most fields, no field delta) is ever built. Output is identical to
+	 * serializing the deltas collected by a <code>DeltaSink</code>.
+	 * </p>
+	 * <p>
+	 * Claims declarations, so sequential use only.
+	 * </p>
+	 */
+	static class StreamSink implements Sink {
+
+		final LiOutbound outbound;
+
+		final ByteOutflow outflow;
+
+		LiTypeComposer composer;
+
+		String id;
+
+		/* UPDATE_NODE header deferred to first field (tracked updates might turn out empty) */
+		private boolean isOpen;
+
+		StreamSink(LiOutbound outbound, ByteOutflow outflow) {
+			super();
+			this.outbound = outbound;
+			this.outflow = outflow;
+		}
+
+		@Override
+		public void open(LiVertex vertex, boolean isCreating, int nChanges) throws IOException {
+			open(vertex.type, vertex.getId(), isCreating);
+		}
+
+		void open(LiType type, String id, boolean isCreating) throws IOException {
+			composer = getComposer(type);
+			this.id = id;
+			if(isCreating) {
+				composer.publish_CREATE_NODE(outflow, id);
+				isOpen = true;
+			}
+			else {
+				isOpen = false;
+			}
+		}
+
+		@Override
+		public void append(LiFieldDelta delta) throws IOException {
+			openUpdate();
+			composer.fieldComposers[delta.getField().ordinal].compose(delta, outflow);
+		}
+
+		@Override
+		public void append(LiField field, LiObject object, ResolveScope scope) throws IOException {
+			openUpdate();
+			composer.fieldComposers[field.ordinal].compose(object, scope, outflow);
+		}
+
+		@Override
+		public boolean appendAll(LiObject object, long fields) throws IOException {
+			LiTypeCodec codec = getCodec();
+			if(codec == null) { return false; }
+			if(fields != 0) { openUpdate(); }
+			codec.compose(object, fields, outflow);
+			return true;
+		}
+
+		/**
+		 * 
+		 * @return the codec of the current vertex type, if usable in this session
+		 */
+		LiTypeCodec getCodec() {
+			return composer.getCodec();
+		}
+
+		LiTypeComposer getComposer(LiType type) throws IOException {
+			return outbound.getComposer(type.getRuntimeName());
+		}
+
+		void openUpdate() throws IOException {
+			if(!isOpen) {
+				publishUpdateHeader();
+				isOpen = true;
+			}
+		}
+
+		void publishUpdateHeader() throws IOException {
+			outflow.putUInt8(BOHR_Keywords.UPDATE_NODE);
+			outbound.composeId(outflow, id);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if(isOpen) { outflow.putUInt8(BOHR_Keywords.CLOSE_NODE); }
+			composer = null;
+			id = null;
+		}
+	}
+
+
+
+	/**
+	 * Writes the history record of a streamed commit, in the record session of
+	 * the branch (see <code>LiRecordSession</code>): declarations are published
+	 * upfront, and updates are self-typed.
+	 */
+	static class RecordSink extends StreamSink {
+
+		private final LiRecordSession session;
+
+		RecordSink(LiRecordSession session, ByteOutflow outflow) {
+			super(session.outbound, outflow);
+			this.session = session;
+		}
+
+		@Override
+		LiTypeComposer getComposer(LiType type) throws IOException {
+			return session.getComposer(type);
+		}
+
+		@Override
+		void publishUpdateHeader() throws IOException {
+			outflow.putUInt8(LiKeywords.TYPED_UPDATE_NODE);
+			outflow.putUInt7x(composer.typeCode);
+			outbound.composeId(outflow, id);
+		}
+	}
+
+
+	/**
+	 * <p>
+	 * Writes each vertex to the wire and to the history record. Fields are
+	 * encoded once, into the record, then copied as they are to the wire, 
+	 * whenever wire encodes them identically (raw wire outflow, see 
+	 * <code>LiOutbound.isEncodingAsRecord</code>). Otherwise, fields are 
+	 * written to both (imaged fields being diffed once, their delta being 
+	 * appended to both).
+	 * </p>
+	 */
+	static class TeeSink implements Sink {
+
+		private final StreamSink wire;
+
+		private final RecordSink record;
+
+		private final LiBufferOutflow recordOutflow;
+
+		/**
+		 * Wire outflow, if fields can be copied to it (<code>null</code> otherwise)
+		 */
+		private final LiRawOutflow rawWireOutflow;
+
+		/**
+		 * Fields of current vertex are copied from record to wire
+		 */
+		private boolean isCopying;
+
+		/**
+		 * Start of the fields of current vertex in record (-1 if none yet)
+		 */
+		private int start;
+
+		TeeSink(StreamSink wire, RecordSink record, LiBufferOutflow recordOutflow) {
+			super();
+			this.wire = wire;
+			this.record = record;
+			this.recordOutflow = recordOutflow;
+			this.rawWireOutflow = wire.outflow instanceof LiRawOutflow ? (LiRawOutflow) wire.outflow : null;
+		}
+
+		@Override
+		public void open(LiVertex vertex, boolean isCreating, int nChanges) throws IOException {
+			String id = vertex.getId();
+			wire.open(vertex.type, id, isCreating);
+			record.open(vertex.type, id, isCreating);
+			isCopying = rawWireOutflow != null && wire.outbound.isEncodingAsRecord(wire.composer);
+			start = -1;
+		}
+
+		/**
+		 * Open record node, and mark start of fields
+		 */
+		private void mark() throws IOException {
+			if(start < 0) {
+				record.openUpdate();
+				start = recordOutflow.getLength();
+			}
+		}
+
+		@Override
+		public void append(LiFieldDelta delta) throws IOException {
+			if(isCopying) { mark(); }
+			else { wire.append(delta); }
+			record.append(delta);
+		}
+
+		@Override
+		public void append(LiField field, LiObject object, ResolveScope scope) throws IOException {
+			if(isCopying) { mark(); }
+			else { wire.append(field, object, scope); }
+			record.append(field, object, scope);
+		}
+
+		@Override
+		public boolean appendAll(LiObject object, long fields) throws IOException {
+			if(record.getCodec() == null) { return false; }
+			if(isCopying) {
+				if(fields != 0) { mark(); }
+			}
+			else if(wire.getCodec() != null) {
+				wire.appendAll(object, fields);
+			}
+			else {
+				return false;
+			}
+			record.appendAll(object, fields);
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if(start >= 0) {
+				wire.openUpdate();
+				rawWireOutflow.putByteArray(recordOutflow.array(), start, recordOutflow.getLength() - start);
+			}
+			wire.close();
+			record.close();
+		}
+	}
+
+
+
 	/**
 	 * 
 	 * @param outflow
@@ -184,48 +657,169 @@ public class LiVertex {
 	 * @throws S8Exception 
 	 */
 	public void publish( List<LiObjectDelta> objectDeltas, ResolveScope scope) throws S8BuildException, IOException, S8Exception {
+		publish(new DeltaSink(objectDeltas), scope, true);
+	}
 
-		if(isUnpublished) {
 
+	/**
+	 * 
+	 * @param sink
+	 * @param scope
+	 * @param isTracking if false, creation of tracked vertex is not reported to 
+	 * graph (done by <code>bind</code>), so that vertices can be published concurrently.
+	 * @throws S8BuildException
+	 * @throws IOException
+	 * @throws S8Exception
+	 */
+	void publish(Sink sink, ResolveScope scope, boolean isTracking) throws S8BuildException, IOException, S8Exception {
 
-			/* publish header */
+		if(isUnpublished && !isDetached) {
 
-			List<LiFieldDelta> fieldDeltas = new ArrayList<>();
-			if(isCreateUnpublished) {
-				objectDeltas.add(new CreateLiObjectDelta(id, type, fieldDeltas));
-				isCreateUnpublished = false;
-			}
-			else {
-				objectDeltas.add(new UpdateLiObjectDelta(id, type, fieldDeltas));
-			}
+
+			boolean isCreating = isCreateUnpublished;
+			long[] shadows = this.shadows;
+			if(isTracking && isCreating && shadows != null) { graph.track(this); }
 
 
 			/* <fields> */
 
+			long[] unpublishedFields = this.unpublishedFields;
+			int nWords = unpublishedFields.length;
+
+			int nChanges = 0;
+			for(int w = 0; w < nWords; w++) { nChanges += Long.bitCount(unpublishedFields[w]); }
+			sink.open(this, isCreating, nChanges);
+			if(shadows == null && nWords == 1 && sink.appendAll(object, unpublishedFields[0])) {
+				unpublishedFields[0] = 0;
+			}
+			else {
+				for(int w = 0; w < nWords; w++) {
+					long word = unpublishedFields[w];
+					while(word != 0) {
+						int ordinal = (w << 6) + Long.numberOfTrailingZeros(word);
+						word &= word - 1; // consume lowest flag
+
+						LiField field = type.getField(ordinal);
+
+						if(shadows != null && field.isShadowed()) {
+
+							// tracked: skip fields left unchanged since last publish
+							if(isCreating || field.computeShadow(object) != shadows[ordinal]) {
+								if(field.isImaged()) { sink.append(field.produceDiff(object, images, scope)); }
+								else { sink.append(field, object, scope); }
+
+								/* after diff, so that newly referenced objects are bound */
+								shadows[ordinal] = field.computeShadow(object);
+							}
+						}
+						else {
+							// output field encoding
+							sink.append(field, object, scope);
+						}
+					}
+					unpublishedFields[w] = 0;
+				}
+			}
+			sink.close();
+			if(isCreating) { isCreateUnpublished = false; }
+
+			/* </fields> */
 
-			int nFields = type.getNumberOfFields();
+			// all changes now published, so clear flags
+			isUnpublished = false;
+		}
+	}
 
-			for(int i=0; i < nFields; i++) {
-				if(hasFieldUnpublishedChange[i]) {
 
-					// output field encoding
-					fieldDeltas.add(type.getField(i).produceDiff(object, scope));
 
-					hasFieldUnpublishedChange[i] = false; // consume flag
-				}		
+	/**
+	 * Resolve (i.e. append to graph) all objects referenced by the fields to be
+	 * published, in the same order as <code>publish</code> would, so that
+	 * publishing no longer modifies the graph (and can be run concurrently).
+	 * Also reports creation of tracked vertex.
+	 * 
+	 * @param crawler
+	 * @throws LiIOException
+	 */
+	void bind(GraphCrawler crawler) throws LiIOException {
+		if(!isUnpublished || isDetached) { return; }
+
+		boolean isCreating = isCreateUnpublished;
+		long[] shadows = this.shadows;
+		if(isCreating && shadows != null) { graph.track(this); }
+
+		long[] unpublishedFields = this.unpublishedFields;
+		int nWords = unpublishedFields.length;
+		for(int w = 0; w < nWords; w++) {
+			long word = unpublishedFields[w];
+			while(word != 0) {
+				int ordinal = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+
+				LiField field = type.getField(ordinal);
+
+				/* same selection as publish */
+				if(shadows == null || !field.isShadowed() || isCreating || 
+						field.computeShadow(object) != shadows[ordinal]) {
+					field.sweep(object, crawler);
+				}
 			}
+		}
+	}
 
 
 
+	/**
+	 * Tracked vertices only: flag fields whose shadow no longer matches the
+	 * published one.
+	 * 
+	 * @throws LiIOException
+	 */
+	void detectChanges() throws LiIOException {
+		if(isCreateUnpublished || isDetached) { return; }
+
+		long[] shadows = this.shadows;
+		long[] unpublishedFields = this.unpublishedFields;
+		boolean hasChanged = false;
+		int nFields = shadows.length;
+		for(int ordinal = 0; ordinal < nFields; ordinal++) {
+			long bit = 1L << ordinal;
+
+			/* already flagged fields are compared at publish time */
+			if((unpublishedFields[ordinal >>> 6] & bit) == 0) {
+				LiField field = type.getField(ordinal);
+				if(field.isShadowed() && field.computeShadow(object) != shadows[ordinal]) {
+					unpublishedFields[ordinal >>> 6] |= bit;
+					hasChanged = true;
+				}
+			}
+		}
 
-			/* clear event */
-			clearUpdateEvents();
+		if(hasChanged) {
+			if(!isUnpublished) {
+				graph.reportUpdate(this);
+				isUnpublished = true;
+			}
+			graph.collector.shade(this);
+		}
+	}
 
-			/* </fields> */
 
-			// all changes now published, so clear flags
-			isUnpublished = false;
+
+	/**
+	 * Publish full state of vertex (regardless of unpublished changes)
+	 * 
+	 * @param objectDeltas
+	 * @param scope
+	 * @throws IOException
+	 */
+	void snapshot(List<LiObjectDelta> objectDeltas, ResolveScope scope) throws IOException {
+		int nFields = type.getNumberOfFields();
+		List<LiFieldDelta> fieldDeltas = new ArrayList<>(nFields);
+		for(int i=0; i < nFields; i++) {
+			fieldDeltas.add(type.getField(i).produceDiff(object, scope));
 		}
+		objectDeltas.add(new CreateLiObjectDelta(getId(), type, fieldDeltas));
 	}
 
 
@@ -235,9 +829,59 @@ public class LiVertex {
 	}
 
 
-	private void clearUpdateEvents() {
-		int n = hasFieldUnpublishedChange.length;
-		for(int i = 0; i<n; i++) { hasFieldUnpublishedChange[i] = false; }
+	/**
+	 * Mark vertex as received (i.e. its state, loaded or replayed, is already 
+	 * published), so that subsequent local changes are reported and published 
+	 * as updates. To be called once fields are set and references resolved.
+	 * 
+	 * @throws LiIOException
+	 */
+	void markReceived() throws LiIOException {
+		if(!isCreateUnpublished || isQueued || isDetached) { return; }
+
+		long[] unpublishedFields = this.unpublishedFields;
+		for(int w = 0; w < unpublishedFields.length; w++) { unpublishedFields[w] = 0; }
+
+		long[] shadows = this.shadows;
+		if(shadows != null) {
+			int nFields = shadows.length;
+			for(int ordinal = 0; ordinal < nFields; ordinal++) {
+				LiField field = type.getField(ordinal);
+				if(field.isShadowed()) { shadows[ordinal] = field.computeShadow(object); }
+			}
+			graph.track(this);
+		}
+
+		isCreateUnpublished = false;
+		isUnpublished = false;
+	}
+
+
+	/**
+	 * 
+	 * @return true if creation of this vertex has already been published
+	 */
+	public boolean isPublished() {
+		return !isCreateUnpublished;
+	}
+
+
+	/**
+	 * 
+	 * @return true if this vertex has been removed from its graph
+	 */
+	public boolean isDetached() {
+		return isDetached;
+	}
+
+
+	/**
+	 * Release object from this vertex. Object is then free to be appended again 
+	 * (with a new index).
+	 */
+	void detach() {
+		isDetached = true;
+		if(object.S8_vertex == this) { object.S8_vertex = null; }
 	}
 
 }
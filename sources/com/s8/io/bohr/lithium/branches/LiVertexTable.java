@@ -0,0 +1,201 @@
+package com.s8.io.bohr.lithium.branches;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+
+/**
+ * <p>
+ * Vertex table of a <code>LiGraph</code>, keyed by the numeric vertex index.
+ * </p>
+ * <p>
+ * Open addressing (linear probing, backward shift deletion, see
+ * <code>LiIndexTable</code>) on primitive <code>long</code> keys: no boxing,
+ * no entry objects, no <code>String</code> hashing. Vertices registered with a
+ * foreign (non-numeric) identifier are kept aside in a plain map, which remains
+ * empty for branch-generated graphs.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiVertexTable extends LiIndexTable<LiVertex[]> {
+
+
+	/**
+	 * Vertices with foreign identifiers (lazily created)
+	 */
+	private Map<String, LiVertex> foreigns;
+
+
+
+	public LiVertexTable() {
+		super();
+		allocate(INITIAL_CAPACITY);
+	}
+
+
+	@Override
+	LiVertex[] createValues(int capacity) {
+		return new LiVertex[capacity];
+	}
+
+
+	@Override
+	void moveValue(LiVertex[] source, int from, LiVertex[] target, int to) {
+		target[to] = source[from];
+	}
+
+
+	@Override
+	void clearValue(LiVertex[] values, int slot) {
+		values[slot] = null;
+	}
+
+
+	/**
+	 *
+	 * @return the number of registered vertices
+	 */
+	public int size() {
+		return size + (foreigns != null ? foreigns.size() : 0);
+	}
+
+
+	/**
+	 *
+	 * @param index
+	 * @return
+	 */
+	public LiVertex get(long index) {
+		int i = find(index);
+		return i >= 0 ? values[i] : null;
+	}
+
+
+	/**
+	 *
+	 * @param id
+	 * @return
+	 */
+	public LiVertex get(String id) {
+		long index = LiIndexCodec.decode(id);
+		if(index != LiIndexCodec.FOREIGN) {
+			return get(index);
+		}
+		else {
+			return foreigns != null ? foreigns.get(id) : null;
+		}
+	}
+
+
+	/**
+	 *
+	 * @param vertex
+	 */
+	public void put(LiVertex vertex) {
+		if(vertex.index == LiIndexCodec.FOREIGN) {
+			if(foreigns == null) { foreigns = new HashMap<>(); }
+			foreigns.put(vertex.getId(), vertex);
+			return;
+		}
+
+		long index = vertex.index;
+		int i = probe(index);
+		values[i] = vertex;
+		if(keys[i] == 0) { insert(i, index); }
+	}
+
+
+	/**
+	 *
+	 * @param index
+	 * @return the removed vertex, if any
+	 */
+	public LiVertex remove(long index) {
+		int i = find(index);
+		if(i < 0) { return null; }
+		LiVertex vertex = values[i];
+		delete(i);
+		shrink();
+		return vertex;
+	}
+
+
+	/**
+	 *
+	 * @param id
+	 * @return the removed vertex, if any
+	 */
+	public LiVertex remove(String id) {
+		long index = LiIndexCodec.decode(id);
+		if(index != LiIndexCodec.FOREIGN) {
+			return remove(index);
+		}
+		else {
+			return foreigns != null ? foreigns.remove(id) : null;
+		}
+	}
+
+
+	/**
+	 * Traverse all vertices (in no particular order)
+	 * @param consumer
+	 */
+	public void forEach(Consumer<LiVertex> consumer) {
+		LiVertex[] values = this.values;
+		int capacity = values.length;
+		LiVertex vertex;
+		for(int i = 0; i < capacity; i++) {
+			if((vertex = values[i]) != null) { consumer.accept(vertex); }
+		}
+		if(foreigns != null) { foreigns.values().forEach(consumer); }
+	}
+
+
+	/**
+	 * <p>
+	 * Remove the vertices matching <code>predicate</code>, scanning at most
+	 * <code>budget</code> slots from <code>from</code>. Meant for budgeted
+	 * traversal: if the table is modified between two calls, some vertices might
+	 * be skipped or visited twice. Table is shrunk (if sparse) only once the 
+	 * whole table has been scanned.
+	 * </p>
+	 *
+	 * @param from first slot to be scanned
+	 * @param budget max number of slots scanned
+	 * @param predicate
+	 * @return the next slot to be scanned, or -1 once the whole table has been scanned
+	 */
+	public int removeIf(int from, int budget, Predicate<LiVertex> predicate) {
+		LiVertex[] values = this.values;
+		int capacity = values.length;
+		int i = from, count = 0;
+		while(i < capacity && count < budget) {
+			LiVertex vertex = values[i];
+			if(vertex != null && predicate.test(vertex)) {
+				delete(i);
+				/* slot might have been refilled by backward shift, so re-examine it */
+			}
+			else {
+				i++;
+			}
+			count++;
+		}
+		if(i < capacity) { return i; }
+
+		if(foreigns != null) {
+			Iterator<LiVertex> iterator = foreigns.values().iterator();
+			while(iterator.hasNext()) {
+				if(predicate.test(iterator.next())) { iterator.remove(); }
+			}
+		}
+		shrink();
+		return -1;
+	}
+
+}
@@ -36,6 +36,17 @@ public class LiIOException extends IOException {
 	}
 	
 	
+	/**
+	 * 
+	 * @param message
+	 * @param cause
+	 */
+	public LiIOException(String message, Exception cause) {
+		super(message+", due to "+cause.getMessage());
+		this.cause = cause;
+	}
+	
+	
 	/**
 	 * 
 	 * @param message
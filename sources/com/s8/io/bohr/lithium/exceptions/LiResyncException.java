@@ -0,0 +1,43 @@
+package com.s8.io.bohr.lithium.exceptions;
+
+
+/**
+ * <p>
+ * Raised when a replica asks for deltas that are no longer available (history
+ * has been compacted past its version), or that do not exist yet. Replica must
+ * then resync from scratch, i.e. pull from version 0 (checkpoint first) into a
+ * blank graph.
+ * </p>
+ * 
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ * 
+ */
+public class LiResyncException extends LiIOException {
+
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 2518306284517493114L;
+
+
+	/**
+	 * Version requested by the replica
+	 */
+	public final long requestedVersion;
+
+
+	/**
+	 * Oldest version from which deltas can be pulled (apart from 0)
+	 */
+	public final long availableVersion;
+
+
+	public LiResyncException(long requestedVersion, long availableVersion, String message) {
+		super(message);
+		this.requestedVersion = requestedVersion;
+		this.availableVersion = availableVersion;
+	}
+
+}
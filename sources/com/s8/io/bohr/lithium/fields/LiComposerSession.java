@@ -0,0 +1,28 @@
+package com.s8.io.bohr.lithium.fields;
+
+
+/**
+ * <p>
+ * Session state of a sending end (one per <code>LiOutbound</code>), bound to
+ * type and field composers on creation (see <code>LiFieldComposer.bind</code>).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiComposerSession {
+
+
+	/**
+	 * String dictionary (see <code>"dict"</code> flows)
+	 */
+	public final LiStringDictionaryComposer dictionary = new LiStringDictionaryComposer();
+
+
+	/**
+	 * Vertex ids encoding (nodes and references)
+	 */
+	public final LiIdComposer ids = new LiIdComposer();
+
+}
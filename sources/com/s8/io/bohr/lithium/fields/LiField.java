@@ -96,6 +96,18 @@ public abstract class LiField {
 	public abstract LiFieldComposer createComposer(int code) throws LiIOException;
 	
 	
+	/**
+	 * 
+	 * @param code
+	 * @param isTracked true if field belongs to a tracked type (see <code>LiType.setTracked</code>)
+	 * @return
+	 * @throws LiIOException
+	 */
+	public LiFieldComposer createComposer(int code, boolean isTracked) throws LiIOException {
+		return createComposer(code);
+	}
+	
+	
 	public abstract LiFieldParser createParser(ByteInflow inflow) throws IOException;
 	
 	
@@ -150,6 +162,69 @@ public abstract class LiField {
 	 */
 	public abstract LiFieldDelta produceDiff(LiObject object, ResolveScope scope) throws IOException;
 
+
+	/**
+	 * Full value of the field, as a delta safe to be retained (and operated
+	 * concurrently): no state is shared with <code>object</code>. Used for
+	 * versioned reads (see <code>LiSnapshot</code>).
+	 * 
+	 * @param object
+	 * @param scope
+	 * @return
+	 * @throws IOException
+	 */
+	public LiFieldDelta produceValue(LiObject object, ResolveScope scope) throws IOException {
+		return produceDiff(object, scope);
+	}
+
+
+	/**
+	 * 
+	 * @return true if deltas can be computed against an image of the last
+	 * published value (see <code>produceDiff(LiObject, Object[], ResolveScope)</code>)
+	 */
+	public boolean isImaged() {
+		return false;
+	}
+
+
+	/**
+	 * Produce diff against image of the last published value (tracked types only).
+	 * 
+	 * @param object
+	 * @param images images of the vertex, indexed by field ordinal. Image of this 
+	 * field is to be updated to the newly published value.
+	 * @param scope
+	 * @return
+	 * @throws IOException
+	 */
+	public LiFieldDelta produceDiff(LiObject object, Object[] images, ResolveScope scope) throws IOException {
+		return produceDiff(object, scope);
+	}
+
+
+	/**
+	 * 
+	 * @return true if changes of this field can be detected by comparing shadows
+	 * (see <code>computeShadow</code>)
+	 */
+	public boolean isShadowed() {
+		return false;
+	}
+
+
+	/**
+	 * 64-bit shadow of the current field value (see <code>LiShadow</code>), only
+	 * defined if <code>isShadowed()</code>.
+	 * 
+	 * @param object
+	 * @return
+	 * @throws LiIOException
+	 */
+	public long computeShadow(LiObject object) throws LiIOException {
+		throw new LiIOException("No shadow defined for field: "+name);
+	}
+
 	
 
 	public void print(LiObject object, ResolveScope scope, Writer writer) throws IOException, S8ShellStructureException {
@@ -3,6 +3,8 @@ package com.s8.io.bohr.lithium.fields;
 import java.io.IOException;
 
 import com.s8.io.bohr.atom.BOHR_Keywords;
+import com.s8.io.bohr.lithium.object.LiObject;
+import com.s8.io.bohr.lithium.type.ResolveScope;
 import com.s8.io.bytes.alpha.ByteOutflow;
 
 
@@ -34,6 +36,72 @@ public abstract class LiFieldComposer {
 
 
 
+	/**
+	 * Bind session state (string dictionary, ids encoding). Called once, on
+	 * composer creation. Default: not used.
+	 * 
+	 * @param session
+	 */
+	public void bind(LiComposerSession session) {
+	}
+
+
+	/**
+	 * 
+	 * @return true if values are written through the session string dictionary
+	 */
+	public boolean isUsingDictionary() {
+		return false;
+	}
+
+
+	/**
+	 * Claim session state to be written by the value of <code>delta</code> when
+	 * composed concurrently (see <code>LiStringDictionaryComposer.claim</code>).
+	 * To be called sequentially, in stream order. Default: none.
+	 * 
+	 * @param delta
+	 * @param partition
+	 */
+	public void claim(LiFieldDelta delta, int partition) {
+	}
+
+
+	/**
+	 * Plain encodings are the ones a generated type codec can inline (see
+	 * <code>LiTypeCodec</code>): fixed-size values, UTF-8 strings.
+	 * 
+	 * @return the <code>BOHR_Types</code> code of the value encoding if plain, -1 otherwise
+	 */
+	public int getPlainEncoding() {
+		return -1;
+	}
+
+
+	/**
+	 * 
+	 * @return true if field declaration has been claimed (i.e. published in this session)
+	 */
+	public boolean isDeclared() {
+		return !isFieldUndeclared;
+	}
+
+
+	/**
+	 * Claim declaration of the field: only the first claim succeeds, the
+	 * corresponding value being the one to carry the declaration.
+	 * 
+	 * @return true if field declaration is to be published with next value
+	 */
+	public boolean claimDeclaration() {
+		if(isFieldUndeclared) {
+			isFieldUndeclared = false;
+			return true;
+		}
+		return false;
+	}
+
+
 	/**
 	 * 
 	 * @param object
@@ -42,30 +110,50 @@ public abstract class LiFieldComposer {
 	 * @throws IOException
 	 */
 	public void publishFieldHeader(ByteOutflow outflow) throws IOException {
-		if(isFieldUndeclared) {
+		publishFieldHeader(outflow, claimDeclaration());
+	}
+
+
+	/**
+	 * Stateless version of <code>publishFieldHeader(ByteOutflow)</code>
+	 * (declaration being claimed beforehand).
+	 * 
+	 * @param outflow
+	 * @param isDeclaring
+	 * @throws IOException
+	 */
+	public void publishFieldHeader(ByteOutflow outflow, boolean isDeclaring) throws IOException {
+		if(isDeclaring) { publishFieldDeclaration(outflow); }
 
-			// advertise transmission
-			outflow.putUInt8(BOHR_Keywords.DECLARE_FIELD);
 
-			// send field name
-			outflow.putStringUTF8(getField().name);
+		// advertise transmission
+		outflow.putUInt8(BOHR_Keywords.SET_VALUE);
 
-			// send field flow properties
-			publishFlowEncoding(outflow);
+		// send code
+		outflow.putUInt8(code);
 
-			// send code
-			outflow.putUInt8(code);
+	}
 
-			isFieldUndeclared = false;
-		}
 
+	/**
+	 * Declaration only (name, flow encoding, code), declaration being claimed beforehand.
+	 * 
+	 * @param outflow
+	 * @throws IOException
+	 */
+	public void publishFieldDeclaration(ByteOutflow outflow) throws IOException {
 
 		// advertise transmission
-		outflow.putUInt8(BOHR_Keywords.SET_VALUE);
+		outflow.putUInt8(BOHR_Keywords.DECLARE_FIELD);
+
+		// send field name
+		outflow.putStringUTF8(getField().name);
+
+		// send field flow properties
+		publishFlowEncoding(outflow);
 
 		// send code
 		outflow.putUInt8(code);
-
 	}
 
 
@@ -87,6 +175,19 @@ public abstract class LiFieldComposer {
 		publishFieldHeader(outflow);
 		composeValue(delta, outflow);
 	}
+
+
+	/**
+	 * 
+	 * @param delta
+	 * @param outflow
+	 * @param isDeclaring (see <code>claimDeclaration()</code>)
+	 * @throws IOException
+	 */
+	public void compose(LiFieldDelta delta, ByteOutflow outflow, boolean isDeclaring) throws IOException {
+		publishFieldHeader(outflow, isDeclaring);
+		composeValue(delta, outflow);
+	}
 	
 	
 	/**
@@ -96,4 +197,36 @@ public abstract class LiFieldComposer {
 	 * @throws IOException
 	 */
 	public abstract void composeValue(LiFieldDelta delta, ByteOutflow outflow) throws IOException;
+
+
+	/**
+	 * Compose current value of the field, read from <code>object</code> (no
+	 * field delta built, see <code>composeValue(LiObject, ResolveScope, ByteOutflow)</code>).
+	 *
+	 * @param object
+	 * @param scope
+	 * @param outflow
+	 * @throws IOException
+	 */
+	public void compose(LiObject object, ResolveScope scope, ByteOutflow outflow) throws IOException {
+		publishFieldHeader(outflow);
+		composeValue(object, scope, outflow);
+	}
+
+
+	/**
+	 * Compose current value of the field, read from <code>object</code>. Output
+	 * (and binding of referenced objects through <code>scope</code>) is
+	 * identical to <code>composeValue(getField().produceDiff(object, scope), outflow)</code>,
+	 * which is the default. Overridden by composers that can write the value
+	 * straight from the object, with no field delta allocated.
+	 *
+	 * @param object
+	 * @param scope
+	 * @param outflow
+	 * @throws IOException
+	 */
+	public void composeValue(LiObject object, ResolveScope scope, ByteOutflow outflow) throws IOException {
+		composeValue(getField().produceDiff(object, scope), outflow);
+	}
 }
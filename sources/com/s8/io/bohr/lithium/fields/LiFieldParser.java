@@ -3,6 +3,8 @@ package com.s8.io.bohr.lithium.fields;
 import java.io.IOException;
 
 import com.s8.io.bohr.atom.BOHR_Properties;
+import com.s8.io.bohr.lithium.object.LiObject;
+import com.s8.io.bohr.lithium.type.BuildScope;
 import com.s8.io.bytes.alpha.ByteInflow;
 
 
@@ -29,6 +31,42 @@ public abstract class LiFieldParser {
 	 */
 	public abstract LiFieldDelta parseValue(ByteInflow inflow) throws IOException;
 	
+	
+	/**
+	 * Bind session state (string dictionary, ids decoding). Called once, on
+	 * parser creation. Default: not used.
+	 * 
+	 * @param session
+	 */
+	public void bind(LiParserSession session) {
+	}
+
+
+	/**
+	 * Plain encodings are the ones a generated type codec can inline (see
+	 * <code>LiTypeCodec</code>): fixed-size values, UTF-8 strings.
+	 * 
+	 * @return the <code>BOHR_Types</code> code of the value encoding if plain, -1 otherwise
+	 */
+	public int getPlainEncoding() {
+		return -1;
+	}
+	
+	
+	/**
+	 * Parse value and apply it straight to <code>object</code> (direct-apply
+	 * inbound mode). Default implementation goes through the delta, parsers of
+	 * plain values override it to set the value without allocating one.
+	 * 
+	 * @param inflow
+	 * @param object
+	 * @param scope (for bindings)
+	 * @throws IOException
+	 */
+	public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+		parseValue(inflow).operate(object, scope);
+	}
+	
 
 	
 	/**
@@ -0,0 +1,82 @@
+package com.s8.io.bohr.lithium.fields;
+
+
+/**
+ * <p>
+ * Lithium-specific flow codes, complementing <code>BOHR_Types</code> in field
+ * declarations. Codes are taken from the top of the byte range so as to stay
+ * clear of the BOHR codes.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiFlowCodes {
+
+
+	/**
+	 * Prefix of a flow encoding whose values are preceded by a kind byte (
+	 * <code>FULL</code> or <code>PATCH</code>). Followed by the regular encoding
+	 * of the field.
+	 */
+	public final static int PATCHABLE = 0xf0;
+
+
+	/**
+	 * Value kind: regular (full) value follows
+	 */
+	public final static int FULL = 0x00;
+
+
+	/**
+	 * Value kind: patch (against previous value) follows
+	 */
+	public final static int PATCH = 0x01;
+
+
+	/**
+	 * Array element encoding (following <code>BOHR_Types.ARRAY</code>): 64-bit
+	 * values, XOR-packed (see <code>LiXorPacking</code>)
+	 */
+	public final static int XOR64 = 0xf1;
+
+
+	/**
+	 * Array element encoding (following <code>BOHR_Types.ARRAY</code>): 32-bit
+	 * values, XOR-packed (see <code>LiXorPacking</code>)
+	 */
+	public final static int XOR32 = 0xf2;
+
+
+	/**
+	 * Array element encoding (following <code>BOHR_Types.ARRAY</code>): 64-bit
+	 * integers, delta-of-delta-packed (see <code>LiDeltaPacking</code>)
+	 */
+	public final static int DOD64 = 0xf3;
+
+
+	/**
+	 * Integer encoding (alone, or following <code>BOHR_Types.ARRAY</code>):
+	 * unsigned variable-length (<code>UInt7x</code>), so that small positive
+	 * values take a single byte (negative values taking the most bytes)
+	 */
+	public final static int VARINT = 0xf4;
+
+
+	/**
+	 * Integer encoding (alone, or following <code>BOHR_Types.ARRAY</code>):
+	 * zigzag-mapped (0, -1, 1, -2...) then variable-length (<code>UInt7x</code>),
+	 * so that values of small magnitude take a single byte whatever their sign
+	 */
+	public final static int ZIGZAG = 0xf5;
+
+
+	/**
+	 * String encoding (alone, or following <code>BOHR_Types.ARRAY</code>):
+	 * through the session string dictionary (see
+	 * <code>LiStringDictionaryComposer</code>)
+	 */
+	public final static int DICTIONARY = 0xf6;
+
+}
@@ -0,0 +1,83 @@
+package com.s8.io.bohr.lithium.fields;
+
+import java.io.IOException;
+
+import com.s8.io.bohr.lithium.branches.LiIndexCodec;
+import com.s8.io.bytes.alpha.ByteOutflow;
+
+
+/**
+ * <p>
+ * Sending end of vertex ids (nodes and references), in one of two modes,
+ * selected per frame by <code>LiOutbound</code>:
+ * </p>
+ * <ul>
+ * <li>string (default, understood by any peer): id as <code>StringUTF8</code>;</li>
+ * <li>numeric: <code>UInt7x</code> header, being <code>0</code> for
+ * <code>null</code>, <code>index &lt;&lt; 1</code> for a numeric index (see
+ * <code>LiIndexCodec</code>), or <code>1</code> for a foreign id, then sent as
+ * <code>StringUTF8</code>.</li>
+ * </ul>
+ * <p>
+ * Read back by <code>LiIdParser</code>.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiIdComposer {
+
+
+	public final static int NULL = 0, FOREIGN = 1;
+
+
+	private boolean isNumeric = false;
+
+
+
+	/**
+	 *
+	 * @param isNumeric
+	 */
+	public void setNumeric(boolean isNumeric) {
+		this.isNumeric = isNumeric;
+	}
+
+
+	/**
+	 *
+	 * @return true if ids are currently sent in numeric form
+	 */
+	public boolean isNumeric() {
+		return isNumeric;
+	}
+
+
+
+	/**
+	 *
+	 * @param outflow
+	 * @param id
+	 * @throws IOException
+	 */
+	public void compose(ByteOutflow outflow, String id) throws IOException {
+		if(!isNumeric) {
+			outflow.putStringUTF8(id);
+		}
+		else if(id == null) {
+			outflow.putUInt7x(NULL);
+		}
+		else {
+			long index = LiIndexCodec.decode(id);
+			if(index != LiIndexCodec.FOREIGN) {
+				outflow.putUInt7x(index << 1);
+			}
+			else {
+				outflow.putUInt7x(FOREIGN);
+				outflow.putStringUTF8(id);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.s8.io.bohr.lithium.fields;
+
+import java.io.IOException;
+
+import com.s8.io.bohr.lithium.branches.LiIndexCodec;
+import com.s8.io.bytes.alpha.ByteInflow;
+
+
+/**
+ * <p>
+ * Receiving end of vertex ids, see <code>LiIdComposer</code> for the encoding.
+ * Mode is set per frame by <code>LiInbound</code>, from the frame header.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiIdParser {
+
+
+	private boolean isNumeric = false;
+
+
+
+	/**
+	 *
+	 * @param isNumeric
+	 */
+	public void setNumeric(boolean isNumeric) {
+		this.isNumeric = isNumeric;
+	}
+
+
+
+	/**
+	 *
+	 * @param inflow
+	 * @return next id
+	 * @throws IOException
+	 */
+	public String parse(ByteInflow inflow) throws IOException {
+		if(!isNumeric) {
+			return inflow.getStringUTF8();
+		}
+		long header = inflow.getUInt7x();
+		if(header == LiIdComposer.NULL) {
+			return null;
+		}
+		else if(header == LiIdComposer.FOREIGN) {
+			return inflow.getStringUTF8();
+		}
+		else {
+			return LiIndexCodec.encode(header >>> 1);
+		}
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.s8.io.bohr.lithium.fields;
+
+
+/**
+ * <p>
+ * Session state of a receiving end (one per <code>LiInbound</code>), bound to
+ * type and field parsers on creation (see <code>LiFieldParser.bind</code>).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiParserSession {
+
+
+	/**
+	 * String dictionary (see <code>"dict"</code> flows)
+	 */
+	public final LiStringDictionaryParser dictionary = new LiStringDictionaryParser();
+
+
+	/**
+	 * Vertex ids decoding (nodes and references)
+	 */
+	public final LiIdParser ids = new LiIdParser();
+
+}
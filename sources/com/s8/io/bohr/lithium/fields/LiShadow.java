@@ -0,0 +1,147 @@
+package com.s8.io.bohr.lithium.fields;
+
+import com.s8.io.bohr.lithium.branches.LiIndexCodec;
+import com.s8.io.bohr.lithium.branches.LiVertex;
+import com.s8.io.bohr.lithium.object.LiObject;
+
+
+/**
+ * <p>
+ * 64-bit digests of field values, as compared at commit time for tracked types
+ * (see <code>LiType.setTracked</code>). Primitives are shadowed by their exact
+ * bits, so no digest is involved. Strings and arrays are digested element by
+ * element, references are shadowed by vertex index (i.e. by identity).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiShadow {
+
+
+	/**
+	 * Shadow of <code>null</code>
+	 */
+	public final static long NULL = 0x6a09e667f3bcc909L;
+
+
+	private final static long M = 0x9E3779B97F4A7C15L;
+
+
+	/**
+	 * Final avalanche (MurmurHash3 fmix64)
+	 * @param h
+	 * @return
+	 */
+	public static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+
+	private static long step(long h, long value) {
+		return (Long.rotateLeft(h, 23) ^ value) * M;
+	}
+
+
+
+	public static long of(String value) {
+		if(value == null) { return NULL; }
+		int n = value.length();
+		long h = n;
+		for(int i = 0; i < n; i++) { h = step(h, value.charAt(i)); }
+		return mix(h);
+	}
+
+
+	public static long of(boolean[] array) {
+		if(array == null) { return NULL; }
+		int n = array.length;
+		long h = n;
+		for(int i = 0; i < n; i++) { h = step(h, array[i] ? 1 : 2); }
+		return mix(h);
+	}
+
+
+	public static long of(short[] array) {
+		if(array == null) { return NULL; }
+		int n = array.length;
+		long h = n;
+		for(int i = 0; i < n; i++) { h = step(h, array[i]); }
+		return mix(h);
+	}
+
+
+	public static long of(int[] array) {
+		if(array == null) { return NULL; }
+		int n = array.length;
+		long h = n;
+		for(int i = 0; i < n; i++) { h = step(h, array[i]); }
+		return mix(h);
+	}
+
+
+	public static long of(long[] array) {
+		if(array == null) { return NULL; }
+		int n = array.length;
+		long h = n;
+		for(int i = 0; i < n; i++) { h = step(h, array[i]); }
+		return mix(h);
+	}
+
+
+	public static long of(float[] array) {
+		if(array == null) { return NULL; }
+		int n = array.length;
+		long h = n;
+		for(int i = 0; i < n; i++) { h = step(h, Float.floatToRawIntBits(array[i])); }
+		return mix(h);
+	}
+
+
+	public static long of(double[] array) {
+		if(array == null) { return NULL; }
+		int n = array.length;
+		long h = n;
+		for(int i = 0; i < n; i++) { h = step(h, Double.doubleToRawLongBits(array[i])); }
+		return mix(h);
+	}
+
+
+	public static long of(String[] array) {
+		if(array == null) { return NULL; }
+		int n = array.length;
+		long h = n;
+		for(int i = 0; i < n; i++) { h = step(h, of(array[i])); }
+		return mix(h);
+	}
+
+
+	/**
+	 * Identity shadow of a referenced object. Object is expected to be bound to a
+	 * vertex (as any object referenced by a published field).
+	 * 
+	 * @param object
+	 * @return
+	 */
+	public static long of(LiObject object) {
+		if(object == null) { return NULL; }
+		LiVertex vertex = object.S8_vertex;
+		if(vertex == null) { return mix(~System.identityHashCode(object)); }
+		return vertex.index != LiIndexCodec.FOREIGN ? mix(vertex.index) : of(vertex.getId());
+	}
+
+
+	public static long of(Iterable<? extends LiObject> objects) {
+		if(objects == null) { return NULL; }
+		long h = 0;
+		for(LiObject object : objects) { h = step(h, of(object)); }
+		return mix(h);
+	}
+
+}
@@ -0,0 +1,186 @@
+package com.s8.io.bohr.lithium.fields;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.s8.io.bohr.lithium.branches.LiPartitionOutflow;
+import com.s8.io.bytes.alpha.ByteOutflow;
+
+
+/**
+ * <p>
+ * Sending end of a session string dictionary (one per <code>LiOutbound</code>,
+ * shared by all fields with a <code>"dict"</code> flow). The first occurrence
+ * of a string defines the next code, later occurrences only send the code.
+ * Each value is written as a <code>UInt7x</code> header:
+ * </p>
+ * <ul>
+ * <li><code>0</code>: <code>null</code>;</li>
+ * <li><code>1</code>: literal (not in dictionary), string follows;</li>
+ * <li><code>2</code>: definition of the next code, string follows;</li>
+ * <li><code>3 + code</code>: reference to a previously defined string.</li>
+ * </ul>
+ * <p>
+ * Strings longer than <code>MAX_LENGTH</code> (or exceeding
+ * <code>MAX_ENTRIES</code>) are sent as literals. Entries are defined in
+ * stream order: for concurrent encoding of partitions, codes are claimed
+ * beforehand (see <code>claim</code>), the definition being written by the
+ * partition of the first occurrence (see <code>LiPartitionOutflow</code>).
+ * Read back by <code>LiStringDictionaryParser</code>. Not thread-safe (but
+ * read-only while encoding partitions).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiStringDictionaryComposer {
+
+
+	public final static int NULL = 0, LITERAL = 1, DEFINITION = 2, REFERENCE = 3;
+
+
+	/**
+	 * Max number of entries in a session dictionary
+	 */
+	public final static int MAX_ENTRIES = 1 << 16;
+
+
+	/**
+	 * Max length of a dictionary entry (longer strings are not worth indexing)
+	 */
+	public final static int MAX_LENGTH = 256;
+
+
+	private final Map<String, Integer> codes = new HashMap<>();
+
+
+	/**
+	 * If false, all values are sent as literals (e.g. for records that must be
+	 * decodable independently of each other)
+	 */
+	private boolean isEnabled = true;
+
+
+	/**
+	 * Partition writing the definition of claimed codes (last
+	 * <code>nClaims</code> codes)
+	 */
+	private int[] owners = new int[64];
+
+	private int nClaims;
+
+
+
+	/**
+	 *
+	 * @param isEnabled
+	 */
+	public void setEnabled(boolean isEnabled) {
+		this.isEnabled = isEnabled;
+	}
+
+
+	/**
+	 *
+	 * @return true if dictionary is enabled
+	 */
+	public boolean isEnabled() {
+		return isEnabled;
+	}
+
+
+	/**
+	 *
+	 * @return number of entries defined so far
+	 */
+	public int getSize() {
+		return codes.size();
+	}
+
+
+
+	/**
+	 *
+	 * @param outflow
+	 * @param value
+	 * @throws IOException
+	 */
+	public void compose(ByteOutflow outflow, String value) throws IOException {
+		if(outflow instanceof LiPartitionOutflow) {
+			compose((LiPartitionOutflow) outflow, value);
+		}
+		else if(value == null) {
+			outflow.putUInt7x(NULL);
+		}
+		else {
+			Integer code = codes.get(value);
+			if(code != null) {
+				outflow.putUInt7x(REFERENCE + code);
+			}
+			else if(isEnabled && value.length() <= MAX_LENGTH && codes.size() < MAX_ENTRIES) {
+				codes.put(value, codes.size());
+				outflow.putUInt7x(DEFINITION);
+				outflow.putStringUTF8(value);
+			}
+			else {
+				outflow.putUInt7x(LITERAL);
+				outflow.putStringUTF8(value);
+			}
+		}
+	}
+
+
+
+	/**
+	 * Claim code of <code>value</code>, to be defined by <code>partition</code>
+	 * (unless already defined or claimed). To be called sequentially, in stream
+	 * order, for all values then composed concurrently.
+	 *
+	 * @param value
+	 * @param partition
+	 */
+	public void claim(String value, int partition) {
+		if(value != null && isEnabled && value.length() <= MAX_LENGTH && codes.size() < MAX_ENTRIES &&
+				codes.putIfAbsent(value, codes.size()) == null) {
+			if(nClaims == owners.length) { owners = Arrays.copyOf(owners, nClaims << 1); }
+			owners[nClaims++] = partition;
+		}
+	}
+
+
+	/**
+	 * Release claims, once all partitions have been encoded
+	 */
+	public void releaseClaims() {
+		nClaims = 0;
+	}
+
+
+	/**
+	 * Concurrent version of compose (codes claimed beforehand)
+	 */
+	private void compose(LiPartitionOutflow outflow, String value) throws IOException {
+		Integer code = value != null ? codes.get(value) : null;
+		if(value == null) {
+			outflow.putUInt7x(NULL);
+		}
+		else if(code == null) {
+			outflow.putUInt7x(LITERAL);
+			outflow.putStringUTF8(value);
+		}
+		else {
+			int c = code, claim = c - (codes.size() - nClaims);
+			if(claim >= 0 && owners[claim] == outflow.index && outflow.define(c)) {
+				outflow.putUInt7x(DEFINITION);
+				outflow.putStringUTF8(value);
+			}
+			else {
+				outflow.putUInt7x(REFERENCE + c);
+			}
+		}
+	}
+
+}
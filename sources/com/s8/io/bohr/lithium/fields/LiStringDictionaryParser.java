@@ -0,0 +1,63 @@
+package com.s8.io.bohr.lithium.fields;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bytes.alpha.ByteInflow;
+
+
+/**
+ * <p>
+ * Receiving end of a session string dictionary (one per <code>LiInbound</code>),
+ * see <code>LiStringDictionaryComposer</code> for the encoding. Strings read
+ * through the dictionary are canonical: all occurrences of an entry share the
+ * same <code>String</code> instance. Not thread-safe.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiStringDictionaryParser {
+
+
+	private String[] entries = new String[64];
+
+	private int size;
+
+
+
+	/**
+	 *
+	 * @param inflow
+	 * @return next value
+	 * @throws IOException
+	 */
+	public String parse(ByteInflow inflow) throws IOException {
+		long header = inflow.getUInt7x();
+		if(header == LiStringDictionaryComposer.NULL) {
+			return null;
+		}
+		else if(header == LiStringDictionaryComposer.LITERAL) {
+			return inflow.getStringUTF8();
+		}
+		else if(header == LiStringDictionaryComposer.DEFINITION) {
+			String value = inflow.getStringUTF8();
+			if(size >= LiStringDictionaryComposer.MAX_ENTRIES) {
+				throw new LiIOException("String dictionary overflow");
+			}
+			if(size == entries.length) { entries = Arrays.copyOf(entries, size << 1); }
+			entries[size++] = value;
+			return value;
+		}
+		else {
+			long code = header - LiStringDictionaryComposer.REFERENCE;
+			if(code < 0 || code >= size) {
+				throw new LiIOException("Undefined string dictionary code: "+code);
+			}
+			return entries[(int) code];
+		}
+	}
+
+}
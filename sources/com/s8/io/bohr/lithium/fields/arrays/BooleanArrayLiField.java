@@ -2,6 +2,7 @@ package com.s8.io.bohr.lithium.fields.arrays;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 
 import com.s8.io.bohr.atom.BOHR_Types;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
@@ -11,6 +12,8 @@ import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiFlowCodes;
+import com.s8.io.bohr.lithium.fields.LiShadow;
 import com.s8.io.bohr.lithium.fields.primitives.PrimitiveLiField;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
@@ -97,6 +100,31 @@ public class BooleanArrayLiField extends PrimitiveArrayLiField {
 	public BooleanArrayLiFieldDelta produceDiff(LiObject object, ResolveScope scope) throws IOException {
 		return new BooleanArrayLiFieldDelta(this, (boolean[]) handler.get(object));
 	}
+
+
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return LiShadow.of((boolean[]) handler.get(object));
+	}
+
+
+	@Override
+	protected int mismatch(Object a, Object b, int from, int to) {
+		int index = Arrays.mismatch((boolean[]) a, from, to, (boolean[]) b, from, to);
+		return index >= 0 ? from + index : -1;
+	}
+
+
+	@Override
+	protected BooleanArrayLiFieldDelta createDelta(Object array) {
+		return new BooleanArrayLiFieldDelta(this, (boolean[]) array);
+	}
+
+
+	@Override
+	protected boolean[] getArray(LiFieldDelta delta) {
+		return ((BooleanArrayLiFieldDelta) delta).value;
+	}
 	
 
 	@Override
@@ -157,6 +185,9 @@ public class BooleanArrayLiField extends PrimitiveArrayLiField {
 
 
 		int code = inflow.getUInt8();
+		if(code == LiFlowCodes.PATCHABLE) {
+			return createPatchParser(inflow);
+		}
 		if(code != BOHR_Types.ARRAY) {
 			throw new IOException("Only array accepted");
 		}
@@ -183,6 +214,12 @@ public class BooleanArrayLiField extends PrimitiveArrayLiField {
 			return new BooleanArrayLiFieldDelta(getField(), deserialize(inflow));
 		}
 
+		/* decoded array is not shared, so no defensive copy */
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.set(object, deserialize(inflow));
+		}
+
 		public boolean[] deserialize(ByteInflow inflow) throws IOException {
 			int length = (int) inflow.getUInt7x();
 			if(length >= 0) {
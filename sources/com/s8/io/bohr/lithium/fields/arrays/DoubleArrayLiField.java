@@ -2,6 +2,7 @@ package com.s8.io.bohr.lithium.fields.arrays;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 
 import com.s8.io.bohr.atom.BOHR_Types;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
@@ -11,6 +12,8 @@ import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiFlowCodes;
+import com.s8.io.bohr.lithium.fields.LiShadow;
 import com.s8.io.bohr.lithium.fields.primitives.PrimitiveLiField;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
@@ -96,6 +99,31 @@ public class DoubleArrayLiField extends PrimitiveArrayLiField {
 	}
 
 
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return LiShadow.of((double[]) handler.get(object));
+	}
+
+
+	@Override
+	protected int mismatch(Object a, Object b, int from, int to) {
+		int index = Arrays.mismatch((double[]) a, from, to, (double[]) b, from, to);
+		return index >= 0 ? from + index : -1;
+	}
+
+
+	@Override
+	protected DoubleArrayLiFieldDelta createDelta(Object array) {
+		return new DoubleArrayLiFieldDelta(this, (double[]) array);
+	}
+
+
+	@Override
+	protected double[] getArray(LiFieldDelta delta) {
+		return ((DoubleArrayLiFieldDelta) delta).value;
+	}
+
+
 	@Override
 	public void DEBUG_print(String indent) {
 		System.out.println(indent+name+": (double[])");
@@ -155,6 +183,9 @@ public class DoubleArrayLiField extends PrimitiveArrayLiField {
 	@Override
 	public LiFieldParser createParser(ByteInflow inflow) throws IOException {
 		int code = inflow.getUInt8();
+		if(code == LiFlowCodes.PATCHABLE) {
+			return createPatchParser(inflow);
+		}
 		if(code != BOHR_Types.ARRAY) {
 			throw new IOException("Only array accepted");
 		}
@@ -164,6 +195,9 @@ public class DoubleArrayLiField extends PrimitiveArrayLiField {
 		case BOHR_Types.FLOAT32 : return new Float32_Inflow();
 		case BOHR_Types.FLOAT64 : return new Float64_Inflow();
 
+		case LiFlowCodes.XOR64 : return new Xor64_Inflow();
+		case LiFlowCodes.XOR32 : return new Xor32_Inflow();
+
 		default : throw new LiIOException("Failed to find field-inflow for code: "+Integer.toHexString(code));
 		}
 	}
@@ -182,6 +216,12 @@ public class DoubleArrayLiField extends PrimitiveArrayLiField {
 			return new DoubleArrayLiFieldDelta(getField(), deserialize(inflow));
 		}
 
+		/* decoded array is not shared, so no defensive copy */
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.set(object, deserialize(inflow));
+		}
+
 
 		public abstract double[] deserialize(ByteInflow inflow) throws IOException;
 
@@ -211,6 +251,40 @@ public class DoubleArrayLiField extends PrimitiveArrayLiField {
 		}
 	}
 
+	private class Xor64_Inflow extends Inflow {
+		public @Override double[] deserialize(ByteInflow inflow) throws IOException {
+			int length = (int) inflow.getUInt7x();
+			if(length >= 0) {
+				double[] values = new double[length];
+				if(length > 0) {
+					LiBitUnpacker unpacker = new LiBitUnpacker(inflow);
+					LiXorPacking packing = new LiXorPacking(64);
+					for(int i = 0; i<length; i++) { values[i] = Double.longBitsToDouble(packing.unpack(unpacker)); }
+					unpacker.finish();
+				}
+				return values;
+			}
+			else { return null; }
+		}
+	}
+
+	private class Xor32_Inflow extends Inflow {
+		public @Override double[] deserialize(ByteInflow inflow) throws IOException {
+			int length = (int) inflow.getUInt7x();
+			if(length >= 0) {
+				double[] values = new double[length];
+				if(length > 0) {
+					LiBitUnpacker unpacker = new LiBitUnpacker(inflow);
+					LiXorPacking packing = new LiXorPacking(32);
+					for(int i = 0; i<length; i++) { values[i] = Float.intBitsToFloat((int) packing.unpack(unpacker)); }
+					unpacker.finish();
+				}
+				return values;
+			}
+			else { return null; }
+		}
+	}
+
 	/* </IO-inflow-section> */
 
 
@@ -222,6 +296,9 @@ public class DoubleArrayLiField extends PrimitiveArrayLiField {
 		case "float32[]" : return new Float32_Outflow(code);
 		case DEFAULT_FLOW_TAG: case "float64[]" : return new Float64_Outflow(code);
 
+		case "xor64[]" : return new Xor64_Outflow(code);
+		case "xor32[]" : return new Xor32_Outflow(code);
+
 		default : throw new LiIOException("Failed to find field-outflow for encoding: "+flow);
 		}
 	}
@@ -278,5 +355,47 @@ public class DoubleArrayLiField extends PrimitiveArrayLiField {
 		}
 	}
 
+	private class Xor64_Outflow extends Composer {
+		public Xor64_Outflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(BOHR_Types.ARRAY);
+			outflow.putUInt8(LiFlowCodes.XOR64);
+		}
+		public @Override void serialize(ByteOutflow outflow, double[] value) throws IOException {
+			if(value != null) {
+				int length = value.length;
+				outflow.putUInt7x(length);
+				if(length > 0) {
+					LiBitPacker packer = new LiBitPacker(length / 4 + 1);
+					LiXorPacking packing = new LiXorPacking(64);
+					for(int i = 0; i<length; i++) { packing.pack(packer, Double.doubleToRawLongBits(value[i])); }
+					packer.flush(outflow);
+				}
+			}
+			else { outflow.putUInt7x(-1); }
+		}
+	}
+
+	private class Xor32_Outflow extends Composer {
+		public Xor32_Outflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(BOHR_Types.ARRAY);
+			outflow.putUInt8(LiFlowCodes.XOR32);
+		}
+		public @Override void serialize(ByteOutflow outflow, double[] value) throws IOException {
+			if(value != null) {
+				int length = value.length;
+				outflow.putUInt7x(length);
+				if(length > 0) {
+					LiBitPacker packer = new LiBitPacker(length / 4 + 1);
+					LiXorPacking packing = new LiXorPacking(32);
+					for(int i = 0; i<length; i++) { packing.pack(packer, Float.floatToRawIntBits((float) value[i])); }
+					packer.flush(outflow);
+				}
+			}
+			else { outflow.putUInt7x(-1); }
+		}
+	}
+
 	/* <IO-outflow-section> */
 }
@@ -29,7 +29,8 @@ public class DoubleArrayLiFieldDelta extends LiFieldDelta {
 
 	@Override
 	public void operate(LiObject object, BuildScope scope) throws LiIOException {
-		field.handler.set(object, value); 
+		/* delta is immutable, so never share its value with the object (might be patched afterwards) */
+		field.handler.set(object, value != null ? value.clone() : null);
 	}
 
 }
@@ -2,6 +2,7 @@ package com.s8.io.bohr.lithium.fields.arrays;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 
 import com.s8.io.bohr.atom.BOHR_Types;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
@@ -11,6 +12,8 @@ import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiFlowCodes;
+import com.s8.io.bohr.lithium.fields.LiShadow;
 import com.s8.io.bohr.lithium.fields.primitives.PrimitiveLiField;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
@@ -104,6 +107,31 @@ public class FloatArrayLiField extends PrimitiveArrayLiField {
 		return new FloatArrayLiFieldDelta(this, (float[]) handler.get(object));
 	}
 
+
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return LiShadow.of((float[]) handler.get(object));
+	}
+
+
+	@Override
+	protected int mismatch(Object a, Object b, int from, int to) {
+		int index = Arrays.mismatch((float[]) a, from, to, (float[]) b, from, to);
+		return index >= 0 ? from + index : -1;
+	}
+
+
+	@Override
+	protected FloatArrayLiFieldDelta createDelta(Object array) {
+		return new FloatArrayLiFieldDelta(this, (float[]) array);
+	}
+
+
+	@Override
+	protected float[] getArray(LiFieldDelta delta) {
+		return ((FloatArrayLiFieldDelta) delta).value;
+	}
+
 	
 	@Override
 	public void DEBUG_print(String indent) {
@@ -167,6 +195,9 @@ public class FloatArrayLiField extends PrimitiveArrayLiField {
 
 
 		int code = inflow.getUInt8();
+		if(code == LiFlowCodes.PATCHABLE) {
+			return createPatchParser(inflow);
+		}
 		if(code != BOHR_Types.ARRAY) {
 			throw new IOException("Only array accepted");
 		}
@@ -176,6 +207,8 @@ public class FloatArrayLiField extends PrimitiveArrayLiField {
 		case BOHR_Types.FLOAT32 : return new Float32_Inflow();
 		case BOHR_Types.FLOAT64 : return new Float64_Inflow();
 
+		case LiFlowCodes.XOR32 : return new Xor32_Inflow();
+
 		default : throw new LiIOException("Failed to find field-inflow for code: "+Integer.toHexString(code));
 		}
 	}
@@ -194,6 +227,12 @@ public class FloatArrayLiField extends PrimitiveArrayLiField {
 			return new FloatArrayLiFieldDelta(getField(), deserialize(inflow));
 		}
 
+		/* decoded array is not shared, so no defensive copy */
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.set(object, deserialize(inflow));
+		}
+
 		public abstract float[] deserialize(ByteInflow inflow) throws IOException;
 
 	}
@@ -222,6 +261,23 @@ public class FloatArrayLiField extends PrimitiveArrayLiField {
 		}
 	}
 
+	private class Xor32_Inflow extends Inflow {
+		public @Override float[] deserialize(ByteInflow inflow) throws IOException {
+			int length = (int) inflow.getUInt7x();
+			if(length >= 0) {
+				float[] values = new float[length];
+				if(length > 0) {
+					LiBitUnpacker unpacker = new LiBitUnpacker(inflow);
+					LiXorPacking packing = new LiXorPacking(32);
+					for(int i = 0; i<length; i++) { values[i] = Float.intBitsToFloat((int) packing.unpack(unpacker)); }
+					unpacker.finish();
+				}
+				return values;
+			}
+			else { return null; }
+		}
+	}
+
 	/* </IO-inflow-section> */
 
 
@@ -234,6 +290,8 @@ public class FloatArrayLiField extends PrimitiveArrayLiField {
 		case DEFAULT_FLOW_TAG: case "float32[]" : return new Float32_Outflow(code);
 		case "float64[]" : return new Float64_Outflow(code);
 
+		case "xor32[]" : return new Xor32_Outflow(code);
+
 		default : throw new LiIOException("Failed to find field-outflow for encoding: "+flow);
 		}
 	}
@@ -290,5 +348,26 @@ public class FloatArrayLiField extends PrimitiveArrayLiField {
 		}
 	}
 
+	private class Xor32_Outflow extends Composer {
+		public Xor32_Outflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(BOHR_Types.ARRAY);
+			outflow.putUInt8(LiFlowCodes.XOR32);
+		}
+		public @Override void serialize(ByteOutflow outflow, float[] value) throws IOException {
+			if(value != null) {
+				int length = value.length;
+				outflow.putUInt7x(length);
+				if(length > 0) {
+					LiBitPacker packer = new LiBitPacker(length / 4 + 1);
+					LiXorPacking packing = new LiXorPacking(32);
+					for(int i = 0; i<length; i++) { packing.pack(packer, Float.floatToRawIntBits(value[i])); }
+					packer.flush(outflow);
+				}
+			}
+			else { outflow.putUInt7x(-1); }
+		}
+	}
+
 	/* <IO-outflow-section> */
 }
@@ -2,6 +2,7 @@ package com.s8.io.bohr.lithium.fields.arrays;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 
 import com.s8.io.bohr.atom.BOHR_Types;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
@@ -11,6 +12,8 @@ import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiFlowCodes;
+import com.s8.io.bohr.lithium.fields.LiShadow;
 import com.s8.io.bohr.lithium.fields.primitives.PrimitiveLiField;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
@@ -103,6 +106,31 @@ public class IntegerArrayLiField extends PrimitiveArrayLiField {
 	public IntegerArrayLiFieldDelta produceDiff(LiObject object, ResolveScope scope) throws IOException {
 		return new IntegerArrayLiFieldDelta(this, (int[]) handler.get(object));
 	}
+
+
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return LiShadow.of((int[]) handler.get(object));
+	}
+
+
+	@Override
+	protected int mismatch(Object a, Object b, int from, int to) {
+		int index = Arrays.mismatch((int[]) a, from, to, (int[]) b, from, to);
+		return index >= 0 ? from + index : -1;
+	}
+
+
+	@Override
+	protected IntegerArrayLiFieldDelta createDelta(Object array) {
+		return new IntegerArrayLiFieldDelta(this, (int[]) array);
+	}
+
+
+	@Override
+	protected int[] getArray(LiFieldDelta delta) {
+		return ((IntegerArrayLiFieldDelta) delta).value;
+	}
 	
 
 	@Override
@@ -164,6 +192,9 @@ public class IntegerArrayLiField extends PrimitiveArrayLiField {
 
 
 		int code = inflow.getUInt8();
+		if(code == LiFlowCodes.PATCHABLE) {
+			return createPatchParser(inflow);
+		}
 		if(code != BOHR_Types.ARRAY) {
 			throw new IOException("Only array accepted");
 		}
@@ -178,6 +209,9 @@ public class IntegerArrayLiField extends PrimitiveArrayLiField {
 		case BOHR_Types.INT16 : return new Int16_Inflow();
 		case BOHR_Types.INT32 : return new Int32_Inflow();
 
+		case LiFlowCodes.VARINT : return new VarInt_Inflow();
+		case LiFlowCodes.ZIGZAG : return new ZigZag_Inflow();
+
 		default : throw new LiIOException("Failed to find field-inflow for code: "+Integer.toHexString(code));
 		}
 	}
@@ -196,6 +230,12 @@ public class IntegerArrayLiField extends PrimitiveArrayLiField {
 			return new IntegerArrayLiFieldDelta(getField(), deserialize(inflow));
 		}
 
+		/* decoded array is not shared, so no defensive copy */
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.set(object, deserialize(inflow));
+		}
+
 		public abstract int[] deserialize(ByteInflow inflow) throws IOException;
 
 	}
@@ -275,6 +315,30 @@ public class IntegerArrayLiField extends PrimitiveArrayLiField {
 	}
 
 
+	private class VarInt_Inflow extends Inflow {
+		public @Override int[] deserialize(ByteInflow inflow) throws IOException {
+			int length = (int) inflow.getUInt7x();
+			if(length >= 0) {
+				int[] values = new int[length];
+				for(int i = 0; i<length; i++) { values[i] = (int) inflow.getUInt7x(); }
+				return values;
+			}
+			else { return null; }
+		}
+	}
+
+	private class ZigZag_Inflow extends Inflow {
+		public @Override int[] deserialize(ByteInflow inflow) throws IOException {
+			int length = (int) inflow.getUInt7x();
+			if(length >= 0) {
+				int[] values = new int[length];
+				for(int i = 0; i<length; i++) { int zigzag = (int) inflow.getUInt7x(); values[i] = (zigzag >>> 1) ^ -(zigzag & 1); }
+				return values;
+			}
+			else { return null; }
+		}
+	}
+
 	/* </IO-inflow-section> */
 
 
@@ -292,6 +356,9 @@ public class IntegerArrayLiField extends PrimitiveArrayLiField {
 		case "int16[]" : return new Int16_Outflow(code);
 		case DEFAULT_FLOW_TAG: case "int32[]" : return new Int32_Outflow(code);
 
+		case "vint[]" : return new VarInt_Outflow(code);
+		case "zigzag[]" : return new ZigZag_Outflow(code);
+
 		default : throw new LiIOException("Failed to find field-outflow for encoding: "+flow);
 		}
 	}
@@ -413,5 +480,37 @@ public class IntegerArrayLiField extends PrimitiveArrayLiField {
 		}
 	}
 
+	private class VarInt_Outflow extends Composer {
+		public VarInt_Outflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(BOHR_Types.ARRAY);
+			outflow.putUInt8(LiFlowCodes.VARINT);
+		}
+		public @Override void serialize(ByteOutflow outflow, int[] value) throws IOException {
+			if(value != null) {
+				int length = value.length;
+				outflow.putUInt7x(length);
+				for(int i = 0; i<length; i++) { outflow.putUInt7x(value[i] & 0xffffffffL); }
+			}
+			else { outflow.putUInt7x(-1); }
+		}
+	}
+
+	private class ZigZag_Outflow extends Composer {
+		public ZigZag_Outflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(BOHR_Types.ARRAY);
+			outflow.putUInt8(LiFlowCodes.ZIGZAG);
+		}
+		public @Override void serialize(ByteOutflow outflow, int[] value) throws IOException {
+			if(value != null) {
+				int length = value.length;
+				outflow.putUInt7x(length);
+				for(int i = 0; i<length; i++) { outflow.putUInt7x(((value[i] << 1) ^ (value[i] >> 31)) & 0xffffffffL); }
+			}
+			else { outflow.putUInt7x(-1); }
+		}
+	}
+
 	/* <IO-outflow-section> */
 }
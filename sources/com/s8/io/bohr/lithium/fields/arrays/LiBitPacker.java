@@ -0,0 +1,123 @@
+package com.s8.io.bohr.lithium.fields.arrays;
+
+import java.io.IOException;
+
+import com.s8.io.bytes.alpha.ByteOutflow;
+
+
+/**
+ * <p>
+ * Bit-level writer used by packed array flows (<code>"xor64[]"</code>,
+ * <code>"xor32[]"</code>, <code>"dod64[]"</code>). Bits are accumulated
+ * (most significant first) then pushed at once by <code>flush</code> as:
+ * </p>
+ * <ul>
+ * <li>number of bits (<code>UInt7x</code>),</li>
+ * <li>full 64-bit words (<code>Int64</code>),</li>
+ * <li>remaining bits, as the minimum number of bytes (<code>UInt8</code>).</li>
+ * </ul>
+ * <p>
+ * Read back by <code>LiBitUnpacker</code>. Not thread-safe.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiBitPacker {
+
+
+	private long[] words;
+
+	/**
+	 * Number of complete words
+	 */
+	private int nWords;
+
+	/**
+	 * Bits of the current word, aligned on the right
+	 */
+	private long current;
+
+	/**
+	 * Number of bits in <code>current</code>
+	 */
+	private int nBits;
+
+
+
+	/**
+	 *
+	 * @param capacity (initial number of words)
+	 */
+	public LiBitPacker(int capacity) {
+		super();
+		words = new long[Math.max(1, capacity)];
+	}
+
+
+
+	/**
+	 * Write the <code>n</code> lowest bits of <code>value</code>
+	 *
+	 * @param value
+	 * @param n (in [0, 64])
+	 */
+	public void write(long value, int n) {
+		if(n == 0) { return; }
+		if(n < 64) { value &= (1L << n) - 1; }
+		int free = 64 - nBits;
+		if(n < free) {
+			current = (current << n) | value;
+			nBits += n;
+		}
+		else {
+			int rest = n - free;
+			long word = free == 64 ? value >>> rest : (current << free) | (value >>> rest);
+			push(word);
+			current = rest == 0 ? 0 : value & ((1L << rest) - 1);
+			nBits = rest;
+		}
+	}
+
+
+	/**
+	 *
+	 * @param bit
+	 */
+	public void writeBit(boolean bit) {
+		write(bit ? 1 : 0, 1);
+	}
+
+
+	private void push(long word) {
+		if(nWords == words.length) {
+			long[] extended = new long[2 * nWords];
+			System.arraycopy(words, 0, extended, 0, nWords);
+			words = extended;
+		}
+		words[nWords++] = word;
+	}
+
+
+
+	/**
+	 * Push written bits into outflow, and reset packer.
+	 *
+	 * @param outflow
+	 * @throws IOException
+	 */
+	public void flush(ByteOutflow outflow) throws IOException {
+		outflow.putUInt7x(64L * nWords + nBits);
+		for(int i = 0; i < nWords; i++) { outflow.putInt64(words[i]); }
+		if(nBits > 0) {
+			long tail = current << (64 - nBits);
+			int nBytes = (nBits + 7) >>> 3;
+			for(int i = 0; i < nBytes; i++) { outflow.putUInt8((int) (tail >>> (56 - 8 * i)) & 0xff); }
+		}
+		nWords = 0;
+		current = 0;
+		nBits = 0;
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.s8.io.bohr.lithium.fields.arrays;
+
+import java.io.IOException;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bytes.alpha.ByteInflow;
+
+
+/**
+ * <p>
+ * Bit-level reader of a sequence written by <code>LiBitPacker</code>. Words
+ * are pulled from the inflow on demand: the whole sequence must be read
+ * before reading anything else from the inflow (see <code>finish</code>).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiBitUnpacker {
+
+
+	private final ByteInflow inflow;
+
+	/**
+	 * Bits not yet pulled from inflow
+	 */
+	private long remaining;
+
+	/**
+	 * Pulled bits, aligned on the left
+	 */
+	private long current;
+
+	/**
+	 * Number of bits available in <code>current</code>
+	 */
+	private int nBits;
+
+
+
+	/**
+	 *
+	 * @param inflow positioned on the sequence header
+	 * @throws IOException
+	 */
+	public LiBitUnpacker(ByteInflow inflow) throws IOException {
+		super();
+		this.inflow = inflow;
+		this.remaining = inflow.getUInt7x();
+		if(remaining < 0) { throw new LiIOException("Invalid bit sequence length: "+remaining); }
+	}
+
+
+	private void pull() throws IOException {
+		if(remaining >= 64) {
+			current = inflow.getInt64();
+			nBits = 64;
+			remaining -= 64;
+		}
+		else if(remaining > 0) {
+			int nBytes = ((int) remaining + 7) >>> 3;
+			long tail = 0;
+			for(int i = 0; i < nBytes; i++) { tail |= (long) inflow.getUInt8() << (56 - 8 * i); }
+			current = tail;
+			nBits = (int) remaining;
+			remaining = 0;
+		}
+		else {
+			throw new LiIOException("Reading past the end of bit sequence");
+		}
+	}
+
+
+
+	/**
+	 *
+	 * @param n (in [0, 64])
+	 * @return the next <code>n</code> bits, aligned on the right
+	 * @throws IOException
+	 */
+	public long read(int n) throws IOException {
+		if(n == 0) { return 0; }
+		if(nBits == 0) { pull(); }
+		if(n <= nBits) {
+			long value = current >>> (64 - n);
+			current = n == 64 ? 0 : current << n;
+			nBits -= n;
+			return value;
+		}
+		else {
+			int first = nBits;
+			long high = current >>> (64 - first);
+			pull();
+			int rest = n - first;
+			if(rest > nBits) { throw new LiIOException("Reading past the end of bit sequence"); }
+			long low = current >>> (64 - rest);
+			current = rest == 64 ? 0 : current << rest;
+			nBits -= rest;
+			return (high << rest) | low;
+		}
+	}
+
+
+	/**
+	 *
+	 * @return next bit
+	 * @throws IOException
+	 */
+	public boolean readBit() throws IOException {
+		return read(1) != 0;
+	}
+
+
+	/**
+	 * Check that the sequence has been entirely read
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if(nBits != 0 || remaining != 0) {
+			throw new LiIOException("Bit sequence not entirely consumed ("+(nBits + remaining)+" bits left)");
+		}
+	}
+
+}
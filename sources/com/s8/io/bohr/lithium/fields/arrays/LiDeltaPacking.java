@@ -0,0 +1,113 @@
+package com.s8.io.bohr.lithium.fields.arrays;
+
+import java.io.IOException;
+
+
+/**
+ * <p>
+ * Gorilla-style delta-of-delta packing of a series of 64-bit integers: each
+ * value is encoded as the difference between its delta and the previous delta
+ * (zigzag-encoded), with a variable-length prefix:
+ * </p>
+ * <ul>
+ * <li><code>0</code>: same delta as previous;</li>
+ * <li><code>10</code> + 7 bits, <code>110</code> + 9 bits, <code>1110</code> +
+ * 12 bits, <code>11110</code> + 32 bits;</li>
+ * <li><code>11111</code> + 64 bits.</li>
+ * </ul>
+ * <p>
+ * The first value is written in full (first delta being taken against 0).
+ * Arithmetic wraps around, so that any series is safely encoded. Regular
+ * series (counters, timestamps, indices) take about a bit per value. One
+ * instance per series (stateful).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiDeltaPacking {
+
+
+	private boolean isStarted = false;
+
+	private long previous;
+
+	private long previousDelta;
+
+
+
+	/**
+	 *
+	 * @param packer
+	 * @param value
+	 */
+	public void pack(LiBitPacker packer, long value) {
+		if(!isStarted) {
+			packer.write(value, 64);
+			isStarted = true;
+		}
+		else {
+			long delta = value - previous;
+			long dod = delta - previousDelta;
+			long zigzag = (dod << 1) ^ (dod >> 63);
+			if(zigzag == 0) {
+				packer.writeBit(false);
+			}
+			else if((zigzag >>> 7) == 0) {
+				packer.write(0b10, 2);
+				packer.write(zigzag, 7);
+			}
+			else if((zigzag >>> 9) == 0) {
+				packer.write(0b110, 3);
+				packer.write(zigzag, 9);
+			}
+			else if((zigzag >>> 12) == 0) {
+				packer.write(0b1110, 4);
+				packer.write(zigzag, 12);
+			}
+			else if((zigzag >>> 32) == 0) {
+				packer.write(0b11110, 5);
+				packer.write(zigzag, 32);
+			}
+			else {
+				packer.write(0b11111, 5);
+				packer.write(zigzag, 64);
+			}
+			previousDelta = delta;
+		}
+		previous = value;
+	}
+
+
+
+	/**
+	 *
+	 * @param unpacker
+	 * @return next value
+	 * @throws IOException
+	 */
+	public long unpack(LiBitUnpacker unpacker) throws IOException {
+		long value;
+		if(!isStarted) {
+			value = unpacker.read(64);
+			isStarted = true;
+		}
+		else {
+			long zigzag;
+			if(!unpacker.readBit()) { zigzag = 0; }
+			else if(!unpacker.readBit()) { zigzag = unpacker.read(7); }
+			else if(!unpacker.readBit()) { zigzag = unpacker.read(9); }
+			else if(!unpacker.readBit()) { zigzag = unpacker.read(12); }
+			else if(!unpacker.readBit()) { zigzag = unpacker.read(32); }
+			else { zigzag = unpacker.read(64); }
+			long dod = (zigzag >>> 1) ^ -(zigzag & 1);
+			long delta = previousDelta + dod;
+			value = previous + delta;
+			previousDelta = delta;
+		}
+		previous = value;
+		return value;
+	}
+
+}
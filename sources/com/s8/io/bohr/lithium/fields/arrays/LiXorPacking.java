@@ -0,0 +1,140 @@
+package com.s8.io.bohr.lithium.fields.arrays;
+
+import java.io.IOException;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+
+
+/**
+ * <p>
+ * Gorilla-style XOR packing of a series of 32 or 64-bit values (typically the
+ * raw bits of floating point numbers): each value is XOR-ed with the previous
+ * one, and only the meaningful bits of the result are written:
+ * </p>
+ * <ul>
+ * <li><code>0</code>: same value as previous;</li>
+ * <li><code>10</code>: meaningful bits, within the window (leading and
+ * trailing zeros) of the previous value;</li>
+ * <li><code>11</code>: number of leading zeros, number of meaningful bits - 1,
+ * meaningful bits (which then define the new window).</li>
+ * </ul>
+ * <p>
+ * The first value is written in full. Smooth series typically take a fraction
+ * of their raw size. One instance per series (stateful).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiXorPacking {
+
+
+	/**
+	 * Width of values (32 or 64)
+	 */
+	private final int width;
+
+	/**
+	 * Number of bits to encode a number of leading zeros or a length (5 or 6)
+	 */
+	private final int lengthBits;
+
+	private boolean isStarted = false;
+
+	private long previous;
+
+	/**
+	 * Current window (leading zeros &lt; 0 means no window defined yet)
+	 */
+	private int leading = -1, trailing;
+
+
+
+	/**
+	 *
+	 * @param width (32 or 64)
+	 */
+	public LiXorPacking(int width) {
+		super();
+		if(width != 32 && width != 64) {
+			throw new IllegalArgumentException("Unsupported width: "+width);
+		}
+		this.width = width;
+		this.lengthBits = width == 64 ? 6 : 5;
+	}
+
+
+
+	/**
+	 *
+	 * @param packer
+	 * @param value (only the <code>width</code> lowest bits are considered)
+	 */
+	public void pack(LiBitPacker packer, long value) {
+		if(width == 32) { value &= 0xffffffffL; }
+		if(!isStarted) {
+			packer.write(value, width);
+			isStarted = true;
+		}
+		else {
+			long xor = value ^ previous;
+			if(xor == 0) {
+				packer.writeBit(false);
+			}
+			else {
+				packer.writeBit(true);
+				int lead = Long.numberOfLeadingZeros(xor) - (64 - width);
+				int trail = Long.numberOfTrailingZeros(xor);
+				if(leading >= 0 && lead >= leading && trail >= trailing) {
+					packer.writeBit(false);
+					packer.write(xor >>> trailing, width - leading - trailing);
+				}
+				else {
+					int meaningful = width - lead - trail;
+					packer.writeBit(true);
+					packer.write(lead, lengthBits);
+					packer.write(meaningful - 1, lengthBits);
+					packer.write(xor >>> trail, meaningful);
+					leading = lead;
+					trailing = trail;
+				}
+			}
+		}
+		previous = value;
+	}
+
+
+
+	/**
+	 *
+	 * @param unpacker
+	 * @return next value (in the <code>width</code> lowest bits)
+	 * @throws IOException
+	 */
+	public long unpack(LiBitUnpacker unpacker) throws IOException {
+		long value;
+		if(!isStarted) {
+			value = unpacker.read(width);
+			isStarted = true;
+		}
+		else if(!unpacker.readBit()) {
+			value = previous;
+		}
+		else {
+			if(unpacker.readBit()) {
+				leading = (int) unpacker.read(lengthBits);
+				int meaningful = (int) unpacker.read(lengthBits) + 1;
+				trailing = width - leading - meaningful;
+				if(trailing < 0) { throw new LiIOException("Corrupted XOR packing (window overflow)"); }
+			}
+			else if(leading < 0) {
+				throw new LiIOException("Corrupted XOR packing (no window defined)");
+			}
+			value = previous ^ (unpacker.read(width - leading - trailing) << trailing);
+		}
+		previous = value;
+		return value;
+	}
+
+}
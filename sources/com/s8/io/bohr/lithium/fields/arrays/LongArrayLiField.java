@@ -2,6 +2,7 @@ package com.s8.io.bohr.lithium.fields.arrays;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 
 import com.s8.io.bohr.atom.BOHR_Types;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
@@ -11,6 +12,8 @@ import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiFlowCodes;
+import com.s8.io.bohr.lithium.fields.LiShadow;
 import com.s8.io.bohr.lithium.fields.primitives.PrimitiveLiField;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
@@ -96,6 +99,31 @@ public class LongArrayLiField extends PrimitiveArrayLiField {
 		return new LongArrayLiFieldDelta(this, (long[]) handler.get(object));
 	}
 
+
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return LiShadow.of((long[]) handler.get(object));
+	}
+
+
+	@Override
+	protected int mismatch(Object a, Object b, int from, int to) {
+		int index = Arrays.mismatch((long[]) a, from, to, (long[]) b, from, to);
+		return index >= 0 ? from + index : -1;
+	}
+
+
+	@Override
+	protected LongArrayLiFieldDelta createDelta(Object array) {
+		return new LongArrayLiFieldDelta(this, (long[]) array);
+	}
+
+
+	@Override
+	protected long[] getArray(LiFieldDelta delta) {
+		return ((LongArrayLiFieldDelta) delta).value;
+	}
+
 	@Override
 	public void DEBUG_print(String indent) {
 		System.out.println(indent+name+": (long[])");
@@ -157,6 +185,9 @@ public class LongArrayLiField extends PrimitiveArrayLiField {
 
 
 		int code = inflow.getUInt8();
+		if(code == LiFlowCodes.PATCHABLE) {
+			return createPatchParser(inflow);
+		}
 		if(code != BOHR_Types.ARRAY) {
 			throw new IOException("Only array accepted");
 		}
@@ -173,6 +204,12 @@ public class LongArrayLiField extends PrimitiveArrayLiField {
 		case BOHR_Types.INT32 : return new Int32_Inflow();
 		case BOHR_Types.INT64 : return new Int64_Inflow();
 
+		case LiFlowCodes.DOD64 : return new Dod64_Inflow();
+		case LiFlowCodes.XOR64 : return new Xor64_Inflow();
+
+		case LiFlowCodes.VARINT : return new VarInt_Inflow();
+		case LiFlowCodes.ZIGZAG : return new ZigZag_Inflow();
+
 		default : throw new LiIOException("Failed to find field-inflow for code: "+Integer.toHexString(code));
 		}
 	}
@@ -191,6 +228,12 @@ public class LongArrayLiField extends PrimitiveArrayLiField {
 			return new LongArrayLiFieldDelta(getField(), deserialize(inflow));
 		}
 
+		/* decoded array is not shared, so no defensive copy */
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.set(object, deserialize(inflow));
+		}
+
 		public abstract long[] deserialize(ByteInflow inflow) throws IOException;
 
 	}
@@ -292,6 +335,64 @@ public class LongArrayLiField extends PrimitiveArrayLiField {
 	}
 
 
+	private class Dod64_Inflow extends Inflow {
+		public @Override long[] deserialize(ByteInflow inflow) throws IOException {
+			int length = (int) inflow.getUInt7x();
+			if(length >= 0) {
+				long[] values = new long[length];
+				if(length > 0) {
+					LiBitUnpacker unpacker = new LiBitUnpacker(inflow);
+					LiDeltaPacking packing = new LiDeltaPacking();
+					for(int i = 0; i<length; i++) { values[i] = packing.unpack(unpacker); }
+					unpacker.finish();
+				}
+				return values;
+			}
+			else { return null; }
+		}
+	}
+
+	private class Xor64_Inflow extends Inflow {
+		public @Override long[] deserialize(ByteInflow inflow) throws IOException {
+			int length = (int) inflow.getUInt7x();
+			if(length >= 0) {
+				long[] values = new long[length];
+				if(length > 0) {
+					LiBitUnpacker unpacker = new LiBitUnpacker(inflow);
+					LiXorPacking packing = new LiXorPacking(64);
+					for(int i = 0; i<length; i++) { values[i] = packing.unpack(unpacker); }
+					unpacker.finish();
+				}
+				return values;
+			}
+			else { return null; }
+		}
+	}
+
+	private class VarInt_Inflow extends Inflow {
+		public @Override long[] deserialize(ByteInflow inflow) throws IOException {
+			int length = (int) inflow.getUInt7x();
+			if(length >= 0) {
+				long[] values = new long[length];
+				for(int i = 0; i<length; i++) { values[i] = inflow.getUInt7x(); }
+				return values;
+			}
+			else { return null; }
+		}
+	}
+
+	private class ZigZag_Inflow extends Inflow {
+		public @Override long[] deserialize(ByteInflow inflow) throws IOException {
+			int length = (int) inflow.getUInt7x();
+			if(length >= 0) {
+				long[] values = new long[length];
+				for(int i = 0; i<length; i++) { long zigzag = inflow.getUInt7x(); values[i] = (zigzag >>> 1) ^ -(zigzag & 1); }
+				return values;
+			}
+			else { return null; }
+		}
+	}
+
 	/* </IO-inflow-section> */
 
 
@@ -310,6 +411,12 @@ public class LongArrayLiField extends PrimitiveArrayLiField {
 		case "int32[]" : return new Int32_Outflow(code);
 		case DEFAULT_FLOW_TAG: case "int64[]" : return new Int64_Outflow(code);
 
+		case "dod64[]" : return new Dod64_Outflow(code);
+		case "xor64[]" : return new Xor64_Outflow(code);
+
+		case "vint[]" : return new VarInt_Outflow(code);
+		case "zigzag[]" : return new ZigZag_Outflow(code);
+
 		default : throw new LiIOException("Failed to find field-outflow for encoding: "+flow);
 		}
 	}
@@ -458,5 +565,79 @@ public class LongArrayLiField extends PrimitiveArrayLiField {
 			else { outflow.putUInt7x(-1); }
 		}
 	}
+	private class Dod64_Outflow extends Composer {
+		public Dod64_Outflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(BOHR_Types.ARRAY);
+			outflow.putUInt8(LiFlowCodes.DOD64);
+		}
+		public @Override void serialize(ByteOutflow outflow, long[] value) throws IOException {
+			if(value != null) {
+				int length = value.length;
+				outflow.putUInt7x(length);
+				if(length > 0) {
+					LiBitPacker packer = new LiBitPacker(length / 4 + 1);
+					LiDeltaPacking packing = new LiDeltaPacking();
+					for(int i = 0; i<length; i++) { packing.pack(packer, value[i]); }
+					packer.flush(outflow);
+				}
+			}
+			else { outflow.putUInt7x(-1); }
+		}
+	}
+
+	private class Xor64_Outflow extends Composer {
+		public Xor64_Outflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(BOHR_Types.ARRAY);
+			outflow.putUInt8(LiFlowCodes.XOR64);
+		}
+		public @Override void serialize(ByteOutflow outflow, long[] value) throws IOException {
+			if(value != null) {
+				int length = value.length;
+				outflow.putUInt7x(length);
+				if(length > 0) {
+					LiBitPacker packer = new LiBitPacker(length / 4 + 1);
+					LiXorPacking packing = new LiXorPacking(64);
+					for(int i = 0; i<length; i++) { packing.pack(packer, value[i]); }
+					packer.flush(outflow);
+				}
+			}
+			else { outflow.putUInt7x(-1); }
+		}
+	}
+
+	private class VarInt_Outflow extends Composer {
+		public VarInt_Outflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(BOHR_Types.ARRAY);
+			outflow.putUInt8(LiFlowCodes.VARINT);
+		}
+		public @Override void serialize(ByteOutflow outflow, long[] value) throws IOException {
+			if(value != null) {
+				int length = value.length;
+				outflow.putUInt7x(length);
+				for(int i = 0; i<length; i++) { outflow.putUInt7x(value[i]); }
+			}
+			else { outflow.putUInt7x(-1); }
+		}
+	}
+
+	private class ZigZag_Outflow extends Composer {
+		public ZigZag_Outflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(BOHR_Types.ARRAY);
+			outflow.putUInt8(LiFlowCodes.ZIGZAG);
+		}
+		public @Override void serialize(ByteOutflow outflow, long[] value) throws IOException {
+			if(value != null) {
+				int length = value.length;
+				outflow.putUInt7x(length);
+				for(int i = 0; i<length; i++) { outflow.putUInt7x((value[i] << 1) ^ (value[i] >> 63)); }
+			}
+			else { outflow.putUInt7x(-1); }
+		}
+	}
+
 	/* <IO-outflow-section> */
 }
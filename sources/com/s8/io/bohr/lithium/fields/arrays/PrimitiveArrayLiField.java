@@ -1,14 +1,35 @@
 package com.s8.io.bohr.lithium.fields.arrays;
 
 
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.fields.LiComposerSession;
+import com.s8.io.bohr.lithium.fields.LiField;
+import com.s8.io.bohr.lithium.fields.LiFieldComposer;
+import com.s8.io.bohr.lithium.fields.LiFieldDelta;
+import com.s8.io.bohr.lithium.fields.LiFieldParser;
+import com.s8.io.bohr.lithium.fields.LiFlowCodes;
+import com.s8.io.bohr.lithium.fields.LiParserSession;
 import com.s8.io.bohr.lithium.fields.primitives.PrimitiveLiField;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
+import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bohr.lithium.properties.LiFieldProperties;
+import com.s8.io.bohr.lithium.type.BuildScope;
+import com.s8.io.bohr.lithium.type.ResolveScope;
+import com.s8.io.bytes.alpha.ByteInflow;
+import com.s8.io.bytes.alpha.ByteOutflow;
 
 
 /**
- * 
+ * <p>
+ * Base of primitive array fields. For tracked types, deltas are computed
+ * against the last published value, and shipped as a patch
+ * (<code>PrimitiveArrayLiFieldPatch</code>) whenever smaller than the full
+ * value.
+ * </p>
  *
  * @author Pierre Convert
  * Copyright (C) 2022, Pierre Convert. All rights reserved.
@@ -16,6 +37,15 @@ import com.s8.io.bohr.lithium.properties.LiFieldProperties;
  */
 public abstract class PrimitiveArrayLiField extends PrimitiveLiField {
 
+
+	/**
+	 * Granularity of change detection: ranges are closed on the first fully
+	 * unchanged chunk (so at most <code>CHUNK - 1</code> unchanged elements
+	 * shipped per range).
+	 */
+	private final static int CHUNK = 8;
+
+
 	/**
 	 * 
 	 * @param name
@@ -35,6 +65,266 @@ public abstract class PrimitiveArrayLiField extends PrimitiveLiField {
 	public void setValue(Object object, Object array) throws LiIOException {
 		handler.set(object, array);
 	}
+	
+	
+	/**
+	 * 
+	 * @param a
+	 * @param b
+	 * @param from
+	 * @param to
+	 * @return the index of the first mismatch in [from, to), or -1 if all equal
+	 */
+	protected abstract int mismatch(Object a, Object b, int from, int to);
+	
+	
+	/**
+	 * 
+	 * @param array
+	 * @return full value delta
+	 */
+	protected abstract LiFieldDelta createDelta(Object array);
+	
+	
+	/**
+	 * 
+	 * @param delta (full value)
+	 * @return array of the full value delta
+	 */
+	protected abstract Object getArray(LiFieldDelta delta);
+
+
+	
+	@Override
+	public boolean isImaged() {
+		return true;
+	}
+
+
+	@Override
+	public LiFieldDelta produceDiff(LiObject object, Object[] images, ResolveScope scope) throws IOException {
+		Object value = handler.get(object);
+		Object previous = images[ordinal];
+
+		/* published values are immutable, so ship (and keep) a copy */
+		Object copy = null;
+		int length = 0;
+		if(value != null) {
+			length = Array.getLength(value);
+			copy = Array.newInstance(value.getClass().getComponentType(), length);
+			System.arraycopy(value, 0, copy, 0, length);
+		}
+		images[ordinal] = copy;
 
+		if(previous == null || copy == null) { return createDelta(copy); }
+
+		int previousLength = Array.getLength(previous);
+		int common = Math.min(length, previousLength);
+
+		/* collect changed ranges, as (start, length) pairs */
+		int[] ranges = new int[8];
+		int nRanges = 0, nChanged = 0;
+		int start = mismatch(previous, copy, 0, common);
+		while(start >= 0) {
+			int end = start;
+			while(end < common) {
+				int to = Math.min(end + CHUNK, common);
+				if(end > start && mismatch(previous, copy, end, to) < 0) { break; }
+				end = to;
+			}
+			if(nRanges * 2 == ranges.length) { ranges = Arrays.copyOf(ranges, nRanges * 4); }
+			ranges[2 * nRanges] = start;
+			ranges[2 * nRanges + 1] = end - start;
+			nRanges++;
+			nChanged += end - start;
+			start = end < common ? mismatch(previous, copy, end, common) : -1;
+		}
+
+		/* extension */
+		if(length > common) {
+			if(nRanges > 0 && ranges[2 * nRanges - 2] + ranges[2 * nRanges - 1] == common) {
+				ranges[2 * nRanges - 1] += length - common;
+			}
+			else {
+				if(nRanges * 2 == ranges.length) { ranges = Arrays.copyOf(ranges, nRanges * 4); }
+				ranges[2 * nRanges] = common;
+				ranges[2 * nRanges + 1] = length - common;
+				nRanges++;
+			}
+			nChanged += length - common;
+		}
+
+		/* fall back to full value if patch is not smaller (headers counted as 2 elements per range) */
+		if(nChanged + 2 * nRanges + 2 >= length) { return createDelta(copy); }
+
+		Object values = Array.newInstance(copy.getClass().getComponentType(), nChanged);
+		int offset = 0;
+		for(int i = 0; i < nRanges; i++) {
+			int rangeLength = ranges[2 * i + 1];
+			System.arraycopy(copy, ranges[2 * i], values, offset, rangeLength);
+			offset += rangeLength;
+		}
+		return new PrimitiveArrayLiFieldPatch(this, length, Arrays.copyOf(ranges, 2 * nRanges), values);
+	}
+
+
+	@Override
+	public LiFieldDelta produceValue(LiObject object, ResolveScope scope) throws IOException {
+		Object value = handler.get(object);
+		if(value == null) { return createDelta(null); }
+		int length = Array.getLength(value);
+		Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+		System.arraycopy(value, 0, copy, 0, length);
+		return createDelta(copy);
+	}
+
+
+	@Override
+	public LiFieldComposer createComposer(int code, boolean isTracked) throws LiIOException {
+		LiFieldComposer composer = createComposer(code);
+		return isTracked ? new PatchComposer(composer) : composer;
+	}
+
+
+	/**
+	 * To be called by subclasses on reading <code>LiFlowCodes.PATCHABLE</code>
+	 * 
+	 * @param inflow positioned on regular flow encoding
+	 * @return
+	 * @throws IOException
+	 */
+	protected LiFieldParser createPatchParser(ByteInflow inflow) throws IOException {
+		return new PatchParser(createParser(inflow));
+	}
+
+
+
+	private class PatchComposer extends LiFieldComposer {
+
+		private final LiFieldComposer composer;
+
+		public PatchComposer(LiFieldComposer composer) {
+			super(composer.code);
+			this.composer = composer;
+		}
+
+		@Override
+		public LiField getField() {
+			return PrimitiveArrayLiField.this;
+		}
+
+		@Override
+		public void bind(LiComposerSession session) {
+			composer.bind(session);
+		}
+
+		@Override
+		public void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(LiFlowCodes.PATCHABLE);
+			composer.publishFlowEncoding(outflow);
+		}
+
+		@Override
+		public boolean isUsingDictionary() {
+			return composer.isUsingDictionary();
+		}
+
+		@Override
+		public void claim(LiFieldDelta delta, int partition) {
+			if(delta instanceof PrimitiveArrayLiFieldPatch) {
+				composer.claim(createDelta(((PrimitiveArrayLiFieldPatch) delta).values), partition);
+			}
+			else {
+				composer.claim(delta, partition);
+			}
+		}
+
+		@Override
+		public void composeValue(LiFieldDelta delta, ByteOutflow outflow) throws IOException {
+			if(delta instanceof PrimitiveArrayLiFieldPatch) {
+				PrimitiveArrayLiFieldPatch patch = (PrimitiveArrayLiFieldPatch) delta;
+				outflow.putUInt8(LiFlowCodes.PATCH);
+				outflow.putUInt7x(patch.length);
+				int[] ranges = patch.ranges;
+				int n = ranges.length;
+				outflow.putUInt7x(n >> 1);
+				int position = 0;
+				for(int i = 0; i < n; i += 2) {
+					/* start relative to end of previous range */
+					outflow.putUInt7x(ranges[i] - position);
+					outflow.putUInt7x(ranges[i + 1]);
+					position = ranges[i] + ranges[i + 1];
+				}
+				composer.composeValue(createDelta(patch.values), outflow);
+			}
+			else {
+				outflow.putUInt8(LiFlowCodes.FULL);
+				composer.composeValue(delta, outflow);
+			}
+		}
+	}
+
+
+
+	private class PatchParser extends LiFieldParser {
+
+		private final LiFieldParser parser;
+
+		public PatchParser(LiFieldParser parser) {
+			super();
+			this.parser = parser;
+		}
+
+		@Override
+		public LiField getField() {
+			return PrimitiveArrayLiField.this;
+		}
+
+		@Override
+		public void bind(LiParserSession session) {
+			parser.bind(session);
+		}
+
+		@Override
+		public LiFieldDelta parseValue(ByteInflow inflow) throws IOException {
+			int kind = inflow.getUInt8();
+			switch(kind) {
+
+			case LiFlowCodes.FULL: return parser.parseValue(inflow);
+
+			case LiFlowCodes.PATCH: return parsePatch(inflow);
+
+			default : throw new LiIOException("Unsupported value kind: "+Integer.toHexString(kind));
+			}
+		}
+
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			int kind = inflow.getUInt8();
+			switch(kind) {
+
+			case LiFlowCodes.FULL: parser.parseValue(inflow, object, scope); break;
+
+			/* applied in place */
+			case LiFlowCodes.PATCH: parsePatch(inflow).operate(object, scope); break;
+
+			default : throw new LiIOException("Unsupported value kind: "+Integer.toHexString(kind));
+			}
+		}
+
+		private PrimitiveArrayLiFieldPatch parsePatch(ByteInflow inflow) throws IOException {
+			int length = (int) inflow.getUInt7x();
+			int n = (int) inflow.getUInt7x();
+			int[] ranges = new int[2 * n];
+			int position = 0;
+			for(int i = 0; i < 2 * n; i += 2) {
+				ranges[i] = position + (int) inflow.getUInt7x();
+				ranges[i + 1] = (int) inflow.getUInt7x();
+				position = ranges[i] + ranges[i + 1];
+			}
+			Object values = getArray(parser.parseValue(inflow));
+			return new PrimitiveArrayLiFieldPatch(PrimitiveArrayLiField.this, length, ranges, values);
+		}
+	}
 
 }
@@ -0,0 +1,83 @@
+package com.s8.io.bohr.lithium.fields.arrays;
+
+import java.lang.reflect.Array;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.fields.LiField;
+import com.s8.io.bohr.lithium.fields.LiFieldDelta;
+import com.s8.io.bohr.lithium.object.LiObject;
+import com.s8.io.bohr.lithium.type.BuildScope;
+
+
+/**
+ * <p>
+ * Sparse change of a primitive array: resize to <code>length</code>, then
+ * overwrite ranges with <code>values</code> (changed elements of all ranges,
+ * packed in order). Applied in place when length is unchanged.
+ * </p>
+ * 
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ * 
+ */
+public class PrimitiveArrayLiFieldPatch extends LiFieldDelta {
+
+
+	public final PrimitiveArrayLiField field;
+
+
+	/**
+	 * Length of array after patch
+	 */
+	public final int length;
+
+
+	/**
+	 * Pairs of (start, length)
+	 */
+	public final int[] ranges;
+
+
+	/**
+	 * Packed primitive array (same type as field)
+	 */
+	public final Object values;
+
+
+	public PrimitiveArrayLiFieldPatch(PrimitiveArrayLiField field, int length, int[] ranges, Object values) {
+		super();
+		this.field = field;
+		this.length = length;
+		this.ranges = ranges;
+		this.values = values;
+	}
+
+
+	public @Override LiField getField() { return field; }
+
+
+	@Override
+	public void operate(LiObject object, BuildScope scope) throws LiIOException {
+		Object array = field.handler.get(object);
+		if(array == null) {
+			throw new LiIOException("Cannot patch a null array, for field: "+field.name);
+		}
+
+		/* resize if necessary (cannot be done in place) */
+		int previousLength = Array.getLength(array);
+		if(previousLength != length) {
+			Object resized = Array.newInstance(array.getClass().getComponentType(), length);
+			System.arraycopy(array, 0, resized, 0, Math.min(previousLength, length));
+			array = resized;
+			field.handler.set(object, array);
+		}
+
+		int offset = 0, n = ranges.length;
+		for(int i = 0; i < n; i += 2) {
+			int rangeLength = ranges[i + 1];
+			System.arraycopy(values, offset, array, ranges[i], rangeLength);
+			offset += rangeLength;
+		}
+	}
+
+}
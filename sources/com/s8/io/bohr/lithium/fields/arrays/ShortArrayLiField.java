@@ -2,6 +2,7 @@ package com.s8.io.bohr.lithium.fields.arrays;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 
 import com.s8.io.bohr.atom.BOHR_Types;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
@@ -11,6 +12,8 @@ import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiFlowCodes;
+import com.s8.io.bohr.lithium.fields.LiShadow;
 import com.s8.io.bohr.lithium.fields.primitives.PrimitiveLiField;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
@@ -102,6 +105,31 @@ public class ShortArrayLiField extends PrimitiveArrayLiField {
 	}
 
 
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return LiShadow.of((short[]) handler.get(object));
+	}
+
+
+	@Override
+	protected int mismatch(Object a, Object b, int from, int to) {
+		int index = Arrays.mismatch((short[]) a, from, to, (short[]) b, from, to);
+		return index >= 0 ? from + index : -1;
+	}
+
+
+	@Override
+	protected ShortArrayLiFieldDelta createDelta(Object array) {
+		return new ShortArrayLiFieldDelta(this, (short[]) array);
+	}
+
+
+	@Override
+	protected short[] getArray(LiFieldDelta delta) {
+		return ((ShortArrayLiFieldDelta) delta).value;
+	}
+
+
 	@Override
 	public void DEBUG_print(String indent) {
 		System.out.println(indent+name+": (long[])");
@@ -162,6 +190,9 @@ public class ShortArrayLiField extends PrimitiveArrayLiField {
 
 
 		int code = inflow.getUInt8();
+		if(code == LiFlowCodes.PATCHABLE) {
+			return createPatchParser(inflow);
+		}
 		if(code != BOHR_Types.ARRAY) {
 			throw new IOException("Only array accepted");
 		}
@@ -192,6 +223,12 @@ public class ShortArrayLiField extends PrimitiveArrayLiField {
 			return new ShortArrayLiFieldDelta(getField(), deserialize(inflow));
 		}
 
+		/* decoded array is not shared, so no defensive copy */
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.set(object, deserialize(inflow));
+		}
+
 		public abstract short[] deserialize(ByteInflow inflow) throws IOException;
 
 	}
@@ -3,15 +3,22 @@ package com.s8.io.bohr.lithium.fields.arrays;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 
 import com.s8.io.bohr.atom.BOHR_Types;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.fields.LiComposerSession;
 import com.s8.io.bohr.lithium.fields.LiField;
 import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiFlowCodes;
+import com.s8.io.bohr.lithium.fields.LiParserSession;
+import com.s8.io.bohr.lithium.fields.LiShadow;
+import com.s8.io.bohr.lithium.fields.LiStringDictionaryComposer;
+import com.s8.io.bohr.lithium.fields.LiStringDictionaryParser;
 import com.s8.io.bohr.lithium.fields.primitives.PrimitiveLiField;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
@@ -104,6 +111,31 @@ public class StringArrayLiField extends PrimitiveArrayLiField {
 		return new StringArrayLiFieldDelta(this, (String[]) handler.get(object));
 	}
 
+
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return LiShadow.of((String[]) handler.get(object));
+	}
+
+
+	@Override
+	protected int mismatch(Object a, Object b, int from, int to) {
+		int index = Arrays.mismatch((String[]) a, from, to, (String[]) b, from, to);
+		return index >= 0 ? from + index : -1;
+	}
+
+
+	@Override
+	protected StringArrayLiFieldDelta createDelta(Object array) {
+		return new StringArrayLiFieldDelta(this, (String[]) array);
+	}
+
+
+	@Override
+	protected String[] getArray(LiFieldDelta delta) {
+		return ((StringArrayLiFieldDelta) delta).value;
+	}
+
 	@Override
 	public void DEBUG_print(String indent) {
 		System.out.println(indent+name+": (String[])");
@@ -164,6 +196,9 @@ public class StringArrayLiField extends PrimitiveArrayLiField {
 		
 		
 		int code = inflow.getUInt8();
+		if(code == LiFlowCodes.PATCHABLE) {
+			return createPatchParser(inflow);
+		}
 		if(code != BOHR_Types.ARRAY) {
 			throw new IOException("Only array accepted");
 		}
@@ -171,6 +206,7 @@ public class StringArrayLiField extends PrimitiveArrayLiField {
 		switch(code = inflow.getUInt8()) {
 
 		case BOHR_Types.STRING_UTF8 : return new UTF8_Inflow();
+		case LiFlowCodes.DICTIONARY : return new Dictionary_Inflow();
 
 		default : throw new LiIOException("Failed to find field-inflow for code: "+Integer.toHexString(code));
 		}
@@ -189,6 +225,12 @@ public class StringArrayLiField extends PrimitiveArrayLiField {
 		public StringArrayLiFieldDelta parseValue(ByteInflow inflow) throws IOException {
 			return new StringArrayLiFieldDelta(getField(), deserialize(inflow));
 		}
+
+		/* decoded array is not shared, so no defensive copy */
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.set(object, deserialize(inflow));
+		}
 		
 
 		public String[] deserialize(ByteInflow inflow) throws IOException {
@@ -202,6 +244,28 @@ public class StringArrayLiField extends PrimitiveArrayLiField {
 		}
 	}
 
+
+
+	private class Dictionary_Inflow extends UTF8_Inflow {
+
+		private LiStringDictionaryParser dictionary;
+
+		@Override
+		public void bind(LiParserSession session) {
+			this.dictionary = session.dictionary;
+		}
+
+		@Override
+		public String[] deserialize(ByteInflow inflow) throws IOException {
+			int length = (int) inflow.getUInt7x();
+			if(length >= 0) {
+				String[] values = new String[length];
+				for(int i = 0; i<length; i++) { values[i] = dictionary.parse(inflow); }
+				return values;
+			}
+			else { return null; }
+		}
+	}
 	
 	
 	/* </IO-inflow-section> */
@@ -213,6 +277,7 @@ public class StringArrayLiField extends PrimitiveArrayLiField {
 		switch(flow) {
 
 		case DEFAULT_FLOW_TAG: case "string_UTF8[]" : return new UTF8_Outflow(code);
+		case "dict[]" : return new Dictionary_Outflow(code);
 		
 		default : throw new LiIOException("Failed to find field-outflow for encoding: "+flow);
 		}
@@ -254,6 +319,49 @@ public class StringArrayLiField extends PrimitiveArrayLiField {
 
 	}
 
+	private class Dictionary_Outflow extends UTF8_Outflow {
+
+		private LiStringDictionaryComposer dictionary;
+
+		public Dictionary_Outflow(int code) {
+			super(code);
+		}
+
+		@Override
+		public void bind(LiComposerSession session) {
+			this.dictionary = session.dictionary;
+		}
+
+		@Override
+		public void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(BOHR_Types.ARRAY);
+			outflow.putUInt8(LiFlowCodes.DICTIONARY);
+		}
+
+		@Override
+		public boolean isUsingDictionary() {
+			return true;
+		}
+
+		@Override
+		public void claim(LiFieldDelta delta, int partition) {
+			String[] value = ((StringArrayLiFieldDelta) delta).value;
+			if(value != null) {
+				for(int i = 0; i<value.length; i++) { dictionary.claim(value[i], partition); }
+			}
+		}
+
+		@Override
+		public void serialize(ByteOutflow outflow, String[] value) throws IOException {
+			if(value != null) {
+				int length = value.length;
+				outflow.putUInt7x(length);
+				for(int i = 0; i<length; i++) { dictionary.compose(outflow, value[i]); }
+			}
+			else { outflow.putUInt7x(-1); }
+		}
+	}
+
 	/* <IO-outflow-section> */
 	
 }
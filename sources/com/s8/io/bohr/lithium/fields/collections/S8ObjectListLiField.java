@@ -6,8 +6,13 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Queue;
 
 import com.s8.io.bohr.atom.annotations.S8Field;
@@ -15,12 +20,18 @@ import com.s8.io.bohr.atom.annotations.S8Getter;
 import com.s8.io.bohr.atom.annotations.S8Setter;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.fields.LiComposerSession;
 import com.s8.io.bohr.lithium.fields.LiField;
 import com.s8.io.bohr.lithium.fields.LiFieldBuilder;
 import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiFlowCodes;
+import com.s8.io.bohr.lithium.fields.LiIdComposer;
+import com.s8.io.bohr.lithium.fields.LiIdParser;
+import com.s8.io.bohr.lithium.fields.LiParserSession;
+import com.s8.io.bohr.lithium.fields.LiShadow;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bohr.lithium.properties.LiFieldProperties;
@@ -322,6 +333,300 @@ public class S8ObjectListLiField<T extends LiObject> extends CollectionLiField {
 	}
 
 
+	@Override
+	public boolean isImaged() {
+		return true;
+	}
+
+
+	/**
+	 * Tracked types: identifiers are diffed against the last published ones
+	 * (kept as image), and changes shipped as an edit script
+	 * (<code>S8ObjectListLiFieldPatch</code>) whenever smaller than the full list.
+	 */
+	@Override
+	public LiFieldDelta produceDiff(LiObject object, Object[] images, ResolveScope scope) throws IOException {
+		@SuppressWarnings("unchecked")
+		S8ObjectListLiFieldDelta<T> delta = (S8ObjectListLiFieldDelta<T>) produceDiff(object, scope);
+		String[] previous = (String[]) images[ordinal];
+		String[] next = delta.indices;
+
+		/* published identifiers are never modified, so no copy needed */
+		images[ordinal] = next;
+
+		if(previous == null || next == null) { return delta; }
+		LiFieldDelta patch = diff(previous, next);
+		return patch != null ? patch : delta;
+	}
+
+
+	/**
+	 * <p>
+	 * Edit script turning <code>previous</code> into <code>next</code>: common
+	 * prefix and suffix are skipped, then the middle part is either overwritten
+	 * position-wise (<code>SET</code>, same length only), or edited as follows:
+	 * </p>
+	 * <ol>
+	 * <li>items absent from <code>next</code> are removed (back to front),</li>
+	 * <li>kept items out of the longest increasing subsequence of target
+	 * positions are moved (in order of target position, at most
+	 * <code>MAX_MOVES</code>),</li>
+	 * <li>new items are inserted (in order of target position).</li>
+	 * </ol>
+	 * <p>Cost is counted as one unit per operation and per shipped identifier.</p>
+	 * 
+	 * @param previous
+	 * @param next
+	 * @return the cheapest patch, or <code>null</code> if not cheaper than full value
+	 */
+	private LiFieldDelta diff(String[] previous, String[] next) {
+		int n0 = previous.length, n1 = next.length, common = Math.min(n0, n1);
+
+		int prefix = 0;
+		while(prefix < common && Objects.equals(previous[prefix], next[prefix])) { prefix++; }
+
+		int suffix = 0;
+		while(suffix < common - prefix && Objects.equals(previous[n0 - 1 - suffix], next[n1 - 1 - suffix])) { suffix++; }
+
+		int m0 = n0 - prefix - suffix, m1 = n1 - prefix - suffix;
+
+		/* position-wise overwrite */
+		ListScript set = null;
+		if(m0 == m1) {
+			set = new ListScript();
+			int i = 0;
+			while(i < m1) {
+				if(Objects.equals(previous[prefix + i], next[prefix + i])) { i++; }
+				else {
+					int start = i;
+					while(i < m1 && !Objects.equals(previous[prefix + i], next[prefix + i])) { set.append(next[prefix + i++]); }
+					set.push(S8ObjectListLiFieldPatch.SET, prefix + start, i - start);
+				}
+			}
+			if(set.cost() >= n1) { set = null; }
+		}
+
+		/* remove / move / insert */
+		ListScript edit = new ListScript();
+
+		/* target positions of identifiers (middle part), in order */
+		Map<String, ArrayDeque<Integer>> positions = new HashMap<>();
+		for(int j = 0; j < m1; j++) {
+			positions.computeIfAbsent(next[prefix + j], k -> new ArrayDeque<>()).add(j);
+		}
+
+		/* 1: remove, as runs, back to front */
+		int[] targets = new int[m0]; // target positions of kept items (reversed)
+		int nKept = 0;
+		int i = m0 - 1;
+		while(i >= 0) {
+			ArrayDeque<Integer> queue = positions.get(previous[prefix + i]);
+			if(queue != null && !queue.isEmpty()) {
+				targets[nKept++] = queue.pollLast();
+				i--;
+			}
+			else {
+				int end = i + 1;
+				while(i >= 0 && ((queue = positions.get(previous[prefix + i])) == null || queue.isEmpty())) { i--; }
+				edit.push(S8ObjectListLiFieldPatch.REMOVE, prefix + i + 1, end - i - 1);
+			}
+		}
+		for(int k = 0; k < nKept / 2; k++) { int t = targets[k]; targets[k] = targets[nKept - 1 - k]; targets[nKept - 1 - k] = t; }
+
+		/* 2: longest increasing subsequence of kept target positions */
+		boolean[] isStable = lis(targets, nKept);
+		boolean[] isKept = new boolean[m1];
+		for(int k = 0; k < nKept; k++) { isKept[targets[k]] = true; }
+		int nMoves = 0;
+		for(int k = 0; k < nKept; k++) { if(!isStable[k]) { nMoves++; } }
+
+		/* early cost check: moves + new items + insert runs */
+		int cost = edit.cost() + nMoves;
+		for(int j = 0; j < m1; j++) {
+			if(!isKept[j]) { cost += (j == 0 || isKept[j - 1]) ? 2 : 1; }
+		}
+		if(cost >= n1 || nMoves > MAX_MOVES || (set != null && cost >= set.cost())) {
+			return set != null ? set.build(this, n1) : null;
+		}
+
+		if(nMoves > 0) { pushMoves(edit, prefix, targets, isStable, nKept, nMoves, m1); }
+
+		/* 3: insert new items, as runs */
+		int j = 0;
+		while(j < m1) {
+			if(isKept[j]) { j++; }
+			else {
+				int start = j;
+				while(j < m1 && !isKept[j]) { edit.append(next[prefix + j++]); }
+				edit.push(S8ObjectListLiFieldPatch.INSERT, prefix + start, j - start);
+			}
+		}
+
+		return edit.build(this, n1);
+	}
+
+
+	/**
+	 * Above this number of moves, edit scripts are not used (each move costing
+	 * a shift of the receiving list)
+	 */
+	private final static int MAX_MOVES = 256;
+
+
+	/**
+	 * <p>
+	 * Push moves of non-stable kept items, in order of target position, each one
+	 * being moved right after the last settled (stable or already moved) item
+	 * with a lower target position.
+	 * </p>
+	 * <p>
+	 * List order is always the order of the following slots: original position
+	 * of kept item <code>k</code>, followed by the destinations of moved items
+	 * settling after it (if <code>k</code> is stable), by target position
+	 * (destinations settling first in front). Positions are therefore counts of
+	 * occupied slots, maintained in a Fenwick tree: O(n log n) overall.
+	 * </p>
+	 * 
+	 * @param edit
+	 * @param prefix
+	 * @param targets target positions of kept items, in original order
+	 * @param isStable
+	 * @param nKept
+	 * @param nMoves
+	 * @param m1 number of target positions
+	 */
+	private static void pushMoves(ListScript edit, int prefix, int[] targets, boolean[] isStable, 
+			int nKept, int nMoves, int m1) {
+
+		/* moved items (original index), by target position */
+		int[] keptByTarget = new int[m1];
+		Arrays.fill(keptByTarget, -1);
+		for(int k = 0; k < nKept; k++) { if(!isStable[k]) { keptByTarget[targets[k]] = k; } }
+		int[] moved = new int[nMoves];
+		int nMoved = 0;
+		for(int t = 0; t < m1; t++) { if(keptByTarget[t] >= 0) { moved[nMoved++] = keptByTarget[t]; } }
+
+		/* stable items, in original order (hence by target position) */
+		int nStables = nKept - nMoves;
+		int[] stables = new int[nStables];
+		int nListed = 0;
+		for(int k = 0; k < nKept; k++) { if(isStable[k]) { stables[nListed++] = k; } }
+
+		/* slots (moved items settle after the last stable item with a lower target) */
+		int[] originSlots = new int[nKept], destinationSlots = new int[nMoves];
+		int slot = 0, next = 0, s = 0;
+		int bound = nStables > 0 ? targets[stables[0]] : Integer.MAX_VALUE;
+		while(next < nMoves && targets[moved[next]] < bound) { destinationSlots[next++] = slot++; }
+		for(int k = 0; k < nKept; k++) {
+			originSlots[k] = slot++;
+			if(isStable[k]) {
+				bound = ++s < nStables ? targets[stables[s]] : Integer.MAX_VALUE;
+				while(next < nMoves && targets[moved[next]] < bound) { destinationSlots[next++] = slot++; }
+			}
+		}
+
+		/* Fenwick tree of occupied slots */
+		int[] tree = new int[slot + 1];
+		for(int k = 0; k < nKept; k++) { fenwickAdd(tree, originSlots[k], 1); }
+
+		for(int i = 0; i < nMoves; i++) {
+			int k = moved[i];
+			int from = fenwickCount(tree, originSlots[k]);
+			fenwickAdd(tree, originSlots[k], -1);
+			int to = fenwickCount(tree, destinationSlots[i]);
+			fenwickAdd(tree, destinationSlots[i], 1);
+			if(from != to) { edit.push(S8ObjectListLiFieldPatch.MOVE, prefix + from, prefix + to); }
+		}
+	}
+
+
+	private static void fenwickAdd(int[] tree, int slot, int delta) {
+		for(int i = slot + 1; i < tree.length; i += i & -i) { tree[i] += delta; }
+	}
+
+
+	/**
+	 * @return number of occupied slots strictly before <code>slot</code>
+	 */
+	private static int fenwickCount(int[] tree, int slot) {
+		int count = 0;
+		for(int i = slot; i > 0; i -= i & -i) { count += tree[i]; }
+		return count;
+	}
+
+
+	/**
+	 * 
+	 * @param values
+	 * @param n
+	 * @return flags of the items of a longest strictly increasing subsequence
+	 */
+	private static boolean[] lis(int[] values, int n) {
+		int[] tails = new int[n]; // index of smallest tail of subsequences of length (l + 1)
+		int[] predecessors = new int[n];
+		int length = 0;
+		for(int k = 0; k < n; k++) {
+			int low = 0, high = length;
+			while(low < high) {
+				int mid = (low + high) >>> 1;
+				if(values[tails[mid]] < values[k]) { low = mid + 1; } else { high = mid; }
+			}
+			predecessors[k] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = k;
+			if(low == length) { length++; }
+		}
+		boolean[] flags = new boolean[n];
+		for(int k = length > 0 ? tails[length - 1] : -1; k >= 0; k = predecessors[k]) { flags[k] = true; }
+		return flags;
+	}
+
+
+	/**
+	 * Edit script under construction
+	 */
+	private static class ListScript {
+
+		private int[] operations = new int[12];
+
+		private int nOperations;
+
+		private final List<String> indices = new ArrayList<>();
+
+		public void push(int kind, int a, int b) {
+			if(nOperations == operations.length) { operations = Arrays.copyOf(operations, nOperations * 2); }
+			operations[nOperations++] = kind;
+			operations[nOperations++] = a;
+			operations[nOperations++] = b;
+		}
+
+		public void append(String index) {
+			indices.add(index);
+		}
+
+		public int cost() {
+			return nOperations / 3 + indices.size();
+		}
+
+		public <T extends LiObject> S8ObjectListLiFieldPatch<T> build(S8ObjectListLiField<T> field, int length) {
+			return new S8ObjectListLiFieldPatch<>(field, length, Arrays.copyOf(operations, nOperations), 
+					indices.toArray(new String[indices.size()]));
+		}
+	}
+
+
+	@Override
+	public boolean isShadowed() {
+		return true;
+	}
+
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return LiShadow.of((List<T>) handler.get(object));
+	}
+
+
 	@Override
 	protected void printValue(LiObject object, ResolveScope scope, Writer writer) throws IOException {
 		@SuppressWarnings("unchecked")
@@ -387,8 +692,13 @@ public class S8ObjectListLiField<T extends LiObject> extends CollectionLiField {
 
 	@Override
 	public LiFieldParser createParser(ByteInflow inflow) throws IOException {
-		if(inflow.matches(SEQUENCE)) {
-			return new Inflow();
+		int code = inflow.getUInt8();
+		boolean isPatchable = (code == LiFlowCodes.PATCHABLE);
+		if(isPatchable) { code = inflow.getUInt8(); }
+
+		/* SEQUENCE */
+		if(code == (SEQUENCE[0] & 0xff) && inflow.getUInt8() == (SEQUENCE[1] & 0xff)) {
+			return isPatchable ? new PatchInflow() : new Inflow();
 		}
 		else {
 			throw new IOException("Only one possible encoding! ");
@@ -398,6 +708,12 @@ public class S8ObjectListLiField<T extends LiObject> extends CollectionLiField {
 
 	private class Inflow extends LiFieldParser {
 
+		protected LiIdParser ids;
+
+		@Override
+		public void bind(LiParserSession session) {
+			this.ids = session.ids;
+		}
 
 		@Override
 		public LiFieldDelta parseValue(ByteInflow inflow) throws IOException {
@@ -424,7 +740,7 @@ public class S8ObjectListLiField<T extends LiObject> extends CollectionLiField {
 
 				/* <data> */
 				String[] indices = new String[length];
-				for(int index=0; index<length; index++) { indices[index] = inflow.getStringUTF8(); }
+				for(int index=0; index<length; index++) { indices[index] = ids.parse(inflow); }
 				/* </data> */
 
 				/* append bindings */
@@ -442,6 +758,39 @@ public class S8ObjectListLiField<T extends LiObject> extends CollectionLiField {
 	}
 
 
+	private class PatchInflow extends Inflow {
+
+		@Override
+		public LiFieldDelta parseValue(ByteInflow inflow) throws IOException {
+			int kind = inflow.getUInt8();
+			switch(kind) {
+
+			case LiFlowCodes.FULL: return super.parseValue(inflow);
+
+			case LiFlowCodes.PATCH:
+				int length = (int) inflow.getUInt7x();
+				int n = 3 * (int) inflow.getUInt7x();
+				int[] operations = new int[n];
+				List<String> indices = new ArrayList<>();
+				for(int i = 0; i < n; i += 3) {
+					int operation = inflow.getUInt8();
+					int a = (int) inflow.getUInt7x(), b = (int) inflow.getUInt7x();
+					operations[i] = operation;
+					operations[i + 1] = a;
+					operations[i + 2] = b;
+					if(operation == S8ObjectListLiFieldPatch.INSERT || operation == S8ObjectListLiFieldPatch.SET) {
+						for(int j = 0; j < b; j++) { indices.add(ids.parse(inflow)); }
+					}
+				}
+				return new S8ObjectListLiFieldPatch<>(S8ObjectListLiField.this, length, operations, 
+						indices.toArray(new String[indices.size()]));
+
+			default : throw new LiIOException("Unsupported value kind: "+Integer.toHexString(kind));
+			}
+		}
+	}
+
+
 	/* </IO-inflow-section> */
 
 
@@ -459,11 +808,18 @@ public class S8ObjectListLiField<T extends LiObject> extends CollectionLiField {
 
 	private class Composer extends LiFieldComposer {
 
+		protected LiIdComposer ids;
+
 		public Composer(int code) {
 			super(code);
 			// TODO Auto-generated constructor stub
 		}
 
+		@Override
+		public void bind(LiComposerSession session) {
+			this.ids = session.ids;
+		}
+
 		@Override
 		public LiField getField() {
 			return S8ObjectListLiField.this;
@@ -471,7 +827,8 @@ public class S8ObjectListLiField<T extends LiObject> extends CollectionLiField {
 
 		@Override
 		public void publishFlowEncoding(ByteOutflow outflow) throws IOException {
-			outflow.putByteArray(SEQUENCE);
+			outflow.putUInt8(SEQUENCE[0] & 0xff);
+			outflow.putUInt8(SEQUENCE[1] & 0xff);
 		}
 
 		@Override
@@ -483,7 +840,7 @@ public class S8ObjectListLiField<T extends LiObject> extends CollectionLiField {
 				int length = identifiers.length;
 				outflow.putUInt7x(length);
 				for(int i=0; i<length; i++) {
-					outflow.putStringUTF8(identifiers[i]);
+					ids.compose(outflow, identifiers[i]);
 				}
 			}
 			else {
@@ -493,6 +850,54 @@ public class S8ObjectListLiField<T extends LiObject> extends CollectionLiField {
 		}
 
 	}
+
+
+	@Override
+	public LiFieldComposer createComposer(int code, boolean isTracked) throws LiIOException {
+		LiFieldComposer composer = createComposer(code);
+		return isTracked ? new PatchComposer(code) : composer;
+	}
+
+
+	private class PatchComposer extends Composer {
+
+		public PatchComposer(int code) {
+			super(code);
+		}
+
+		@Override
+		public void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(LiFlowCodes.PATCHABLE);
+			super.publishFlowEncoding(outflow);
+		}
+
+		@Override
+		public void composeValue(LiFieldDelta delta, ByteOutflow outflow) throws IOException {
+			if(delta instanceof S8ObjectListLiFieldPatch) {
+				@SuppressWarnings("unchecked")
+				S8ObjectListLiFieldPatch<T> patch = (S8ObjectListLiFieldPatch<T>) delta;
+				outflow.putUInt8(LiFlowCodes.PATCH);
+				outflow.putUInt7x(patch.length);
+				int[] operations = patch.operations;
+				String[] indices = patch.indices;
+				int n = operations.length, offset = 0;
+				outflow.putUInt7x(n / 3);
+				for(int i = 0; i < n; i += 3) {
+					int operation = operations[i], b = operations[i + 2];
+					outflow.putUInt8(operation);
+					outflow.putUInt7x(operations[i + 1]);
+					outflow.putUInt7x(b);
+					if(operation == S8ObjectListLiFieldPatch.INSERT || operation == S8ObjectListLiFieldPatch.SET) {
+						for(int j = 0; j < b; j++) { ids.compose(outflow, indices[offset++]); }
+					}
+				}
+			}
+			else {
+				outflow.putUInt8(LiFlowCodes.FULL);
+				super.composeValue(delta, outflow);
+			}
+		}
+	}
 	/* </IO-outflow-section> */
 
 }
@@ -0,0 +1,151 @@
+package com.s8.io.bohr.lithium.fields.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.fields.LiField;
+import com.s8.io.bohr.lithium.fields.LiFieldDelta;
+import com.s8.io.bohr.lithium.object.LiObject;
+import com.s8.io.bohr.lithium.type.BuildScope;
+import com.s8.io.bohr.lithium.type.BuildScope.Binding;
+
+
+/**
+ * <p>
+ * Edit script on a list of objects, applied in place (and in order) on the
+ * receiving list. Each operation is a triple <code>(kind, a, b)</code>:
+ * </p>
+ * <ul>
+ * <li><code>INSERT</code>: insert <code>b</code> items at <code>a</code></li>
+ * <li><code>REMOVE</code>: remove <code>b</code> items from <code>a</code></li>
+ * <li><code>MOVE</code>: remove item at <code>a</code>, then re-insert it at <code>b</code></li>
+ * <li><code>SET</code>: overwrite <code>b</code> items from <code>a</code></li>
+ * </ul>
+ * <p>
+ * Identifiers of inserted / set items are packed (in order of operations) in
+ * <code>indices</code>.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class S8ObjectListLiFieldPatch<T extends LiObject> extends LiFieldDelta {
+
+
+	public final static int INSERT = 0x01;
+
+	public final static int REMOVE = 0x02;
+
+	public final static int MOVE = 0x03;
+
+	public final static int SET = 0x04;
+
+
+	public final S8ObjectListLiField<T> field;
+
+
+	/**
+	 * Length of list after patch
+	 */
+	public final int length;
+
+
+	/**
+	 * Triples of (kind, a, b)
+	 */
+	public final int[] operations;
+
+
+	/**
+	 * Identifiers of inserted / set items
+	 */
+	public final String[] indices;
+
+
+	/**
+	 *
+	 * @param field
+	 * @param length
+	 * @param operations
+	 * @param indices
+	 */
+	public S8ObjectListLiFieldPatch(S8ObjectListLiField<T> field, int length, int[] operations, String[] indices) {
+		super();
+		this.field = field;
+		this.length = length;
+		this.operations = operations;
+		this.indices = indices;
+	}
+
+
+	public @Override LiField getField() { return field; }
+
+
+	@Override
+	public void operate(LiObject object, BuildScope scope) throws LiIOException {
+
+		@SuppressWarnings("unchecked")
+		List<T> list = (List<T>) field.handler.get(object);
+		if(list == null) {
+			throw new LiIOException("Cannot patch a null list, for field: "+field.name);
+		}
+
+		/* items might be created by the same graph delta, so edit once all bound */
+		scope.appendBinding(new Binding() {
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public void resolve(BuildScope scope) throws LiIOException {
+				int n = operations.length, offset = 0;
+				for(int i = 0; i < n; i += 3) {
+					int a = operations[i + 1], b = operations[i + 2];
+					switch(operations[i]) {
+
+					case INSERT:
+						if(b == 1) {
+							list.add(a, (T) retrieve(scope, indices[offset++]));
+						}
+						else {
+							List<T> items = new ArrayList<>(b);
+							for(int j = 0; j < b; j++) { items.add((T) retrieve(scope, indices[offset++])); }
+							list.addAll(a, items);
+						}
+						break;
+
+					case REMOVE:
+						if(b == 1) { list.remove(a); } else { list.subList(a, a + b).clear(); }
+						break;
+
+					case MOVE:
+						list.add(b, list.remove(a));
+						break;
+
+					case SET:
+						for(int j = 0; j < b; j++) { list.set(a + j, (T) retrieve(scope, indices[offset++])); }
+						break;
+
+					default : throw new LiIOException("Unsupported list operation: "+operations[i]);
+					}
+				}
+
+				if(list.size() != length) {
+					throw new LiIOException("List patch mismatch for field "+field.name+": "
+							+list.size()+" items instead of "+length);
+				}
+			}
+		});
+	}
+
+
+	private static LiObject retrieve(BuildScope scope, String index) throws LiIOException {
+		if(index == null) { return null; }
+		LiObject item = scope.retrieveObject(index);
+		if(item == null) {
+			throw new LiIOException("Failed to retrieve object for index="+index);
+		}
+		return item;
+	}
+
+}
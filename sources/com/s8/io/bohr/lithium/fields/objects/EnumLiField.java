@@ -18,6 +18,7 @@ import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiShadow;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bohr.lithium.properties.LiFieldProperties;
@@ -187,6 +188,19 @@ public class EnumLiField extends LiField {
 		return new EnumLiFieldDelta(this, handler.get(object));
 	}
 
+
+	@Override
+	public boolean isShadowed() {
+		return true;
+	}
+
+
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		Object value = handler.get(object);
+		return value != null ? ((Enum<?>) value).ordinal() : LiShadow.NULL;
+	}
+
 	
 
 	@Override
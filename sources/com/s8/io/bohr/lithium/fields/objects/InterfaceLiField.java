@@ -12,12 +12,17 @@ import com.s8.io.bohr.atom.annotations.S8Getter;
 import com.s8.io.bohr.atom.annotations.S8Setter;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.fields.LiComposerSession;
 import com.s8.io.bohr.lithium.fields.LiField;
 import com.s8.io.bohr.lithium.fields.LiFieldBuilder;
 import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiIdComposer;
+import com.s8.io.bohr.lithium.fields.LiIdParser;
+import com.s8.io.bohr.lithium.fields.LiParserSession;
+import com.s8.io.bohr.lithium.fields.LiShadow;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bohr.lithium.properties.LiFieldProperties;
@@ -184,6 +189,18 @@ public class InterfaceLiField extends LiField {
 	}
 
 
+	@Override
+	public boolean isShadowed() {
+		return true;
+	}
+
+
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return LiShadow.of((LiObject) handler.get(object));
+	}
+
+
 
 	@Override
 	protected void printValue(LiObject object, ResolveScope scope, Writer writer) throws IOException {
@@ -232,9 +249,16 @@ public class InterfaceLiField extends LiField {
 
 	private class Inflow extends LiFieldParser {
 
+		private LiIdParser ids;
+
+		@Override
+		public void bind(LiParserSession session) {
+			this.ids = session.ids;
+		}
+
 		@Override
 		public LiFieldDelta parseValue(ByteInflow inflow) throws IOException {
-			String id = inflow.getStringUTF8();
+			String id = ids.parse(inflow);
 			return new InterfaceLiFieldDelta(getField(), id);
 		}
 
@@ -265,10 +289,17 @@ public class InterfaceLiField extends LiField {
 
 	private class Outflow extends LiFieldComposer {
 
+		private LiIdComposer ids;
+
 		public Outflow(int code) {
 			super(code);
 		}
 
+		@Override
+		public void bind(LiComposerSession session) {
+			this.ids = session.ids;
+		}
+
 		@Override
 		public LiField getField() {
 			return InterfaceLiField.this;
@@ -282,7 +313,12 @@ public class InterfaceLiField extends LiField {
 		@Override
 		public void composeValue(LiFieldDelta delta, ByteOutflow outflow) throws IOException {
 			String id = ((InterfaceLiFieldDelta) delta).index;
-			outflow.putStringUTF8(id);
+			ids.compose(outflow, id);
+		}
+
+		@Override
+		public void composeValue(LiObject object, ResolveScope scope, ByteOutflow outflow) throws IOException {
+			ids.compose(outflow, scope.resolveId((LiObject) handler.get(object)));
 		}
 	}
 	/* </IO-outflow-section> */
@@ -20,6 +20,7 @@ import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiShadow;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bohr.lithium.object.LiRef;
@@ -205,6 +206,21 @@ public class S8RefLiField extends LiField {
 		return new S8RefLiFieldDelta(this, (LiRef) handler.get(object));
 	}
 
+
+	@Override
+	public boolean isShadowed() {
+		return true;
+	}
+
+
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		LiRef value = (LiRef) handler.get(object);
+		if(value == null) { return LiShadow.NULL; }
+		return LiShadow.mix(LiShadow.of(value.address) ^ Long.rotateLeft(LiShadow.of(value.branch), 17) 
+				^ Long.rotateLeft(value.version, 31) ^ value.port);
+	}
+
 	@Override
 	public void DEBUG_print(String indent) {
 		System.out.println(indent+name+": (S8Ref<?>)");
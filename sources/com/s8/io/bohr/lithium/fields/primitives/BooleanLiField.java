@@ -95,6 +95,12 @@ public class BooleanLiField extends PrimitiveLiField {
 	public BooleanLiFieldDelta produceDiff(LiObject object, ResolveScope scope) throws IOException {
 		return new BooleanLiFieldDelta(this, handler.getBoolean(object));
 	}
+
+
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return handler.getBoolean(object) ? 1 : 0;
+	}
 	
 
 	
@@ -130,10 +136,20 @@ public class BooleanLiField extends PrimitiveLiField {
 			return BooleanLiField.this;
 		}
 
+		@Override
+		public int getPlainEncoding() {
+			return BOHR_Types.BOOL8;
+		}
+
 		@Override
 		public BooleanLiFieldDelta parseValue(ByteInflow inflow) throws IOException {
 			return new BooleanLiFieldDelta(BooleanLiField.this, inflow.getBool8());
 		}
+
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.setBoolean(object, inflow.getBool8());
+		}
 	}
 
 	/* </IO-inflow-section> */
@@ -161,6 +177,11 @@ public class BooleanLiField extends PrimitiveLiField {
 			return BooleanLiField.this;
 		}
 
+		@Override
+		public int getPlainEncoding() {
+			return BOHR_Types.BOOL8;
+		}
+
 		@Override
 		public void publishFlowEncoding(ByteOutflow outflow) throws IOException {
 			outflow.putUInt8(BOHR_Types.BOOL8);
@@ -170,6 +191,11 @@ public class BooleanLiField extends PrimitiveLiField {
 		public void composeValue(LiFieldDelta delta, ByteOutflow outflow) throws IOException {
 			outflow.putBool8(((BooleanLiFieldDelta) delta).value);
 		}
+
+		@Override
+		public void composeValue(LiObject object, ResolveScope scope, ByteOutflow outflow) throws IOException {
+			outflow.putBool8(handler.getBoolean(object));
+		}
 	}
 
 
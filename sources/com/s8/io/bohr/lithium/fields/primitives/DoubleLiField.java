@@ -91,6 +91,12 @@ public class DoubleLiField extends PrimitiveLiField {
 	public DoubleLiFieldDelta produceDiff(LiObject object, ResolveScope scope) throws IOException {
 		return new DoubleLiFieldDelta(this, handler.getDouble(object));
 	}
+
+
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return Double.doubleToRawLongBits(handler.getDouble(object));
+	}
 	
 
 	@Override
@@ -134,6 +140,11 @@ public class DoubleLiField extends PrimitiveLiField {
 		public DoubleLiFieldDelta parseValue(ByteInflow inflow) throws IOException {
 			return new DoubleLiFieldDelta(getField(), deserialize(inflow));
 		}
+
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.setDouble(object, deserialize(inflow));
+		}
 		
 		public abstract double deserialize(ByteInflow inflow) throws IOException;
 
@@ -146,6 +157,7 @@ public class DoubleLiField extends PrimitiveLiField {
 	}
 
 	private class Float64_Inflow extends Inflow {
+		public @Override int getPlainEncoding() { return BOHR_Types.FLOAT64; }
 		public @Override double deserialize(ByteInflow inflow) throws IOException {
 			return inflow.getFloat64();
 		}
@@ -185,6 +197,11 @@ public class DoubleLiField extends PrimitiveLiField {
 			serialize(outflow, ((DoubleLiFieldDelta) delta).value);
 		}
 
+		@Override
+		public void composeValue(LiObject object, ResolveScope scope, ByteOutflow outflow) throws IOException {
+			serialize(outflow, handler.getDouble(object));
+		}
+
 		public abstract void serialize(ByteOutflow outflow, double value) throws IOException;
 	}
 
@@ -201,6 +218,7 @@ public class DoubleLiField extends PrimitiveLiField {
 
 	private class Float64_Outflow extends Outflow {
 		public Float64_Outflow(int code) { super(code); }
+		public @Override int getPlainEncoding() { return BOHR_Types.FLOAT64; }
 		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
 			outflow.putUInt8(BOHR_Types.FLOAT64);
 		}
@@ -91,6 +91,12 @@ public class FloatLiField extends PrimitiveLiField {
 		return new FloatLiFieldDelta(this, handler.getFloat(object));
 	}
 
+
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return Float.floatToRawIntBits(handler.getFloat(object));
+	}
+
 	@Override
 	public void DEBUG_print(String indent) {
 		System.out.println(indent+name+": (float)");
@@ -133,11 +139,17 @@ public class FloatLiField extends PrimitiveLiField {
 			return new FloatLiFieldDelta(getField(), deserialize(inflow));
 		}
 
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.setFloat(object, deserialize(inflow));
+		}
+
 		public abstract float deserialize(ByteInflow inflow) throws IOException;
 
 	}
 
 	private class Float32_Parser extends Parser {
+		public @Override int getPlainEncoding() { return BOHR_Types.FLOAT32; }
 		public @Override float deserialize(ByteInflow inflow) throws IOException {
 			return inflow.getFloat32();
 		}
@@ -177,12 +189,18 @@ public class FloatLiField extends PrimitiveLiField {
 			serialize(outflow, ((FloatLiFieldDelta) delta).value);
 		}
 
+		@Override
+		public void composeValue(LiObject object, ResolveScope scope, ByteOutflow outflow) throws IOException {
+			serialize(outflow, handler.getFloat(object));
+		}
+
 		public abstract void serialize(ByteOutflow outflow, float value) throws IOException;
 	}
 
 
 	private class Float32_Outflow extends Composer {
 		public Float32_Outflow(int code) { super(code); }
+		public @Override int getPlainEncoding() { return BOHR_Types.FLOAT32; }
 		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
 			outflow.putUInt8(BOHR_Types.FLOAT32);
 		}
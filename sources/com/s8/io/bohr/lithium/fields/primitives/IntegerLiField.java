@@ -11,6 +11,7 @@ import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiFlowCodes;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bohr.lithium.properties.LiFieldProperties;
@@ -88,6 +89,12 @@ public class IntegerLiField extends PrimitiveLiField {
 		return new IntegerLiFieldDelta(this, handler.getInteger(object));
 	}
 
+
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return handler.getInteger(object);
+	}
+
 	@Override
 	public void DEBUG_print(String indent) {
 		System.out.println(indent+name+": (long)");
@@ -118,6 +125,9 @@ public class IntegerLiField extends PrimitiveLiField {
 		case BOHR_Types.INT16 : return new Int16_Inflow();
 		case BOHR_Types.INT32 : return new Int32_Inflow();
 
+		case LiFlowCodes.VARINT : return new VarInt_Inflow();
+		case LiFlowCodes.ZIGZAG : return new ZigZag_Inflow();
+
 		default : throw new LiIOException("Failed to find field-inflow for code: "+Integer.toHexString(code));
 		}
 	}
@@ -135,6 +145,11 @@ public class IntegerLiField extends PrimitiveLiField {
 		public IntegerLiFieldDelta parseValue(ByteInflow inflow) throws IOException {
 			return new IntegerLiFieldDelta(getField(), deserialize(inflow));
 		}
+
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.setInteger(object, deserialize(inflow));
+		}
 		
 		public abstract int deserialize(ByteInflow inflow) throws IOException;
 
@@ -171,11 +186,25 @@ public class IntegerLiField extends PrimitiveLiField {
 	}
 
 	private class Int32_Inflow extends Inflow {
+		public @Override int getPlainEncoding() { return BOHR_Types.INT32; }
 		public @Override int deserialize(ByteInflow inflow) throws IOException {
 			return inflow.getInt32();
 		}
 	}
 
+	private class VarInt_Inflow extends Inflow {
+		public @Override int deserialize(ByteInflow inflow) throws IOException {
+			return (int) inflow.getUInt7x();
+		}
+	}
+
+	private class ZigZag_Inflow extends Inflow {
+		public @Override int deserialize(ByteInflow inflow) throws IOException {
+			int zigzag = (int) inflow.getUInt7x();
+			return (zigzag >>> 1) ^ -(zigzag & 1);
+		}
+	}
+
 	/* </IO-inflow-section> */
 
 
@@ -193,6 +222,9 @@ public class IntegerLiField extends PrimitiveLiField {
 		case "int16" : return new Int16_Outflow(code);
 		case DEFAULT_FLOW_TAG: case "int32" : return new Int32_Outflow(code);
 
+		case "vint" : return new VarInt_Outflow(code);
+		case "zigzag" : return new ZigZag_Outflow(code);
+
 		default : throw new LiIOException("Failed to find field-outflow for encoding: "+flow);
 		}
 	}
@@ -216,6 +248,11 @@ public class IntegerLiField extends PrimitiveLiField {
 			serialize(outflow, ((IntegerLiFieldDelta) delta).value);
 		}
 
+		@Override
+		public void composeValue(LiObject object, ResolveScope scope, ByteOutflow outflow) throws IOException {
+			serialize(outflow, handler.getInteger(object));
+		}
+
 		public abstract void serialize(ByteOutflow outflow, int value) throws IOException;
 	}
 
@@ -273,6 +310,7 @@ public class IntegerLiField extends PrimitiveLiField {
 
 	private class Int32_Outflow extends Composer {
 		public Int32_Outflow(int code) { super(code); }
+		public @Override int getPlainEncoding() { return BOHR_Types.INT32; }
 		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
 			outflow.putUInt8(BOHR_Types.INT32);
 		}
@@ -280,6 +318,27 @@ public class IntegerLiField extends PrimitiveLiField {
 			outflow.putInt32(value);
 		}
 	}	
+
+	private class VarInt_Outflow extends Composer {
+		public VarInt_Outflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(LiFlowCodes.VARINT);
+		}
+		public @Override void serialize(ByteOutflow outflow, int value) throws IOException {
+			outflow.putUInt7x(value & 0xffffffffL);
+		}
+	}
+
+	private class ZigZag_Outflow extends Composer {
+		public ZigZag_Outflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(LiFlowCodes.ZIGZAG);
+		}
+		public @Override void serialize(ByteOutflow outflow, int value) throws IOException {
+			outflow.putUInt7x(((value << 1) ^ (value >> 31)) & 0xffffffffL);
+		}
+	}
+
 	/* <IO-outflow-section> */
 
 }
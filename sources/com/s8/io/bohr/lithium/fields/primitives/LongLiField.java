@@ -11,6 +11,7 @@ import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiFlowCodes;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bohr.lithium.properties.LiFieldProperties;
@@ -93,6 +94,12 @@ public class LongLiField extends PrimitiveLiField {
 	}
 
 
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return handler.getLong(object);
+	}
+
+
 
 	@Override
 	public void DEBUG_print(String indent) {
@@ -125,6 +132,9 @@ public class LongLiField extends PrimitiveLiField {
 		case BOHR_Types.INT32 : return new Int32_NdFieldInflow();
 		case BOHR_Types.INT64 : return new Int64_NdFieldInflow();
 
+		case LiFlowCodes.VARINT : return new VarInt_NdFieldInflow();
+		case LiFlowCodes.ZIGZAG : return new ZigZag_NdFieldInflow();
+
 		default : throw new LiIOException("Failed to find field-inflow for code: "+Integer.toHexString(code));
 		}
 	}
@@ -142,6 +152,11 @@ public class LongLiField extends PrimitiveLiField {
 		public LongLiFieldDelta parseValue(ByteInflow inflow) throws IOException {
 			return new LongLiFieldDelta(getField(), deserialize(inflow));
 		}
+
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.setLong(object, deserialize(inflow));
+		}
 		
 
 		public abstract long deserialize(ByteInflow inflow) throws IOException;
@@ -189,12 +204,26 @@ public class LongLiField extends PrimitiveLiField {
 	}
 
 	private class Int64_NdFieldInflow extends LongNdFieldInflow {
+		public @Override int getPlainEncoding() { return BOHR_Types.INT64; }
 		public @Override long deserialize(ByteInflow inflow) throws IOException {
 			return inflow.getInt64();
 		}
 	}
 
 
+	private class VarInt_NdFieldInflow extends LongNdFieldInflow {
+		public @Override long deserialize(ByteInflow inflow) throws IOException {
+			return inflow.getUInt7x();
+		}
+	}
+
+	private class ZigZag_NdFieldInflow extends LongNdFieldInflow {
+		public @Override long deserialize(ByteInflow inflow) throws IOException {
+			long zigzag = inflow.getUInt7x();
+			return (zigzag >>> 1) ^ -(zigzag & 1);
+		}
+	}
+
 	/* </IO-inflow-section> */
 
 
@@ -213,6 +242,9 @@ public class LongLiField extends PrimitiveLiField {
 		case "int32" : return new Int32_NdFieldOutflow(code);
 		case DEFAULT_FLOW_TAG: case "int64" : return new Int64_NdFieldOutflow(code);
 
+		case "vint" : return new VarInt_NdFieldOutflow(code);
+		case "zigzag" : return new ZigZag_NdFieldOutflow(code);
+
 		default : throw new LiIOException("Failed to find field-outflow for encoding: "+flow);
 		}
 	}
@@ -231,6 +263,11 @@ public class LongLiField extends PrimitiveLiField {
 		public void composeValue(LiFieldDelta delta, ByteOutflow outflow) throws IOException {
 			serialize(outflow, ((LongLiFieldDelta) delta).value);
 		}
+
+		@Override
+		public void composeValue(LiObject object, ResolveScope scope, ByteOutflow outflow) throws IOException {
+			serialize(outflow, handler.getLong(object));
+		}
 		
 
 		public abstract void serialize(ByteOutflow outflow, long value) throws IOException;
@@ -309,6 +346,7 @@ public class LongLiField extends PrimitiveLiField {
 
 	private class Int64_NdFieldOutflow extends Composer {
 		public Int64_NdFieldOutflow(int code) { super(code); }
+		public @Override int getPlainEncoding() { return BOHR_Types.INT64; }
 		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
 			outflow.putUInt8(BOHR_Types.INT64);
 		}
@@ -317,6 +355,26 @@ public class LongLiField extends PrimitiveLiField {
 		}
 	}
 
+	private class VarInt_NdFieldOutflow extends Composer {
+		public VarInt_NdFieldOutflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(LiFlowCodes.VARINT);
+		}
+		public @Override void serialize(ByteOutflow outflow, long value) throws IOException {
+			outflow.putUInt7x(value);
+		}
+	}
+
+	private class ZigZag_NdFieldOutflow extends Composer {
+		public ZigZag_NdFieldOutflow(int code) { super(code); }
+		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(LiFlowCodes.ZIGZAG);
+		}
+		public @Override void serialize(ByteOutflow outflow, long value) throws IOException {
+			outflow.putUInt7x((value << 1) ^ (value >> 63));
+		}
+	}
+
 	/* <IO-outflow-section> */
 
 }
@@ -139,6 +139,15 @@ public abstract class PrimitiveLiField extends LiField {
 	
 	public abstract Prototype getPrototype();
 	
+	
+	/**
+	 * Primitives (and arrays of) are always shadowed
+	 */
+	@Override
+	public boolean isShadowed() {
+		return true;
+	}
+	
 
 	
 
@@ -105,6 +105,12 @@ public class ShortLiField extends PrimitiveLiField {
 	}
 
 
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return handler.getShort(object);
+	}
+
+
 	/* <IO-inflow-section> */
 
 
@@ -137,6 +143,11 @@ public class ShortLiField extends PrimitiveLiField {
 			return new ShortLiFieldDelta(getField(), deserialize(inflow));
 		}
 
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.setShort(object, deserialize(inflow));
+		}
+
 		public abstract short deserialize(ByteInflow inflow) throws IOException;
 
 	}
@@ -161,6 +172,7 @@ public class ShortLiField extends PrimitiveLiField {
 	}
 
 	private class Int16_Inflow extends Inflow {
+		public @Override int getPlainEncoding() { return BOHR_Types.INT16; }
 		public @Override short deserialize(ByteInflow inflow) throws IOException {
 			return inflow.getInt16();
 		}
@@ -201,6 +213,11 @@ public class ShortLiField extends PrimitiveLiField {
 		public void composeValue(LiFieldDelta delta, ByteOutflow outflow) throws IOException {
 			serialize(outflow, ((ShortLiFieldDelta) delta).value);
 		}
+
+		@Override
+		public void composeValue(LiObject object, ResolveScope scope, ByteOutflow outflow) throws IOException {
+			serialize(outflow, handler.getShort(object));
+		}
 		
 
 		public abstract void serialize(ByteOutflow outflow, short value) throws IOException;
@@ -240,6 +257,7 @@ public class ShortLiField extends PrimitiveLiField {
 
 	private class Int16_Outflow extends Composer {
 		public Int16_Outflow(int code) { super(code); }
+		public @Override int getPlainEncoding() { return BOHR_Types.INT16; }
 		public @Override void publishFlowEncoding(ByteOutflow outflow) throws IOException {
 			outflow.putUInt8(BOHR_Types.INT16);
 		}
@@ -6,11 +6,17 @@ import java.io.Writer;
 import com.s8.io.bohr.atom.BOHR_Types;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.fields.LiComposerSession;
 import com.s8.io.bohr.lithium.fields.LiField;
 import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
 import com.s8.io.bohr.lithium.fields.LiFieldPrototype;
+import com.s8.io.bohr.lithium.fields.LiFlowCodes;
+import com.s8.io.bohr.lithium.fields.LiParserSession;
+import com.s8.io.bohr.lithium.fields.LiShadow;
+import com.s8.io.bohr.lithium.fields.LiStringDictionaryComposer;
+import com.s8.io.bohr.lithium.fields.LiStringDictionaryParser;
 import com.s8.io.bohr.lithium.handlers.LiHandler;
 import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bohr.lithium.properties.LiFieldProperties;
@@ -99,6 +105,12 @@ public class StringLiField extends PrimitiveLiField {
 	}
 
 
+	@Override
+	public long computeShadow(LiObject object) throws LiIOException {
+		return LiShadow.of(handler.getString(object));
+	}
+
+
 	@Override
 	public void DEBUG_print(String indent) {
 		System.out.println(indent+name+": (String)");
@@ -122,6 +134,7 @@ public class StringLiField extends PrimitiveLiField {
 		switch(code) {
 
 		case BOHR_Types.STRING_UTF8 : return new UTF8_Inflow();
+		case LiFlowCodes.DICTIONARY : return new Dictionary_Inflow();
 
 		default : throw new LiIOException("Failed to find field-inflow for code: "+Integer.toHexString(code));
 		}
@@ -136,10 +149,45 @@ public class StringLiField extends PrimitiveLiField {
 			return StringLiField.this;
 		}
 
+		@Override
+		public int getPlainEncoding() {
+			return BOHR_Types.STRING_UTF8;
+		}
+
 		@Override
 		public StringLiFieldDelta parseValue(ByteInflow inflow) throws IOException {
 			return new StringLiFieldDelta(getField(), inflow.getStringUTF8());
 		}
+
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.setString(object, inflow.getStringUTF8());
+		}
+	}
+
+	private class Dictionary_Inflow extends LiFieldParser {
+
+		private LiStringDictionaryParser dictionary;
+
+		@Override
+		public StringLiField getField() {
+			return StringLiField.this;
+		}
+
+		@Override
+		public void bind(LiParserSession session) {
+			this.dictionary = session.dictionary;
+		}
+
+		@Override
+		public StringLiFieldDelta parseValue(ByteInflow inflow) throws IOException {
+			return new StringLiFieldDelta(getField(), dictionary.parse(inflow));
+		}
+
+		@Override
+		public void parseValue(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+			handler.setString(object, dictionary.parse(inflow));
+		}
 	}
 
 	/* </IO-inflow-section> */
@@ -151,6 +199,7 @@ public class StringLiField extends PrimitiveLiField {
 		switch(flow) {
 		case DEFAULT_FLOW_TAG:
 		case "StringUTF8" : return new UTF8_Outflow(code);
+		case "dict" : return new Dictionary_Outflow(code);
 		default : throw new LiIOException("Failed to find field-outflow for encoding: "+flow);
 		}
 	}
@@ -167,6 +216,11 @@ public class StringLiField extends PrimitiveLiField {
 			return StringLiField.this;
 		}
 
+		@Override
+		public int getPlainEncoding() {
+			return BOHR_Types.STRING_UTF8;
+		}
+
 		@Override
 		public void publishFlowEncoding(ByteOutflow outflow) throws IOException {
 			outflow.putUInt8(BOHR_Types.STRING_UTF8);
@@ -176,6 +230,55 @@ public class StringLiField extends PrimitiveLiField {
 		public void composeValue(LiFieldDelta delta, ByteOutflow outflow) throws IOException {
 			outflow.putStringUTF8(((StringLiFieldDelta) delta).value);
 		}
+
+		@Override
+		public void composeValue(LiObject object, ResolveScope scope, ByteOutflow outflow) throws IOException {
+			outflow.putStringUTF8((String) handler.get(object));
+		}
+	}
+
+	private class Dictionary_Outflow extends LiFieldComposer {
+
+		private LiStringDictionaryComposer dictionary;
+
+		public Dictionary_Outflow(int code) {
+			super(code);
+		}
+
+		@Override
+		public StringLiField getField() {
+			return StringLiField.this;
+		}
+
+		@Override
+		public void bind(LiComposerSession session) {
+			this.dictionary = session.dictionary;
+		}
+
+		@Override
+		public void publishFlowEncoding(ByteOutflow outflow) throws IOException {
+			outflow.putUInt8(LiFlowCodes.DICTIONARY);
+		}
+
+		@Override
+		public boolean isUsingDictionary() {
+			return true;
+		}
+
+		@Override
+		public void claim(LiFieldDelta delta, int partition) {
+			dictionary.claim(((StringLiFieldDelta) delta).value, partition);
+		}
+
+		@Override
+		public void composeValue(LiFieldDelta delta, ByteOutflow outflow) throws IOException {
+			dictionary.compose(outflow, ((StringLiFieldDelta) delta).value);
+		}
+
+		@Override
+		public void composeValue(LiObject object, ResolveScope scope, ByteOutflow outflow) throws IOException {
+			dictionary.compose(outflow, (String) handler.get(object));
+		}
 	}
 
 	/* <IO-outflow-section> */	
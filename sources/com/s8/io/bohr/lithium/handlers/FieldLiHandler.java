@@ -1,16 +1,33 @@
 package com.s8.io.bohr.lithium.handlers;
 
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 import com.s8.io.bohr.atom.annotations.S8Field;
 import com.s8.io.bohr.atom.annotations.S8ObjectType;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.type.LiClassWriter;
 
 
 /**
- * 
+ * <p>
+ * Field-based handler. Accessors are read / written through reflection, unless
+ * <code>init</code> has been able to generate a subclass dedicated to the
+ * field (defined as a hidden class, see <code>LiClassWriter</code>): accessors
+ * matching the field type (<code>getDouble</code> / <code>setDouble</code> for
+ * a <code>double</code> field, <code>get</code> / <code>set</code> and
+ * <code>getString</code> / <code>setString</code> for reference fields) are
+ * then overridden with a plain <code>GETFIELD</code> / <code>PUTFIELD</code>.
+ * Other accessors (e.g. boxing ones for primitive fields) remain reflective.
+ * </p>
+ * <p>
+ * Only generated for public, non-static, non-final fields, whose declaring
+ * class and type are public, exported to this module and visible from its
+ * class loader.
+ * </p>
  *
  * @author Pierre Convert
  * Copyright (C) 2022, Pierre Convert. All rights reserved.
@@ -20,11 +37,148 @@ public class FieldLiHandler implements LiHandler {
 
 
 	public static LiHandler init(Field field) throws LiBuildException {
-		FieldLiHandler handler = new FieldLiHandler();
+		FieldLiHandler handler = generate(field);
+		if(handler == null) { handler = new FieldLiHandler(); }
 		handler.attachField(field);
 		return handler;
 	}
 
+
+	private final static String HANDLER = "com/s8/io/bohr/lithium/handlers/FieldLiHandler";
+
+	private final static String OBJECT = "java/lang/Object";
+
+	private final static String STRING = "java/lang/String";
+
+
+	/**
+	 * 
+	 * @param field
+	 * @return a blank instance of the subclass generated for <code>field</code>, 
+	 * or <code>null</code> if not eligible (see class description) or if generation failed
+	 */
+	private static FieldLiHandler generate(Field field) {
+		int modifiers = field.getModifiers();
+		Class<?> owner = field.getDeclaringClass(), type = field.getType();
+		if(!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)
+				|| !isAccessible(owner) || !isAccessible(type) || type == char.class) { return null; }
+
+		String ownerName = internalName(owner), name = field.getName(), descriptor = descriptor(type);
+		LiClassWriter writer = new LiClassWriter(HANDLER+"$"+owner.getSimpleName()+"$"+name, HANDLER);
+
+		/* <init> */
+		writer.method("<init>", "()V", 1, 1)
+		.local(LiClassWriter.ALOAD, 0)
+		.invoke(LiClassWriter.INVOKESPECIAL, HANDLER, "<init>", "()V")
+		.op(LiClassWriter.RETURN);
+
+		if(type.isPrimitive()) {
+			String accessor;
+			int load, ret, size = 1;
+			if(type == byte.class) { accessor = "Byte"; load = LiClassWriter.ILOAD; ret = LiClassWriter.IRETURN; }
+			else if(type == boolean.class) { accessor = "Boolean"; load = LiClassWriter.ILOAD; ret = LiClassWriter.IRETURN; }
+			else if(type == short.class) { accessor = "Short"; load = LiClassWriter.ILOAD; ret = LiClassWriter.IRETURN; }
+			else if(type == int.class) { accessor = "Integer"; load = LiClassWriter.ILOAD; ret = LiClassWriter.IRETURN; }
+			else if(type == float.class) { accessor = "Float"; load = LiClassWriter.FLOAD; ret = LiClassWriter.FRETURN; }
+			else if(type == long.class) { accessor = "Long"; load = LiClassWriter.LLOAD; ret = LiClassWriter.LRETURN; size = 2; }
+			else { accessor = "Double"; load = LiClassWriter.DLOAD; ret = LiClassWriter.DRETURN; size = 2; }
+
+			writeGetter(writer, "get"+accessor, descriptor, ownerName, name, descriptor, ret, size);
+			writeSetter(writer, "set"+accessor, descriptor, ownerName, name, descriptor, load, size, null);
+		}
+		else {
+			/* value is cast to field type */
+			String cast = type.isArray() ? descriptor : internalName(type);
+			writeGetter(writer, "get", "L"+OBJECT+";", ownerName, name, descriptor, LiClassWriter.ARETURN, 1);
+			writeSetter(writer, "set", "L"+OBJECT+";", ownerName, name, descriptor, LiClassWriter.ALOAD, 1, 
+					type != Object.class ? cast : null);
+			if(type == String.class) {
+				writeGetter(writer, "getString", "L"+STRING+";", ownerName, name, descriptor, LiClassWriter.ARETURN, 1);
+				writeSetter(writer, "setString", "L"+STRING+";", ownerName, name, descriptor, LiClassWriter.ALOAD, 1, null);
+			}
+		}
+
+		/* define */
+		try {
+			Module module = FieldLiHandler.class.getModule();
+			module.addReads(owner.getModule());
+			module.addReads(type.getModule());
+			MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(writer.toByteArray(), true);
+			return (FieldLiHandler) lookup.lookupClass().getDeclaredConstructor().newInstance();
+		}
+		catch(ReflectiveOperationException | LinkageError e) {
+			/* fall back to reflection */
+			return null;
+		}
+	}
+
+
+	/**
+	 * <code>(Object object) -> ((Owner) object).field</code>
+	 */
+	private static void writeGetter(LiClassWriter writer, String method, String valueDescriptor, 
+			String owner, String name, String descriptor, int ret, int size) {
+		writer.method(method, "(L"+OBJECT+";)"+valueDescriptor, size, 2)
+		.local(LiClassWriter.ALOAD, 1)
+		.type(LiClassWriter.CHECKCAST, owner)
+		.field(LiClassWriter.GETFIELD, owner, name, descriptor)
+		.op(ret);
+	}
+
+
+	/**
+	 * <code>(Object object, T value) -> ((Owner) object).field = value</code>
+	 * 
+	 * @param cast type the value is cast to (<code>null</code> if none)
+	 */
+	private static void writeSetter(LiClassWriter writer, String method, String valueDescriptor, 
+			String owner, String name, String descriptor, int load, int size, String cast) {
+		LiClassWriter.Method setter = writer.method(method, "(L"+OBJECT+";"+valueDescriptor+")V", 1 + size, 2 + size)
+		.local(LiClassWriter.ALOAD, 1)
+		.type(LiClassWriter.CHECKCAST, owner)
+		.local(load, 2);
+		if(cast != null) { setter.type(LiClassWriter.CHECKCAST, cast); }
+		setter.field(LiClassWriter.PUTFIELD, owner, name, descriptor)
+		.op(LiClassWriter.RETURN);
+	}
+
+
+	private static String internalName(Class<?> type) {
+		return type.getName().replace('.', '/');
+	}
+
+
+	private static String descriptor(Class<?> type) {
+		if(type == boolean.class) { return "Z"; }
+		else if(type == byte.class) { return "B"; }
+		else if(type == short.class) { return "S"; }
+		else if(type == char.class) { return "C"; }
+		else if(type == int.class) { return "I"; }
+		else if(type == long.class) { return "J"; }
+		else if(type == float.class) { return "F"; }
+		else if(type == double.class) { return "D"; }
+		else if(type.isArray()) { return "["+descriptor(type.getComponentType()); }
+		else { return "L"+internalName(type)+";"; }
+	}
+
+
+	/**
+	 * @return true if <code>type</code> can be resolved and accessed by a class
+	 * generated in this package
+	 */
+	private static boolean isAccessible(Class<?> type) {
+		while(type.isArray()) { type = type.getComponentType(); }
+		if(type.isPrimitive()) { return true; }
+		if(!Modifier.isPublic(type.getModifiers()) || type.isHidden()
+				|| !type.getModule().isExported(type.getPackageName(), FieldLiHandler.class.getModule())) { return false; }
+		try {
+			return Class.forName(type.getName(), false, FieldLiHandler.class.getClassLoader()) == type;
+		}
+		catch(ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
 	private Field field;
 
 	/**
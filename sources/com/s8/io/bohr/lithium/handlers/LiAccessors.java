@@ -0,0 +1,129 @@
+package com.s8.io.bohr.lithium.handlers;
+
+
+/**
+ * <p>
+ * Accessor interfaces with exact signatures, implemented by
+ * <code>LambdaMetafactory</code>-generated classes (see
+ * <code>MethodHandleLiHandler</code>): no boxing, no argument array.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ * 
+ */
+public interface LiAccessors {
+
+
+	@FunctionalInterface
+	public interface ByteGetter {
+
+		public byte get(Object object);
+	}
+
+
+	@FunctionalInterface
+	public interface ByteSetter {
+
+		public void set(Object object, byte value);
+	}
+
+
+	@FunctionalInterface
+	public interface BooleanGetter {
+
+		public boolean get(Object object);
+	}
+
+
+	@FunctionalInterface
+	public interface BooleanSetter {
+
+		public void set(Object object, boolean value);
+	}
+
+
+	@FunctionalInterface
+	public interface DoubleGetter {
+
+		public double get(Object object);
+	}
+
+
+	@FunctionalInterface
+	public interface DoubleSetter {
+
+		public void set(Object object, double value);
+	}
+
+
+	@FunctionalInterface
+	public interface FloatGetter {
+
+		public float get(Object object);
+	}
+
+
+	@FunctionalInterface
+	public interface FloatSetter {
+
+		public void set(Object object, float value);
+	}
+
+
+	@FunctionalInterface
+	public interface ShortGetter {
+
+		public short get(Object object);
+	}
+
+
+	@FunctionalInterface
+	public interface ShortSetter {
+
+		public void set(Object object, short value);
+	}
+
+
+	@FunctionalInterface
+	public interface IntGetter {
+
+		public int get(Object object);
+	}
+
+
+	@FunctionalInterface
+	public interface IntSetter {
+
+		public void set(Object object, int value);
+	}
+
+
+	@FunctionalInterface
+	public interface LongGetter {
+
+		public long get(Object object);
+	}
+
+
+	@FunctionalInterface
+	public interface LongSetter {
+
+		public void set(Object object, long value);
+	}
+
+
+	@FunctionalInterface
+	public interface ObjectGetter {
+
+		public Object get(Object object);
+	}
+
+
+	@FunctionalInterface
+	public interface ObjectSetter {
+
+		public void set(Object object, Object value);
+	}
+
+}
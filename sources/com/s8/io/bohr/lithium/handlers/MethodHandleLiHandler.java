@@ -0,0 +1,361 @@
+package com.s8.io.bohr.lithium.handlers;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+import com.s8.io.bohr.lithium.exceptions.LiBuildException;
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+
+
+/**
+ * <p>
+ * Getter/setter handler invoking methods through accessors generated by
+ * <code>LambdaMetafactory</code> from their method handles (see
+ * <code>LiAccessors</code>): accessors matching the getter return type (resp.
+ * setter parameter type) have the exact primitive signature, and are invoked
+ * as a plain interface call, without boxing nor argument array. Other
+ * accessors (and methods that cannot be accessed from this module) go through
+ * <code>MethodLiHandler</code> reflective invocation.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ * 
+ */
+public class MethodHandleLiHandler extends MethodLiHandler {
+
+
+	private LiAccessors.ObjectGetter getter;
+
+	private LiAccessors.ObjectSetter setter;
+
+	/**
+	 * Primitive return type of getter (<code>null</code> if not primitive)
+	 */
+	private Class<?> getType;
+
+	/**
+	 * Primitive parameter type of setter (<code>null</code> if not primitive)
+	 */
+	private Class<?> setType;
+
+	/**
+	 * <code>LiAccessors</code> getter matching <code>getType</code>
+	 */
+	private Object primitiveGetter;
+
+	/**
+	 * <code>LiAccessors</code> setter matching <code>setType</code>
+	 */
+	private Object primitiveSetter;
+
+
+
+	public MethodHandleLiHandler() {
+		super();
+	}
+
+
+	@Override
+	public void attachGetMethod(Method method) throws LiBuildException {
+		super.attachGetMethod(method);
+		try {
+			getter = (LiAccessors.ObjectGetter) generate(method, LiAccessors.ObjectGetter.class, "get",
+					MethodType.methodType(Object.class, Object.class), true);
+
+			Class<?> returnType = method.getReturnType();
+			if(returnType.isPrimitive() && returnType != void.class) {
+				primitiveGetter = generate(method, getGetterAccessorType(returnType), "get",
+						MethodType.methodType(returnType, Object.class), false);
+				getType = returnType;
+			}
+		}
+		catch(Throwable e) {
+			/* fall back to reflective invocation */
+			getter = null;
+			getType = null;
+		}
+	}
+
+
+	@Override
+	public void attachSetMethod(Method method) throws LiBuildException {
+		super.attachSetMethod(method);
+		try {
+			setter = (LiAccessors.ObjectSetter) generate(method, LiAccessors.ObjectSetter.class, "set",
+					MethodType.methodType(void.class, Object.class, Object.class), true);
+
+			Class<?> parameterType = method.getParameterTypes()[0];
+			if(parameterType.isPrimitive()) {
+				primitiveSetter = generate(method, getSetterAccessorType(parameterType), "set",
+						MethodType.methodType(void.class, Object.class, parameterType), false);
+				setType = parameterType;
+			}
+		}
+		catch(Throwable e) {
+			/* fall back to reflective invocation */
+			setter = null;
+			setType = null;
+		}
+	}
+
+
+	/**
+	 * 
+	 * @param method
+	 * @param accessorType the <code>LiAccessors</code> interface to be implemented
+	 * @param name name of accessor method
+	 * @param accessorMethodType signature of accessor method
+	 * @param isBoxing whether primitive values are boxed (generic accessors)
+	 * @return an instance of <code>accessorType</code> invoking <code>method</code>
+	 * @throws Throwable
+	 */
+	private static Object generate(Method method, Class<?> accessorType, String name, 
+			MethodType accessorMethodType, boolean isBoxing) throws Throwable {
+		MethodHandleLiHandler.class.getModule().addReads(method.getDeclaringClass().getModule());
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodHandle target = lookup.unreflect(method);
+		MethodType instantiatedType = isBoxing ? target.type().wrap() : target.type();
+		CallSite site = LambdaMetafactory.metafactory(lookup, name, 
+				MethodType.methodType(accessorType), accessorMethodType, target, instantiatedType);
+		return site.getTarget().invoke();
+	}
+
+
+	private static Class<?> getGetterAccessorType(Class<?> primitive) {
+		switch(primitive.getName()) {
+		case "byte": return LiAccessors.ByteGetter.class;
+		case "boolean": return LiAccessors.BooleanGetter.class;
+		case "double": return LiAccessors.DoubleGetter.class;
+		case "float": return LiAccessors.FloatGetter.class;
+		case "short": return LiAccessors.ShortGetter.class;
+		case "int": return LiAccessors.IntGetter.class;
+		case "long": return LiAccessors.LongGetter.class;
+		default: throw new IllegalArgumentException("Unsupported primitive type: "+primitive);
+		}
+	}
+
+
+	private static Class<?> getSetterAccessorType(Class<?> primitive) {
+		switch(primitive.getName()) {
+		case "byte": return LiAccessors.ByteSetter.class;
+		case "boolean": return LiAccessors.BooleanSetter.class;
+		case "double": return LiAccessors.DoubleSetter.class;
+		case "float": return LiAccessors.FloatSetter.class;
+		case "short": return LiAccessors.ShortSetter.class;
+		case "int": return LiAccessors.IntSetter.class;
+		case "long": return LiAccessors.LongSetter.class;
+		default: throw new IllegalArgumentException("Unsupported primitive type: "+primitive);
+		}
+	}
+
+
+
+	@Override
+	public Object get(Object object) throws LiIOException {
+		if(getter == null) { return super.get(object); }
+		try {
+			return getter.get(object);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke getter", getMethod, cause);
+		}
+	}
+
+
+	@Override
+	public void set(Object object, Object value) throws LiIOException {
+		if(setter == null) { super.set(object, value); return; }
+		try {
+			setter.set(object, value);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke setter", setMethod, cause);
+		}
+	}
+
+
+	@Override
+	public void setByte(Object object, byte value) throws LiIOException {
+		if(setType != byte.class) { super.setByte(object, value); return; }
+		try {
+			((LiAccessors.ByteSetter) primitiveSetter).set(object, value);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke byte setter", setMethod, cause);
+		}
+	}
+
+
+	@Override
+	public byte getByte(Object object) throws LiIOException {
+		if(getType != byte.class) { return super.getByte(object); }
+		try {
+			return ((LiAccessors.ByteGetter) primitiveGetter).get(object);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke byte getter", getMethod, cause);
+		}
+	}
+
+
+	@Override
+	public void setBoolean(Object object, boolean value) throws LiIOException {
+		if(setType != boolean.class) { super.setBoolean(object, value); return; }
+		try {
+			((LiAccessors.BooleanSetter) primitiveSetter).set(object, value);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke boolean setter", setMethod, cause);
+		}
+	}
+
+
+	@Override
+	public boolean getBoolean(Object object) throws LiIOException {
+		if(getType != boolean.class) { return super.getBoolean(object); }
+		try {
+			return ((LiAccessors.BooleanGetter) primitiveGetter).get(object);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke boolean getter", getMethod, cause);
+		}
+	}
+
+
+	@Override
+	public void setDouble(Object object, double value) throws LiIOException {
+		if(setType != double.class) { super.setDouble(object, value); return; }
+		try {
+			((LiAccessors.DoubleSetter) primitiveSetter).set(object, value);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke double setter", setMethod, cause);
+		}
+	}
+
+
+	@Override
+	public double getDouble(Object object) throws LiIOException {
+		if(getType != double.class) { return super.getDouble(object); }
+		try {
+			return ((LiAccessors.DoubleGetter) primitiveGetter).get(object);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke double getter", getMethod, cause);
+		}
+	}
+
+
+	@Override
+	public void setFloat(Object object, float value) throws LiIOException {
+		if(setType != float.class) { super.setFloat(object, value); return; }
+		try {
+			((LiAccessors.FloatSetter) primitiveSetter).set(object, value);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke float setter", setMethod, cause);
+		}
+	}
+
+
+	@Override
+	public float getFloat(Object object) throws LiIOException {
+		if(getType != float.class) { return super.getFloat(object); }
+		try {
+			return ((LiAccessors.FloatGetter) primitiveGetter).get(object);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke float getter", getMethod, cause);
+		}
+	}
+
+
+	@Override
+	public void setShort(Object object, short value) throws LiIOException {
+		if(setType != short.class) { super.setShort(object, value); return; }
+		try {
+			((LiAccessors.ShortSetter) primitiveSetter).set(object, value);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke short setter", setMethod, cause);
+		}
+	}
+
+
+	@Override
+	public short getShort(Object object) throws LiIOException {
+		if(getType != short.class) { return super.getShort(object); }
+		try {
+			return ((LiAccessors.ShortGetter) primitiveGetter).get(object);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke short getter", getMethod, cause);
+		}
+	}
+
+
+	@Override
+	public void setInteger(Object object, int value) throws LiIOException {
+		if(setType != int.class) { super.setInteger(object, value); return; }
+		try {
+			((LiAccessors.IntSetter) primitiveSetter).set(object, value);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke int setter", setMethod, cause);
+		}
+	}
+
+
+	@Override
+	public int getInteger(Object object) throws LiIOException {
+		if(getType != int.class) { return super.getInteger(object); }
+		try {
+			return ((LiAccessors.IntGetter) primitiveGetter).get(object);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke int getter", getMethod, cause);
+		}
+	}
+
+
+	@Override
+	public void setLong(Object object, long value) throws LiIOException {
+		if(setType != long.class) { super.setLong(object, value); return; }
+		try {
+			((LiAccessors.LongSetter) primitiveSetter).set(object, value);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke long setter", setMethod, cause);
+		}
+	}
+
+
+	@Override
+	public long getLong(Object object) throws LiIOException {
+		if(getType != long.class) { return super.getLong(object); }
+		try {
+			return ((LiAccessors.LongGetter) primitiveGetter).get(object);
+		}
+		catch(Exception cause) {
+			throw new LiIOException("failed to invoke long getter", getMethod, cause);
+		}
+	}
+
+
+	@Override
+	public void setString(Object object, String value) throws LiIOException {
+		set(object, value);
+	}
+
+
+	@Override
+	public String getString(Object object) throws LiIOException {
+		return (String) get(object);
+	}
+
+}
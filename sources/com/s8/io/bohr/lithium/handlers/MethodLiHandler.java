@@ -41,14 +41,14 @@ public class MethodLiHandler implements LiHandler {
 	
 	
 	public static MethodLiHandler initWithGetter(Method method) throws LiBuildException {
-		MethodLiHandler handler = new MethodLiHandler();
+		MethodLiHandler handler = new MethodHandleLiHandler();
 		handler.attachGetMethod(method);
 		return handler;
 	}
 	
 	
 	public static MethodLiHandler initWithSetter(Method method) throws LiBuildException {
-		MethodLiHandler handler = new MethodLiHandler();
+		MethodLiHandler handler = new MethodHandleLiHandler();
 		handler.attachSetMethod(method);
 		return handler;
 	}
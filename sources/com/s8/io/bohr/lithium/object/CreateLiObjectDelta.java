@@ -42,17 +42,50 @@ public class CreateLiObjectDelta extends LiObjectDelta {
 
 	@Override
 	public void serialize(LiOutbound outbound, ByteOutflow outflow) throws IOException {
+		serialize(outbound, outflow, declare(outbound));
+	}
+
+
+	@Override
+	public long[] declare(LiOutbound outbound) throws IOException {
+		LiTypeComposer composer = outbound.getComposer(type.getRuntimeName());
+		int n = deltas.size();
+		long[] declarations = new long[(n + 64) >>> 6];
+		if(composer.claimTypeDeclaration()) { declarations[0] |= 1L; }
+		for(int i = 0; i < n; i++) {
+			int ordinal = deltas.get(i).getField().ordinal;
+			if(composer.fieldComposers[ordinal].claimDeclaration()) { declarations[(i + 1) >>> 6] |= 1L << (i + 1); }
+		}
+		return declarations;
+	}
+
+
+	@Override
+	public void claim(LiOutbound outbound, int partition) throws IOException {
+		LiTypeComposer composer = outbound.getComposer(type.getRuntimeName());
+		int n = deltas.size();
+		for(int i = 0; i < n; i++) {
+			LiFieldDelta delta = deltas.get(i);
+			composer.fieldComposers[delta.getField().ordinal].claim(delta, partition);
+		}
+	}
+
+
+	@Override
+	public void serialize(LiOutbound outbound, ByteOutflow outflow, long[] declarations) throws IOException {
 
 		LiTypeComposer composer = outbound.getComposer(type.getRuntimeName());
 		
 		/*  advertise diff type: publish a create node */
-		composer.publish_CREATE_NODE(outflow, id);
+		composer.publish_CREATE_NODE(outflow, id, (declarations[0] & 1L) != 0);
 
 		/* serialize field deltas */
 		// produce all diffs
-		for(LiFieldDelta delta : deltas) {
+		int n = deltas.size();
+		for(int i = 0; i < n; i++) {
+			LiFieldDelta delta = deltas.get(i);
 			int ordinal = delta.getField().ordinal;
-			composer.fieldComposers[ordinal].compose(delta, outflow);
+			composer.fieldComposers[ordinal].compose(delta, outflow, (declarations[(i + 1) >>> 6] & (1L << (i + 1))) != 0);
 		}
 
 		/* Close node */
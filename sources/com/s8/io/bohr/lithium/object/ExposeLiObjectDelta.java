@@ -35,7 +35,7 @@ public class ExposeLiObjectDelta extends LiObjectDelta {
 		outflow.putUInt8(BOHR_Keywords.EXPOSE_NODE);
 
 		/* define index */
-		outflow.putStringUTF8(id);
+		outbound.composeId(outflow, id);
 
 		/* define slot */
 		outflow.putUInt8(slot);
@@ -0,0 +1,57 @@
+package com.s8.io.bohr.lithium.object;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * <p>
+ * Marks a <code>static final int</code> constant of an object type as the
+ * ordinal of field <code>name</code>, to be passed to
+ * <code>LiObject.reportFieldUpdate(int)</code> (change is then reported with no
+ * field lookup). Constants are checked against the built <code>LiType</code>
+ * (and the types of all subclasses) when the codebase is built: a mismatch
+ * fails the build.
+ * </p>
+ * <p>
+ * Ordinals are assigned level by level, starting from the root object type,
+ * and by ascending field name within a level: ordinals of the fields declared
+ * by a type are therefore also valid for all its sub types. For instance:
+ * </p>
+ *
+ * <pre>
+ * &#64;S8ObjectType(name = "point")
+ * public class Point extends LiObject {
+ *
+ * 	public &#64;LiFieldOrdinal(name = "x") static final int X = 0;
+ * 	public &#64;LiFieldOrdinal(name = "y") static final int Y = 1;
+ *
+ * 	public &#64;S8Field(name = "x") double x;
+ * 	public &#64;S8Field(name = "y") double y;
+ *
+ * 	public void setX(double x) throws LiIOException {
+ * 		this.x = x;
+ * 		reportFieldUpdate(X);
+ * 	}
+ * }
+ * </pre>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface LiFieldOrdinal {
+
+
+	/**
+	 *
+	 * @return the name of the field (as declared by <code>S8Field</code>,
+	 * <code>S8Getter</code> or <code>S8Setter</code>)
+	 */
+	public String name();
+
+}
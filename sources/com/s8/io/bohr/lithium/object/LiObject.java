@@ -86,4 +86,20 @@ public class LiObject {
 		if(S8_vertex!=null) { for(String fieldName : fieldNames) { S8_vertex.reportChange(fieldName); } }
 	}
 	
+	
+	/**
+	 * Fast path (no field lookup). See <code>LiFieldOrdinal</code>.
+	 * 
+	 * @param ordinal
+	 * @throws LiIOException 
+	 */
+	public void reportFieldUpdate(int ordinal) throws LiIOException {
+		if(S8_vertex!=null) { S8_vertex.reportChange(ordinal); }
+	}
+	
+	
+	public void reportFieldUpdates(int... ordinals) throws LiIOException {
+		if(S8_vertex!=null) { for(int ordinal : ordinals) { S8_vertex.reportChange(ordinal); } }
+	}
+	
 }
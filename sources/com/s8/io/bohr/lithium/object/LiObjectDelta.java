@@ -46,5 +46,49 @@ public abstract class LiObjectDelta {
 	 */
 	public abstract void serialize(LiOutbound outbound, ByteOutflow outflow) throws IOException;
 
+
+
+	/**
+	 * Claim (on <code>outbound</code>) the type / field declarations to be carried
+	 * by this delta. Declarations are stateful, so to be called sequentially, in
+	 * stream order. 
+	 * 
+	 * @param outbound
+	 * @return the claimed declarations, as a bitset (0: type, 1 + i: field of i-th 
+	 * field delta), or <code>null</code> if none
+	 * @throws IOException
+	 */
+	public long[] declare(LiOutbound outbound) throws IOException {
+		return null;
+	}
+
+
+	/**
+	 * Claim (on <code>outbound</code> session) the state to be written by this 
+	 * delta when encoded in <code>partition</code> (see 
+	 * <code>LiFieldComposer.claim</code>). To be called sequentially, in stream 
+	 * order, after <code>declare</code>.
+	 * 
+	 * @param outbound
+	 * @param partition
+	 * @throws IOException
+	 */
+	public void claim(LiOutbound outbound, int partition) throws IOException {
+	}
+
+
+	/**
+	 * Stateless serialization (declarations being claimed beforehand with
+	 * <code>declare</code>), so can be run concurrently.
+	 * 
+	 * @param outbound
+	 * @param outflow
+	 * @param declarations
+	 * @throws IOException
+	 */
+	public void serialize(LiOutbound outbound, ByteOutflow outflow, long[] declarations) throws IOException {
+		serialize(outbound, outflow);
+	}
+
 	
 }
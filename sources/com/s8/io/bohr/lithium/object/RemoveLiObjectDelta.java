@@ -24,7 +24,9 @@ public class RemoveLiObjectDelta extends LiObjectDelta {
 
 	@Override
 	public void operate(LiGraph graph, BuildScope scope) throws LiIOException {
-		// TODO
+		
+		/* release vertex (object itself is simply dropped) */
+		graph.removeVertex(id);
 	}
 
 	@Override
@@ -34,7 +36,7 @@ public class RemoveLiObjectDelta extends LiObjectDelta {
 		outflow.putUInt8(BOHR_Keywords.REMOVE_NODE);
 
 		/* define index */
-		outflow.putStringUTF8(id);
+		outbound.composeId(outflow, id);
 	}
 	
 }
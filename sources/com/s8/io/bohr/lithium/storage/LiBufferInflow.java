@@ -0,0 +1,182 @@
+package com.s8.io.bohr.lithium.storage;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bytes.alpha.ByteInflow;
+
+
+/**
+ * <p>
+ * Inflow reading from a <code>ByteBuffer</code> (heap, direct or memory-mapped)
+ * the encoding written by <code>LiBufferOutflow</code>. Reads start at the
+ * current position of the buffer, and move it.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiBufferInflow implements ByteInflow {
+
+
+	private final ByteBuffer buffer;
+
+
+	/**
+	 *
+	 * @param buffer (read from its current position, with big-endian order)
+	 */
+	public LiBufferInflow(ByteBuffer buffer) {
+		super();
+		this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+	}
+
+
+	/**
+	 *
+	 * @return the underlying buffer
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+
+	private void require(int n) throws LiIOException {
+		if(buffer.remaining() < n) {
+			throw new LiIOException("Unexpected end of buffer at "+buffer.position()+" ("+n+" bytes required)");
+		}
+	}
+
+
+	@Override
+	public boolean matches(byte[] sequence) throws IOException {
+		int n = sequence.length;
+		require(n);
+		boolean isMatching = true;
+		for(int i = 0; i < n; i++) {
+			if(buffer.get() != sequence[i]) { isMatching = false; }
+		}
+		return isMatching;
+	}
+
+
+	@Override
+	public int getUInt8() throws IOException {
+		require(1);
+		return buffer.get() & 0xff;
+	}
+
+
+	@Override
+	public int getUInt16() throws IOException {
+		require(2);
+		return buffer.getShort() & 0xffff;
+	}
+
+
+	@Override
+	public int getUInt32() throws IOException {
+		require(4);
+		return buffer.getInt();
+	}
+
+
+	@Override
+	public long getUInt64() throws IOException {
+		require(8);
+		return buffer.getLong();
+	}
+
+
+	@Override
+	public long getUInt7x() throws IOException {
+		try {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			while((b = buffer.get()) < 0) {
+				value |= (long) (b & 0x7f) << shift;
+				shift += 7;
+				if(shift > 63) { throw new LiIOException("Malformed varint at "+buffer.position()); }
+			}
+			return value | ((long) b << shift);
+		}
+		catch(BufferUnderflowException e) {
+			throw new LiIOException("Unexpected end of buffer (in varint) at "+buffer.position());
+		}
+	}
+
+
+	@Override
+	public byte getInt8() throws IOException {
+		require(1);
+		return buffer.get();
+	}
+
+
+	@Override
+	public short getInt16() throws IOException {
+		require(2);
+		return buffer.getShort();
+	}
+
+
+	@Override
+	public int getInt32() throws IOException {
+		require(4);
+		return buffer.getInt();
+	}
+
+
+	@Override
+	public long getInt64() throws IOException {
+		require(8);
+		return buffer.getLong();
+	}
+
+
+	@Override
+	public float getFloat32() throws IOException {
+		require(4);
+		return buffer.getFloat();
+	}
+
+
+	@Override
+	public double getFloat64() throws IOException {
+		require(8);
+		return buffer.getDouble();
+	}
+
+
+	@Override
+	public boolean getBool8() throws IOException {
+		return getUInt8() != 0;
+	}
+
+
+	@Override
+	public String getStringUTF8() throws IOException {
+		long header = getUInt7x();
+		if(header == 0) { return null; }
+		int n = (int) (header - 1);
+		require(n);
+		if(buffer.hasArray()) {
+			int position = buffer.position();
+			String value = new String(buffer.array(), buffer.arrayOffset() + position, n, StandardCharsets.UTF_8);
+			buffer.position(position + n);
+			return value;
+		}
+		else {
+			byte[] encoded = new byte[n];
+			buffer.get(encoded);
+			return new String(encoded, StandardCharsets.UTF_8);
+		}
+	}
+
+}
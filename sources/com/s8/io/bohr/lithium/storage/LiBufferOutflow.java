@@ -0,0 +1,223 @@
+package com.s8.io.bohr.lithium.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * <p>
+ * Outflow writing into a growable byte array, with the encoding read back by
+ * <code>LiBufferInflow</code>: fixed-size values are big-endian,
+ * <code>UInt7x</code> values are 64-bit varints (7 bits per byte, lowest first),
+ * strings are prefixed by their UTF-8 length + 1 (0 standing for
+ * <code>null</code>), byte arrays are written raw.
+ * </p>
+ * <p>
+ * Used to encode frames for storage (journal segments, snapshot files).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiBufferOutflow implements LiRawOutflow {
+
+
+	private byte[] bytes;
+
+	private int length;
+
+
+
+	public LiBufferOutflow() {
+		this(1024);
+	}
+
+
+	/**
+	 *
+	 * @param capacity initial capacity (in bytes)
+	 */
+	public LiBufferOutflow(int capacity) {
+		super();
+		this.bytes = new byte[Math.max(16, capacity)];
+	}
+
+
+
+	private void ensure(int n) {
+		if(length + n > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, length + n));
+		}
+	}
+
+
+	/**
+	 *
+	 * @return number of bytes written so far
+	 */
+	public int getLength() {
+		return length;
+	}
+
+
+	/**
+	 *
+	 * @return a copy of the bytes written so far
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(bytes, length);
+	}
+
+
+	/**
+	 *
+	 * @return a read-only view on the bytes written so far (no copy)
+	 */
+	public ByteBuffer asByteBuffer() {
+		return ByteBuffer.wrap(bytes, 0, length).asReadOnlyBuffer();
+	}
+
+
+	/**
+	 * 
+	 * @return the backing array (valid up to <code>getLength()</code>, replaced as buffer grows)
+	 */
+	public byte[] array() {
+		return bytes;
+	}
+
+
+	/**
+	 * 
+	 * @param array
+	 * @param offset
+	 * @param n number of bytes to be copied from <code>array</code>
+	 */
+	void putBytes(byte[] array, int offset, int n) {
+		ensure(n);
+		System.arraycopy(array, offset, bytes, length, n);
+		length += n;
+	}
+
+
+	/**
+	 * Discard content (capacity is kept)
+	 */
+	public void clear() {
+		length = 0;
+	}
+
+
+
+	@Override
+	public void putByteArray(byte[] array) {
+		putBytes(array, 0, array.length);
+	}
+
+
+	@Override
+	public void putByteArray(byte[] array, int offset, int n) {
+		putBytes(array, offset, n);
+	}
+
+
+	@Override
+	public void putUInt8(int value) {
+		ensure(1);
+		bytes[length++] = (byte) value;
+	}
+
+
+	@Override
+	public void putUInt16(int value) {
+		ensure(2);
+		bytes[length++] = (byte) (value >> 8);
+		bytes[length++] = (byte) value;
+	}
+
+
+	@Override
+	public void putUInt32(long value) {
+		putInt32((int) value);
+	}
+
+
+	@Override
+	public void putUInt64(long value) {
+		putInt64(value);
+	}
+
+
+	@Override
+	public void putUInt7x(long value) {
+		ensure(10);
+		while((value & ~0x7fL) != 0) {
+			bytes[length++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		bytes[length++] = (byte) value;
+	}
+
+
+	@Override
+	public void putInt8(byte value) {
+		putUInt8(value);
+	}
+
+
+	@Override
+	public void putInt16(short value) {
+		putUInt16(value);
+	}
+
+
+	@Override
+	public void putInt32(int value) {
+		ensure(4);
+		bytes[length++] = (byte) (value >> 24);
+		bytes[length++] = (byte) (value >> 16);
+		bytes[length++] = (byte) (value >> 8);
+		bytes[length++] = (byte) value;
+	}
+
+
+	@Override
+	public void putInt64(long value) {
+		ensure(8);
+		for(int shift = 56; shift >= 0; shift -= 8) { bytes[length++] = (byte) (value >> shift); }
+	}
+
+
+	@Override
+	public void putFloat32(float value) {
+		putInt32(Float.floatToRawIntBits(value));
+	}
+
+
+	@Override
+	public void putFloat64(double value) {
+		putInt64(Double.doubleToRawLongBits(value));
+	}
+
+
+	@Override
+	public void putBool8(boolean value) {
+		putUInt8(value ? 1 : 0);
+	}
+
+
+	@Override
+	public void putStringUTF8(String value) {
+		if(value == null) {
+			putUInt7x(0);
+		}
+		else {
+			byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+			putUInt7x(encoded.length + 1);
+			putByteArray(encoded);
+		}
+	}
+
+}
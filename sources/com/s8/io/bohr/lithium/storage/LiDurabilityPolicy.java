@@ -0,0 +1,58 @@
+package com.s8.io.bohr.lithium.storage;
+
+
+/**
+ * <p>
+ * Decides when records appended to a <code>LiJournal</code> are forced to
+ * storage (fsync).
+ * </p>
+ * <ul>
+ * <li><code>SYNC</code>: each append returns once durable.</li>
+ * <li><code>group(delay)</code>: appends return immediately, records are forced
+ * in batches (at most <code>delay</code> ms after being appended). Callers
+ * needing durability wait for it with <code>LiJournal.awaitDurable</code>:
+ * concurrent waiters share a single fsync.</li>
+ * <li><code>NONE</code>: records are only forced when segments are rolled, on
+ * <code>LiJournal.sync()</code> and on close.</li>
+ * </ul>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public final class LiDurabilityPolicy {
+
+
+	enum Mode { SYNC, GROUP, NONE }
+
+
+	public final static LiDurabilityPolicy SYNC = new LiDurabilityPolicy(Mode.SYNC, 0);
+
+
+	public final static LiDurabilityPolicy NONE = new LiDurabilityPolicy(Mode.NONE, 0);
+
+
+	/**
+	 * Group commit
+	 *
+	 * @param delay max delay (in milliseconds) between append and fsync
+	 * @return
+	 */
+	public static LiDurabilityPolicy group(long delay) {
+		if(delay <= 0) { throw new IllegalArgumentException("Group commit delay must be positive"); }
+		return new LiDurabilityPolicy(Mode.GROUP, delay);
+	}
+
+
+	final Mode mode;
+
+	final long delay;
+
+
+	private LiDurabilityPolicy(Mode mode, long delay) {
+		super();
+		this.mode = mode;
+		this.delay = delay;
+	}
+
+}
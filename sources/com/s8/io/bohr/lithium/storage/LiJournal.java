@@ -0,0 +1,601 @@
+package com.s8.io.bohr.lithium.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import com.s8.io.bohr.lithium.branches.LiBranch;
+import com.s8.io.bohr.lithium.branches.LiGraphDelta;
+import com.s8.io.bohr.lithium.branches.LiInbound;
+import com.s8.io.bohr.lithium.branches.LiOutbound;
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.exceptions.LiResyncException;
+
+
+/**
+ * <h1>Append-only frame journal of a branch</h1>
+ * <p>
+ * Committed deltas of a <code>LiBranch</code> are appended as frames (see
+ * <code>LiOutbound.pushFrame</code>) to segment files in a directory. Each
+ * segment is a self-contained session (type / field declarations restart with
+ * each segment), so that segments can be replayed (and dropped)
+ * independently. Segments are rolled once they exceed the segment size.
+ * </p>
+ * <p>
+ * Segment layout: magic, then records. Record layout: payload length (int32),
+ * CRC32 of the rest of the record (int32), version reached after the frame
+ * (int64), flags (int8), frame bytes (see <code>LiBufferOutflow</code>).
+ * </p>
+ * <p>
+ * On open, the journal is replayed (through <code>LiInbound.pullFrame</code>)
+ * into the branch, starting from the latest segment whose first record applies
+ * to a blank branch (older segments are superseded, and deleted). A torn
+ * record at the end of the last segment (crash during append) is truncated.
+ * Segments left without any record (crash while rolling, torn first record)
+ * are deleted. New records always go to a new segment.
+ * </p>
+ * <p>
+ * <code>append()</code>, <code>checkpoint()</code> and <code>close()</code> are
+ * to be called by the writer thread of the branch. <code>sync()</code> and
+ * <code>awaitDurable</code> can be called by any thread.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiJournal implements AutoCloseable {
+
+
+	public final static String SEGMENT_EXTENSION = ".lij";
+
+	public final static long DEFAULT_SEGMENT_SIZE = 64L << 20;
+
+	private final static byte[] SEGMENT_MAGIC = new byte[] { 'L', 'i', 'J', 0x01 };
+
+	private final static int RECORD_HEADER_SIZE = 17;
+
+	/**
+	 * Record applies to a blank branch (history starting with a checkpoint, or
+	 * from version 1)
+	 */
+	private final static int BASE_FLAG = 0x01;
+
+
+
+	private final Path directory;
+
+	private final LiBranch branch;
+
+	private final LiDurabilityPolicy policy;
+
+	private long segmentSize = DEFAULT_SEGMENT_SIZE;
+
+	private boolean isCompressing = false;
+
+	private boolean isNumericIds = false;
+
+	private final long recoveredVersion;
+
+
+	/* <append-state> (writer) */
+
+	private long segmentIndex;
+
+	private long segmentLength;
+
+	private LiOutbound outbound;
+
+	private final LiBufferOutflow buffer = new LiBufferOutflow(1 << 16);
+
+	private final CRC32 crc = new CRC32();
+
+	private final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+	/* </append-state> */
+
+
+	/**
+	 * Current segment (<code>null</code> until first append), switched under
+	 * <code>syncLock</code>
+	 */
+	private volatile FileChannel channel;
+
+	private volatile long appendedVersion;
+
+	private volatile long durableVersion;
+
+	private final Object syncLock = new Object();
+
+
+	/**
+	 * Group commit only
+	 */
+	private final Thread flusher;
+
+	private final Object flushMonitor = new Object();
+
+	private volatile IOException failure;
+
+	private volatile boolean isClosed = false;
+
+
+
+	/**
+	 * Replay journal (if any) into <code>branch</code>, then open it for appends.
+	 *
+	 * @param directory
+	 * @param branch (blank, unless journal is empty)
+	 * @param policy
+	 * @return
+	 * @throws IOException
+	 */
+	public static LiJournal open(Path directory, LiBranch branch, LiDurabilityPolicy policy) throws IOException {
+		return new LiJournal(directory, branch, policy);
+	}
+
+
+
+	private LiJournal(Path directory, LiBranch branch, LiDurabilityPolicy policy) throws IOException {
+		super();
+		this.directory = directory;
+		this.branch = branch;
+		this.policy = policy;
+
+		Files.createDirectories(directory);
+		List<Path> segments = listSegments(directory);
+		if(!segments.isEmpty() && branch.getVersion() != 0) {
+			throw new LiIOException("Journal must be replayed into a blank branch: "+branch.id);
+		}
+
+		/* segment names are never reused (even if deleted by recovery) */
+		segmentIndex = segments.isEmpty() ? -1 : getSegmentIndex(segments.get(segments.size() - 1));
+		recoveredVersion = recover(segments);
+		appendedVersion = durableVersion = recoveredVersion;
+
+		if(policy.mode == LiDurabilityPolicy.Mode.GROUP) {
+			flusher = new Thread(this::flush, "lithium-journal-flusher:"+branch.id);
+			flusher.setDaemon(true);
+			flusher.start();
+		}
+		else {
+			flusher = null;
+		}
+	}
+
+
+
+	/**
+	 *
+	 * @return the version of the branch once journal has been replayed (0 if empty)
+	 */
+	public long getRecoveredVersion() {
+		return recoveredVersion;
+	}
+
+
+	/**
+	 *
+	 * @return the version reached by the last appended record
+	 */
+	public long getAppendedVersion() {
+		return appendedVersion;
+	}
+
+
+	/**
+	 *
+	 * @return the version reached by the last record forced to storage
+	 */
+	public long getDurableVersion() {
+		return durableVersion;
+	}
+
+
+	/**
+	 *
+	 * @param size soft limit for segments (in bytes), checked before each append
+	 */
+	public void setSegmentSize(long size) {
+		if(size <= 0) { throw new IllegalArgumentException("Segment size must be positive"); }
+		this.segmentSize = size;
+	}
+
+
+	/**
+	 * Compress records appended from now on (see <code>LiOutbound.setCompressing</code>).
+	 * Recovery reads both forms.
+	 *
+	 * @param isCompressing
+	 */
+	public void setCompressing(boolean isCompressing) {
+		this.isCompressing = isCompressing;
+		if(outbound != null) { outbound.setCompressing(isCompressing); }
+	}
+
+
+	/**
+	 * Write vertex ids in numeric form in records appended from now on (see
+	 * <code>LiOutbound.setNumericIds</code>). Recovery reads both forms.
+	 *
+	 * @param isNumericIds
+	 */
+	public void setNumericIds(boolean isNumericIds) {
+		this.isNumericIds = isNumericIds;
+		if(outbound != null) { outbound.setNumericIds(isNumericIds); }
+	}
+
+
+
+	/* <recovery> */
+
+	private static List<Path> listSegments(Path directory) throws IOException {
+		List<Path> segments = new ArrayList<>();
+		try(Stream<Path> paths = Files.list(directory)) {
+			paths.filter(path -> path.getFileName().toString().endsWith(SEGMENT_EXTENSION)).forEach(segments::add);
+		}
+		segments.sort((a, b) -> Long.compare(getSegmentIndex(a), getSegmentIndex(b)));
+		return segments;
+	}
+
+
+	private static long getSegmentIndex(Path path) {
+		String name = path.getFileName().toString();
+		return Long.parseLong(name.substring(0, name.length() - SEGMENT_EXTENSION.length()));
+	}
+
+
+	private Path getSegmentPath(long index) {
+		return directory.resolve(String.format("%020d", index) + SEGMENT_EXTENSION);
+	}
+
+
+	private long recover(List<Path> segments) throws IOException {
+		int n = segments.size();
+		if(n == 0) { return 0; }
+
+		/* latest base segment supersedes all older ones */
+		int start = 0;
+		for(int i = n - 1; i > 0; i--) {
+			if(isBase(segments.get(i))) { start = i; break; }
+		}
+		for(int i = 0; i < start; i++) { Files.delete(segments.get(i)); }
+		segments.subList(0, start).clear();
+
+		boolean isDeleting = start > 0;
+		n = segments.size();
+		for(int i = 0; i < n; i++) {
+			Path segment = segments.get(i);
+			if(!replay(segment, i == n - 1)) {
+				Files.delete(segment);
+				isDeleting = true;
+			}
+		}
+		if(isDeleting) { forceDirectory(directory); }
+
+		/* recovered branch is written to */
+		branch.adoptReceived();
+		return branch.getVersion();
+	}
+
+
+	/**
+	 * @return true if the first record of the segment is complete and applies to a blank branch
+	 * @throws IOException
+	 */
+	private boolean isBase(Path segment) throws IOException {
+		try(FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+			ByteBuffer record = readRecord(channel, SEGMENT_MAGIC.length, channel.size());
+			return record != null && (record.get(12) & BASE_FLAG) != 0;
+		}
+	}
+
+
+	/**
+	 * @return false if the segment holds no record (to be deleted)
+	 * @throws IOException
+	 */
+	private boolean replay(Path segment, boolean isLast) throws IOException {
+		try(FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long size = channel.size();
+
+			ByteBuffer magic = ByteBuffer.allocate(SEGMENT_MAGIC.length);
+			while(magic.hasRemaining() && channel.read(magic, magic.position()) > 0);
+			magic.flip();
+			if(!ByteBuffer.wrap(SEGMENT_MAGIC, 0, magic.limit()).equals(magic)) {
+				throw new LiIOException("Not a journal segment: "+segment);
+			}
+
+			/* torn while rolling (partial magic), or rolled but never written */
+			if(size <= SEGMENT_MAGIC.length) { return false; }
+
+			LiInbound inbound = new LiInbound(branch.codebase, branch.getGraph());
+			long position = SEGMENT_MAGIC.length;
+			while(position < size) {
+				ByteBuffer record = readRecord(channel, position, size);
+				if(record == null) {
+					if(!isLast) {
+						throw new LiIOException("Corrupted journal segment "+segment+" at position "+position);
+					}
+					/* torn tail */
+					if(position == SEGMENT_MAGIC.length) { return false; }
+					channel.truncate(position);
+					channel.force(true);
+					return true;
+				}
+				long version = record.getLong(4);
+				record.position(RECORD_HEADER_SIZE - 4);
+				inbound.pullFrame(new LiBufferInflow(record.slice()), branch);
+				if(branch.getVersion() != version) {
+					throw new LiIOException("Journal record at "+position+" in "+segment+" should reach version "
+							+version+", reached "+branch.getVersion());
+				}
+				position += 4 + record.capacity();
+			}
+			return true;
+		}
+	}
+
+
+	/**
+	 * Force directory entries (segments created or deleted) to storage, where
+	 * supported by the platform
+	 *
+	 * @param directory
+	 */
+	private static void forceDirectory(Path directory) {
+		try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		}
+		catch(IOException e) {
+			/* directories cannot be opened on some platforms (e.g. Windows) */
+		}
+	}
+
+
+	/**
+	 * @return the record starting at <code>position</code> (from its CRC), or
+	 * <code>null</code> if incomplete or corrupted
+	 * @throws IOException
+	 */
+	private static ByteBuffer readRecord(FileChannel channel, long position, long size) throws IOException {
+		if(size - position < RECORD_HEADER_SIZE) { return null; }
+		ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+		while(lengthBuffer.hasRemaining() && channel.read(lengthBuffer, position + lengthBuffer.position()) > 0);
+		int length = lengthBuffer.getInt(0);
+		if(length < 0 || size - position - RECORD_HEADER_SIZE < length) { return null; }
+
+		/* crc (4), version (8), flags (1), payload */
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE - 4 + length);
+		while(record.hasRemaining() && channel.read(record, position + 4 + record.position()) > 0);
+		if(record.hasRemaining()) { return null; }
+
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), 4, record.capacity() - 4);
+		return (int) crc.getValue() == record.getInt(0) ? record : null;
+	}
+
+	/* </recovery> */
+
+
+
+	/**
+	 * Append deltas of the branch committed since last record, as one record. If
+	 * they are no longer available (history compacted or not retained), a
+	 * checkpoint is written instead.
+	 *
+	 * @return the appended version
+	 * @throws IOException
+	 */
+	public long append() throws IOException {
+		checkOpen();
+		long since = appendedVersion;
+		List<LiGraphDelta> deltas;
+		try {
+			deltas = branch.pullDeltas(since);
+		}
+		catch(LiResyncException e) {
+			checkpoint();
+			return appendedVersion;
+		}
+		if(deltas.isEmpty()) { return since; }
+
+		if(channel == null || segmentLength >= segmentSize) { roll(); }
+		write(deltas, since == 0);
+
+		switch(policy.mode) {
+		case SYNC: sync(); break;
+		case GROUP: synchronized (flushMonitor) { flushMonitor.notifyAll(); } break;
+		case NONE: break;
+		}
+		return appendedVersion;
+	}
+
+
+
+	/**
+	 * Write full state of the branch (<code>pullDeltas(0)</code>) as the first
+	 * record of a new segment, force it, then delete all older segments. If
+	 * history of the branch does not start from a blank graph (e.g. loaded from a
+	 * snapshot file), branch is checkpointed first (see <code>LiBranch.checkpoint()</code>).
+	 *
+	 * @throws IOException
+	 */
+	public void checkpoint() throws IOException {
+		checkOpen();
+		List<LiGraphDelta> deltas;
+		try {
+			deltas = branch.pullDeltas(0);
+		}
+		catch(LiResyncException e) {
+			branch.checkpoint();
+			deltas = branch.pullDeltas(0);
+		}
+		if(deltas.isEmpty()) { return; }
+
+		roll();
+		long index = segmentIndex;
+		write(deltas, true);
+		sync();
+
+		for(Path segment : listSegments(directory)) {
+			if(getSegmentIndex(segment) < index) { Files.delete(segment); }
+		}
+	}
+
+
+
+	private void write(List<LiGraphDelta> deltas, boolean isBase) throws IOException {
+		LiBufferOutflow buffer = this.buffer;
+		buffer.clear();
+		outbound.pushFrame(buffer, deltas);
+		int length = buffer.getLength();
+		long version = deltas.get(deltas.size() - 1).targetVersion;
+
+		ByteBuffer header = this.header;
+		header.clear();
+		header.putInt(length).putInt(0).putLong(version).put((byte) (isBase ? BASE_FLAG : 0));
+
+		CRC32 crc = this.crc;
+		crc.reset();
+		crc.update(header.array(), 8, RECORD_HEADER_SIZE - 8);
+		crc.update(buffer.asByteBuffer());
+		header.putInt(4, (int) crc.getValue());
+		header.flip();
+
+		FileChannel channel = this.channel;
+		ByteBuffer[] sources = new ByteBuffer[] { header, buffer.asByteBuffer() };
+		while(sources[0].hasRemaining() || sources[1].hasRemaining()) { channel.write(sources); }
+
+		segmentLength += RECORD_HEADER_SIZE + length;
+		appendedVersion = version;
+	}
+
+
+
+	/**
+	 * Force current segment (if any), then switch to a new one
+	 */
+	private void roll() throws IOException {
+		synchronized (syncLock) {
+			FileChannel current = channel;
+			if(current != null) {
+				current.force(true);
+				durableVersion = appendedVersion;
+				current.close();
+			}
+
+			long index = segmentIndex + 1;
+			FileChannel next = FileChannel.open(getSegmentPath(index), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+			ByteBuffer magic = ByteBuffer.wrap(SEGMENT_MAGIC);
+			while(magic.hasRemaining()) { next.write(magic); }
+			forceDirectory(directory);
+
+			channel = next;
+			segmentIndex = index;
+			segmentLength = SEGMENT_MAGIC.length;
+			outbound = new LiOutbound(branch.codebase);
+			outbound.setCompressing(isCompressing);
+			outbound.setNumericIds(isNumericIds);
+		}
+	}
+
+
+
+	/**
+	 * Force all appended records to storage. Concurrent callers share a single
+	 * fsync (group commit).
+	 *
+	 * @throws IOException
+	 */
+	public void sync() throws IOException {
+		synchronized (syncLock) {
+			long target = appendedVersion;
+			if(durableVersion >= target) { return; }
+			channel.force(false);
+			durableVersion = target;
+		}
+	}
+
+
+
+	/**
+	 * Block until <code>version</code> is durable.
+	 *
+	 * @param version
+	 * @throws IOException
+	 */
+	public void awaitDurable(long version) throws IOException {
+		IOException failure = this.failure;
+		if(failure != null) { throw new LiIOException("Journal sync failed: "+failure.getMessage()); }
+		if(version > appendedVersion) {
+			throw new LiIOException("Version "+version+" has not been appended (last: "+appendedVersion+")");
+		}
+		if(durableVersion < version) { sync(); }
+	}
+
+
+
+	private void flush() {
+		try {
+			while(!isClosed) {
+				synchronized (flushMonitor) {
+					while(!isClosed && durableVersion >= appendedVersion) { flushMonitor.wait(); }
+				}
+				if(isClosed) { return; }
+
+				/* let the batch grow */
+				Thread.sleep(policy.delay);
+				sync();
+			}
+		}
+		catch (InterruptedException e) {
+			/* closing */
+		}
+		catch (IOException e) {
+			failure = e;
+		}
+	}
+
+
+
+	private void checkOpen() throws IOException {
+		if(isClosed) { throw new LiIOException("Journal has been closed"); }
+		IOException failure = this.failure;
+		if(failure != null) { throw new LiIOException("Journal sync failed: "+failure.getMessage()); }
+	}
+
+
+
+	@Override
+	public void close() throws IOException {
+		if(isClosed) { return; }
+		isClosed = true;
+		if(flusher != null) {
+			synchronized (flushMonitor) { flushMonitor.notifyAll(); }
+			flusher.interrupt();
+			try {
+				flusher.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (syncLock) {
+			FileChannel current = channel;
+			if(current != null) {
+				sync();
+				current.close();
+				channel = null;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,246 @@
+package com.s8.io.bohr.lithium.storage;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+
+
+/**
+ * <p>
+ * LZ77 block codec (LZ4-like sequences), in pure Java. Blocks are compressed
+ * against a sliding window made of the previous blocks of the stream, itself
+ * initially filled with a dictionary (shared by both ends, never transmitted).
+ * </p>
+ * <p>
+ * A compressed block is a list of sequences, each made of:
+ * </p>
+ * <ul>
+ * <li>a token: literals length (high nibble), match length - 4 (low nibble),
+ * each nibble being extended with <code>0xff</code>... bytes when saturated;</li>
+ * <li>the literals;</li>
+ * <li>the match offset (<code>uint16</code>, back from current position) and
+ * length extension, except for the last sequence of the block (literals only).</li>
+ * </ul>
+ * <p>
+ * One codec per stream and direction (see <code>LiLZOutflow</code>,
+ * <code>LiLZInflow</code>). Not thread-safe.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiLZCodec {
+
+
+	/**
+	 * Max match offset, and history kept when sliding window
+	 */
+	public final static int WINDOW_SIZE = 0xffff;
+
+
+	/**
+	 * Nominal (raw) size of blocks
+	 */
+	public final static int BLOCK_SIZE = 1 << 16;
+
+
+	private final static int MIN_MATCH = 4;
+
+	private final static int HASH_LOG = 14;
+
+
+	/**
+	 * History, followed by current block
+	 */
+	byte[] window;
+
+	/**
+	 * Number of valid bytes in <code>window</code>
+	 */
+	int length;
+
+	/**
+	 * Positions (+1) of the last 4-byte sequences, by hash (compression only)
+	 */
+	private int[] table;
+
+
+
+	/**
+	 *
+	 * @param dictionary (only its last <code>WINDOW_SIZE</code> bytes are used)
+	 * @param isCompressing
+	 */
+	public LiLZCodec(byte[] dictionary, boolean isCompressing) {
+		super();
+		int n = Math.min(dictionary.length, WINDOW_SIZE);
+		window = new byte[WINDOW_SIZE + BLOCK_SIZE];
+		System.arraycopy(dictionary, dictionary.length - n, window, 0, n);
+		length = n;
+		if(isCompressing) {
+			table = new int[1 << HASH_LOG];
+			for(int p = 0; p + MIN_MATCH <= n; p++) { table[hash(readInt(window, p))] = p + 1; }
+		}
+	}
+
+
+
+	/**
+	 * Make room for a block of <code>n</code> bytes at the end of window
+	 *
+	 * @param n
+	 * @return start of block in window
+	 */
+	int prepare(int n) {
+		if(length + n > window.length) {
+			int kept = Math.min(length, WINDOW_SIZE);
+			int shift = length - kept;
+			System.arraycopy(window, shift, window, 0, kept);
+			length = kept;
+			if(table != null) {
+				int[] table = this.table;
+				for(int i = 0; i < table.length; i++) { table[i] = Math.max(0, table[i] - shift); }
+			}
+			if(kept + n > window.length) {
+				byte[] extended = new byte[kept + n];
+				System.arraycopy(window, 0, extended, 0, kept);
+				window = extended;
+			}
+		}
+		return length;
+	}
+
+
+
+	/**
+	 * Compress the <code>n</code> bytes appended to window at <code>start</code>
+	 * (see <code>prepare</code>), appending them to history.
+	 *
+	 * @param start
+	 * @param n
+	 * @param out
+	 */
+	void compress(int start, int n, LiBufferOutflow out) {
+		byte[] window = this.window;
+		int[] table = this.table;
+		int end = start + n, limit = end - MIN_MATCH;
+		int anchor = start, p = start;
+		while(p <= limit) {
+			int sequence = readInt(window, p);
+			int h = hash(sequence);
+			int candidate = table[h] - 1;
+			table[h] = p + 1;
+			if(candidate >= 0 && p - candidate <= WINDOW_SIZE && readInt(window, candidate) == sequence) {
+				int matchLength = MIN_MATCH;
+				while(p + matchLength < end && window[candidate + matchLength] == window[p + matchLength]) { matchLength++; }
+				putSequence(out, window, anchor, p - anchor, p - candidate, matchLength);
+				p += matchLength;
+				anchor = p;
+			}
+			else {
+				/* skip faster through incompressible data */
+				p += 1 + ((p - anchor) >>> 6);
+			}
+		}
+
+		/* last sequence: literals only */
+		putSequence(out, window, anchor, end - anchor, 0, 0);
+		length = end;
+	}
+
+
+	private static void putSequence(LiBufferOutflow out, byte[] window, int literals, int nLiterals, int offset, int matchLength) {
+		int extraLength = matchLength - MIN_MATCH;
+		out.putUInt8((Math.min(nLiterals, 15) << 4) | (matchLength > 0 ? Math.min(extraLength, 15) : 0));
+		if(nLiterals >= 15) { putLengthExtension(out, nLiterals - 15); }
+		out.putBytes(window, literals, nLiterals);
+		if(matchLength > 0) {
+			out.putUInt16(offset);
+			if(extraLength >= 15) { putLengthExtension(out, extraLength - 15); }
+		}
+	}
+
+
+	private static void putLengthExtension(LiBufferOutflow out, int value) {
+		while(value >= 0xff) {
+			out.putUInt8(0xff);
+			value -= 0xff;
+		}
+		out.putUInt8(value);
+	}
+
+
+
+	/**
+	 * Decompress block (of <code>n</code> raw bytes) at <code>start</code> in
+	 * window (see <code>prepare</code>), appending it to history.
+	 *
+	 * @param source compressed block
+	 * @param sourceLength
+	 * @param start
+	 * @param n
+	 * @throws LiIOException
+	 */
+	void decompress(byte[] source, int sourceLength, int start, int n) throws LiIOException {
+		byte[] window = this.window;
+		int ip = 0, op = start, end = start + n;
+		try {
+			while(true) {
+				int token = source[ip++] & 0xff;
+
+				/* literals */
+				int nLiterals = token >>> 4;
+				if(nLiterals == 15) {
+					int b;
+					do { nLiterals += (b = source[ip++] & 0xff); } while(b == 0xff);
+				}
+				if(ip + nLiterals > sourceLength || op + nLiterals > end) {
+					throw new LiIOException("Corrupted compressed block (literals overflow)");
+				}
+				System.arraycopy(source, ip, window, op, nLiterals);
+				ip += nLiterals;
+				op += nLiterals;
+				if(op == end) { break; }
+
+				/* match */
+				int offset = ((source[ip++] & 0xff) << 8) | (source[ip++] & 0xff);
+				int matchLength = token & 15;
+				if(matchLength == 15) {
+					int b;
+					do { matchLength += (b = source[ip++] & 0xff); } while(b == 0xff);
+				}
+				matchLength += MIN_MATCH;
+				int from = op - offset;
+				if(offset == 0 || from < 0 || op + matchLength > end) {
+					throw new LiIOException("Corrupted compressed block (match out of bounds)");
+				}
+				if(offset >= matchLength) {
+					System.arraycopy(window, from, window, op, matchLength);
+					op += matchLength;
+				}
+				else {
+					/* overlapping: repeats the last offset bytes */
+					for(int i = 0; i < matchLength; i++) { window[op++] = window[from++]; }
+				}
+			}
+		}
+		catch(ArrayIndexOutOfBoundsException e) {
+			throw new LiIOException("Corrupted compressed block (truncated)");
+		}
+		if(ip != sourceLength) {
+			throw new LiIOException("Corrupted compressed block (trailing bytes)");
+		}
+		length = end;
+	}
+
+
+
+	private static int readInt(byte[] bytes, int i) {
+		return ((bytes[i] & 0xff) << 24) | ((bytes[i + 1] & 0xff) << 16) | ((bytes[i + 2] & 0xff) << 8) | (bytes[i + 3] & 0xff);
+	}
+
+
+	private static int hash(int sequence) {
+		return (sequence * -1640531535) >>> (32 - HASH_LOG);
+	}
+
+}
@@ -0,0 +1,235 @@
+package com.s8.io.bohr.lithium.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bytes.alpha.ByteInflow;
+
+
+/**
+ * <p>
+ * Inflow decompressing a stream written by <code>LiLZOutflow</code> from an
+ * underlying inflow, one block at a time (blocks being decompressed in place,
+ * at the end of the codec window).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiLZInflow implements ByteInflow {
+
+
+	private final ByteInflow source;
+
+	private final LiLZCodec codec;
+
+	/**
+	 * Read position in <code>codec.window</code> (current block ending at <code>codec.length</code>)
+	 */
+	private int position;
+
+	private byte[] compressed = new byte[LiLZCodec.BLOCK_SIZE];
+
+
+
+	/**
+	 *
+	 * @param source
+	 * @param dictionary (must be the one used to write the stream)
+	 */
+	public LiLZInflow(ByteInflow source, byte[] dictionary) {
+		super();
+		this.source = source;
+		this.codec = new LiLZCodec(dictionary, false);
+		this.position = codec.length;
+	}
+
+
+
+	/**
+	 * Check that the compressed stream is entirely consumed, and read its end
+	 * (underlying inflow is then positioned right after it).
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if(position != codec.length || source.getUInt7x() != 0) {
+			throw new LiIOException("Compressed stream has not been entirely consumed");
+		}
+	}
+
+
+	private void nextBlock() throws IOException {
+		int n = (int) source.getUInt7x();
+		if(n <= 0) { throw new LiIOException("Unexpected end of compressed stream"); }
+		int c = (int) source.getUInt7x();
+
+		int start = codec.prepare(n);
+		if(c == 0) {
+			/* stored raw */
+			getBytes(codec.window, start, n);
+			codec.length = start + n;
+		}
+		else {
+			if(c > compressed.length) { compressed = new byte[c]; }
+			getBytes(compressed, 0, c);
+			codec.decompress(compressed, c, start, n);
+		}
+		position = start;
+	}
+
+
+	/**
+	 * See <code>LiLZOutflow.putBytes</code>
+	 */
+	private void getBytes(byte[] bytes, int offset, int n) throws IOException {
+		int i = offset, end = offset + n, wordsEnd = offset + (n & ~7);
+		while(i < wordsEnd) {
+			long word = source.getInt64();
+			for(int shift = 56; shift >= 0; shift -= 8) { bytes[i++] = (byte) (word >> shift); }
+		}
+		while(i < end) { bytes[i++] = (byte) source.getUInt8(); }
+	}
+
+
+	/**
+	 * Values never span blocks
+	 * @param n
+	 * @throws IOException
+	 */
+	private void require(int n) throws IOException {
+		int remaining = codec.length - position;
+		if(remaining < n) {
+			if(remaining > 0) {
+				throw new LiIOException("Value spanning compressed blocks ("+n+" bytes required, "+remaining+" left)");
+			}
+			nextBlock();
+			if(codec.length - position < n) {
+				throw new LiIOException("Compressed block too short ("+n+" bytes required)");
+			}
+		}
+	}
+
+
+	private long read(int n) throws IOException {
+		require(n);
+		byte[] window = codec.window;
+		long value = 0;
+		for(int i = 0; i < n; i++) { value = (value << 8) | (window[position++] & 0xff); }
+		return value;
+	}
+
+
+
+	@Override
+	public boolean matches(byte[] sequence) throws IOException {
+		int n = sequence.length;
+		require(n);
+		byte[] window = codec.window;
+		boolean isMatching = true;
+		for(int i = 0; i < n; i++) {
+			if(window[position++] != sequence[i]) { isMatching = false; }
+		}
+		return isMatching;
+	}
+
+
+	@Override
+	public int getUInt8() throws IOException {
+		return (int) read(1);
+	}
+
+
+	@Override
+	public int getUInt16() throws IOException {
+		return (int) read(2);
+	}
+
+
+	@Override
+	public int getUInt32() throws IOException {
+		return (int) read(4);
+	}
+
+
+	@Override
+	public long getUInt64() throws IOException {
+		return read(8);
+	}
+
+
+	@Override
+	public long getUInt7x() throws IOException {
+		require(1);
+		byte[] window = codec.window;
+		int end = codec.length;
+		long value = 0;
+		int shift = 0;
+		byte b;
+		while(true) {
+			if(position >= end) { throw new LiIOException("Varint spanning compressed blocks"); }
+			if((b = window[position++]) >= 0) { break; }
+			value |= (long) (b & 0x7f) << shift;
+			shift += 7;
+			if(shift > 63) { throw new LiIOException("Malformed varint"); }
+		}
+		return value | ((long) b << shift);
+	}
+
+
+	@Override
+	public byte getInt8() throws IOException {
+		return (byte) read(1);
+	}
+
+
+	@Override
+	public short getInt16() throws IOException {
+		return (short) read(2);
+	}
+
+
+	@Override
+	public int getInt32() throws IOException {
+		return (int) read(4);
+	}
+
+
+	@Override
+	public long getInt64() throws IOException {
+		return read(8);
+	}
+
+
+	@Override
+	public float getFloat32() throws IOException {
+		return Float.intBitsToFloat((int) read(4));
+	}
+
+
+	@Override
+	public double getFloat64() throws IOException {
+		return Double.longBitsToDouble(read(8));
+	}
+
+
+	@Override
+	public boolean getBool8() throws IOException {
+		return read(1) != 0;
+	}
+
+
+	@Override
+	public String getStringUTF8() throws IOException {
+		long header = getUInt7x();
+		if(header == 0) { return null; }
+		int n = (int) (header - 1);
+		if(n > 0) { require(n); }
+		String value = new String(codec.window, position, n, StandardCharsets.UTF_8);
+		position += n;
+		return value;
+	}
+
+}
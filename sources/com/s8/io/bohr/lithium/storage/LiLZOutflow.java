@@ -0,0 +1,216 @@
+package com.s8.io.bohr.lithium.storage;
+
+import java.io.IOException;
+
+import com.s8.io.bytes.alpha.ByteOutflow;
+
+
+/**
+ * <p>
+ * Outflow compressing what is written to it (see <code>LiLZCodec</code>) into
+ * an underlying outflow, block by block: values are encoded as with
+ * <code>LiBufferOutflow</code> into the current block, which is compressed and
+ * forwarded once <code>BLOCK_SIZE</code> is reached (a value never spans two
+ * blocks). Only one block (and the window) is buffered.
+ * </p>
+ * <p>
+ * Underlying stream: blocks as <code>UInt7x</code> raw length,
+ * <code>UInt7x</code> compressed length (0 for a block stored raw), bytes; then
+ * a 0 raw length ending the stream (see <code>finish</code>). Read back by
+ * <code>LiLZInflow</code>.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiLZOutflow implements LiRawOutflow {
+
+
+	private final ByteOutflow target;
+
+	private final LiLZCodec codec;
+
+	private final LiBufferOutflow block = new LiBufferOutflow(LiLZCodec.BLOCK_SIZE + 64);
+
+	private final LiBufferOutflow compressed = new LiBufferOutflow(LiLZCodec.BLOCK_SIZE + 64);
+
+
+
+	/**
+	 *
+	 * @param target
+	 * @param dictionary (must be the one used to read back the stream)
+	 */
+	public LiLZOutflow(ByteOutflow target, byte[] dictionary) {
+		super();
+		this.target = target;
+		this.codec = new LiLZCodec(dictionary, true);
+	}
+
+
+
+	/**
+	 * Flush last block, and end compressed stream (outflow is no longer usable)
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		flush();
+		target.putUInt7x(0);
+	}
+
+
+	private void flush() throws IOException {
+		int n = block.getLength();
+		if(n == 0) { return; }
+
+		int start = codec.prepare(n);
+		System.arraycopy(block.array(), 0, codec.window, start, n);
+		block.clear();
+
+		codec.compress(start, n, compressed);
+		int c = compressed.getLength();
+		target.putUInt7x(n);
+		if(c < n) {
+			target.putUInt7x(c);
+			putBytes(compressed.array(), 0, c);
+		}
+		else {
+			/* incompressible: stored raw */
+			target.putUInt7x(0);
+			putBytes(codec.window, start, n);
+		}
+		compressed.clear();
+	}
+
+
+	/**
+	 * Raw bytes, as 64-bit words (read back with <code>getInt64</code>), whatever
+	 * the byte order of the underlying flows.
+	 */
+	private void putBytes(byte[] bytes, int offset, int n) throws IOException {
+		int i = offset, end = offset + n, wordsEnd = offset + (n & ~7);
+		while(i < wordsEnd) {
+			long word = 0;
+			for(int k = 0; k < 8; k++) { word = (word << 8) | (bytes[i++] & 0xff); }
+			target.putInt64(word);
+		}
+		while(i < end) { target.putUInt8(bytes[i++] & 0xff); }
+	}
+
+
+	private void check() throws IOException {
+		if(block.getLength() >= LiLZCodec.BLOCK_SIZE) { flush(); }
+	}
+
+
+
+	@Override
+	public void putByteArray(byte[] array) throws IOException {
+		block.putByteArray(array);
+		check();
+	}
+
+
+	/**
+	 * Bytes are added to the current block (values never spanning blocks)
+	 */
+	@Override
+	public void putByteArray(byte[] array, int offset, int n) throws IOException {
+		block.putByteArray(array, offset, n);
+		check();
+	}
+
+
+	@Override
+	public void putUInt8(int value) throws IOException {
+		block.putUInt8(value);
+		check();
+	}
+
+
+	@Override
+	public void putUInt16(int value) throws IOException {
+		block.putUInt16(value);
+		check();
+	}
+
+
+	@Override
+	public void putUInt32(long value) throws IOException {
+		block.putUInt32(value);
+		check();
+	}
+
+
+	@Override
+	public void putUInt64(long value) throws IOException {
+		block.putUInt64(value);
+		check();
+	}
+
+
+	@Override
+	public void putUInt7x(long value) throws IOException {
+		block.putUInt7x(value);
+		check();
+	}
+
+
+	@Override
+	public void putInt8(byte value) throws IOException {
+		block.putInt8(value);
+		check();
+	}
+
+
+	@Override
+	public void putInt16(short value) throws IOException {
+		block.putInt16(value);
+		check();
+	}
+
+
+	@Override
+	public void putInt32(int value) throws IOException {
+		block.putInt32(value);
+		check();
+	}
+
+
+	@Override
+	public void putInt64(long value) throws IOException {
+		block.putInt64(value);
+		check();
+	}
+
+
+	@Override
+	public void putFloat32(float value) throws IOException {
+		block.putFloat32(value);
+		check();
+	}
+
+
+	@Override
+	public void putFloat64(double value) throws IOException {
+		block.putFloat64(value);
+		check();
+	}
+
+
+	@Override
+	public void putBool8(boolean value) throws IOException {
+		block.putBool8(value);
+		check();
+	}
+
+
+	@Override
+	public void putStringUTF8(String value) throws IOException {
+		block.putStringUTF8(value);
+		check();
+	}
+
+}
@@ -0,0 +1,165 @@
+package com.s8.io.bohr.lithium.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.s8.io.bohr.lithium.exceptions.LiIOException;
+
+
+/**
+ * <p>
+ * Read-only memory mapping of a (possibly larger than 2 GB) file, as lazily
+ * mapped windows of <code>windowSize</code> bytes, starting every
+ * <code>windowSize / 2</code> bytes. Any range not longer than half a window
+ * is therefore entirely contained in a single window, so that it can be read
+ * as a plain <code>ByteBuffer</code> (larger ranges get a dedicated mapping).
+ * </p>
+ * <p>
+ * Thread-safe.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiMappedFile implements AutoCloseable {
+
+
+	public final static int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+
+	private final FileChannel channel;
+
+	private final long size;
+
+	private final int windowSize;
+
+	private final long stride;
+
+	/**
+	 * Mapped lazily (published through the array, read without locking)
+	 */
+	private final AtomicReferenceArray<MappedByteBuffer> windows;
+
+
+
+	/**
+	 *
+	 * @param path
+	 * @throws IOException
+	 */
+	public LiMappedFile(Path path) throws IOException {
+		this(path, DEFAULT_WINDOW_SIZE);
+	}
+
+
+	/**
+	 *
+	 * @param path
+	 * @param windowSize (even, in bytes)
+	 * @throws IOException
+	 */
+	public LiMappedFile(Path path, int windowSize) throws IOException {
+		super();
+		if(windowSize < 2 || (windowSize & 1) != 0) {
+			throw new IllegalArgumentException("Window size must be even and positive: "+windowSize);
+		}
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.size = channel.size();
+		this.windowSize = windowSize;
+		this.stride = windowSize >>> 1;
+		this.windows = new AtomicReferenceArray<>((int) Math.max(1, (size + stride - 1) / stride));
+	}
+
+
+
+	/**
+	 *
+	 * @return the size of the file (in bytes)
+	 */
+	public long getSize() {
+		return size;
+	}
+
+
+
+	private MappedByteBuffer getWindow(int index) throws IOException {
+		MappedByteBuffer window = windows.get(index);
+		if(window == null) {
+			synchronized (windows) {
+				window = windows.get(index);
+				if(window == null) {
+					long start = index * stride;
+					window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+					windows.set(index, window);
+				}
+			}
+		}
+		return window;
+	}
+
+
+
+	/**
+	 *
+	 * @param offset
+	 * @param length
+	 * @return a (big-endian) buffer over <code>[offset, offset + length)</code>,
+	 * positioned at 0
+	 * @throws IOException
+	 */
+	public ByteBuffer slice(long offset, int length) throws IOException {
+		if(offset < 0 || length < 0 || offset + length > size) {
+			throw new LiIOException("Range ["+offset+", "+(offset + length)+") is out of file bounds (size: "+size+")");
+		}
+		int index = (int) (offset / stride);
+		long start = index * stride;
+		if(offset + length <= start + windowSize) {
+			ByteBuffer buffer = getWindow(index).duplicate();
+			int position = (int) (offset - start);
+			buffer.position(position).limit(position + length);
+			return buffer.slice().order(ByteOrder.BIG_ENDIAN);
+		}
+		else {
+			/* larger than half a window */
+			return channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.BIG_ENDIAN);
+		}
+	}
+
+
+
+	/**
+	 *
+	 * @param offset
+	 * @return the big-endian int32 at <code>offset</code>
+	 * @throws IOException
+	 */
+	public int getInt(long offset) throws IOException {
+		return slice(offset, 4).getInt(0);
+	}
+
+
+	/**
+	 *
+	 * @param offset
+	 * @return the big-endian int64 at <code>offset</code>
+	 * @throws IOException
+	 */
+	public long getLong(long offset) throws IOException {
+		return slice(offset, 8).getLong(0);
+	}
+
+
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.s8.io.bohr.lithium.storage;
+
+import java.io.IOException;
+
+import com.s8.io.bytes.alpha.ByteOutflow;
+
+
+/**
+ * <p>
+ * Outflow encoding values as <code>LiBufferOutflow</code> does, so that bytes
+ * already encoded by a <code>LiBufferOutflow</code> can be copied to it as they
+ * are (no re-encoding).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public interface LiRawOutflow extends ByteOutflow {
+
+
+	/**
+	 * Raw bytes, encoded by a <code>LiBufferOutflow</code> (so must end on a
+	 * value boundary)
+	 *
+	 * @param array
+	 * @param offset
+	 * @param n
+	 * @throws IOException
+	 */
+	public void putByteArray(byte[] array, int offset, int n) throws IOException;
+
+}
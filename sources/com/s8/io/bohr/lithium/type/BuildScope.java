@@ -36,8 +36,9 @@ public abstract class BuildScope {
 	 * 
 	 * @param index
 	 * @return
+	 * @throws LiIOException
 	 */
-	public abstract LiObject retrieveObject(String index);
+	public abstract LiObject retrieveObject(String index) throws LiIOException;
 	
 	/**
 	 * <p><b>ALWAYS RESOLVE AFTER DESERIALIZATION</b></p>
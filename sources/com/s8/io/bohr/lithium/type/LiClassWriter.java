@@ -0,0 +1,359 @@
+package com.s8.io.bohr.lithium.type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * <p>
+ * Minimal class file writer, covering what <code>LiTypeCodec</code> and field
+ * accessor (see <code>FieldLiHandler</code>) generation require: constant pool,
+ * methods with a <code>Code</code> attribute, and the handful of instructions
+ * used. Emits version 49 class files, so no stack map
+ * frames have to be computed (type-inferring verification).
+ * </p>
+ * <p>
+ * Class names are internal names (e.g. <code>java/lang/Object</code>).
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public class LiClassWriter {
+
+
+	public final static int ACC_PUBLIC = 0x0001, ACC_FINAL = 0x0010, ACC_SUPER = 0x0020;
+
+	public final static int
+	ALOAD = 0x19, ASTORE = 0x3a, ILOAD = 0x15, LLOAD = 0x16, FLOAD = 0x17, DLOAD = 0x18,
+	IRETURN = 0xac, LRETURN = 0xad, FRETURN = 0xae, DRETURN = 0xaf, ARETURN = 0xb0,
+	LAND = 0x7f, LCMP = 0x94, LCONST_0 = 0x09,
+	IFEQ = 0x99, GOTO = 0xa7, TABLESWITCH = 0xaa, RETURN = 0xb1, ATHROW = 0xbf,
+	GETFIELD = 0xb4, PUTFIELD = 0xb5, INVOKEVIRTUAL = 0xb6, INVOKESPECIAL = 0xb7, INVOKEINTERFACE = 0xb9,
+	NEW = 0xbb, DUP = 0x59, CHECKCAST = 0xc0, SIPUSH = 0x11, LDC2_W = 0x14;
+
+
+	private final static int
+	CONSTANT_UTF8 = 1, CONSTANT_LONG = 5, CONSTANT_CLASS = 7, CONSTANT_FIELDREF = 9,
+	CONSTANT_METHODREF = 10, CONSTANT_INTERFACE_METHODREF = 11, CONSTANT_NAME_AND_TYPE = 12;
+
+
+	/**
+	 * Serialized constant pool entries
+	 */
+	private final Bytes pool = new Bytes();
+
+	private final Map<String, Integer> poolIndices = new HashMap<>();
+
+	/**
+	 * Next constant pool index (long constants taking two)
+	 */
+	private int poolCount = 1;
+
+	private final List<Method> methods = new ArrayList<>();
+
+	private final String name;
+
+	private final String superName;
+
+
+
+	/**
+	 *
+	 * @param name
+	 * @param superName
+	 */
+	public LiClassWriter(String name, String superName) {
+		super();
+		this.name = name;
+		this.superName = superName;
+	}
+
+
+	private int constant(String key, Bytes entry, int size) {
+		Integer index = poolIndices.get(key);
+		if(index == null) {
+			index = poolCount;
+			pool.bytes(entry.toByteArray());
+			poolCount += size;
+			poolIndices.put(key, index);
+		}
+		return index;
+	}
+
+
+	public int utf8(String value) {
+		Bytes entry = new Bytes().u1(CONSTANT_UTF8);
+		byte[] bytes = modifiedUTF8(value);
+		entry.u2(bytes.length).bytes(bytes);
+		return constant("U"+value, entry, 1);
+	}
+
+
+	public int classRef(String internalName) {
+		int nameIndex = utf8(internalName);
+		return constant("C"+internalName, new Bytes().u1(CONSTANT_CLASS).u2(nameIndex), 1);
+	}
+
+
+	public int longConstant(long value) {
+		return constant("J"+value, new Bytes().u1(CONSTANT_LONG).u4((int) (value >>> 32)).u4((int) value), 2);
+	}
+
+
+	private int nameAndType(String name, String descriptor) {
+		int nameIndex = utf8(name), descriptorIndex = utf8(descriptor);
+		return constant("N"+name+":"+descriptor,
+				new Bytes().u1(CONSTANT_NAME_AND_TYPE).u2(nameIndex).u2(descriptorIndex), 1);
+	}
+
+
+	private int memberRef(int tag, String owner, String name, String descriptor) {
+		int classIndex = classRef(owner), nameAndTypeIndex = nameAndType(name, descriptor);
+		return constant(tag+owner+"."+name+":"+descriptor,
+				new Bytes().u1(tag).u2(classIndex).u2(nameAndTypeIndex), 1);
+	}
+
+
+	public int fieldRef(String owner, String name, String descriptor) {
+		return memberRef(CONSTANT_FIELDREF, owner, name, descriptor);
+	}
+
+
+	public int methodRef(String owner, String name, String descriptor) {
+		return memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+	}
+
+
+	public int interfaceMethodRef(String owner, String name, String descriptor) {
+		return memberRef(CONSTANT_INTERFACE_METHODREF, owner, name, descriptor);
+	}
+
+
+	/**
+	 *
+	 * @param name
+	 * @param descriptor
+	 * @param maxStack
+	 * @param maxLocals
+	 * @return the method, whose code is to be written
+	 */
+	public Method method(String name, String descriptor, int maxStack, int maxLocals) {
+		Method method = new Method(utf8(name), utf8(descriptor), maxStack, maxLocals);
+		methods.add(method);
+		return method;
+	}
+
+
+	/**
+	 *
+	 * @return the class file
+	 */
+	public byte[] toByteArray() {
+		int thisIndex = classRef(name), superIndex = classRef(superName), codeIndex = utf8("Code");
+
+		Bytes out = new Bytes();
+		out.u4(0xCAFEBABE).u2(0).u2(49);
+		out.u2(poolCount).bytes(pool.toByteArray());
+		out.u2(ACC_PUBLIC | ACC_FINAL | ACC_SUPER).u2(thisIndex).u2(superIndex);
+		out.u2(0); // interfaces
+		out.u2(0); // fields
+		out.u2(methods.size());
+		for(Method method : methods) {
+			byte[] code = method.code.toByteArray();
+			out.u2(ACC_PUBLIC).u2(method.nameIndex).u2(method.descriptorIndex);
+			out.u2(1); // attributes
+			out.u2(codeIndex).u4(12 + code.length);
+			out.u2(method.maxStack).u2(method.maxLocals);
+			out.u4(code.length).bytes(code);
+			out.u2(0); // exception table
+			out.u2(0); // code attributes
+		}
+		out.u2(0); // class attributes
+		return out.toByteArray();
+	}
+
+
+	private static byte[] modifiedUTF8(String value) {
+		Bytes bytes = new Bytes();
+		int n = value.length();
+		for(int i = 0; i < n; i++) {
+			char c = value.charAt(i);
+			if(c >= 0x01 && c <= 0x7f) { bytes.u1(c); }
+			else if(c <= 0x7ff) { bytes.u1(0xc0 | (c >> 6)).u1(0x80 | (c & 0x3f)); }
+			else { bytes.u1(0xe0 | (c >> 12)).u1(0x80 | ((c >> 6) & 0x3f)).u1(0x80 | (c & 0x3f)); }
+		}
+		return bytes.toByteArray();
+	}
+
+
+
+	/**
+	 * Method being written
+	 */
+	public class Method {
+
+		private final int nameIndex, descriptorIndex, maxStack, maxLocals;
+
+		private final Bytes code = new Bytes();
+
+		private Method(int nameIndex, int descriptorIndex, int maxStack, int maxLocals) {
+			super();
+			this.nameIndex = nameIndex;
+			this.descriptorIndex = descriptorIndex;
+			this.maxStack = maxStack;
+			this.maxLocals = maxLocals;
+		}
+
+		/**
+		 * @return current offset in code
+		 */
+		public int offset() {
+			return code.length;
+		}
+
+		public Method op(int opcode) {
+			code.u1(opcode);
+			return this;
+		}
+
+		/**
+		 * Load/store of local variable (<code>ALOAD</code>, <code>ILOAD</code>...)
+		 */
+		public Method local(int opcode, int index) {
+			code.u1(opcode).u1(index);
+			return this;
+		}
+
+		public Method sipush(int value) {
+			code.u1(SIPUSH).u2(value);
+			return this;
+		}
+
+		public Method ldc2(long value) {
+			code.u1(LDC2_W).u2(longConstant(value));
+			return this;
+		}
+
+		public Method type(int opcode, String internalName) {
+			code.u1(opcode).u2(classRef(internalName));
+			return this;
+		}
+
+		public Method field(int opcode, String owner, String name, String descriptor) {
+			code.u1(opcode).u2(fieldRef(owner, name, descriptor));
+			return this;
+		}
+
+		public Method invoke(int opcode, String owner, String name, String descriptor) {
+			code.u1(opcode).u2(methodRef(owner, name, descriptor));
+			return this;
+		}
+
+		/**
+		 * @param nArgs number of argument slots, including receiver
+		 */
+		public Method invokeInterface(String owner, String name, String descriptor, int nArgs) {
+			code.u1(INVOKEINTERFACE).u2(interfaceMethodRef(owner, name, descriptor)).u1(nArgs).u1(0);
+			return this;
+		}
+
+		/**
+		 * Branch, to be resolved with <code>resolve</code>
+		 * @return branch position
+		 */
+		public int branch(int opcode) {
+			int position = code.length;
+			code.u1(opcode).u2(0);
+			return position;
+		}
+
+		/**
+		 * Resolve branch to current offset
+		 * @param position
+		 */
+		public void resolve(int position) {
+			code.set2(position + 1, code.length - position);
+		}
+
+		/**
+		 * <code>TABLESWITCH</code> over [0, n-1], cases to be resolved with
+		 * <code>resolveCase</code> (default with <code>resolveCase(position, -1)</code>)
+		 * @param n
+		 * @return switch position
+		 */
+		public int tableSwitch(int n) {
+			int position = code.length;
+			code.u1(TABLESWITCH);
+			while((code.length & 3) != 0) { code.u1(0); }
+			code.u4(0).u4(0).u4(n - 1);
+			for(int i = 0; i < n; i++) { code.u4(0); }
+			return position;
+		}
+
+		public void resolveCase(int position, int index) {
+			int table = (position + 4) & ~3;
+			code.set4(table + (index < 0 ? 0 : 12 + 4 * index), code.length - position);
+		}
+	}
+
+
+
+	/**
+	 * Growable big-endian byte buffer
+	 */
+	static class Bytes {
+
+		private byte[] bytes = new byte[256];
+
+		private int length;
+
+		private void ensure(int n) {
+			if(length + n > bytes.length) { bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, length + n)); }
+		}
+
+		Bytes u1(int value) {
+			ensure(1);
+			bytes[length++] = (byte) value;
+			return this;
+		}
+
+		Bytes u2(int value) {
+			ensure(2);
+			bytes[length++] = (byte) (value >>> 8);
+			bytes[length++] = (byte) value;
+			return this;
+		}
+
+		Bytes u4(int value) {
+			ensure(4);
+			for(int shift = 24; shift >= 0; shift -= 8) { bytes[length++] = (byte) (value >>> shift); }
+			return this;
+		}
+
+		Bytes bytes(byte[] values) {
+			ensure(values.length);
+			System.arraycopy(values, 0, bytes, length, values.length);
+			length += values.length;
+			return this;
+		}
+
+		void set2(int position, int value) {
+			bytes[position] = (byte) (value >>> 8);
+			bytes[position + 1] = (byte) value;
+		}
+
+		void set4(int position, int value) {
+			for(int i = 0; i < 4; i++) { bytes[position + i] = (byte) (value >>> (24 - 8 * i)); }
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(bytes, length);
+		}
+	}
+
+}
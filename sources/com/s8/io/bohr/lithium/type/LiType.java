@@ -9,8 +9,10 @@ import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Queue;
+import java.util.function.Supplier;
 
 import com.s8.io.bohr.atom.S8ShellStructureException;
+import com.s8.io.bohr.lithium.exceptions.LiBuildException;
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
 import com.s8.io.bohr.lithium.fields.LiField;
 import com.s8.io.bohr.lithium.object.LiObject;
@@ -40,6 +42,13 @@ public class LiType {
 	Constructor<?> constructor;
 
 
+	/**
+	 * Generated supplier calling <code>constructor</code> (<code>null</code> if
+	 * not available, see <code>LiTypeBuilder</code>)
+	 */
+	Supplier<?> instanceSupplier;
+
+
 
 
 
@@ -76,6 +85,18 @@ public class LiType {
 	int nVertexReferences;
 
 
+	/**
+	 * Automatic change detection (see <code>setTracked</code>)
+	 */
+	private boolean isTracked = false;
+
+
+	/**
+	 * Generated codec, if enabled and type is eligible (see <code>setCodecEnabled</code>)
+	 */
+	private volatile LiTypeCodec codec;
+
+
 	public LiType(Class<?> baseType) {
 		super();
 		this.baseType = baseType;
@@ -136,6 +157,14 @@ public class LiType {
 	 * @throws LthSerialException
 	 */
 	public LiObject createNewInstance() throws LiIOException {
+		if(instanceSupplier != null) {
+			try {
+				return (LiObject) instanceSupplier.get();
+			}
+			catch(RuntimeException e) {
+				throw new LiIOException("instance creation failed due to constructor call error", baseType, e);
+			}
+		}
 		try {
 			return (LiObject) constructor.newInstance(new Object[]{});
 		}
@@ -215,6 +244,24 @@ public class LiType {
 	public LiField getField(int ordinal) {
 		return fields[ordinal];
 	}
+
+
+	/**
+	 * <p>
+	 * Ordinals are assigned level by level from the root type, then by ascending
+	 * field name, so they only depend on the fields declared by the type and its
+	 * super types. Declare them as constants (see <code>LiFieldOrdinal</code>,
+	 * checked at build) or resolve them once, and report changes with
+	 * <code>LiObject.reportFieldUpdate(int)</code>.
+	 * </p>
+	 * 
+	 * @param name
+	 * @return the ordinal of the field, or -1 if no field is defined for this name
+	 */
+	public int getFieldOrdinal(String name) {
+		LiField field = fieldsByName.get(name);
+		return field != null ? field.ordinal : -1;
+	}
 	
 	
 
@@ -249,6 +296,64 @@ public class LiType {
 		return getSerialName().equals(right.getSerialName());
 	}
 	
+	/**
+	 * <p>
+	 * Opt-in automatic change detection. For vertices of a tracked type, the shadow
+	 * of each field (see <code>LiField.computeShadow</code>) is kept at publish time,
+	 * and compared at each commit:
+	 * </p>
+	 * <ul>
+	 * <li>fields whose shadow differs are published, even if not reported,</li>
+	 * <li>reported fields whose shadow is unchanged are not published.</li>
+	 * </ul>
+	 * <p>
+	 * Fields without shadow (<code>LiField.isShadowed() == false</code>) still rely
+	 * on reporting. Only affects vertices published after the call.
+	 * </p>
+	 * 
+	 * @param isTracked
+	 */
+	public void setTracked(boolean isTracked) {
+		this.isTracked = isTracked;
+	}
+	
+	
+	public boolean isTracked() {
+		return isTracked;
+	}
+
+
+	/**
+	 * <p>
+	 * Opt-in generated codec (see <code>LiTypeCodec</code>): once enabled,
+	 * composers and parsers of this type write / read field values through a
+	 * class generated for this type. Types not eligible are left unchanged.
+	 * </p>
+	 * 
+	 * @param isEnabled
+	 * @return true if a codec is in use for this type
+	 * @throws LiBuildException
+	 */
+	public boolean setCodecEnabled(boolean isEnabled) throws LiBuildException {
+		if(!isEnabled) {
+			codec = null;
+		}
+		else if(codec == null) {
+			codec = LiTypeCodec.generate(this);
+		}
+		return codec != null;
+	}
+
+
+	/**
+	 * 
+	 * @return the generated codec, <code>null</code> if not enabled (or not eligible)
+	 */
+	public LiTypeCodec getCodec() {
+		return codec;
+	}
+	
+	
 	public int getNumberOfVertexReferences() {
 		return nVertexReferences;
 	}
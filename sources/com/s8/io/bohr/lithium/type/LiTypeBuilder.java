@@ -1,13 +1,22 @@
 package com.s8.io.bohr.lithium.type;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 import com.s8.io.bohr.atom.annotations.S8Field;
 import com.s8.io.bohr.atom.annotations.S8Getter;
@@ -17,6 +26,7 @@ import com.s8.io.bohr.lithium.codebase.LiCodebaseBuilder;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
 import com.s8.io.bohr.lithium.fields.LiField;
 import com.s8.io.bohr.lithium.fields.LiFieldBuilder;
+import com.s8.io.bohr.lithium.object.LiFieldOrdinal;
 import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bohr.lithium.properties.LiFieldProperties;
 
@@ -43,6 +53,12 @@ public class LiTypeBuilder {
 	private Map<String, LiFieldBuilder> fieldBuildersByName;
 
 
+	/**
+	 * Level (see <code>getLevel</code>) of the class first declaring each field
+	 */
+	private Map<String, Integer> fieldLevelsByName;
+
+
 
 	private Constructor<?> constructor;
 
@@ -202,7 +218,9 @@ public class LiTypeBuilder {
 	public void initializeAttributes() {
 		/* <fields> */
 		if(isBuildable) {
-			fieldBuildersByName = new HashMap<String, LiFieldBuilder>();	
+			/* sorted by name, so that field ordinals are stable across runs (see LiFieldOrdinal) */
+			fieldBuildersByName = new TreeMap<String, LiFieldBuilder>();	
+			fieldLevelsByName = new HashMap<String, Integer>();
 		}
 	}
 
@@ -368,6 +386,7 @@ public class LiTypeBuilder {
 
 				// add fields
 				fieldBuildersByName.put(name, fieldBuilder);	
+				fieldLevelsByName.put(name, getLevel(field.getDeclaringClass()));
 			}
 		}
 		// else: do nothing (field is skipped)
@@ -392,6 +411,7 @@ public class LiTypeBuilder {
 
 				// add fields
 				fieldBuildersByName.put(name, fieldBuilder);	
+				fieldLevelsByName.put(name, getLevel(method.getDeclaringClass()));
 
 				// further crawl...
 				LiFieldProperties properties = fieldBuilder.properties;
@@ -422,6 +442,7 @@ public class LiTypeBuilder {
 				LiFieldProperties properties = fieldBuilder.properties;
 				// add fields
 				fieldBuildersByName.put(name, fieldBuilder);
+				fieldLevelsByName.put(name, getLevel(method.getDeclaringClass()));
 
 				switch(properties.getEmbeddedTypeNature()) {
 				case S8_OBJECT : 
@@ -459,6 +480,8 @@ public class LiTypeBuilder {
 
 		type.constructor = constructor;
 
+		type.instanceSupplier = createInstanceSupplier(constructor);
+
 		type.nVertexReferences = nVertexReferences;
 
 		// finalize build
@@ -471,18 +494,21 @@ public class LiTypeBuilder {
 		int nFields = fieldBuildersByName.size();
 
 
-		// build map
+		// build map (ordinals: by level, then by name)
 		Map<String, LiField> fieldsByName = type.fieldsByName;
-		AtomicInteger ordinator = new AtomicInteger(0);
-		fieldBuildersByName.forEach((name, builder) -> {
+		List<String> names = new ArrayList<>(fieldBuildersByName.keySet());
+		int baseLevel = getLevel(baseType);
+		names.sort(Comparator.comparingInt(name -> fieldLevelsByName.getOrDefault(name, baseLevel)));
+		int ordinal = 0;
+		for(String name : names) {
 			try {
-				fieldsByName.put(name, builder.build(ordinator.getAndIncrement()));
+				fieldsByName.put(name, fieldBuildersByName.get(name).build(ordinal++));
 			} catch (LiBuildException e) {
 				if(isVerbose) {
 					e.printStackTrace();	
 				}
 			}
-		});
+		}
 
 
 		// build array
@@ -494,10 +520,68 @@ public class LiTypeBuilder {
 		}
 		type.fields = fields;
 
+		checkOrdinalConstants(type);
+
 		return type;
 	}
 
 
+	/**
+	 * 
+	 * @param type
+	 * @return the number of object types (<code>S8ObjectType</code>) above <code>type</code>
+	 */
+	private static int getLevel(Class<?> type) {
+		int level = 0;
+		Class<?> superType = type.getSuperclass();
+		while(superType != null && superType.isAnnotationPresent(S8ObjectType.class)) {
+			level++;
+			superType = superType.getSuperclass();
+		}
+		return level;
+	}
+
+
+	/**
+	 * Check constants annotated with <code>LiFieldOrdinal</code>, declared by base
+	 * type or inherited, against the ordinals of <code>type</code>.
+	 * 
+	 * @param type
+	 * @throws LiBuildException
+	 */
+	private void checkOrdinalConstants(LiType type) throws LiBuildException {
+		Class<?> level = baseType;
+		while(level != null && level.isAnnotationPresent(S8ObjectType.class)) {
+			for(Field constant : level.getDeclaredFields()) {
+				LiFieldOrdinal annotation = constant.getAnnotation(LiFieldOrdinal.class);
+				if(annotation != null) {
+					int mods = constant.getModifiers();
+					if(!Modifier.isStatic(mods) || !Modifier.isFinal(mods) || constant.getType() != int.class) {
+						throw new LiBuildException("Ordinal constant must be static final int: "+constant, baseType);
+					}
+					LiField field = type.fieldsByName.get(annotation.name());
+					if(field == null) {
+						throw new LiBuildException("Ordinal constant refers to an unknown field: "+constant, baseType);
+					}
+					int value;
+					try {
+						constant.trySetAccessible();
+						value = constant.getInt(null);
+					}
+					catch (IllegalAccessException e) {
+						throw new LiBuildException("Cannot read ordinal constant: "+constant, baseType);
+					}
+					if(value != field.ordinal) {
+						throw new LiBuildException("Ordinal constant "+constant+" = "+value
+								+" does not match ordinal of field "+annotation.name()+": "+field.ordinal, baseType);
+					}
+				}
+			}
+			level = level.getSuperclass();
+		}
+	}
+
+
 
 	public int onVertexReferenced() {
 		return this.nVertexReferences++;
@@ -508,4 +592,35 @@ public class LiTypeBuilder {
 	public void subDiscover() {
 
 	}
+
+
+	/**
+	 * Generate (<code>LambdaMetafactory</code>) a supplier calling the no-arg
+	 * constructor, as if written <code>BaseType::new</code>.
+	 * 
+	 * @param constructor
+	 * @return the supplier, or <code>null</code> if it cannot be generated
+	 * (abstract or non-public type...), in which case
+	 * instances are created reflectively.
+	 */
+	private static Supplier<?> createInstanceSupplier(Constructor<?> constructor) {
+		if(constructor == null) { return null; }
+		Class<?> baseType = constructor.getDeclaringClass();
+		try {
+			LiTypeBuilder.class.getModule().addReads(baseType.getModule());
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle target = lookup.unreflectConstructor(constructor);
+			CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+					MethodType.methodType(Supplier.class),
+					MethodType.methodType(Object.class),
+					target,
+					MethodType.methodType(baseType));
+			return (Supplier<?>) site.getTarget().invokeExact();
+		}
+		catch(Throwable e) {
+			/* invokeExact declares Throwable */
+			return null;
+		}
+	}
+
 }
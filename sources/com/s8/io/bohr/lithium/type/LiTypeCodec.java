@@ -0,0 +1,283 @@
+package com.s8.io.bohr.lithium.type;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import com.s8.io.bohr.atom.BOHR_Keywords;
+import com.s8.io.bohr.atom.BOHR_Types;
+import com.s8.io.bohr.lithium.exceptions.LiBuildException;
+import com.s8.io.bohr.lithium.fields.LiField;
+import com.s8.io.bohr.lithium.fields.primitives.BooleanLiField;
+import com.s8.io.bohr.lithium.fields.primitives.DoubleLiField;
+import com.s8.io.bohr.lithium.fields.primitives.FloatLiField;
+import com.s8.io.bohr.lithium.fields.primitives.IntegerLiField;
+import com.s8.io.bohr.lithium.fields.primitives.LongLiField;
+import com.s8.io.bohr.lithium.fields.primitives.ShortLiField;
+import com.s8.io.bohr.lithium.fields.primitives.StringLiField;
+import com.s8.io.bohr.lithium.handlers.FieldLiHandler;
+import com.s8.io.bohr.lithium.object.LiObject;
+import com.s8.io.bytes.alpha.ByteInflow;
+import com.s8.io.bytes.alpha.ByteOutflow;
+
+
+/**
+ * <p>
+ * Codec generated for a whole <code>LiType</code> (see
+ * <code>LiType.setCodecEnabled</code>), defined as a hidden class: values of
+ * all fields are written / read with straight-line field access and inlined
+ * encodings, instead of going through field composers / parsers and handlers.
+ * Wire format is unchanged (<code>SET_VALUE</code>, field code, value).
+ * </p>
+ * <p>
+ * Only generated for types made of at most 64 public, non-final,
+ * field-handled primitive fields (<code>boolean</code>, <code>short</code>,
+ * <code>int</code>, <code>long</code>, <code>float</code>,
+ * <code>double</code>, <code>String</code>), declared in public classes. A
+ * codec is used by a composer only once all its fields have been declared
+ * with the plain encoding (see <code>LiFieldComposer.getPlainEncoding</code>),
+ * and by a parser only for fields declared with the plain encoding.
+ * </p>
+ *
+ * @author Pierre Convert
+ * Copyright (C) 2022, Pierre Convert. All rights reserved.
+ *
+ */
+public abstract class LiTypeCodec {
+
+
+	/**
+	 * Plain encodings (<code>BOHR_Types</code>), by field ordinal
+	 */
+	int[] encodings;
+
+	/**
+	 * Field codes (as assigned by <code>LiTypeComposer</code>), by field ordinal
+	 */
+	int[] codes;
+
+
+	protected LiTypeCodec() {
+		super();
+	}
+
+
+	/**
+	 *
+	 * @param ordinal
+	 * @return plain encoding of field (<code>BOHR_Types</code> code)
+	 */
+	public int getEncoding(int ordinal) {
+		return encodings[ordinal];
+	}
+
+
+	/**
+	 *
+	 * @param ordinal
+	 * @return code of field, as assigned by composers
+	 */
+	public int getCode(int ordinal) {
+		return codes[ordinal];
+	}
+
+
+	/**
+	 * Write <code>SET_VALUE</code>, field code and value of the flagged fields,
+	 * by increasing ordinal (same output as field composers).
+	 *
+	 * @param object
+	 * @param fields flags, by ordinal
+	 * @param outflow
+	 * @throws IOException
+	 */
+	public abstract void compose(LiObject object, long fields, ByteOutflow outflow) throws IOException;
+
+
+	/**
+	 * Read value of field (plain encoding) and set it into <code>object</code>
+	 *
+	 * @param ordinal
+	 * @param inflow
+	 * @param object
+	 * @throws IOException
+	 */
+	public abstract void parseValue(int ordinal, ByteInflow inflow, LiObject object) throws IOException;
+
+
+
+	private final static String CODEC = "com/s8/io/bohr/lithium/type/LiTypeCodec";
+
+	private final static String OBJECT = "com/s8/io/bohr/lithium/object/LiObject";
+
+	private final static String OUTFLOW = "com/s8/io/bytes/alpha/ByteOutflow";
+
+	private final static String INFLOW = "com/s8/io/bytes/alpha/ByteInflow";
+
+
+	/**
+	 * Plain encoding of a field kind
+	 */
+	private static class Encoding {
+
+		final int code;
+
+		final String descriptor, put, get;
+
+		/**
+		 * Size of value on operand stack
+		 */
+		final int size;
+
+		Encoding(int code, String descriptor, String put, String get, int size) {
+			this.code = code;
+			this.descriptor = descriptor;
+			this.put = put;
+			this.get = get;
+			this.size = size;
+		}
+	}
+
+
+	private static Encoding getEncoding(LiField field, Class<?> javaType) {
+		if(field instanceof DoubleLiField && javaType == double.class) {
+			return new Encoding(BOHR_Types.FLOAT64, "D", "putFloat64", "getFloat64", 2);
+		}
+		else if(field instanceof FloatLiField && javaType == float.class) {
+			return new Encoding(BOHR_Types.FLOAT32, "F", "putFloat32", "getFloat32", 1);
+		}
+		else if(field instanceof LongLiField && javaType == long.class) {
+			return new Encoding(BOHR_Types.INT64, "J", "putInt64", "getInt64", 2);
+		}
+		else if(field instanceof IntegerLiField && javaType == int.class) {
+			return new Encoding(BOHR_Types.INT32, "I", "putInt32", "getInt32", 1);
+		}
+		else if(field instanceof ShortLiField && javaType == short.class) {
+			return new Encoding(BOHR_Types.INT16, "S", "putInt16", "getInt16", 1);
+		}
+		else if(field instanceof BooleanLiField && javaType == boolean.class) {
+			return new Encoding(BOHR_Types.BOOL8, "Z", "putBool8", "getBool8", 1);
+		}
+		else if(field instanceof StringLiField && javaType == String.class) {
+			return new Encoding(BOHR_Types.STRING_UTF8, "Ljava/lang/String;", "putStringUTF8", "getStringUTF8", 1);
+		}
+		else {
+			return null;
+		}
+	}
+
+
+	private static String internalName(Class<?> type) {
+		return type.getName().replace('.', '/');
+	}
+
+
+	private static boolean isAccessible(Class<?> type) {
+		Module module = type.getModule();
+		return Modifier.isPublic(type.getModifiers())
+				&& module.isExported(type.getPackageName(), LiTypeCodec.class.getModule());
+	}
+
+
+	/**
+	 *
+	 * @param type
+	 * @return the generated codec, or <code>null</code> if <code>type</code> is
+	 * not eligible (see class description)
+	 * @throws LiBuildException
+	 */
+	static LiTypeCodec generate(LiType type) throws LiBuildException {
+		Class<?> baseType = type.getBaseType();
+		LiField[] fields = type.fields;
+		int n = fields.length;
+		if(n == 0 || n > 64 || !isAccessible(baseType)) { return null; }
+
+		/* check eligibility */
+		Field[] javaFields = new Field[n];
+		Encoding[] encodings = new Encoding[n];
+		for(int ordinal = 0; ordinal < n; ordinal++) {
+			LiField field = fields[ordinal];
+			if(!(field.handler instanceof FieldLiHandler)) { return null; }
+			Field javaField = ((FieldLiHandler) field.handler).getField();
+			int modifiers = javaField.getModifiers();
+			if(!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)
+					|| !isAccessible(javaField.getDeclaringClass())) { return null; }
+			Encoding encoding = getEncoding(field, javaField.getType());
+			if(encoding == null) { return null; }
+			javaFields[ordinal] = javaField;
+			encodings[ordinal] = encoding;
+		}
+
+		/* codes, as assigned by composers */
+		int[] codes = new int[n];
+		int[] nextCode = new int[1];
+		type.fieldsByName.forEach((name, field) -> { codes[field.ordinal] = nextCode[0]++; });
+
+		String owner = internalName(baseType);
+		LiClassWriter writer = new LiClassWriter(CODEC+"$"+baseType.getSimpleName(), CODEC);
+
+		/* <init> */
+		writer.method("<init>", "()V", 1, 1)
+		.local(LiClassWriter.ALOAD, 0)
+		.invoke(LiClassWriter.INVOKESPECIAL, CODEC, "<init>", "()V")
+		.op(LiClassWriter.RETURN);
+
+		/* compose: 0 this, 1 object, 2-3 fields, 4 outflow, 5 cast object */
+		LiClassWriter.Method compose = writer.method("compose", "(L"+OBJECT+";JL"+OUTFLOW+";)V", 6, 6);
+		compose.local(LiClassWriter.ALOAD, 1).type(LiClassWriter.CHECKCAST, owner).local(LiClassWriter.ASTORE, 5);
+		for(int ordinal = 0; ordinal < n; ordinal++) {
+			Field javaField = javaFields[ordinal];
+			Encoding encoding = encodings[ordinal];
+
+			compose.local(LiClassWriter.LLOAD, 2).ldc2(1L << ordinal).op(LiClassWriter.LAND)
+			.op(LiClassWriter.LCONST_0).op(LiClassWriter.LCMP);
+			int skip = compose.branch(LiClassWriter.IFEQ);
+
+			compose.local(LiClassWriter.ALOAD, 4).sipush(BOHR_Keywords.SET_VALUE)
+			.invokeInterface(OUTFLOW, "putUInt8", "(I)V", 2);
+			compose.local(LiClassWriter.ALOAD, 4).sipush(codes[ordinal])
+			.invokeInterface(OUTFLOW, "putUInt8", "(I)V", 2);
+			compose.local(LiClassWriter.ALOAD, 4).local(LiClassWriter.ALOAD, 5)
+			.field(LiClassWriter.GETFIELD, internalName(javaField.getDeclaringClass()), javaField.getName(), encoding.descriptor)
+			.invokeInterface(OUTFLOW, encoding.put, "("+encoding.descriptor+")V", 1 + encoding.size);
+
+			compose.resolve(skip);
+		}
+		compose.op(LiClassWriter.RETURN);
+
+		/* parseValue: 0 this, 1 ordinal, 2 inflow, 3 object */
+		LiClassWriter.Method parse = writer.method("parseValue", "(IL"+INFLOW+";L"+OBJECT+";)V", 4, 4);
+		parse.local(LiClassWriter.ILOAD, 1);
+		int table = parse.tableSwitch(n);
+		for(int ordinal = 0; ordinal < n; ordinal++) {
+			Field javaField = javaFields[ordinal];
+			Encoding encoding = encodings[ordinal];
+			parse.resolveCase(table, ordinal);
+			parse.local(LiClassWriter.ALOAD, 3).type(LiClassWriter.CHECKCAST, owner)
+			.local(LiClassWriter.ALOAD, 2)
+			.invokeInterface(INFLOW, encoding.get, "()"+encoding.descriptor, 1)
+			.field(LiClassWriter.PUTFIELD, internalName(javaField.getDeclaringClass()), javaField.getName(), encoding.descriptor)
+			.op(LiClassWriter.RETURN);
+		}
+		parse.resolveCase(table, -1);
+		parse.type(LiClassWriter.NEW, "java/lang/IllegalArgumentException").op(LiClassWriter.DUP)
+		.invoke(LiClassWriter.INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "()V")
+		.op(LiClassWriter.ATHROW);
+
+		/* define */
+		try {
+			LiTypeCodec.class.getModule().addReads(baseType.getModule());
+			MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(writer.toByteArray(), true);
+			LiTypeCodec codec = (LiTypeCodec) lookup.lookupClass().getDeclaredConstructor().newInstance();
+			codec.encodings = new int[n];
+			for(int ordinal = 0; ordinal < n; ordinal++) { codec.encodings[ordinal] = encodings[ordinal].code; }
+			codec.codes = codes;
+			return codec;
+		}
+		catch(ReflectiveOperationException | LinkageError e) {
+			throw new LiBuildException("Failed to generate codec: "+e.getMessage(), baseType);
+		}
+	}
+
+}
@@ -5,6 +5,7 @@ import java.io.IOException;
 import com.s8.io.bohr.atom.BOHR_Keywords;
 import com.s8.io.bohr.lithium.exceptions.LiBuildException;
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
+import com.s8.io.bohr.lithium.fields.LiComposerSession;
 import com.s8.io.bohr.lithium.fields.LiFieldComposer;
 import com.s8.io.bytes.alpha.ByteOutflow;
 
@@ -65,6 +66,35 @@ public class LiTypeComposer {
 	private boolean isTypeUnpublished = true;
 
 
+	/**
+	 * All fields declared in this session (see <code>isFullyDeclared</code>)
+	 */
+	private boolean isFullyDeclared;
+
+
+	/**
+	 * At least one field written through the session string dictionary
+	 */
+	private boolean isUsingDictionary;
+
+
+	/**
+	 * Codec of type, once usable (see <code>getCodec</code>)
+	 */
+	private LiTypeCodec codec;
+
+	/**
+	 * Codec of type found not usable (non-plain flows)
+	 */
+	private boolean isCodecRejected;
+
+
+	/**
+	 * Session state (ids encoding)
+	 */
+	private final LiComposerSession session;
+
+
 
 	private class Indexer {
 		public int lastFieldCode = 0x00;
@@ -81,9 +111,22 @@ public class LiTypeComposer {
 	 * @throws LthSerialException
 	 */
 	public LiTypeComposer(LiType type, long typeCode) throws LiBuildException {
+		this(type, typeCode, new LiComposerSession());
+	}
+
+
+	/**
+	 * 
+	 * @param type
+	 * @param typeCode
+	 * @param session session state (also bound to field composers)
+	 * @throws LiBuildException
+	 */
+	public LiTypeComposer(LiType type, long typeCode, LiComposerSession session) throws LiBuildException {
 		super();
 		this.type = type;
 		this.typeCode = typeCode;
+		this.session = session;
 
 		// compile
 		int fieldcount = type.fieldsByName.size();
@@ -93,7 +136,10 @@ public class LiTypeComposer {
 		type.fieldsByName.forEach((name, field) -> {
 			int code = indexer.lastFieldCode++;
 			try {
-				fieldComposers[field.ordinal] = field.createComposer(code);
+				LiFieldComposer fieldComposer = field.createComposer(code, type.isTracked());
+				fieldComposer.bind(session);
+				fieldComposers[field.ordinal] = fieldComposer;
+				if(fieldComposer.isUsingDictionary()) { isUsingDictionary = true; }
 			}
 			catch (LiIOException e) {
 				e.printStackTrace();
@@ -115,8 +161,121 @@ public class LiTypeComposer {
 	 * @throws IOException
 	 */
 	public void publish_CREATE_NODE(ByteOutflow outflow, String index) throws IOException {
+		publish_CREATE_NODE(outflow, index, claimTypeDeclaration());
+	}
+
+
+	/**
+	 * 
+	 * @return true if type declaration has been claimed (i.e. published in this session)
+	 */
+	public boolean isDeclared() {
+		return !isTypeUnpublished;
+	}
+
+
+	/**
+	 * 
+	 * @return true if all fields have been declared in this session (so that 
+	 * nodes carry no inline declaration)
+	 */
+	public boolean isFullyDeclared() {
+		if(!isFullyDeclared) {
+			for(LiFieldComposer fieldComposer : fieldComposers) {
+				if(fieldComposer != null && !fieldComposer.isDeclared()) { return false; }
+			}
+			isFullyDeclared = true;
+		}
+		return true;
+	}
+
+
+	/**
+	 * 
+	 * @return true if at least one field is written through the session string
+	 * dictionary
+	 */
+	public boolean isUsingDictionary() {
+		return isUsingDictionary;
+	}
+
 
+	/**
+	 * Declared names (type serial name, then names of declared fields, by field 
+	 * code), as dictionary entries for frame compression. Must match 
+	 * <code>LiTypeParser.composeDictionary</code> on the receiving end.
+	 * 
+	 * @param outflow
+	 * @throws IOException
+	 */
+	public void composeDictionary(ByteOutflow outflow) throws IOException {
+		outflow.putStringUTF8(type.getSerialName());
+		LiFieldComposer[] byCode = new LiFieldComposer[fieldComposers.length];
+		for(LiFieldComposer fieldComposer : fieldComposers) {
+			if(fieldComposer != null) { byCode[fieldComposer.code] = fieldComposer; }
+		}
+		for(LiFieldComposer fieldComposer : byCode) {
+			if(fieldComposer != null && fieldComposer.isDeclared()) { outflow.putStringUTF8(fieldComposer.getField().name); }
+		}
+	}
+
+
+	/**
+	 * <p>
+	 * Codec of type (see <code>LiType.setCodecEnabled</code>), usable once all
+	 * fields have been declared in this session, with the plain encodings and the
+	 * field codes baked into codec.
+	 * </p>
+	 * 
+	 * @return the codec, or <code>null</code> if not (yet) usable
+	 */
+	public LiTypeCodec getCodec() {
+		LiTypeCodec typeCodec = type.getCodec();
+		if(typeCodec == null || isCodecRejected) { return null; }
+		if(typeCodec == codec) { return codec; }
+
+		int n = fieldComposers.length;
+		for(int ordinal = 0; ordinal < n; ordinal++) {
+			LiFieldComposer fieldComposer = fieldComposers[ordinal];
+			if(fieldComposer == null 
+					|| fieldComposer.code != typeCodec.getCode(ordinal)
+					|| fieldComposer.getPlainEncoding() != typeCodec.getEncoding(ordinal)) {
+				isCodecRejected = true;
+				return null;
+			}
+			if(!fieldComposer.isDeclared()) { return null; }
+		}
+		codec = typeCodec;
+		return codec;
+	}
+
+
+	/**
+	 * Claim declaration of the type: only the first claim succeeds, the
+	 * corresponding node being the one to carry the declaration.
+	 * 
+	 * @return true if type declaration is to be published with next created node
+	 */
+	public boolean claimTypeDeclaration() {
 		if(isTypeUnpublished) {
+			isTypeUnpublished = false;
+			return true;
+		}
+		return false;
+	}
+
+
+	/**
+	 * Stateless version of <code>publish_CREATE_NODE(ByteOutflow, String)</code>
+	 * (declaration being claimed beforehand).
+	 * 
+	 * @param outflow
+	 * @param index
+	 * @param isDeclaring
+	 * @throws IOException
+	 */
+	public void publish_CREATE_NODE(ByteOutflow outflow, String index, boolean isDeclaring) throws IOException {
+		if(isDeclaring) {
 			
 			/* keyword */
 			outflow.putUInt8(BOHR_Keywords.DECLARE_TYPE);
@@ -126,8 +285,6 @@ public class LiTypeComposer {
 
 			/* type code */
 			outflow.putUInt7x(typeCode);
-
-			isTypeUnpublished = false;
 		}
 
 		/* create NODE */
@@ -137,8 +294,40 @@ public class LiTypeComposer {
 		outflow.putUInt7x(typeCode);
 
 		/* define index */
-		outflow.putStringUTF8(index);
+		session.ids.compose(outflow, index);
+
+	}
+
 
+
+
+	/**
+	 * <p>
+	 * Publish declarations of the type and of all its fields upfront, as a
+	 * standalone block (<code>DECLARE_TYPE</code>, <code>DECLARE_FIELD</code>s,
+	 * <code>CLOSE_NODE</code>), read by <code>LiInbound.onDeclareType</code>
+	 * followed by <code>LiTypeParser.parse</code>. Nodes published afterwards
+	 * carry no declaration, so they can be decoded independently of each other.
+	 * </p>
+	 * <p>
+	 * To be called before publishing any node of this type.
+	 * </p>
+	 * 
+	 * @param outflow
+	 * @throws IOException
+	 */
+	public void publishDeclarations(ByteOutflow outflow) throws IOException {
+		if(!claimTypeDeclaration()) {
+			throw new LiIOException("Type has already been declared: "+type.getSerialName());
+		}
+		outflow.putUInt8(BOHR_Keywords.DECLARE_TYPE);
+		outflow.putStringUTF8(type.getSerialName());
+		outflow.putUInt7x(typeCode);
+
+		for(LiFieldComposer fieldComposer : fieldComposers) {
+			if(fieldComposer != null && fieldComposer.claimDeclaration()) { fieldComposer.publishFieldDeclaration(outflow); }
+		}
+		outflow.putUInt8(BOHR_Keywords.CLOSE_NODE);
 	}
 
 
@@ -156,7 +345,7 @@ public class LiTypeComposer {
 		outflow.putUInt8(BOHR_Keywords.UPDATE_NODE);
 
 		/* pass index */
-		outflow.putStringUTF8(index);
+		session.ids.compose(outflow, index);
 	}
 
 
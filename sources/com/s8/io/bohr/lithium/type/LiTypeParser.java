@@ -5,13 +5,17 @@ import static com.s8.io.bohr.atom.BOHR_Keywords.DECLARE_FIELD;
 import static com.s8.io.bohr.atom.BOHR_Keywords.SET_VALUE;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import com.s8.io.bohr.lithium.exceptions.LiIOException;
 import com.s8.io.bohr.lithium.fields.LiField;
 import com.s8.io.bohr.lithium.fields.LiFieldDelta;
 import com.s8.io.bohr.lithium.fields.LiFieldParser;
+import com.s8.io.bohr.lithium.fields.LiParserSession;
+import com.s8.io.bohr.lithium.object.LiObject;
 import com.s8.io.bytes.alpha.ByteInflow;
+import com.s8.io.bytes.alpha.ByteOutflow;
 
 /**
  * 
@@ -57,6 +61,23 @@ public class LiTypeParser {
 	private LiFieldParser[] fields;
 
 
+	/**
+	 * Session state (bound to field parsers)
+	 */
+	private final LiParserSession session;
+
+
+	/**
+	 * Codec of type, when enabled at first field declaration (see <code>LiTypeCodec</code>)
+	 */
+	private LiTypeCodec codec;
+
+	/**
+	 * Ordinals of fields decoded by <code>codec</code>, by field code (-1 if not)
+	 */
+	private int[] codecOrdinals;
+
+
 
 
 	/**
@@ -68,9 +89,20 @@ public class LiTypeParser {
 	 * @throws LthSerialException
 	 */
 	public LiTypeParser(LiType type) {
+		this(type, new LiParserSession());
+	}
+
+
+	/**
+	 * 
+	 * @param type
+	 * @param session session state
+	 */
+	public LiTypeParser(LiType type, LiParserSession session) {
 		super();
 		this.type = type;
 		this.fields = new LiFieldParser[type.getNumberOfFields()];
+		this.session = session;
 	}
 
 
@@ -83,6 +115,22 @@ public class LiTypeParser {
 	}
 
 
+	/**
+	 * Declared names (type serial name, then names of declared fields, by field 
+	 * code), as dictionary entries for frame compression (see 
+	 * <code>LiTypeComposer.composeDictionary</code>).
+	 * 
+	 * @param outflow
+	 * @throws IOException
+	 */
+	public void composeDictionary(ByteOutflow outflow) throws IOException {
+		outflow.putStringUTF8(type.getSerialName());
+		for(LiFieldParser fieldParser : fields) {
+			if(fieldParser != null) { outflow.putStringUTF8(fieldParser.getField().name); }
+		}
+	}
+
+
 	public String print(long code) {
 		return "[0x"+Long.toHexString(code)+"]: "+type.getRuntimeName();
 	}
@@ -113,26 +161,7 @@ public class LiTypeParser {
 		while((code = inflow.getUInt8()) != CLOSE_NODE) {
 			switch(code) {
 
-			case DECLARE_FIELD: 
-
-				/* retrieve name for code */
-				String name = inflow.getStringUTF8();
-
-				/* retrieve inflow field */
-				LiField field = type.getFieldByName(name);
-				if(field == null) {
-					throw new LiIOException("Failed to find field for name = "+name, type.getBaseType());
-				}
-
-				/* retrieve inflow */
-				fieldParser = field.createParser(inflow);
-				
-				/* retrieve field code */
-				fieldCode = inflow.getUInt8();
-
-				/* assign field inflow for code */
-				fields[fieldCode] = fieldParser;
-
+			case DECLARE_FIELD: declareField(inflow);
 				break;
 
 			case SET_VALUE : 
@@ -154,4 +183,87 @@ public class LiTypeParser {
 		}
 	}
 	
+
+
+	/**
+	 * Direct-apply version of <code>parse(ByteInflow, List)</code>: values are
+	 * set straight into <code>object</code>, with no intermediate field delta
+	 * (see <code>LiFieldParser.parseValue(ByteInflow, LiObject, BuildScope)</code>).
+	 * 
+	 * @param inflow
+	 * @param object
+	 * @param scope
+	 * @throws IOException
+	 */
+	public void parse(ByteInflow inflow, LiObject object, BuildScope scope) throws IOException {
+		parse(inflow, object, scope, null);
+	}
+
+
+	/**
+	 * Direct-apply version of <code>parse(ByteInflow, List)</code>, reporting set fields.
+	 * 
+	 * @param inflow
+	 * @param object
+	 * @param scope
+	 * @param setFields (optional) flags of the fields set, by ordinal (bitset 
+	 * sized for the type, see <code>LiType.getNumberOfFields</code>)
+	 * @throws IOException
+	 */
+	public void parse(ByteInflow inflow, LiObject object, BuildScope scope, long[] setFields) throws IOException {
+		int code;
+		while((code = inflow.getUInt8()) != CLOSE_NODE) {
+			switch(code) {
+
+			case DECLARE_FIELD: declareField(inflow); break;
+
+			case SET_VALUE : {
+				int fieldCode = inflow.getUInt8();
+				if(setFields != null) {
+					int fieldOrdinal = fields[fieldCode].getField().ordinal;
+					setFields[fieldOrdinal >>> 6] |= 1L << fieldOrdinal;
+				}
+				int ordinal = codecOrdinals != null ? codecOrdinals[fieldCode] : -1;
+				if(ordinal >= 0) { codec.parseValue(ordinal, inflow, object); }
+				else { fields[fieldCode].parseValue(inflow, object, scope); }
+				break;
+			}
+
+			default : throw new IOException("Failed to match keyword: "+Integer.toHexString(code));
+			}
+		}
+	}
+
+
+	private void declareField(ByteInflow inflow) throws IOException {
+
+		/* retrieve name for code */
+		String name = inflow.getStringUTF8();
+
+		/* retrieve inflow field */
+		LiField field = type.getFieldByName(name);
+		if(field == null) {
+			throw new LiIOException("Failed to find field for name = "+name, type.getBaseType());
+		}
+
+		/* retrieve inflow */
+		LiFieldParser fieldParser = field.createParser(inflow);
+		fieldParser.bind(session);
+
+		/* retrieve field code */
+		int fieldCode = inflow.getUInt8();
+
+		/* assign field inflow for code */
+		fields[fieldCode] = fieldParser;
+
+		/* decode through codec if plain encoding matches */
+		if(codecOrdinals == null && (codec = type.getCodec()) != null) {
+			codecOrdinals = new int[fields.length];
+			Arrays.fill(codecOrdinals, -1);
+		}
+		if(codecOrdinals != null) {
+			codecOrdinals[fieldCode] = fieldParser.getPlainEncoding() == codec.getEncoding(field.ordinal) ? field.ordinal : -1;
+		}
+	}
+	
 }
@@ -18,6 +18,7 @@ module com.s8.io.bohr.lithium {
 	exports com.s8.io.bohr.lithium.branches;
 	exports com.s8.io.bohr.lithium.type;
 	exports com.s8.io.bohr.lithium.exceptions;
+	exports com.s8.io.bohr.lithium.storage;
 	
 
 	/* </lithium> */